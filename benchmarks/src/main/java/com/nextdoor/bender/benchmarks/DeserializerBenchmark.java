@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializer;
+import com.nextdoor.bender.deserializer.json.StreamingJsonDeserializer;
+import com.nextdoor.bender.deserializer.regex.Re2jRegexDeserializer;
+import com.nextdoor.bender.deserializer.regex.ReFieldConfig;
+import com.nextdoor.bender.deserializer.regex.ReFieldConfig.ReFieldType;
+import com.nextdoor.bender.deserializer.regex.RegexDeserializer;
+
+/**
+ * Measures the time to deserialize a single log line. The JSON deserializers parse application
+ * logs and the regex deserializers parse ALB access logs. fromString matches events which have
+ * already been decoded and fromBytes matches events read directly from a source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializerBenchmark {
+  private static final int LINES = 1024;
+
+  public enum Impl {
+    GENERIC_JSON, STREAMING_JSON, REGEX, RE2J_REGEX
+  }
+
+  @Param({"GENERIC_JSON", "STREAMING_JSON", "REGEX", "RE2J_REGEX"})
+  public Impl impl;
+
+  private Deserializer deserializer;
+  private String[] lines;
+  private ByteBuffer[] bytes;
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    List<String> input;
+
+    switch (this.impl) {
+      case GENERIC_JSON:
+        this.deserializer = new GenericJsonDeserializer(Collections.emptyList());
+        input = LogPayloads.jsonLogs(LINES);
+        break;
+      case STREAMING_JSON:
+        this.deserializer = new StreamingJsonDeserializer(Collections.emptyList());
+        input = LogPayloads.jsonLogs(LINES);
+        break;
+      case REGEX:
+        this.deserializer = new RegexDeserializer(java.util.regex.Pattern
+            .compile(LogPayloads.ALB_REGEX, java.util.regex.Pattern.DOTALL), albFields());
+        input = LogPayloads.albLogs(LINES);
+        break;
+      case RE2J_REGEX:
+        this.deserializer = new Re2jRegexDeserializer(com.google.re2j.Pattern
+            .compile(LogPayloads.ALB_REGEX, com.google.re2j.Pattern.DOTALL), albFields());
+        input = LogPayloads.albLogs(LINES);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown impl " + this.impl);
+    }
+
+    this.deserializer.init();
+    this.lines = input.toArray(new String[LINES]);
+    this.bytes = new ByteBuffer[LINES];
+    for (int i = 0; i < LINES; i++) {
+      this.bytes[i] = ByteBuffer.wrap(this.lines[i].getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static List<ReFieldConfig> albFields() {
+    List<ReFieldConfig> fields = new ArrayList<ReFieldConfig>(LogPayloads.ALB_FIELDS.length);
+    for (String name : LogPayloads.ALB_FIELDS) {
+      ReFieldType type = ReFieldType.STRING;
+      if (name.endsWith("_port") || name.endsWith("_bytes") || name.endsWith("status_code")
+          || name.endsWith("processing_time")) {
+        type = ReFieldType.NUMBER;
+      }
+      fields.add(new ReFieldConfig(name, type));
+    }
+    return fields;
+  }
+
+  private int next() {
+    this.index = (this.index + 1) & (LINES - 1);
+    return this.index;
+  }
+
+  @Benchmark
+  public DeserializedEvent fromString() {
+    return this.deserializer.deserialize(this.lines[next()]);
+  }
+
+  @Benchmark
+  public DeserializedEvent fromBytes() {
+    return this.deserializer.deserialize(this.bytes[next()].duplicate());
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.utils.EventHash;
+
+/**
+ * Measures the CPU cost per event of hashing. eagerSha1 reproduces creating an event when the
+ * SHA-1 was computed in the InternalEvent constructor, lazyUnused creates an event whose hash is
+ * never read which is the common case, and hashed creates an event and reads
+ * {@link InternalEvent#getEventHash()} with each {@link EventHash} function.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventHashBenchmark {
+  @Param({"128", "1024"})
+  public int eventSize;
+
+  @Param({"SHA1", "XXHASH64", "MURMUR3_128"})
+  public EventHash hashFunction;
+
+  private ByteBuffer raw;
+
+  @Setup
+  public void setup() {
+    StringBuilder sb = new StringBuilder(this.eventSize);
+    sb.append("{\"message\": \"");
+    while (sb.length() < this.eventSize - 2) {
+      sb.append((char) ('a' + sb.length() % 26));
+    }
+    sb.append("\"}");
+
+    this.raw = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+    InternalEvent.setEventHashFunction(this.hashFunction);
+  }
+
+  @TearDown
+  public void tearDown() {
+    InternalEvent.setEventHashFunction(EventHash.SHA1);
+  }
+
+  @Benchmark
+  public String eagerSha1() {
+    InternalEvent ievent = new InternalEvent(this.raw, null, 1);
+    return DigestUtils.sha1Hex(ievent.getEventString());
+  }
+
+  @Benchmark
+  public InternalEvent lazyUnused() {
+    return new InternalEvent(this.raw, null, 1);
+  }
+
+  @Benchmark
+  public String hashed() {
+    return new InternalEvent(this.raw, null, 1).getEventHash();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.nextdoor.bender.deserializer.json.JsonPathProvider;
+
+/**
+ * Compares evaluating the simple paths operations typically use, reading a timestamp, level and
+ * nested http status and replacing the level, with JsonPath against {@link JsonPathProvider}
+ * which evaluates such paths directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldAccessBenchmark {
+  private static final int LINES = 1024;
+
+  private static final String TIMESTAMP = "$.timestamp";
+  private static final String LEVEL = "$.level";
+  private static final String STATUS = "$.http.status";
+
+  public enum Impl {
+    JSONPATH, JSON_PATH_PROVIDER
+  }
+
+  @Param({"JSONPATH", "JSON_PATH_PROVIDER"})
+  public Impl impl;
+
+  private final JsonPath timestampPath = JsonPath.compile(TIMESTAMP);
+  private final JsonPath levelPath = JsonPath.compile(LEVEL);
+  private final JsonPath statusPath = JsonPath.compile(STATUS);
+  private Configuration config;
+  private JsonObject[] payloads;
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    /*
+     * JsonPathProvider sets the Gson defaults the first time it is used
+     */
+    JsonPathProvider.read(new JsonObject(), LEVEL);
+    this.config = Configuration.defaultConfiguration();
+
+    List<String> lines = LogPayloads.jsonLogs(LINES);
+    this.payloads = new JsonObject[LINES];
+    for (int i = 0; i < LINES; i++) {
+      this.payloads[i] = new JsonParser().parse(lines.get(i)).getAsJsonObject();
+    }
+  }
+
+  @Benchmark
+  public Object readAndSet() {
+    this.index = (this.index + 1) & (LINES - 1);
+    JsonObject payload = this.payloads[this.index];
+
+    switch (this.impl) {
+      case JSONPATH:
+        this.timestampPath.read(payload, this.config);
+        this.statusPath.read(payload, this.config);
+        this.levelPath.set(payload, this.levelPath.read(payload, this.config), this.config);
+        return payload;
+      case JSON_PATH_PROVIDER:
+        JsonPathProvider.read(payload, TIMESTAMP);
+        JsonPathProvider.read(payload, STATUS);
+        JsonPathProvider.setField(payload, JsonPathProvider.read(payload, LEVEL), LEVEL);
+        return payload;
+      default:
+        throw new IllegalArgumentException("unknown impl " + this.impl);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializer;
+import com.nextdoor.bender.operation.OperationProcessor;
+import com.nextdoor.bender.operation.delete.DeleteFieldOperationConfig;
+import com.nextdoor.bender.operation.delete.DeleteFieldOperationFactory;
+import com.nextdoor.bender.operation.fork.ForkOperation;
+
+/**
+ * Measures events per second through a {@link ForkOperation} with 2, 4 and 8 forks which each
+ * delete a field. PER_EVENT sizes the queues by the number of operations in each fork and hands
+ * over one event at a time which is how the operation used to behave. BATCHED uses the current
+ * defaults.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForkOperationBenchmark {
+  private static final int EVENTS = 16384;
+
+  public enum Handoff {
+    PER_EVENT, BATCHED
+  }
+
+  @Param({"2", "4", "8"})
+  public int forks;
+
+  @Param({"PER_EVENT", "BATCHED"})
+  public Handoff handoff;
+
+  private InternalEvent[] events;
+  private ForkOperation operation;
+
+  @Setup
+  public void setup() {
+    Deserializer deserializer = new GenericJsonDeserializer(Collections.emptyList());
+    deserializer.init();
+
+    this.events = LogPayloads.events(LogPayloads.jsonLogs(EVENTS));
+    for (InternalEvent ievent : this.events) {
+      ievent.setEventObj(deserializer.deserialize(ievent.getEventString()));
+    }
+
+    List<List<OperationProcessor>> opProcsInForks = new ArrayList<List<OperationProcessor>>();
+    for (int i = 0; i < this.forks; i++) {
+      DeleteFieldOperationConfig config = new DeleteFieldOperationConfig();
+      config.setKeyField("$.user");
+
+      DeleteFieldOperationFactory factory = new DeleteFieldOperationFactory();
+      factory.setConf(config);
+
+      opProcsInForks.add(Arrays.asList(new OperationProcessor(factory)));
+    }
+
+    switch (this.handoff) {
+      case PER_EVENT:
+        this.operation = new ForkOperation(opProcsInForks, 1, 1);
+        break;
+      case BATCHED:
+        this.operation = new ForkOperation(opProcsInForks);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown handoff " + this.handoff);
+    }
+  }
+
+  /**
+   * Each input event produces one output event per fork.
+   */
+  @Benchmark
+  @OperationsPerInvocation(EVENTS)
+  public long fork() {
+    return this.operation.getOutputStream(Arrays.stream(this.events)).count();
+  }
+}
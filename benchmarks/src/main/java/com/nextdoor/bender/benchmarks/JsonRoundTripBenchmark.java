@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.FieldNamingPolicy;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializer;
+import com.nextdoor.bender.deserializer.json.StreamingJsonDeserializer;
+import com.nextdoor.bender.serializer.SerializationException;
+import com.nextdoor.bender.serializer.json.JsonSerializer;
+
+/**
+ * Measures throughput of parsing an application log from bytes and serializing the payload back
+ * to JSON, as a pipeline with a passthrough wrapper does, for the Gson based GenericJson
+ * deserializer and the Jackson based StreamingJson deserializer. STREAMING_JSON_PROJECTED only
+ * parses the fields a typical pipeline reads (time, level and http status) and splices the rest
+ * back verbatim.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRoundTripBenchmark {
+  private static final int LINES = 1024;
+
+  public enum Impl {
+    GENERIC_JSON, STREAMING_JSON, STREAMING_JSON_PROJECTED
+  }
+
+  @Param({"GENERIC_JSON", "STREAMING_JSON", "STREAMING_JSON_PROJECTED"})
+  public Impl impl;
+
+  private final JsonSerializer serializer =
+      new JsonSerializer(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+  private Deserializer deserializer;
+  private ByteBuffer[] bytes;
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    switch (this.impl) {
+      case GENERIC_JSON:
+        this.deserializer = new GenericJsonDeserializer(Collections.emptyList());
+        break;
+      case STREAMING_JSON:
+        this.deserializer = new StreamingJsonDeserializer(Collections.emptyList());
+        break;
+      case STREAMING_JSON_PROJECTED:
+        StreamingJsonDeserializer projected =
+            new StreamingJsonDeserializer(Collections.emptyList());
+        projected.setProjectedFields(Arrays.asList("$.timestamp", "$.level", "$.http.status"));
+        this.deserializer = projected;
+        break;
+      default:
+        throw new IllegalArgumentException("unknown impl " + this.impl);
+    }
+    this.deserializer.init();
+
+    List<String> lines = LogPayloads.jsonLogs(LINES);
+    this.bytes = new ByteBuffer[LINES];
+    for (int i = 0; i < LINES; i++) {
+      this.bytes[i] = ByteBuffer.wrap(lines.get(i).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Benchmark
+  public String parseAndSerialize() throws SerializationException {
+    this.index = (this.index + 1) & (LINES - 1);
+
+    return this.serializer.serialize(
+        this.deserializer.deserialize(this.bytes[this.index].duplicate()).getReadOnlyPayload());
+  }
+}
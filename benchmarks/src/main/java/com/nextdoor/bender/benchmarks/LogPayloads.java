@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.LambdaContext;
+import com.nextdoor.bender.aws.TestContext;
+
+/**
+ * Generates realistic log lines for benchmarks. Lines are built from a fixed seed so every run
+ * sees the same input while still varying field values, lengths and key order the way real logs
+ * do.
+ */
+public class LogPayloads {
+  /**
+   * Matches an Application Load Balancer access log line.
+   */
+  public static final String ALB_REGEX = "([^ ]*) ([^ ]*) ([^ ]*) ([^ ]*):([0-9]*) "
+      + "([^ ]*):([0-9]*) ([.0-9]*) ([.0-9]*) ([.0-9]*) (-|[0-9]*) (-|[0-9]*) ([-0-9]*) "
+      + "([-0-9]*) \"([^ ]*) ([^ ]*) (- |[^ ]*)\" (\"[^\"]*\") ([A-Z0-9-]+) ([A-Za-z0-9.-]*) "
+      + "([^ ]*) ([^ ]*)$";
+
+  /**
+   * Names of the groups in {@link #ALB_REGEX} in order.
+   */
+  public static final String[] ALB_FIELDS = {"type", "timestamp", "elb", "client_ip",
+      "client_port", "target_ip", "target_port", "request_processing_time",
+      "target_processing_time", "response_processing_time", "elb_status_code",
+      "target_status_code", "received_bytes", "sent_bytes", "request_verb", "url", "protocol",
+      "user_agent", "ssl_cipher", "ssl_protocol", "target_group_arn", "trace_id"};
+
+  private static final long SEED = 42;
+
+  private static final String[] LEVELS = {"DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR"};
+  private static final String[] LOGGERS = {"com.example.feed.FeedService",
+      "com.example.auth.SessionFilter", "com.example.search.QueryPlanner",
+      "org.apache.catalina.core.StandardWrapperValve"};
+  private static final String[] VERBS = {"GET", "GET", "GET", "POST", "PUT", "DELETE"};
+  private static final String[] PATHS = {"/api/v2/feed", "/api/v1/users/me", "/api/v2/search",
+      "/api/v1/notifications", "/health", "/static/js/app.5f3c9e.js"};
+  private static final int[] STATUS_CODES = {200, 200, 200, 200, 201, 204, 301, 404, 500, 503};
+  private static final String[] USER_AGENTS = {
+      "Mozilla/5.0 (iPhone; CPU iPhone OS 11_2 like Mac OS X) AppleWebKit/604.4.7 "
+          + "(KHTML, like Gecko) Mobile/15C114",
+      "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+          + "Chrome/65.0.3325.181 Safari/537.36",
+      "okhttp/3.9.1", "ELB-HealthChecker/2.0"};
+  private static final String[] EXPERIMENTS = {"feed_ranker", "ads_density", "search_v3"};
+  private static final String[] BUCKETS = {"control", "a", "b"};
+
+  /**
+   * Application logs as written by a JSON log appender. Each line has nested objects, arrays,
+   * numbers, a URL encoded query string, a key containing a '.' and a client IP.
+   *
+   * @param count number of lines.
+   * @return log lines.
+   */
+  public static List<String> jsonLogs(int count) {
+    Random random = new Random(SEED);
+    List<String> lines = new ArrayList<String>(count);
+
+    for (int i = 0; i < count; i++) {
+      int status = pick(random, STATUS_CODES);
+      String path = pick(random, PATHS);
+      StringBuilder sb = new StringBuilder(1024);
+
+      sb.append("{\"timestamp\": \"2018-04-10T17:").append(twoDigits(i / 60 % 60)).append(':')
+          .append(twoDigits(i % 60)).append('.').append(100 + random.nextInt(900)).append("Z\", ");
+      sb.append("\"level\": \"").append(pick(random, LEVELS)).append("\", ");
+      sb.append("\"logger\": \"").append(pick(random, LOGGERS)).append("\", ");
+      sb.append("\"thread\": \"http-nio-8080-exec-").append(random.nextInt(200)).append("\", ");
+      sb.append("\"message\": \"served ").append(path).append(" for user ")
+          .append(random.nextInt(10_000_000)).append(" in ").append(random.nextInt(500))
+          .append("ms\", ");
+      sb.append("\"http\": {\"method\": \"").append(pick(random, VERBS)).append("\", ");
+      sb.append("\"path\": \"").append(path).append("\", ");
+      sb.append("\"query\": \"after%3D2018-04-10T17%3A00%3A00Z%26limit%3D")
+          .append(10 + random.nextInt(40)).append("\", ");
+      sb.append("\"status\": ").append(status).append(", ");
+      sb.append("\"bytes\": ").append(random.nextInt(100_000)).append(", ");
+      sb.append("\"duration_ms\": ").append(random.nextInt(500)).append('.')
+          .append(random.nextInt(10)).append(", ");
+      sb.append("\"user_agent\": \"").append(pick(random, USER_AGENTS)).append("\"}, ");
+      sb.append("\"client\": {\"ip\": \"").append(ip(random)).append("\", ");
+      sb.append("\"port\": ").append(1024 + random.nextInt(60000)).append("}, ");
+      sb.append("\"user\": {\"id\": ").append(random.nextInt(10_000_000)).append(", ");
+      sb.append("\"Account.Type\": \"").append(random.nextBoolean() ? "member" : "guest")
+          .append("\", \"Is Staff\": ").append(random.nextInt(20) == 0).append("}, ");
+      sb.append("\"tags\": [\"web\", \"").append(status < 400 ? "ok" : "error")
+          .append("\", \"v2\"], ");
+
+      sb.append("\"experiments\": [");
+      int experiments = 1 + random.nextInt(EXPERIMENTS.length);
+      for (int e = 0; e < experiments; e++) {
+        if (e > 0) {
+          sb.append(", ");
+        }
+        sb.append("{\"name\": \"").append(EXPERIMENTS[e]).append("\", \"bucket\": \"")
+            .append(pick(random, BUCKETS)).append("\"}");
+      }
+      sb.append("]}");
+
+      lines.add(sb.toString());
+    }
+
+    return lines;
+  }
+
+  /**
+   * Application Load Balancer access logs as delivered to S3.
+   *
+   * @param count number of lines.
+   * @return log lines.
+   */
+  public static List<String> albLogs(int count) {
+    Random random = new Random(SEED);
+    List<String> lines = new ArrayList<String>(count);
+
+    for (int i = 0; i < count; i++) {
+      StringBuilder sb = new StringBuilder(512);
+      sb.append("https 2018-04-10T17:").append(twoDigits(i / 60 % 60)).append(':')
+          .append(twoDigits(i % 60)).append('.').append(100000 + random.nextInt(900000))
+          .append("Z app/web-prod/50dc6c495c0c9188 ");
+      sb.append(ip(random)).append(':').append(1024 + random.nextInt(60000)).append(' ');
+      sb.append("10.0.").append(random.nextInt(256)).append('.').append(random.nextInt(256))
+          .append(":8080 ");
+      sb.append("0.000 0.").append(String.format("%03d", random.nextInt(1000))).append(" 0.000 ");
+      int status = pick(random, STATUS_CODES);
+      sb.append(status).append(' ').append(status).append(' ');
+      sb.append(random.nextInt(2000)).append(' ').append(random.nextInt(100_000)).append(' ');
+      sb.append('"').append(pick(random, VERBS)).append(" https://www.example.com:443")
+          .append(pick(random, PATHS)).append("?after=2018-04-10T17%3A00%3A00Z&limit=")
+          .append(10 + random.nextInt(40)).append(" HTTP/1.1\" ");
+      sb.append('"').append(pick(random, USER_AGENTS)).append("\" ");
+      sb.append("ECDHE-RSA-AES128-GCM-SHA256 TLSv1.2 ");
+      sb.append("arn:aws:elasticloadbalancing:us-west-2:123456789012:targetgroup/web-prod/"
+          + "73e2d6bc24d8a067 ");
+      sb.append("\"Root=1-5acceb43-").append(Long.toHexString(random.nextLong())).append('"');
+
+      lines.add(sb.toString());
+    }
+
+    return lines;
+  }
+
+  /**
+   * @return context similar to the one passed to a function.
+   */
+  public static LambdaContext lambdaContext() {
+    TestContext ctx = new TestContext();
+    ctx.setFunctionName("bender-benchmark");
+    ctx.setInvokedFunctionArn("arn:aws:lambda:us-west-2:123456789012:function:bender-benchmark");
+    return new LambdaContext(ctx);
+  }
+
+  /**
+   * Creates undecoded events from log lines.
+   *
+   * @param lines log lines.
+   * @return events.
+   */
+  public static InternalEvent[] events(List<String> lines) {
+    LambdaContext ctx = lambdaContext();
+    InternalEvent[] events = new InternalEvent[lines.size()];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = new InternalEvent(lines.get(i), ctx, 1523379731000L + i);
+    }
+    return events;
+  }
+
+  /*
+   * About half of the addresses are in the GeoIP database used by the benchmarks.
+   */
+  private static String ip(Random random) {
+    if (random.nextBoolean()) {
+      return "5.5.5.5";
+    }
+    return (1 + random.nextInt(223)) + "." + random.nextInt(256) + "." + random.nextInt(256) + "."
+        + (1 + random.nextInt(254));
+  }
+
+  private static String twoDigits(int value) {
+    return value < 10 ? "0" + value : Integer.toString(value);
+  }
+
+  private static String pick(Random random, String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static int pick(Random random, int[] values) {
+    return values[random.nextInt(values.length)];
+  }
+}
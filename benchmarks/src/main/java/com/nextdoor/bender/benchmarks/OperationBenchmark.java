@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.maxmind.geoip2.DatabaseReader;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializer;
+import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FilterOperation;
+import com.nextdoor.bender.operation.MultiplexOperation;
+import com.nextdoor.bender.operation.decode.URLDecodeOperation;
+import com.nextdoor.bender.operation.delete.DeleteFieldOperation;
+import com.nextdoor.bender.operation.filter.RegexFilterOperation;
+import com.nextdoor.bender.operation.gelf.GelfOperationConfig;
+import com.nextdoor.bender.operation.gelf.GelfOperationFactory;
+import com.nextdoor.bender.operation.json.PayloadOperation;
+import com.nextdoor.bender.operation.json.array.ArraySplitOperation;
+import com.nextdoor.bender.operation.json.key.FlattenOperation;
+import com.nextdoor.bender.operation.json.key.JsonRootNodeOperation;
+import com.nextdoor.bender.operation.json.key.KeyNameOperation;
+import com.nextdoor.bender.operation.json.key.KeyNameReplacementOperation;
+import com.nextdoor.bender.operation.json.key.LowerCaseKeyOperation;
+import com.nextdoor.bender.operation.json.value.DropArraysOperation;
+import com.nextdoor.bender.operation.substitution.Substitution;
+import com.nextdoor.bender.operation.substitution.SubstitutionOperation;
+import com.nextdoor.bender.operation.substitution.field.FieldSubstitution;
+import com.nextdoor.bender.operation.substitution.regex.RegexSubstitution;
+import com.nextdoor.bender.operation.substitution.regex.RegexSubstitutionConfig.RegexSubField;
+import com.nextdoor.bender.operation.substitution.regex.RegexSubstitutionConfig.RegexSubField.RegexSubFieldType;
+import com.nextdoor.bender.operation.substitution.ztatic.StaticSubstitution;
+import com.nextdoor.bender.operations.geo.GeoIpOperation;
+import com.nextdoor.bender.operations.geo.GeoIpOperationConfig.GeoProperty;
+
+/**
+ * Measures the time for each operation to process a single deserialized application log.
+ * Operations modify events in place so every invocation works on a copy of a deserialized event.
+ * The copy benchmark measures the cost of that copy which should be subtracted from the other
+ * results. PayloadOperation is abstract so PAYLOAD measures its overhead with a body which does
+ * nothing. The key and value operations built on it include this overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperationBenchmark {
+  private static final int LINES = 1024;
+
+  public enum Op {
+    ARRAY_SPLIT, DELETE_FIELD, DROP_ARRAYS, FLATTEN, GELF, GEO_IP, JSON_ROOT_NODE, KEY_NAME,
+    KEY_NAME_REPLACEMENT, LOWER_CASE_KEY, PAYLOAD, REGEX_FILTER, SUBSTITUTION, URL_DECODE
+  }
+
+  @Param({"ARRAY_SPLIT", "DELETE_FIELD", "DROP_ARRAYS", "FLATTEN", "GELF", "GEO_IP",
+      "JSON_ROOT_NODE", "KEY_NAME", "KEY_NAME_REPLACEMENT", "LOWER_CASE_KEY", "PAYLOAD",
+      "REGEX_FILTER", "SUBSTITUTION", "URL_DECODE"})
+  public Op op;
+
+  private Function<InternalEvent, Object> operation;
+  private InternalEvent[] events;
+  private int index = 0;
+
+  @Setup
+  public void setup() throws IOException {
+    Deserializer deserializer = new GenericJsonDeserializer(Collections.emptyList());
+    deserializer.init();
+
+    this.events = LogPayloads.events(LogPayloads.jsonLogs(LINES));
+    for (InternalEvent ievent : this.events) {
+      ievent.setEventObj(deserializer.deserialize(ievent.getEventString()));
+    }
+
+    this.operation = newOperation(this.op);
+  }
+
+  private static Function<InternalEvent, Object> newOperation(Op op) throws IOException {
+    switch (op) {
+      case ARRAY_SPLIT:
+        return multiplex(new ArraySplitOperation("$.experiments", Arrays.asList("timestamp")));
+      case DELETE_FIELD:
+        return event(new DeleteFieldOperation("$.user"));
+      case DROP_ARRAYS:
+        return event(new DropArraysOperation());
+      case FLATTEN:
+        return event(new FlattenOperation("."));
+      case GELF:
+        return event(gelf());
+      case GEO_IP:
+        return event(new GeoIpOperation("$.client.ip", "geo_ip", geoIpDatabase(),
+            Arrays.asList(GeoProperty.COUNTRY_ISO_CODE, GeoProperty.CITY_NAME,
+                GeoProperty.LOCATION),
+            false));
+      case JSON_ROOT_NODE:
+        return event(new JsonRootNodeOperation("$.http"));
+      case KEY_NAME:
+        return event(new KeyNameOperation());
+      case KEY_NAME_REPLACEMENT:
+        return event(new KeyNameReplacementOperation(Pattern.compile("[ .]"), "_", false));
+      case LOWER_CASE_KEY:
+        return event(new LowerCaseKeyOperation());
+      case PAYLOAD:
+        return event(new PayloadOperation() {
+          @Override
+          protected void perform(JsonObject obj) {}
+        });
+      case REGEX_FILTER:
+        return filter(new RegexFilterOperation(Pattern.compile("^/(health|static)"),
+            "$.http.path", true));
+      case SUBSTITUTION:
+        List<Substitution> substitutions = Arrays.asList(
+            new FieldSubstitution("status", Arrays.asList("$.http.status"), false, false, false),
+            new StaticSubstitution("environment", "production", false),
+            new RegexSubstitution(Arrays.asList("$.http.path"),
+                Pattern.compile("/api/(?<version>v[0-9]+)/(?<resource>[a-z]+)"),
+                Arrays.asList(
+                    new RegexSubField("version", RegexSubFieldType.STRING, "api_version"),
+                    new RegexSubField("resource", RegexSubFieldType.STRING, "api_resource")),
+                false, false, false));
+        return event(new SubstitutionOperation(substitutions));
+      case URL_DECODE:
+        return event(new URLDecodeOperation(Arrays.asList("$.http.query"), 1));
+      default:
+        throw new IllegalArgumentException("unknown operation " + op);
+    }
+  }
+
+  private static EventOperation gelf() {
+    GelfOperationConfig config = new GelfOperationConfig();
+    config.setSrcHostField(Arrays.asList("$.client.ip"));
+    config.setSrcShortMessageField(Arrays.asList("$.message"));
+    config.setSrcTimestampField(Arrays.asList("$.timestamp"));
+    config.setSrcLevelField(Arrays.asList("$.level"));
+    config.setSrcFacilityField(Arrays.asList("$.logger"));
+
+    GelfOperationFactory factory = new GelfOperationFactory();
+    factory.setConf(config);
+    return factory.newInstance();
+  }
+
+  private static DatabaseReader geoIpDatabase() throws IOException {
+    try (InputStream is = OperationBenchmark.class.getResourceAsStream("my-ip-data.mmdb")) {
+      return new DatabaseReader.Builder(is).build();
+    }
+  }
+
+  private static Function<InternalEvent, Object> event(EventOperation op) {
+    return op::perform;
+  }
+
+  private static Function<InternalEvent, Object> multiplex(MultiplexOperation op) {
+    return op::perform;
+  }
+
+  private static Function<InternalEvent, Object> filter(FilterOperation op) {
+    return op::test;
+  }
+
+  private InternalEvent next() {
+    this.index = (this.index + 1) & (LINES - 1);
+    return this.events[this.index];
+  }
+
+  @Benchmark
+  public InternalEvent copy() {
+    return next().copy();
+  }
+
+  @Benchmark
+  public Object perform() {
+    return this.operation.apply(next().copy());
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.queue.RingBuffer;
+import com.nextdoor.bender.queue.WaitStrategy;
+import com.oath.cyclops.async.adapters.Queue;
+
+/**
+ * Compares handing events from producer threads to a consumer Stream using the cyclops
+ * {@link Queue} backed by a {@link LinkedBlockingQueue} against {@link RingBuffer}. This mirrors
+ * the reader thread to worker hand off in BaseHandler and the fork/conditional operation queues.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueHandoffBenchmark {
+  private static final int EVENTS = 100_000;
+  private static final int FAN_IN_PRODUCERS = 4;
+
+  public enum Impl {
+    CYCLOPS_QUEUE, RING_BUFFER
+  }
+
+  /**
+   * Minimal common interface over the queues being compared.
+   */
+  private interface Handoff {
+    void offer(InternalEvent ievent);
+
+    void close();
+
+    Stream<InternalEvent> stream();
+  }
+
+  @Param({"CYCLOPS_QUEUE", "RING_BUFFER"})
+  public Impl impl;
+
+  @Param({"500"})
+  public int capacity;
+
+  @Param({"SLEEPING"})
+  public WaitStrategy waitStrategy;
+
+  private InternalEvent[] events;
+
+  @Setup
+  public void setup() {
+    this.events = new InternalEvent[EVENTS];
+    for (int i = 0; i < EVENTS; i++) {
+      this.events[i] = new InternalEvent("event " + i, null, 1);
+    }
+  }
+
+  private Handoff newHandoff(RingBuffer.Producers producers) {
+    switch (this.impl) {
+      case CYCLOPS_QUEUE:
+        Queue<InternalEvent> queue =
+            new Queue<InternalEvent>(new LinkedBlockingQueue<InternalEvent>(this.capacity));
+        return new Handoff() {
+          public void offer(InternalEvent ievent) {
+            queue.offer(ievent);
+          }
+
+          public void close() {
+            queue.close();
+          }
+
+          public Stream<InternalEvent> stream() {
+            return queue.jdkStream();
+          }
+        };
+      case RING_BUFFER:
+        RingBuffer<InternalEvent> buffer =
+            new RingBuffer<InternalEvent>(this.capacity, producers, this.waitStrategy);
+        return new Handoff() {
+          public void offer(InternalEvent ievent) {
+            buffer.offer(ievent);
+          }
+
+          public void close() {
+            buffer.close();
+          }
+
+          public Stream<InternalEvent> stream() {
+            return buffer.stream();
+          }
+        };
+      default:
+        throw new IllegalArgumentException("unknown impl " + this.impl);
+    }
+  }
+
+  /**
+   * One producer thread and one consumer, as between the BaseHandler reader thread and a lane.
+   */
+  @Benchmark
+  @OperationsPerInvocation(EVENTS)
+  public long singleProducer() {
+    Handoff handoff = newHandoff(RingBuffer.Producers.SINGLE);
+
+    new Thread(() -> {
+      for (InternalEvent ievent : this.events) {
+        handoff.offer(ievent);
+      }
+      handoff.close();
+    }).start();
+
+    return handoff.stream().mapToLong(InternalEvent::getArrivalTime).sum();
+  }
+
+  /**
+   * Several producer threads and one consumer, as with the output queue of a fork.
+   */
+  @Benchmark
+  @OperationsPerInvocation(EVENTS)
+  public long multiProducer() {
+    Handoff handoff = newHandoff(RingBuffer.Producers.MULTI);
+    int share = EVENTS / FAN_IN_PRODUCERS;
+
+    List<Thread> producers = new ArrayList<Thread>(FAN_IN_PRODUCERS);
+    for (int p = 0; p < FAN_IN_PRODUCERS; p++) {
+      int start = p * share;
+      Thread t = new Thread(() -> {
+        for (int i = start; i < start + share; i++) {
+          handoff.offer(this.events[i]);
+        }
+      });
+      producers.add(t);
+      t.start();
+    }
+
+    new Thread(() -> {
+      for (Thread t : producers) {
+        try {
+          t.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      handoff.close();
+    }).start();
+
+    return handoff.stream().mapToLong(InternalEvent::getArrivalTime).sum();
+  }
+}
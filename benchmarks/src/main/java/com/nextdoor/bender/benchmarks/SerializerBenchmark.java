@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.lambda.runtime.events.KinesisEvent.KinesisEventRecord;
+import com.amazonaws.services.lambda.runtime.events.KinesisEvent.Record;
+import com.google.gson.FieldNamingPolicy;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.LambdaContext;
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializer;
+import com.nextdoor.bender.handler.kinesis.KinesisInternalEvent;
+import com.nextdoor.bender.handler.s3.S3InternalEvent;
+import com.nextdoor.bender.serializer.SerializationException;
+import com.nextdoor.bender.serializer.json.JsonSerializer;
+import com.nextdoor.bender.wrapper.Wrapper;
+import com.nextdoor.bender.wrapper.basic.BasicWrapper;
+import com.nextdoor.bender.wrapper.kinesis.KinesisWrapper;
+import com.nextdoor.bender.wrapper.passthrough.PassthroughWrapper;
+import com.nextdoor.bender.wrapper.s3.S3Wrapper;
+
+/**
+ * Measures the time to wrap and serialize a single deserialized application log with
+ * {@link JsonSerializer} and each {@link Wrapper}. A new event is created for each invocation, as
+ * the handler does, so wrappers which read the event hash pay for computing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+  private static final int LINES = 1024;
+
+  public enum WrapperType {
+    PASSTHROUGH, BASIC, S3, KINESIS
+  }
+
+  @Param({"PASSTHROUGH", "BASIC", "S3", "KINESIS"})
+  public WrapperType wrapperType;
+
+  private final JsonSerializer serializer =
+      new JsonSerializer(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+  private final LambdaContext ctx = LogPayloads.lambdaContext();
+  private Wrapper wrapper;
+  private ByteBuffer[] raw;
+  private DeserializedEvent[] deserialized;
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    switch (this.wrapperType) {
+      case PASSTHROUGH:
+        this.wrapper = new PassthroughWrapper();
+        break;
+      case BASIC:
+        this.wrapper = new BasicWrapper();
+        break;
+      case S3:
+        this.wrapper = new S3Wrapper();
+        break;
+      case KINESIS:
+        this.wrapper = new KinesisWrapper();
+        break;
+      default:
+        throw new IllegalArgumentException("unknown wrapper " + this.wrapperType);
+    }
+
+    Deserializer deserializer = new GenericJsonDeserializer(Collections.emptyList());
+    deserializer.init();
+
+    List<String> lines = LogPayloads.jsonLogs(LINES);
+    this.raw = new ByteBuffer[LINES];
+    this.deserialized = new DeserializedEvent[LINES];
+    for (int i = 0; i < LINES; i++) {
+      this.raw[i] = ByteBuffer.wrap(lines.get(i).getBytes(StandardCharsets.UTF_8));
+      this.deserialized[i] = deserializer.deserialize(lines.get(i));
+    }
+  }
+
+  private InternalEvent newEvent(int i) {
+    ByteBuffer bytes = this.raw[i].duplicate();
+    long arrivalTime = 1523379731000L + i;
+
+    switch (this.wrapperType) {
+      case S3:
+        return new S3InternalEvent(bytes, this.ctx, arrivalTime, "AWSLogs/123456789012/app.log.gz",
+            "example-logs", "3HL4kqtJlcpXroDTDmJ-rmSpXd3dIbrHY");
+      case KINESIS:
+        Record record = new Record();
+        record.setData(bytes);
+        record.setPartitionKey("partition-" + (i & 7));
+        record.setSequenceNumber("4958845306391000000000000000" + i);
+        record.setApproximateArrivalTimestamp(new Date(arrivalTime));
+
+        KinesisEventRecord eventRecord = new KinesisEventRecord();
+        eventRecord.setKinesis(record);
+        eventRecord.setEventSource("aws:kinesis");
+        eventRecord.setEventSourceARN("arn:aws:kinesis:us-west-2:123456789012:stream/logs");
+        return new KinesisInternalEvent(eventRecord, this.ctx, "shardId-000000000000");
+      default:
+        return new InternalEvent(bytes, this.ctx, arrivalTime);
+    }
+  }
+
+  @Benchmark
+  public String serialize() throws SerializationException {
+    this.index = (this.index + 1) & (LINES - 1);
+
+    InternalEvent ievent = newEvent(this.index);
+    ievent.setEventObj(this.deserialized[this.index]);
+    return this.serializer.serialize(this.wrapper.getWrapped(ievent));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.ipc.TransportBuffer;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.ipc.firehose.FirehoseTransportBufferBatch;
+import com.nextdoor.bender.ipc.firehose.FirehoseTransportSerializer;
+import com.nextdoor.bender.ipc.generic.GenericTransportBuffer;
+import com.nextdoor.bender.ipc.generic.GenericTransportSerializer;
+import com.nextdoor.bender.ipc.s3.S3TransportBuffer;
+import com.nextdoor.bender.ipc.s3.S3TransportSerializer;
+import com.nextdoor.bender.ipc.tcp.TcpTransportBuffer;
+
+/**
+ * Measures the time per event to fill each {@link TransportBuffer} with serialized application
+ * logs and close it, as a transport thread does for every batch. Results are per event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBufferBenchmark {
+  private static final int BATCH_SIZE = 500;
+  private static final long MAX_BYTES = 64 * 1024 * 1024;
+
+  public enum Buffer {
+    GENERIC, GENERIC_GZIP, S3, S3_BZIP2, FIREHOSE_BATCH, TCP
+  }
+
+  @Param({"GENERIC", "GENERIC_GZIP", "S3", "S3_BZIP2", "FIREHOSE_BATCH", "TCP"})
+  public Buffer buffer;
+
+  private final GenericTransportSerializer genericSerializer = new GenericTransportSerializer();
+  private final S3TransportSerializer s3Serializer = new S3TransportSerializer();
+  private final FirehoseTransportSerializer firehoseSerializer =
+      new FirehoseTransportSerializer(true);
+  private InternalEvent[] events;
+
+  @Setup
+  public void setup() {
+    List<String> lines = LogPayloads.jsonLogs(BATCH_SIZE);
+    this.events = LogPayloads.events(lines);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      this.events[i].setSerialized(lines.get(i));
+    }
+  }
+
+  private TransportBuffer newBuffer() throws IOException, TransportException {
+    switch (this.buffer) {
+      case GENERIC:
+        return new GenericTransportBuffer(BATCH_SIZE, false, this.genericSerializer);
+      case GENERIC_GZIP:
+        return new GenericTransportBuffer(BATCH_SIZE, true, this.genericSerializer);
+      case S3:
+        return new S3TransportBuffer(MAX_BYTES, false, this.s3Serializer);
+      case S3_BZIP2:
+        return new S3TransportBuffer(MAX_BYTES, true, this.s3Serializer);
+      case FIREHOSE_BATCH:
+        return new FirehoseTransportBufferBatch(this.firehoseSerializer);
+      case TCP:
+        return new TcpTransportBuffer(MAX_BYTES, this.genericSerializer);
+      default:
+        throw new IllegalArgumentException("unknown buffer " + this.buffer);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public Object fillAndClose() throws IOException, TransportException {
+    TransportBuffer buf = newBuffer();
+    for (InternalEvent ievent : this.events) {
+      buf.add(ievent);
+    }
+    buf.close();
+    return buf.getInternalBuffer();
+  }
+}
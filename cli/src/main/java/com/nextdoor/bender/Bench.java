@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ */
+
+package com.nextdoor.bender;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.amazonaws.services.lambda.runtime.events.KinesisEvent;
+import com.nextdoor.bender.aws.TestContext;
+import com.nextdoor.bender.handler.HandlerException;
+import com.nextdoor.bender.handler.kinesis.KinesisHandler;
+import com.nextdoor.bender.monitoring.Monitor;
+import com.nextdoor.bender.monitoring.Reporter;
+import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.monitoring.StatFilter;
+import com.nextdoor.bender.monitoring.Tag;
+
+/**
+ * Measures the end to end throughput of a configuration by repeatedly invoking the
+ * {@link KinesisHandler} with the same input. Warm-up iterations let the JIT compile the hot paths
+ * before the measured iterations run. The per stage breakdown comes from the timing stats each
+ * processor already reports, so configure the devnull transport unless the sink itself is being
+ * measured.
+ */
+public class Bench {
+  private static final Logger logger = Logger.getLogger(Bench.class);
+  private static final String STREAM_NAME = "bench-stream";
+
+  private final List<byte[]> records;
+  private final int warmupIterations;
+  private final int iterations;
+
+  public Bench(List<byte[]> records, int warmupIterations, int iterations) {
+    this.records = records;
+    this.warmupIterations = warmupIterations;
+    this.iterations = iterations;
+  }
+
+  /**
+   * Reads each line of a local file as a record.
+   *
+   * @param file path to the file.
+   * @return records.
+   * @throws IOException if the file can not be read.
+   */
+  public static List<byte[]> readRecords(String file) throws IOException {
+    List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+    List<byte[]> records = new ArrayList<byte[]>(lines.size());
+    for (String line : lines) {
+      records.add(line.getBytes(StandardCharsets.UTF_8));
+    }
+    return records;
+  }
+
+  /**
+   * Generates JSON application logs. A fixed seed is used so runs are comparable.
+   *
+   * @param count number of records.
+   * @return records.
+   */
+  public static List<byte[]> syntheticRecords(int count) {
+    String[] levels = {"DEBUG", "INFO", "INFO", "WARN", "ERROR"};
+    String[] paths = {"/api/v2/feed", "/api/v1/users/me", "/api/v2/search", "/health"};
+    int[] statuses = {200, 200, 200, 201, 304, 404, 500};
+
+    Random random = new Random(42);
+    List<byte[]> records = new ArrayList<byte[]>(count);
+    long epochMs = 1523379731000L;
+
+    for (int i = 0; i < count; i++) {
+      String path = paths[random.nextInt(paths.length)];
+      String line = String.format("{\"timestamp\": %d, \"level\": \"%s\", "
+          + "\"logger\": \"com.example.web.RequestLogger\", "
+          + "\"message\": \"served %s in %dms\", "
+          + "\"http\": {\"method\": \"GET\", \"path\": \"%s\", \"status\": %d, \"bytes\": %d, "
+          + "\"user_agent\": \"Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36\"}, "
+          + "\"client\": {\"ip\": \"10.%d.%d.%d\", \"port\": %d}, "
+          + "\"user\": {\"id\": %d, \"Account.Type\": \"%s\"}, "
+          + "\"tags\": [\"web\", \"v2\"]}",
+          epochMs + i, levels[random.nextInt(levels.length)], path, random.nextInt(500), path,
+          statuses[random.nextInt(statuses.length)], random.nextInt(100_000),
+          random.nextInt(256), random.nextInt(256), random.nextInt(256),
+          1024 + random.nextInt(60000), random.nextInt(10_000_000),
+          random.nextBoolean() ? "member" : "guest");
+      records.add(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    return records;
+  }
+
+  /**
+   * Runs the warm-up and measured iterations and prints a report.
+   *
+   * @param out where to print the report.
+   * @throws HandlerException if an invocation fails.
+   */
+  public void run(PrintStream out) throws HandlerException {
+    KinesisHandler handler = new KinesisHandler();
+    TestContext ctx = Bender.getContext();
+    StageReporter reporter = new StageReporter();
+    Monitor.getInstance().addReporters(Collections.singletonList(reporter));
+
+    logger.info("Running " + this.warmupIterations + " warm-up iterations of "
+        + this.records.size() + " records...");
+    for (int i = 0; i < this.warmupIterations; i++) {
+      invoke(handler, ctx);
+    }
+
+    logger.info("Running " + this.iterations + " measured iterations...");
+    reporter.setRecording(true);
+    long gcCountBefore = gcCount();
+    long gcTimeBefore = gcTimeMs();
+    resetPeakHeap();
+
+    long elapsedNs = 0;
+    for (int i = 0; i < this.iterations; i++) {
+      elapsedNs += invoke(handler, ctx);
+    }
+
+    reporter.setRecording(false);
+    long gcCount = gcCount() - gcCountBefore;
+    long gcTimeMs = gcTimeMs() - gcTimeBefore;
+    long peakHeap = peakHeap();
+
+    handler.shutdown();
+
+    double seconds = elapsedNs / 1e9;
+    out.println();
+    out.printf("iterations            %d x %d records%n", this.iterations, this.records.size());
+    out.printf("elapsed               %.3f s%n", seconds);
+    out.printf("events/s              %.0f%n", reporter.events / seconds);
+    out.printf("input bytes/s         %.0f%n", reporter.eventBytes / seconds);
+    out.printf("serialized bytes/s    %.0f%n", reporter.serializedBytes / seconds);
+    out.printf("gc                    %d collections, %d ms (%.1f%%)%n", gcCount, gcTimeMs,
+        100.0 * gcTimeMs / TimeUnit.NANOSECONDS.toMillis(Math.max(elapsedNs, 1_000_000)));
+    out.printf("peak heap             %.1f MB%n", peakHeap / (1024.0 * 1024.0));
+
+    /*
+     * Stages can run concurrently so their times may add up to more than the elapsed time.
+     */
+    out.println();
+    out.printf("%-64s %12s %10s%n", "stage", "total ms", "ns/event");
+    for (Map.Entry<String, Long> stage : reporter.stageNanos.entrySet()) {
+      out.printf("%-64s %12.1f %10.0f%n", stage.getKey(), stage.getValue() / 1e6,
+          reporter.events == 0 ? 0.0 : (double) stage.getValue() / reporter.events);
+    }
+  }
+
+  /**
+   * @return nanoseconds spent in the handler.
+   */
+  private long invoke(KinesisHandler handler, TestContext ctx) throws HandlerException {
+    KinesisEvent kevent = Bender.createKinesisEvent(STREAM_NAME, this.records, new Date());
+
+    long start = System.nanoTime();
+    handler.handler(kevent, ctx);
+    return System.nanoTime() - start;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(gc.getCollectionCount(), 0);
+    }
+    return count;
+  }
+
+  private static long gcTimeMs() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(gc.getCollectionTime(), 0);
+    }
+    return time;
+  }
+
+  private static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /*
+   * Sum of the peak of each heap pool. Pools peak at different times so this is an upper bound.
+   */
+  private static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  /**
+   * Accumulates the stats written after each invocation while recording.
+   */
+  private static class StageReporter implements Reporter {
+    private final Map<String, Long> stageNanos = new TreeMap<String, Long>();
+    private volatile boolean recording = false;
+    private long events = 0;
+    private long eventBytes = 0;
+    private long serializedBytes = 0;
+
+    void setRecording(boolean recording) {
+      this.recording = recording;
+    }
+
+    @Override
+    public synchronized void write(ArrayList<Stat> stats, long invokeTimeMs, Set<Tag> tags) {
+      if (!this.recording) {
+        return;
+      }
+
+      for (Stat stat : stats) {
+        switch (stat.getName()) {
+          case "event.count":
+            this.events += stat.getValue();
+            break;
+          case "event.byte_size":
+            this.eventBytes += stat.getValue();
+            break;
+          case "serializer.serialized_bytes":
+            this.serializedBytes += stat.getValue();
+            break;
+          case "timing.ns":
+            String stage = stat.getTags().stream().filter(t -> t.getKey().equals("class"))
+                .map(Tag::getValue).findFirst().orElse(null);
+            if (stage != null) {
+              this.stageNanos.merge(stage, stat.getValue(), Long::sum);
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+
+    @Override
+    public List<StatFilter> getStatFilters() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.amazonaws.services.s3.event.S3EventNotification.S3ObjectEntity;
 import com.nextdoor.bender.handler.s3.S3Handler;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
@@ -65,6 +66,12 @@ public class Bender {
    */
   private static final String KINESIS_STREAM_NAME = "log-stream";
 
+  /*
+   * Defaults for bench mode.
+   */
+  private static final String WARMUP_ITERATIONS = "3";
+  private static final String ITERATIONS = "10";
+
   /*
    * Global defaults that are not yet overridable, but one day may be configurable on the CLI.
    */
@@ -88,18 +95,36 @@ public class Bender {
         .desc("Which Event Handler do you want to simulate? \n"
             + "Your options are: KinesisHandler, S3Handler. \n" + "Default: KinesisHandler")
         .build();
-    Option source_file = Option.builder("s").longOpt("source_file").required().hasArg()
+    Option source_file = Option.builder("s").longOpt("source_file").hasArg()
         .desc("Reference to the file that you want to process. Usage depends "
             + "on the Handler you chose. If you chose KinesisHandler "
             + "then this is a local file (file://path/to/file). If you chose "
             + "S3Handler, then this is the path to the file in S3 that you want to process "
-            + "(s3://bucket/file...)")
+            + "(s3://bucket/file...). In bench mode this is a local file of records and "
+            + "is not required when --synthetic_events is used.")
         .build();
     Option kinesis_stream_name = Option.builder().longOpt("kinesis_stream_name").hasArg()
         .desc("What stream name should we mimic? " + "Default: " + KINESIS_STREAM_NAME
             + " (Kinesis Handler Only)")
         .build();
 
+    Option bench = Option.builder("b").longOpt("bench")
+        .desc("Measure throughput instead of processing the source file once. Records are "
+            + "replayed through the KinesisHandler and events/s, bytes/s, time per stage, GC "
+            + "time and peak heap are printed. Configure the devnull transport to measure "
+            + "Bender without the sink.")
+        .build();
+    Option warmup_iterations = Option.builder().longOpt("warmup_iterations").hasArg()
+        .desc("Invocations to run before measuring. Default: " + WARMUP_ITERATIONS
+            + " (Bench mode only)")
+        .build();
+    Option iterations = Option.builder().longOpt("iterations").hasArg()
+        .desc("Invocations to measure. Default: " + ITERATIONS + " (Bench mode only)").build();
+    Option synthetic_events = Option.builder().longOpt("synthetic_events").hasArg()
+        .desc("Generate this many JSON log records instead of reading a source file. "
+            + "(Bench mode only)")
+        .build();
+
     /*
      * Build out the option handler and parse the options
      */
@@ -108,6 +133,10 @@ public class Bender {
     options.addOption(handler);
     options.addOption(kinesis_stream_name);
     options.addOption(source_file);
+    options.addOption(bench);
+    options.addOption(warmup_iterations);
+    options.addOption(iterations);
+    options.addOption(synthetic_events);
 
     /*
      * Prepare our help formatter
@@ -146,6 +175,45 @@ public class Bender {
       System.exit(0);
     }
 
+    if (cmd.hasOption(bench.getLongOpt())) {
+      try {
+        List<byte[]> records;
+        if (cmd.hasOption(synthetic_events.getLongOpt())) {
+          records = Bench.syntheticRecords(
+              Integer.parseInt(cmd.getOptionValue(synthetic_events.getLongOpt())));
+        } else if (cmd.hasOption(source_file.getLongOpt())) {
+          records = Bench.readRecords(cmd.getOptionValue(source_file.getLongOpt()));
+        } else {
+          throw new MissingOptionException(
+              "Bench mode requires either --source_file or --synthetic_events");
+        }
+
+        new Bench(records,
+            Integer.parseInt(
+                cmd.getOptionValue(warmup_iterations.getLongOpt(), WARMUP_ITERATIONS)),
+            Integer.parseInt(cmd.getOptionValue(iterations.getLongOpt(), ITERATIONS)))
+                .run(System.out);
+      } catch (MissingOptionException | NumberFormatException e) {
+        logger.error(e.getMessage());
+        formatter.printHelp(name, options);
+        System.exit(1);
+      } catch (IOException e) {
+        logger.error("Could not read source file: " + e);
+        System.exit(1);
+      } catch (HandlerException e) {
+        logger.error("Error executing handler: " + e);
+        System.exit(1);
+      }
+
+      System.exit(0);
+    }
+
+    if (!cmd.hasOption(source_file.getLongOpt())) {
+      logger.error("Missing required option: " + source_file.getLongOpt());
+      formatter.printHelp(name, options);
+      System.exit(1);
+    }
+
     /*
      * Depending on the desired Handler, we invoke a specific method and pass in the options (or
      * defaults) required for that handler.
@@ -248,8 +316,6 @@ public class Bender {
 
   protected static void invokeKinesisHandler(String stream_name, String source_file)
       throws HandlerException {
-    String sourceArn =
-        "arn:aws:kinesis:" + AWS_REGION + ":" + AWS_ACCOUNT + ":stream/" + stream_name;
     logger.info("Invoking the Kinesis Handler...");
 
     TestContext ctx = getContext();
@@ -278,17 +344,47 @@ public class Bender {
      */
     logger.info("Parsing " + source_file + "...");
 
-    List<KinesisEvent.KinesisEventRecord> events = new ArrayList<KinesisEvent.KinesisEventRecord>();
-    int r = 0;
+    List<byte[]> lines = new ArrayList<byte[]>();
 
     /*
-     * Walk through the source file. For each line in the file, turn the line into a KinesisRecord.
+     * Walk through the source file. Each line in the file becomes a KinesisRecord.
      */
     while (scan.hasNextLine()) {
-      String line = scan.nextLine();
+      lines.add(scan.nextLine().getBytes());
+    }
+
+    logger.info("Read " + lines.size() + " records");
+
+    KinesisEvent kevent = createKinesisEvent(stream_name, lines, approximateArrivalTimestamp);
+
+    /*
+     * Invoke handler
+     */
+    handler.handler(kevent, ctx);
+    handler.shutdown();
+  }
+
+  /**
+   * Creates the main Kinesis Event object which holds all of the records that will be passed into
+   * the Kinesis Handler. All of these records are treated as a single batch that was pushed to
+   * Kinesis, so they all have the same arrival time.
+   *
+   * @param stream_name name of the stream the records came from.
+   * @param lines data of each record.
+   * @param approximateArrivalTimestamp arrival time of the records.
+   * @return KinesisEvent
+   */
+  protected static KinesisEvent createKinesisEvent(String stream_name, List<byte[]> lines,
+      Date approximateArrivalTimestamp) {
+    String sourceArn =
+        "arn:aws:kinesis:" + AWS_REGION + ":" + AWS_ACCOUNT + ":stream/" + stream_name;
+    List<KinesisEvent.KinesisEventRecord> events =
+        new ArrayList<KinesisEvent.KinesisEventRecord>(lines.size());
+
+    for (int r = 0; r < lines.size(); r++) {
       Record rec = new Record();
       rec.withPartitionKey("1").withSequenceNumber(r + "")
-          .withData(ByteBuffer.wrap(line.getBytes()))
+          .withData(ByteBuffer.wrap(lines.get(r)))
           .withApproximateArrivalTimestamp(approximateArrivalTimestamp);
 
       KinesisEventRecord krecord = new KinesisEventRecord();
@@ -296,24 +392,11 @@ public class Bender {
       krecord.setEventSourceARN(sourceArn);
       krecord.setEventID("shardId-000000000000:" + UUID.randomUUID());
       events.add(krecord);
-
-      r += 1;
     }
 
-    logger.info("Read " + r + " records");
-
-    /*
-     * Create the main Kinesis Event object - this holds all of the data and records that will be
-     * passed into the Kinesis Handler.
-     */
     KinesisEvent kevent = new KinesisEvent();
     kevent.setRecords(events);
-
-    /*
-     * Invoke handler
-     */
-    handler.handler(kevent, ctx);
-    handler.shutdown();
+    return kevent;
   }
 
   /**
@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A group of {@link InternalEvent}s which are passed through the pipeline together. Processing
+ * stages operate on an entire batch per call so that timers and bookkeeping happen once per batch
+ * instead of once per event.
+ *
+ * Stages may replace events in place with {@link #set(int, InternalEvent)} or mark them with
+ * {@link #fail(int, Exception)}. Failed slots and slots which were set to null are removed by
+ * {@link #compact()}.
+ */
+public class EventBatch implements Iterable<InternalEvent> {
+  private final ArrayList<InternalEvent> events;
+  private final BitSet failed = new BitSet();
+  private Map<Integer, Exception> failures = Collections.emptyMap();
+
+  public EventBatch() {
+    this(16);
+  }
+
+  /**
+   * @param capacity expected number of events in the batch.
+   */
+  public EventBatch(int capacity) {
+    this.events = new ArrayList<InternalEvent>(capacity);
+  }
+
+  public EventBatch(List<InternalEvent> events) {
+    this.events = new ArrayList<InternalEvent>(events);
+  }
+
+  public void add(InternalEvent ievent) {
+    this.events.add(ievent);
+  }
+
+  public void addAll(List<InternalEvent> ievents) {
+    this.events.addAll(ievents);
+  }
+
+  public InternalEvent get(int index) {
+    return this.events.get(index);
+  }
+
+  public void set(int index, InternalEvent ievent) {
+    this.events.set(index, ievent);
+  }
+
+  /**
+   * Marks the event at the given index as failed and records the reason. The slot is removed on
+   * the next call to {@link #compact()}.
+   *
+   * @param index position of the event which failed.
+   * @param e cause of the failure.
+   */
+  public void fail(int index, Exception e) {
+    this.failed.set(index);
+
+    if (this.failures.isEmpty()) {
+      this.failures = new TreeMap<Integer, Exception>();
+    }
+    this.failures.put(index, e);
+  }
+
+  public boolean isFailed(int index) {
+    return this.failed.get(index);
+  }
+
+  /**
+   * @param index position of an event.
+   * @return reason the event at the given index failed or null if it did not fail.
+   */
+  public Exception getFailure(int index) {
+    return this.failures.get(index);
+  }
+
+  /**
+   * @return failures recorded since the last call to {@link #compact()} ordered by position.
+   */
+  public Collection<Exception> getFailures() {
+    return this.failures.values();
+  }
+
+  /**
+   * Removes failed and null slots from the batch while keeping the order of the remaining events.
+   * Recorded failures are cleared.
+   */
+  public void compact() {
+    int write = 0;
+    int size = this.events.size();
+
+    for (int read = 0; read < size; read++) {
+      InternalEvent ievent = this.events.get(read);
+      if (ievent != null && !this.failed.get(read)) {
+        this.events.set(write++, ievent);
+      }
+    }
+
+    this.events.subList(write, size).clear();
+    this.failed.clear();
+    this.failures = Collections.emptyMap();
+  }
+
+  public int size() {
+    return this.events.size();
+  }
+
+  public boolean isEmpty() {
+    return this.events.isEmpty();
+  }
+
+  public List<InternalEvent> getEvents() {
+    return this.events;
+  }
+
+  public Stream<InternalEvent> stream() {
+    return this.events.stream();
+  }
+
+  @Override
+  public Iterator<InternalEvent> iterator() {
+    return this.events.iterator();
+  }
+
+  /**
+   * Lazily groups a stream of events into batches. A batch is emitted once it is full or the input
+   * stream has ended, so the last batch may be smaller than batchSize.
+   *
+   * @param input events to group.
+   * @param batchSize maximum number of events in each batch.
+   * @return stream of batches.
+   */
+  public static Stream<EventBatch> batches(Stream<InternalEvent> input, int batchSize) {
+    Iterator<InternalEvent> it = input.iterator();
+
+    Spliterator<EventBatch> spliterator =
+        new Spliterators.AbstractSpliterator<EventBatch>(Long.MAX_VALUE, Spliterator.ORDERED) {
+          @Override
+          public boolean tryAdvance(Consumer<? super EventBatch> action) {
+            if (!it.hasNext()) {
+              return false;
+            }
+
+            EventBatch batch = new EventBatch(batchSize);
+            while (batch.size() < batchSize && it.hasNext()) {
+              batch.add(it.next());
+            }
+
+            action.accept(batch);
+            return true;
+          }
+        };
+
+    return StreamSupport.stream(spliterator, false).onClose(input::close);
+  }
+}
@@ -15,26 +15,49 @@
 
 package com.nextdoor.bender;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import org.apache.commons.codec.digest.DigestUtils;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.utils.EventHash;
 
 /**
  * An object that abstracts away the events the function was triggered with and their origin.
+ *
+ * Events may be backed by either a String or by UTF-8 encoded bytes. Byte backed events are only
+ * decoded into a String when {@link #getEventString()} is first called which allows
+ * {@link com.nextdoor.bender.deserializer.Deserializer}s that read bytes to skip decoding
+ * entirely.
+ *
+ * Hashes of the original event are computed on first use rather than when the event is created as
+ * most configurations never read them.
  */
 public class InternalEvent {
-  private final String eventString;
+  public static final String SHA1_HASH_METADATA_KEY = "eventSha1Hash";
+
+  private static volatile EventHash eventHashFunction = EventHash.SHA1;
+
+  private String eventString;
+  private final ByteBuffer eventBytes;
   private final LambdaContext context;
-  private final String eventSha1Hash;
+  private String eventSha1Hash;
+  private String eventHash;
   private final long arrivalTime;
   protected DeserializedEvent eventObj;
   private String serialized;
   private LinkedHashMap<String, String> partitions;
   private long eventTime;
-  private final Map<String, Object> metadata = new HashMap<String, Object>(6);
+  private Map<String, Object> metadata = new HashMap<String, Object>(6);
+
+  /*
+   * Set when the partitions or metadata maps may be referenced by copies of this event. Shared
+   * maps are copied before they are handed out or modified.
+   */
+  private boolean partitionsShared = false;
+  private boolean metadataShared = false;
 
   /**
    * @param eventString the raw string data of the event.
@@ -43,13 +66,30 @@ public class InternalEvent {
    */
   public InternalEvent(String eventString, LambdaContext context, long arrivalTime) {
     this.eventString = eventString;
+    this.eventBytes = null;
     this.context = context;
-    this.eventSha1Hash = DigestUtils.sha1Hex(this.eventString);
     this.arrivalTime = arrivalTime;
     this.eventTime = arrivalTime;
 
     this.metadata.put("arrivalEpochMs", new Long(this.arrivalTime));
-    this.metadata.put("eventSha1Hash", this.getEventSha1Hash());
+    this.metadata.put(SHA1_HASH_METADATA_KEY, null);
+  }
+
+  /**
+   * @param eventBytes the raw UTF-8 encoded data of the event. The remaining bytes of the buffer
+   *        are used and the buffer must not be modified afterwards.
+   * @param context lambda context of the function.
+   * @param arrivalTime epoch time in MS when the event arrived.
+   */
+  public InternalEvent(ByteBuffer eventBytes, LambdaContext context, long arrivalTime) {
+    this.eventString = null;
+    this.eventBytes = eventBytes.slice();
+    this.context = context;
+    this.arrivalTime = arrivalTime;
+    this.eventTime = arrivalTime;
+
+    this.metadata.put("arrivalEpochMs", new Long(this.arrivalTime));
+    this.metadata.put(SHA1_HASH_METADATA_KEY, null);
   }
 
   /**
@@ -58,31 +98,58 @@ public class InternalEvent {
    * @param other event to copy
    */
   private InternalEvent(InternalEvent other) {
-    this.eventString = new String(other.getEventString());
+    this.eventString = other.eventString;
+    this.eventBytes = other.eventBytes;
     this.context = other.context;
-    this.eventSha1Hash = other.getEventSha1Hash();
+    this.eventSha1Hash = other.eventSha1Hash;
+    this.eventHash = other.eventHash;
     this.arrivalTime = other.getArrivalTime();
     this.eventTime = other.getEventTime();
     this.serialized = other.getSerialized();
 
-    if (other.getPartitions() == null) {
-      this.partitions = null;
-    } else {
-      this.partitions = new LinkedHashMap<String, String>(other.getPartitions());
+    /*
+     * Partitions of subclasses are computed by getPartitions() so only maps held by plain events
+     * can be shared.
+     */
+    if (other.getClass() != InternalEvent.class) {
+      LinkedHashMap<String, String> otherPartitions = other.getPartitions();
+      if (otherPartitions != null) {
+        this.partitions = new LinkedHashMap<String, String>(otherPartitions);
+      }
+    } else if (other.partitions != null) {
+      this.partitions = other.partitions;
+      this.partitionsShared = true;
+      other.partitionsShared = true;
     }
 
     /*
-     * We rely on the implementation to provide a deep copy here.
+     * The implementation is responsible for isolating the copy. It may share the payload and copy
+     * it on write.
      */
     if (other.getEventObj() != null) {
       this.eventObj = other.getEventObj().copy();
     }
 
     /*
-     * Note that this is a shallow copy of the metadata. Some metadata elements are reused across
+     * Note that the metadata values are never copied. Some metadata elements are reused across
      * multiple events within a function invocation.
      */
-    this.metadata.putAll(other.metadata);
+    this.metadata = other.metadata;
+    this.metadataShared = true;
+    other.metadataShared = true;
+  }
+
+  /**
+   * Sets the hash function used by {@link #getEventHash()} for all events.
+   *
+   * @param hashFunction hash function to use.
+   */
+  public static void setEventHashFunction(EventHash hashFunction) {
+    eventHashFunction = hashFunction;
+  }
+
+  public static EventHash getEventHashFunction() {
+    return eventHashFunction;
   }
 
   /**
@@ -90,6 +157,16 @@ public class InternalEvent {
    *         Lambda Event that invoked the function.
    */
   public Map<String, Object> getEventMetadata() {
+    ownMetadata();
+
+    /*
+     * The hash entry is added with a null value when the event is created so that replacing it
+     * here does not change the iteration order of the metadata.
+     */
+    if (this.metadata.get(SHA1_HASH_METADATA_KEY) == null) {
+      this.metadata.put(SHA1_HASH_METADATA_KEY, getEventSha1Hash());
+    }
+
     return this.metadata;
   }
 
@@ -97,9 +174,17 @@ public class InternalEvent {
    * Allows classes that extend InternalEvent to add their own metadata.
    */
   protected void addMetadata(String key, Object value) {
+    ownMetadata();
     this.metadata.put(key, value);
   }
 
+  private void ownMetadata() {
+    if (this.metadataShared) {
+      this.metadata = new HashMap<String, Object>(this.metadata);
+      this.metadataShared = false;
+    }
+  }
+
   /**
    * @return time the event arrived
    */
@@ -108,10 +193,52 @@ public class InternalEvent {
   }
 
   /**
-   * @return original event string.
+   * @return original event string. If the event is backed by bytes they are decoded on the first
+   *         call.
    */
   public String getEventString() {
-    return eventString;
+    if (this.eventString == null && this.eventBytes != null) {
+      if (this.eventBytes.hasArray()) {
+        this.eventString = new String(this.eventBytes.array(),
+            this.eventBytes.arrayOffset() + this.eventBytes.position(),
+            this.eventBytes.remaining(), StandardCharsets.UTF_8);
+      } else {
+        this.eventString = StandardCharsets.UTF_8.decode(this.eventBytes.duplicate()).toString();
+      }
+    }
+
+    return this.eventString;
+  }
+
+  /**
+   * @return original UTF-8 encoded event bytes or null if the event is backed by a String. The
+   *         returned buffer may be read freely but must not be modified.
+   */
+  public ByteBuffer getEventBytes() {
+    if (this.eventBytes == null) {
+      return null;
+    }
+
+    return this.eventBytes.duplicate();
+  }
+
+  /**
+   * @return true if {@link #getEventString()} can return without decoding bytes.
+   */
+  public boolean isEventStringDecoded() {
+    return this.eventString != null || this.eventBytes == null;
+  }
+
+  /**
+   * @return size of the original event. This is the number of bytes for byte backed events and the
+   *         number of characters for String backed events.
+   */
+  public int getEventSize() {
+    if (this.eventBytes != null) {
+      return this.eventBytes.remaining();
+    }
+
+    return this.eventString == null ? 0 : this.eventString.length();
   }
 
   /**
@@ -139,10 +266,39 @@ public class InternalEvent {
   }
 
   /**
-   * @return SHA1 hash of the original event String.
+   * @return SHA1 hash of the original event String. Computed on the first call.
    */
   public String getEventSha1Hash() {
-    return eventSha1Hash;
+    if (this.eventSha1Hash == null) {
+      this.eventSha1Hash = hash(EventHash.SHA1);
+    }
+
+    return this.eventSha1Hash;
+  }
+
+  /**
+   * @return hash of the original event using the function set with
+   *         {@link #setEventHashFunction(EventHash)}. Computed on the first call.
+   */
+  public String getEventHash() {
+    EventHash function = eventHashFunction;
+    if (function == EventHash.SHA1) {
+      return getEventSha1Hash();
+    }
+
+    if (this.eventHash == null) {
+      this.eventHash = hash(function);
+    }
+
+    return this.eventHash;
+  }
+
+  private String hash(EventHash function) {
+    if (this.eventBytes != null) {
+      return function.hash(this.eventBytes);
+    }
+
+    return function.hash(this.eventString);
   }
 
   /**
@@ -159,8 +315,19 @@ public class InternalEvent {
     this.serialized = serialized;
   }
 
+  /**
+   * Key used to keep related events in order when a handler processes events with more than one
+   * worker lane. Events with the same key are always processed by the same lane.
+   *
+   * @return ordering key or null if the event has no ordering requirements.
+   */
+  public String getOrderingKey() {
+    return null;
+  }
+
   public void setPartitions(LinkedHashMap<String, String> partitions) {
     this.partitions = partitions;
+    this.partitionsShared = false;
   }
 
   /**
@@ -168,6 +335,11 @@ public class InternalEvent {
    *         called.
    */
   public LinkedHashMap<String, String> getPartitions() {
+    if (this.partitionsShared) {
+      this.partitions = new LinkedHashMap<String, String>(this.partitions);
+      this.partitionsShared = false;
+    }
+
     return partitions;
   }
 
@@ -182,7 +354,9 @@ public class InternalEvent {
   }
 
   /**
-   * This is useful for operations that want to output multiple copies of the input event.
+   * This is useful for operations that want to output multiple copies of the input event. The
+   * copy shares the partitions, metadata and payload with this event until either event modifies
+   * them.
    *
    * @return new event with a copy of all properties from this event.
    */
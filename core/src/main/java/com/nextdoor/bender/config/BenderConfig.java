@@ -51,6 +51,8 @@ import com.kjetland.jackson.jsonSchema.JsonSchemaGenerator;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaTitle;
 import com.nextdoor.bender.aws.AmazonS3ClientFactory;
+import com.nextdoor.bender.deadletter.DeadLetterConfig;
+import com.nextdoor.bender.dedup.DedupConfig;
 import com.nextdoor.bender.handler.HandlerConfig;
 import com.nextdoor.bender.ipc.TransportConfig;
 import com.nextdoor.bender.monitoring.ReporterConfig;
@@ -95,6 +97,16 @@ public class BenderConfig {
   @JsonSchemaDescription("Transport configuration")
   private TransportConfig transportConfig;
 
+  @JsonSchemaDescription("Dead letter configuration. When not set a batch which fails to send "
+      + "fails the invocation.")
+  @JsonProperty(required = false)
+  private DeadLetterConfig deadLetterConfig;
+
+  @JsonSchemaDescription("Duplicate suppression configuration. When not set events are never "
+      + "dropped as duplicates.")
+  @JsonProperty(required = false)
+  private DedupConfig dedupConfig;
+
   @JsonSchemaDescription("List of reporter configurations")
   private List<ReporterConfig> reporters = Collections.emptyList();
 
@@ -444,6 +456,26 @@ public class BenderConfig {
     this.serializerConfig = serializerConfig;
   }
 
+  @JsonProperty("dead_letter")
+  public DeadLetterConfig getDeadLetterConfig() {
+    return this.deadLetterConfig;
+  }
+
+  @JsonProperty("dead_letter")
+  public void setDeadLetterConfig(DeadLetterConfig deadLetterConfig) {
+    this.deadLetterConfig = deadLetterConfig;
+  }
+
+  @JsonProperty("dedup")
+  public DedupConfig getDedupConfig() {
+    return this.dedupConfig;
+  }
+
+  @JsonProperty("dedup")
+  public void setDedupConfig(DedupConfig dedupConfig) {
+    this.dedupConfig = dedupConfig;
+  }
+
   @JsonProperty("reporters")
   public List<ReporterConfig> getReporters() {
     return reporters;
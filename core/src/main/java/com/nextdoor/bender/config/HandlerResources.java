@@ -15,13 +15,20 @@
 
 package com.nextdoor.bender.config;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
 
+import com.nextdoor.bender.deadletter.DeadLetterConfig;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.dedup.DedupConfig;
+import com.nextdoor.bender.dedup.DuplicateFilter;
 import com.nextdoor.bender.ipc.TransportConfig;
 import com.nextdoor.bender.ipc.TransportFactory;
 import com.nextdoor.bender.ipc.TransportFactoryFactory;
@@ -29,6 +36,10 @@ import com.nextdoor.bender.monitoring.Reporter;
 import com.nextdoor.bender.monitoring.ReporterConfig;
 import com.nextdoor.bender.monitoring.ReporterFactory;
 import com.nextdoor.bender.monitoring.ReporterFactoryFactory;
+import com.nextdoor.bender.operation.BaseOperation;
+import com.nextdoor.bender.operation.MultiplexOperation;
+import com.nextdoor.bender.operation.OperationProcessor;
+import com.nextdoor.bender.operation.StreamOperation;
 import com.nextdoor.bender.serializer.SerializerConfig;
 import com.nextdoor.bender.serializer.SerializerFactory;
 import com.nextdoor.bender.serializer.SerializerFactoryFactory;
@@ -43,27 +54,35 @@ import com.nextdoor.bender.wrapper.WrapperFactory;
 public class HandlerResources {
   private static final Logger logger = Logger.getLogger(HandlerResources.class);
   private Map<String, Source> sources = new HashMap<String, Source>();
+  private Map<String, SourceConfig> sourceConfigs = new HashMap<String, SourceConfig>();
+  private SerializerFactory serializerFactory;
   private SerializerProcessor serializerProcessor;
   private WrapperFactory wrapperFactory;
   private TransportFactory transportFactory;
+  private DeadLetterQueue deadLetterQueue;
+  private boolean deadLetterRejected = false;
+  private DuplicateFilter duplicateFilter;
   private List<Reporter> reporters = new ArrayList<Reporter>(0);
   private final TransportFactoryFactory tff = new TransportFactoryFactory();
   private final ReporterFactoryFactory rff = new ReporterFactoryFactory();
   private final SerializerFactoryFactory sff = new SerializerFactoryFactory();
 
   public HandlerResources(BenderConfig config) throws ClassNotFoundException {
+    setWrapperFactory(config.getWrapperConfig());
     setSources(config.getSources());
     setSerializerProcessor(config.getSerializerConfig());
     setTransportFactory(config.getTransportConfig());
-    setWrapperFactory(config.getWrapperConfig());
+    setDeadLetterQueue(config.getDeadLetterConfig());
+    setDuplicateFilter(config.getDedupConfig());
     setReporters(config.getReporters());
   }
 
   public void setSources(List<SourceConfig> sourceConfigs) throws ClassNotFoundException {
     for (SourceConfig sourceConfig : sourceConfigs) {
-      Source source = new Source(sourceConfig);
+      Source source = new Source(sourceConfig, getWrapperFields());
       logger.info("Using source: " + source.toString());
       sources.put(source.getSourceName(), source);
+      this.sourceConfigs.put(source.getSourceName(), sourceConfig);
     }
   }
 
@@ -75,16 +94,51 @@ public class HandlerResources {
     return sources.get(name);
   }
 
+  /**
+   * Builds a new {@link Source} from the same configuration as {@link #getSourceByName(String)}.
+   * The new instance has its own deserializer and operations and shares no state with the
+   * original other than its stats. Used when events are processed by more than one worker lane.
+   *
+   * @param name name of the source.
+   * @return new instance of the source.
+   * @throws ClassNotFoundException a class specified in the configuration can not be found.
+   */
+  public Source newSourceInstance(String name) throws ClassNotFoundException {
+    Source source = new Source(sourceConfigs.get(name), getWrapperFields());
+    source.shareStats(this.sources.get(name));
+    return source;
+  }
+
+  /**
+   * @return fields read by the configured wrapper. Empty if no wrapper was configured yet.
+   */
+  private Collection<String> getWrapperFields() {
+    if (this.wrapperFactory == null) {
+      return Collections.emptyList();
+    }
+    return this.wrapperFactory.newInstance().getFieldsRead();
+  }
+
   public void setSerializerProcessor(SerializerConfig serializerConfig)
       throws ClassNotFoundException {
-    SerializerFactory sf = sff.getFactory(serializerConfig);
-    serializerProcessor = new SerializerProcessor(sf.newInstance());
+    serializerFactory = sff.getFactory(serializerConfig);
+    serializerProcessor = new SerializerProcessor(serializerFactory.newInstance());
   }
 
   public SerializerProcessor getSerializerProcessor() {
     return serializerProcessor;
   }
 
+  /**
+   * @return new {@link SerializerProcessor} built from the same configuration as
+   *         {@link #getSerializerProcessor()} and sharing its stats.
+   */
+  public SerializerProcessor newSerializerProcessor() {
+    SerializerProcessor processor = new SerializerProcessor(serializerFactory.newInstance());
+    processor.shareStats(this.serializerProcessor);
+    return processor;
+  }
+
   public void setWrapperFactory(WrapperConfig config) {
     wrapperFactory = (WrapperFactory) ReflectionUtils.newInstance(config.getFactoryClass());
   }
@@ -101,6 +155,73 @@ public class HandlerResources {
     this.transportFactory = tff.getFactory(config);
   }
 
+  /**
+   * @return queue for events which can not be delivered or null if not configured.
+   */
+  public DeadLetterQueue getDeadLetterQueue() {
+    return deadLetterQueue;
+  }
+
+  /**
+   * @return true if events rejected by deserializers and operations are dead lettered.
+   */
+  public boolean getDeadLetterRejected() {
+    return deadLetterRejected;
+  }
+
+  public void setDeadLetterQueue(DeadLetterConfig config) throws ClassNotFoundException {
+    if (config == null) {
+      this.deadLetterQueue = null;
+      this.deadLetterRejected = false;
+      return;
+    }
+
+    this.deadLetterQueue = new DeadLetterQueue(new File(config.getSpillDirectory()),
+        tff.getFactory(config.getTransportConfig()));
+    this.deadLetterRejected = config.getIncludeRejected();
+  }
+
+  /**
+   * @return filter dropping events delivered by earlier invocations or null if not configured.
+   */
+  public DuplicateFilter getDuplicateFilter() {
+    return duplicateFilter;
+  }
+
+  /**
+   * Duplicates are checked against the hash of each input event but remembered by the hash of each
+   * output event once it was sent. Forks and multiplexing operations produce several outputs per
+   * input, which may be sent in different batches, so a retry would drop inputs of which only some
+   * outputs were delivered. Duplicate detection is therefore disabled for those sources.
+   *
+   * @param config duplicate detection settings or null if not configured.
+   */
+  public void setDuplicateFilter(DedupConfig config) {
+    if (config != null) {
+      for (Source source : this.sources.values()) {
+        if (hasMultipleOutputs(source)) {
+          logger.warn("dedup is disabled because source " + source.getSourceName()
+              + " has operations which produce more than one event per input");
+          config = null;
+          break;
+        }
+      }
+    }
+
+    this.duplicateFilter = config == null ? null : new DuplicateFilter(config);
+  }
+
+  private static boolean hasMultipleOutputs(Source source) {
+    for (OperationProcessor processor : source.getOperationProcessors()) {
+      BaseOperation op = processor.getOperation();
+      if (op instanceof MultiplexOperation || op instanceof StreamOperation) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   public void setReporters(List<ReporterConfig> reporterConfigs) throws ClassNotFoundException {
     for (ReporterConfig rconfig : reporterConfigs) {
       ReporterFactory rf = rff.getFactory(rconfig);
@@ -16,36 +16,59 @@
 package com.nextdoor.bender.config;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
 
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.deserializer.Deserializer;
 import com.nextdoor.bender.deserializer.DeserializerFactory;
 import com.nextdoor.bender.deserializer.DeserializerFactoryFactory;
 import com.nextdoor.bender.deserializer.DeserializerProcessor;
+import com.nextdoor.bender.deserializer.FieldProjection;
+import com.nextdoor.bender.filter.RawEventFilter;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationConfig;
 import com.nextdoor.bender.operation.OperationFactoryFactory;
+import com.nextdoor.bender.operation.OperationPlanner;
 import com.nextdoor.bender.operation.OperationProcessor;
 
 public class Source {
+  private static final Logger logger = Logger.getLogger(Source.class);
   private final String sourceName;
   private final Pattern sourceRegex;
   private DeserializerProcessor deserProcessor;
   private List<OperationProcessor> operationProcessors = new ArrayList<OperationProcessor>(0);
   private List<Pattern> regexPatterns = new ArrayList<Pattern>(0);
   private List<String> containsStrings = new ArrayList<String>(0);
+  private final RawEventFilter rawEventFilter;
 
   private final DeserializerFactoryFactory dff = new DeserializerFactoryFactory();
 
   public Source(SourceConfig config) throws ClassNotFoundException {
+    this(config, Collections.emptyList());
+  }
+
+  /**
+   * @param config source configuration.
+   * @param wrapperFields payload fields read by the wrapper, see
+   *        {@link com.nextdoor.bender.wrapper.Wrapper#getFieldsRead()}.
+   * @throws ClassNotFoundException a class specified in the configuration can not be found.
+   */
+  public Source(SourceConfig config, Collection<String> wrapperFields)
+      throws ClassNotFoundException {
     this.sourceRegex = Pattern.compile(config.getSourceRegex());
     this.sourceName = config.getName();
 
     DeserializerFactory dFactory = dff.getFactory(config.getDeserializerConfig());
-
-    this.deserProcessor = new DeserializerProcessor(dFactory.newInstance());
+    Deserializer deserializer = dFactory.newInstance();
 
     List<OperationConfig> operationConfigs = config.getOperationConfigs();
     if (operationConfigs.size() > 0) {
@@ -53,12 +76,103 @@ public class Source {
       for (OperationConfig operationConfig : operationConfigs) {
         this.operationProcessors.add(new OperationProcessor(off.getFactory(operationConfig)));
       }
+
+      if (config.getOptimizeOperations()) {
+        this.operationProcessors = OperationPlanner.plan(this.sourceName, this.operationProcessors);
+      }
+    }
+
+    if (config.getProjectFields()) {
+      project(deserializer, wrapperFields);
     }
+    this.deserProcessor = new DeserializerProcessor(deserializer);
 
     this.containsStrings.addAll(config.getContainsStrings());
     for (String strRegex : config.getRegexPatterns()) {
       this.regexPatterns.add(Pattern.compile(strRegex));
     }
+
+    this.rawEventFilter = new RawEventFilter(this.containsStrings, this.regexPatterns);
+  }
+
+  /**
+   * Tells the deserializer which fields the operations and wrapper use so that it can leave the
+   * others unparsed.
+   */
+  private void project(Deserializer deserializer, Collection<String> wrapperFields) {
+    if (!(deserializer instanceof FieldProjection)) {
+      logger.warn(this.sourceName + ": " + deserializer.getClass().getSimpleName()
+          + " does not support projection, parsing every field");
+      return;
+    }
+
+    Collection<String> fields = getReferencedFields(this.operationProcessors, wrapperFields);
+    if (fields == null) {
+      logger.warn(this.sourceName + ": an operation or the wrapper may use any field, parsing "
+          + "every field");
+    } else {
+      logger.info(this.sourceName + ": only parsing fields " + fields);
+    }
+
+    ((FieldProjection) deserializer).setProjectedFields(fields);
+  }
+
+  /**
+   * @param processors operations of a source.
+   * @param wrapperFields fields read by the wrapper or null if any field may be read.
+   * @return fields read or written by the operations and wrapper or null if any field may be used.
+   */
+  static Collection<String> getReferencedFields(List<OperationProcessor> processors,
+      Collection<String> wrapperFields) {
+    if (wrapperFields == null) {
+      return null;
+    }
+
+    Set<String> fields = new LinkedHashSet<String>(wrapperFields);
+    for (OperationProcessor processor : processors) {
+      if (!(processor.getOperation() instanceof FieldAccess)) {
+        return null;
+      }
+
+      FieldAccess access = (FieldAccess) processor.getOperation();
+      Collection<String> read = access.getFieldsRead();
+      Collection<String> written = access.getFieldsWritten();
+      if (read == null || written == null) {
+        return null;
+      }
+
+      fields.addAll(read);
+      fields.addAll(written);
+    }
+
+    return fields;
+  }
+
+  /**
+   * Spills events which fail to deserialize or which an operation fails on. Operations nested in
+   * forks and conditionals are not covered.
+   *
+   * @param deadLetters where failed events are spilled. Null to only count them.
+   */
+  public void setDeadLetterQueue(DeadLetterQueue deadLetters) {
+    this.deserProcessor.setDeadLetterQueue(deadLetters);
+    for (OperationProcessor processor : this.operationProcessors) {
+      processor.setDeadLetterQueue(deadLetters);
+    }
+  }
+
+  /**
+   * Reports the deserializer and operations of this source under the stats of another instance of
+   * the same source so that each series is reported once.
+   *
+   * @param other source built from the same configuration.
+   */
+  public void shareStats(Source other) {
+    this.deserProcessor.shareStats(other.deserProcessor);
+    for (int i = 0; i < Math.min(this.operationProcessors.size(),
+        other.operationProcessors.size()); i++) {
+      this.operationProcessors.get(i).shareStats(other.operationProcessors.get(i));
+    }
   }
 
   public DeserializerProcessor getDeserProcessor() {
@@ -93,6 +207,14 @@ public class Source {
     return this.regexPatterns;
   }
 
+  /**
+   * @return contains Strings and regex patterns compiled into a single filter. The filter is not
+   *         thread safe so each worker lane uses its own Source.
+   */
+  public RawEventFilter getRawEventFilter() {
+    return this.rawEventFilter;
+  }
+
   public String toString() {
     String patterns = this.regexPatterns.stream().map(c -> {
       return c.toString();
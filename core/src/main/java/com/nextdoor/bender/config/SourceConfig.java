@@ -42,14 +42,39 @@ public class SourceConfig {
   @JsonProperty(required = false)
   private List<OperationConfig> operationConfigs = new ArrayList<OperationConfig>(0);
 
-  @JsonSchemaDescription("Regex patterns to filter events by prior to deserialization")
+  @JsonSchemaDescription("Regex patterns to filter events by prior to deserialization. Patterns "
+      + "use java.util.regex semantics. Patterns which RE2J matches the same way are combined and "
+      + "matched in a single pass with RE2J. Others, such as those with backreferences, inline "
+      + "flags or $, are matched individually. The number of events dropped by each pattern is "
+      + "reported as the filter.hits metric, tagged with filter_type regex and the pattern's "
+      + "position in this list as filter_index.")
   @JsonProperty(required = false)
   private List<String> regexPatterns = Collections.emptyList();
 
-  @JsonSchemaDescription("Filter events containing these Strings prior to deserialization")
+  @JsonSchemaDescription("Filter events containing these Strings prior to deserialization. All "
+      + "Strings are searched for in a single pass. The number of events dropped by each String "
+      + "is reported as the filter.hits metric, tagged with filter_type contains and the String's "
+      + "position in this list as filter_index.")
   @JsonProperty(required = false)
   private List<String> containsStrings = Collections.emptyList();
 
+  @JsonSchemaDescription("Reorder and prune operations when the configuration is loaded. Filters "
+      + "are moved ahead of operations which do not change the fields they read and deletes of "
+      + "fields which were already deleted are removed. Only built-in operations which declare "
+      + "the fields they use are moved. The optimized plan is logged.")
+  @JsonSchemaDefault(value = "false")
+  @JsonProperty(required = false)
+  private Boolean optimizeOperations = false;
+
+  @JsonSchemaDescription("Only parse the payload fields which operations and the wrapper use. "
+      + "Other fields are kept as raw JSON and written out unchanged when the event is "
+      + "serialized, so their formatting and escaping are preserved. Requires a deserializer "
+      + "which supports projection (StreamingJson) and operations which declare the fields they "
+      + "use, otherwise every field is parsed.")
+  @JsonSchemaDefault(value = "false")
+  @JsonProperty(required = false)
+  private Boolean projectFields = false;
+
   public String getName() {
     return name;
   }
@@ -101,4 +126,20 @@ public class SourceConfig {
   public void setContainsStrings(List<String> containsStrings) {
     this.containsStrings = containsStrings;
   }
+
+  public Boolean getOptimizeOperations() {
+    return optimizeOperations;
+  }
+
+  public void setOptimizeOperations(Boolean optimizeOperations) {
+    this.optimizeOperations = optimizeOperations;
+  }
+
+  public Boolean getProjectFields() {
+    return projectFields;
+  }
+
+  public void setProjectFields(Boolean projectFields) {
+    this.projectFields = projectFields;
+  }
 }
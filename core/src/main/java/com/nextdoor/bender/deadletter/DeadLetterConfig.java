@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deadletter;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
+import com.nextdoor.bender.ipc.TransportConfig;
+
+@JsonSchemaDescription("Events which can not be delivered are written compressed to a local spill "
+    + "file and sent to a secondary transport at the end of the invocation instead of failing "
+    + "the whole invocation. This prevents a single failed batch from causing everything which "
+    + "was already delivered to be sent again when the input is retried. Each spilled record is "
+    + "a JSON object with the kind of failure, the reason, the time and the event.")
+public class DeadLetterConfig {
+  @JsonSchemaDescription("Transport spilled records are sent with, such as S3 or a local file.")
+  @JsonProperty(required = true)
+  private TransportConfig transportConfig;
+
+  @JsonSchemaDescription("Directory spill files are written to.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "/tmp")
+  private String spillDirectory = "/tmp";
+
+  @JsonSchemaDescription("Also dead letter events which failed to deserialize or were rejected "
+      + "by an operation. Otherwise these are only counted and logged.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "true")
+  private Boolean includeRejected = true;
+
+  @JsonProperty("transport")
+  public TransportConfig getTransportConfig() {
+    return this.transportConfig;
+  }
+
+  @JsonProperty("transport")
+  public void setTransportConfig(TransportConfig transportConfig) {
+    this.transportConfig = transportConfig;
+  }
+
+  public String getSpillDirectory() {
+    return this.spillDirectory;
+  }
+
+  public void setSpillDirectory(String spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
+  public Boolean getIncludeRejected() {
+    return this.includeRejected;
+  }
+
+  public void setIncludeRejected(Boolean includeRejected) {
+    this.includeRejected = includeRejected;
+  }
+}
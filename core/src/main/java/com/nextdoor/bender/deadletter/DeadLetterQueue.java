@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deadletter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.google.gson.JsonObject;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.LambdaContext;
+import com.nextdoor.bender.ipc.IpcSenderService;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.ipc.TransportFactory;
+import com.nextdoor.bender.monitoring.Stat;
+
+/**
+ * Collects events which could not be delivered or processed so that they can be sent to a
+ * secondary transport instead of failing the invocation. Records are appended to a gzip compressed
+ * spill file, one JSON object per line, which keeps memory use flat no matter how many events
+ * fail. The spill file is sent and deleted by {@link #flush(Context)} once the primary transport
+ * has finished.
+ *
+ * Records are only kept for the duration of an invocation. If the invocation fails the input is
+ * retried in full so {@link #discard()} deletes what was spilled.
+ */
+public class DeadLetterQueue {
+  private static final Logger logger = Logger.getLogger(DeadLetterQueue.class);
+  private static final String SPILL_PREFIX = "bender-dead-letter-";
+  private static final String SPILL_SUFFIX = ".json.gz";
+
+  public enum Kind {
+    TRANSPORT, DESERIALIZER, OPERATION
+  }
+
+  private final File spillDirectory;
+  private final IpcSenderService sender;
+  private File spillFile = null;
+  private Writer writer = null;
+  private final long[] counts = new long[Kind.values().length];
+  private long spilledBytes = 0;
+
+  /**
+   * @param spillDirectory directory spill files are created in.
+   * @param transportFactory creates the transport spilled records are sent with.
+   */
+  public DeadLetterQueue(File spillDirectory, TransportFactory transportFactory) {
+    this(spillDirectory, new IpcSenderService(transportFactory));
+  }
+
+  DeadLetterQueue(File spillDirectory, IpcSenderService sender) {
+    this.spillDirectory = spillDirectory;
+    this.sender = sender;
+  }
+
+  /**
+   * Appends records to the spill file.
+   *
+   * @param kind where the records failed.
+   * @param reason why the records failed.
+   * @param records events as they would have been sent, one per record.
+   * @throws IOException unable to write to the spill file.
+   */
+  public synchronized void addAll(Kind kind, String reason, List<String> records)
+      throws IOException {
+    if (this.writer == null) {
+      this.spillFile = File.createTempFile(SPILL_PREFIX, SPILL_SUFFIX, this.spillDirectory);
+      this.writer = new OutputStreamWriter(
+          new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(this.spillFile))),
+          StandardCharsets.UTF_8);
+    }
+
+    long now = System.currentTimeMillis();
+    for (String record : records) {
+      JsonObject obj = new JsonObject();
+      obj.addProperty("kind", kind.name().toLowerCase());
+      obj.addProperty("reason", reason);
+      obj.addProperty("time", now);
+      obj.addProperty("event", record);
+
+      this.writer.write(obj.toString());
+      this.writer.write('\n');
+    }
+
+    this.counts[kind.ordinal()] += records.size();
+  }
+
+  /**
+   * Spills an event which failed before being serialized. The original event is recorded. Errors
+   * writing the spill file are logged since the event was going to be dropped anyway.
+   *
+   * @param kind where the event failed.
+   * @param reason why the event failed.
+   * @param ievent event which failed.
+   */
+  public void reject(Kind kind, String reason, InternalEvent ievent) {
+    List<String> records = new ArrayList<String>(1);
+    records.add(ievent.getEventString());
+
+    try {
+      addAll(kind, reason, records);
+    } catch (IOException e) {
+      logger.warn("unable to spill rejected event", e);
+    }
+  }
+
+  /**
+   * Sends the spill file to the dead letter transport and deletes it.
+   *
+   * @param context context of the current invocation.
+   * @throws TransportException not all records could be sent.
+   * @throws InterruptedException interrupted while waiting for the transport.
+   */
+  public void flush(Context context) throws TransportException, InterruptedException {
+    File file;
+    synchronized (this) {
+      if (this.writer == null) {
+        return;
+      }
+
+      try {
+        this.writer.close();
+      } catch (IOException e) {
+        throw new TransportException("unable to close dead letter spill file", e);
+      }
+      this.writer = null;
+      file = this.spillFile;
+      this.spillFile = null;
+    }
+
+    this.spilledBytes += file.length();
+    this.sender.setContext(context);
+    LambdaContext lambdaContext = new LambdaContext(context);
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        InternalEvent ievent = new InternalEvent(line, lambdaContext, System.currentTimeMillis());
+        ievent.setSerialized(line);
+        this.sender.add(ievent);
+      }
+    } catch (IOException e) {
+      throw new TransportException("unable to read dead letter spill file", e);
+    } finally {
+      file.delete();
+    }
+
+    this.sender.flush();
+  }
+
+  /**
+   * Deletes anything spilled since the last flush without sending it.
+   */
+  public synchronized void discard() {
+    if (this.writer == null) {
+      return;
+    }
+
+    try {
+      this.writer.close();
+    } catch (IOException e) {
+      logger.warn("unable to close dead letter spill file", e);
+    }
+    this.writer = null;
+    this.spillFile.delete();
+    this.spillFile = null;
+  }
+
+  /**
+   * @return stats about records spilled since the last call. Counters are reset.
+   */
+  public synchronized List<Stat> getStats() {
+    List<Stat> stats = new ArrayList<Stat>(Kind.values().length + 1);
+    for (Kind kind : Kind.values()) {
+      Stat stat = new Stat("dead_letter.events", this.counts[kind.ordinal()],
+          Stat.MetricType.count);
+      stat.addTag("kind", kind.name().toLowerCase());
+      stats.add(stat);
+      this.counts[kind.ordinal()] = 0;
+    }
+    stats.add(new Stat("dead_letter.spilled_bytes", this.spilledBytes, Stat.MetricType.count));
+    this.spilledBytes = 0;
+
+    return stats;
+  }
+
+  public void shutdown() {
+    discard();
+    this.sender.shutdown();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.dedup;
+
+import javax.validation.constraints.Min;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
+
+@JsonSchemaDescription("Drops events which a previous invocation in the same container already "
+    + "delivered, for instance when Lambda retries an input which partially succeeded. Events "
+    + "are identified by the hash selected with the handler's event_hash and remembered in a "
+    + "fixed amount of memory using Bloom filters. Rarely a new event is mistaken for a "
+    + "duplicate and dropped, at the configured false positive rate. Events are remembered once "
+    + "the transport batch they are in was sent, or for S3 once the invocation completed its "
+    + "uploads, and only for as long as the container is kept warm. Identical events are "
+    + "duplicates of each other, including within the same input. Disabled when a source has "
+    + "operations which produce more than one event per input, such as forks, conditionals and "
+    + "splitting operations, because an input could be dropped when only some of its events "
+    + "were delivered.")
+public class DedupConfig {
+  @JsonSchemaDescription("Memory used to remember delivered events in bytes.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "8388608")
+  @Min(1024)
+  private Long maxMemoryBytes = 8388608L;
+
+  @JsonSchemaDescription("Minimum time in seconds an event is remembered for. Events are "
+      + "forgotten after at most twice this time, or sooner when more events arrive than fit in "
+      + "max_memory_bytes at the configured false positive rate.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "600")
+  @Min(1)
+  private Long ttlSeconds = 600L;
+
+  @JsonSchemaDescription("Acceptable chance of a new event being mistaken for a duplicate. Lower "
+      + "rates remember fewer events in the same memory.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "0.0001")
+  @Min(0)
+  private Double falsePositiveRate = 0.0001;
+
+  public Long getMaxMemoryBytes() {
+    return this.maxMemoryBytes;
+  }
+
+  public void setMaxMemoryBytes(Long maxMemoryBytes) {
+    this.maxMemoryBytes = maxMemoryBytes;
+  }
+
+  public Long getTtlSeconds() {
+    return this.ttlSeconds;
+  }
+
+  public void setTtlSeconds(Long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  public Double getFalsePositiveRate() {
+    return this.falsePositiveRate;
+  }
+
+  public void setFalsePositiveRate(Double falsePositiveRate) {
+    this.falsePositiveRate = falsePositiveRate;
+  }
+}
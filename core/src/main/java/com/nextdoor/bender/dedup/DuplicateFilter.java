@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.monitoring.Stat;
+
+/**
+ * Drops events which were delivered by an earlier invocation of the same container. Events are
+ * identified by {@link InternalEvent#getEventHash()} and remembered in a
+ * {@link RotatingBloomFilter}.
+ *
+ * Events are not remembered as soon as they pass the filter but once the transport batch they are
+ * in was sent, see {@link com.nextdoor.bender.ipc.IpcSenderService}. If the invocation fails
+ * afterwards the batches which were sent are still remembered so that a retry of the input only
+ * delivers the rest. Batches of transports which only publish them once the invocation finished,
+ * such as S3 multipart uploads, are held until {@link #commit()} and forgotten by
+ * {@link #discard()} if the invocation fails before then.
+ *
+ * Inputs are checked by their own hash but remembered by the hash of their output, so this is only
+ * correct when each input produces at most one output. It is not used for sources with operations
+ * which produce more, see {@link com.nextdoor.bender.config.HandlerResources}.
+ */
+public class DuplicateFilter {
+  private final RotatingBloomFilter seen;
+  private final ConcurrentLinkedQueue<List<String>> pending =
+      new ConcurrentLinkedQueue<List<String>>();
+  private final AtomicLong checked = new AtomicLong(0);
+  private final AtomicLong duplicates = new AtomicLong(0);
+
+  public DuplicateFilter(DedupConfig config) {
+    this(new RotatingBloomFilter(config.getMaxMemoryBytes(), config.getTtlSeconds() * 1000,
+        config.getFalsePositiveRate()));
+  }
+
+  DuplicateFilter(RotatingBloomFilter seen) {
+    this.seen = seen;
+  }
+
+  /**
+   * Removes events which were already delivered from the batch.
+   *
+   * @param batch deserialized events.
+   * @return the same batch.
+   */
+  public EventBatch filter(EventBatch batch) {
+    int size = batch.size();
+    int dropped = 0;
+
+    for (int i = 0; i < size; i++) {
+      String hash = batch.get(i).getEventHash();
+      long h1 = parse(hash, 0);
+
+      if (this.seen.mightContain(h1, second(hash, h1))) {
+        batch.set(i, null);
+        dropped++;
+      }
+    }
+
+    this.checked.addAndGet(size);
+    if (dropped > 0) {
+      this.duplicates.addAndGet(dropped);
+      batch.compact();
+    }
+
+    return batch;
+  }
+
+  /**
+   * Remembers events which were delivered.
+   *
+   * @param eventHashes {@link InternalEvent#getEventHash()} of each event.
+   */
+  public void remember(List<String> eventHashes) {
+    for (String hash : eventHashes) {
+      long h1 = parse(hash, 0);
+      this.seen.put(h1, second(hash, h1));
+    }
+  }
+
+  /**
+   * Remembers events once {@link #commit()} is called. Used for events which were sent but are
+   * only delivered once the invocation finishes.
+   *
+   * @param eventHashes {@link InternalEvent#getEventHash()} of each event.
+   */
+  public void rememberOnCommit(List<String> eventHashes) {
+    this.pending.add(eventHashes);
+  }
+
+  /**
+   * Remembers the events passed to {@link #rememberOnCommit(List)} since the last commit or
+   * discard. Must only be called once those events were delivered.
+   */
+  public void commit() {
+    List<String> hashes;
+    while ((hashes = this.pending.poll()) != null) {
+      remember(hashes);
+    }
+  }
+
+  /**
+   * Forgets the events passed to {@link #rememberOnCommit(List)} since the last commit so that
+   * they are not dropped when the input is retried.
+   */
+  public void discard() {
+    this.pending.clear();
+  }
+
+  /**
+   * @return stats about events checked since the last call. Counters are reset.
+   */
+  public List<Stat> getStats() {
+    long checked = this.checked.getAndSet(0);
+    long duplicates = this.duplicates.getAndSet(0);
+
+    List<Stat> stats = new ArrayList<Stat>(4);
+    stats.add(new Stat("dedup.checked", checked, Stat.MetricType.count));
+    stats.add(new Stat("dedup.duplicates", duplicates, Stat.MetricType.count));
+    if (checked > 0) {
+      stats.add(new Stat("dedup.hit_rate.pct", duplicates * 100 / checked,
+          Stat.MetricType.gauge));
+    }
+    stats.add(new Stat("dedup.fill.pct", (long) (this.seen.getFill() * 100),
+        Stat.MetricType.gauge));
+
+    return stats;
+  }
+
+  /**
+   * Hashes are lowercase hex strings of at least 64 bits.
+   */
+  private static long parse(String hex, int offset) {
+    return Long.parseUnsignedLong(hex.substring(offset, offset + 16), 16);
+  }
+
+  /**
+   * @return second half of a 128 bit hash or one derived from the first half of a shorter hash.
+   */
+  private static long second(String hex, long h1) {
+    return hex.length() >= 32 ? parse(hex, 16) : mix(h1);
+  }
+
+  /**
+   * Derives a second, independent looking, half from a 64 bit hash.
+   */
+  private static long mix(long h) {
+    h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+    h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+}
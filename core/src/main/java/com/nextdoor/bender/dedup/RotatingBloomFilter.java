@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.dedup;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers 128 bit hashes for a limited time in a fixed amount of memory. The memory is split
+ * between two Bloom filters: hashes are added to the current one and looked up in both. Once the
+ * current filter is ttl old, or holds as many hashes as it can at the target false positive rate,
+ * the previous filter is cleared and becomes the current one. A hash is therefore remembered for
+ * at least ttl and around twice ttl at most, unless hashes arrive faster than the memory allows.
+ *
+ * Lookups and additions do not lock. Rotation is synchronized and reuses the previous filter's
+ * memory. A lookup racing with rotation may miss a hash which is about to be forgotten anyway.
+ */
+public class RotatingBloomFilter {
+  private static final double LN2 = Math.log(2);
+
+  private final long bits;
+  private final int hashes;
+  private final long capacity;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+
+  private volatile Generation current;
+  private volatile Generation previous;
+
+  private static final class Generation {
+    private final AtomicLongArray words;
+    private final AtomicLong count = new AtomicLong(0);
+    private volatile long start;
+    private volatile long last;
+
+    private Generation(int words, long start) {
+      this.words = new AtomicLongArray(words);
+      this.start = start;
+      this.last = start;
+    }
+
+    private void clear(long now) {
+      for (int i = 0; i < this.words.length(); i++) {
+        this.words.set(i, 0);
+      }
+      this.count.set(0);
+      this.start = now;
+      this.last = now;
+    }
+  }
+
+  /**
+   * @param maxMemoryBytes memory shared by both filters.
+   * @param ttlMillis minimum time a hash is remembered for.
+   * @param falsePositiveRate target chance of a lookup finding a hash which was never added.
+   */
+  public RotatingBloomFilter(long maxMemoryBytes, long ttlMillis, double falsePositiveRate) {
+    this(maxMemoryBytes, ttlMillis, falsePositiveRate, System::currentTimeMillis);
+  }
+
+  RotatingBloomFilter(long maxMemoryBytes, long ttlMillis, double falsePositiveRate,
+      LongSupplier clock) {
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("false positive rate must be between 0 and 1");
+    }
+
+    /*
+     * Each filter is an array of 64 bit words. Java arrays are limited to 2^31 elements.
+     */
+    long words = Math.max(1, Math.min(Integer.MAX_VALUE - 8, maxMemoryBytes / 2 / 8));
+    this.bits = words * 64;
+
+    /*
+     * Optimal number of hash functions and how many hashes fit for the target rate.
+     */
+    double perHash = -Math.log(falsePositiveRate) / LN2;
+    this.hashes = Math.max(1, (int) Math.round(perHash));
+    this.capacity = Math.max(1, (long) (this.bits * LN2 / perHash));
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+
+    long now = clock.getAsLong();
+    this.current = new Generation((int) words, now);
+    this.previous = new Generation((int) words, now);
+  }
+
+  /**
+   * @return true if the hash was added recently. May rarely be true for a hash never added.
+   */
+  public boolean mightContain(long h1, long h2) {
+    expire(this.clock.getAsLong());
+    return contains(this.current, h1, h2) || contains(this.previous, h1, h2);
+  }
+
+  /**
+   * Adds a hash to the current filter.
+   */
+  public void put(long h1, long h2) {
+    long now = this.clock.getAsLong();
+    expire(now);
+    Generation generation = this.current;
+    generation.last = now;
+
+    /*
+     * Double hashing derives every bit position from the two halves of the hash.
+     */
+    for (int i = 0; i < this.hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, this.bits);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+
+      long value = generation.words.get(word);
+      while ((value & mask) == 0 && !generation.words.compareAndSet(word, value, value | mask)) {
+        value = generation.words.get(word);
+      }
+    }
+    generation.count.incrementAndGet();
+  }
+
+  private boolean contains(Generation generation, long h1, long h2) {
+    for (int i = 0; i < this.hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, this.bits);
+      if ((generation.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void expire(long now) {
+    Generation generation = this.current;
+
+    if (now - generation.start < this.ttlMillis && generation.count.get() < this.capacity) {
+      return;
+    }
+
+    synchronized (this) {
+      if (generation != this.current) {
+        return;
+      }
+
+      /*
+       * Everything in the previous filter was added at least ttl ago.
+       */
+      Generation recycled = this.previous;
+      recycled.clear(now);
+      this.previous = generation;
+      this.current = recycled;
+
+      /*
+       * When nothing was added for a while the filter which was current is stale too.
+       */
+      if (now - generation.last >= this.ttlMillis) {
+        generation.clear(now);
+      }
+    }
+  }
+
+  /**
+   * @return number of hashes the current filter holds relative to its capacity, from 0 to 1.
+   */
+  public double getFill() {
+    return Math.min(1.0, (double) this.current.count.get() / this.capacity);
+  }
+
+  /**
+   * @return number of hashes each filter can hold at the target false positive rate.
+   */
+  public long getCapacity() {
+    return this.capacity;
+  }
+}
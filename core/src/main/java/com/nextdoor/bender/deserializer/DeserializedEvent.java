@@ -25,6 +25,16 @@ public interface DeserializedEvent {
    */
   public Object getPayload();
 
+  /**
+   * Retrieves deserialized object without allowing it to be modified. Implementations which share
+   * payloads between copies can return the shared object here rather than copying it first.
+   *
+   * @return the deserialized event object which must not be modified.
+   */
+  public default Object getReadOnlyPayload() {
+    return getPayload();
+  }
+
   /**
    * Changes the payload object.
    *
@@ -80,7 +90,9 @@ public interface DeserializedEvent {
   public void deleteField(String fieldName);
 
   /**
-   * Provides a deep copy of this object as well as the payload.
+   * Provides a copy of this object as well as the payload. Changes made to the copy must not be
+   * visible in this object and vice versa. Implementations may share the payload and copy it on
+   * write rather than making a deep copy.
    *
    * @return copy of this object.
    */
@@ -15,6 +15,9 @@
 
 package com.nextdoor.bender.deserializer;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public abstract class Deserializer {
   /**
    * @param raw original event string.
@@ -22,6 +25,18 @@ public abstract class Deserializer {
    */
   public abstract DeserializedEvent deserialize(String raw);
 
+  /**
+   * Deserializes an event which is backed by bytes and has not yet been decoded into a String. The
+   * default implementation decodes the bytes and calls {@link #deserialize(String)}. Deserializers
+   * which are able to parse bytes directly should override this to avoid the intermediate String.
+   *
+   * @param raw original UTF-8 encoded event bytes. Must not be modified.
+   * @return the deserialized version of the event.
+   */
+  public DeserializedEvent deserialize(ByteBuffer raw) {
+    return deserialize(StandardCharsets.UTF_8.decode(raw).toString());
+  }
+
   /**
    * Performs any deserializer initialization that needs to be done.
    */
@@ -17,6 +17,9 @@ package com.nextdoor.bender.deserializer;
 
 import org.apache.log4j.Logger;
 
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
 import com.nextdoor.bender.monitoring.MonitoredProcess;
 
 /**
@@ -26,6 +29,7 @@ import com.nextdoor.bender.monitoring.MonitoredProcess;
 public class DeserializerProcessor extends MonitoredProcess {
   private static final Logger logger = Logger.getLogger(DeserializerProcessor.class);
   private Deserializer deser;
+  private DeadLetterQueue deadLetters = null;
 
   public DeserializerProcessor(Deserializer deserializer) {
     super(deserializer.getClass());
@@ -58,6 +62,57 @@ public class DeserializerProcessor extends MonitoredProcess {
     return dEvent;
   }
 
+  /**
+   * Deserializes every event in a batch and sets the resulting {@link DeserializedEvent} on it.
+   * Runtime is recorded once for the whole batch and the latency histogram records the average per
+   * event. Events which fail to deserialize are removed.
+   * Byte backed events which have not been decoded yet are handed to the deserializer as bytes.
+   *
+   * @param batch events to deserialize.
+   * @return the same batch with failed events removed.
+   */
+  public EventBatch deserialize(EventBatch batch) {
+    int errors = 0;
+    this.getRuntimeStat().start();
+
+    try {
+      for (int i = 0; i < batch.size(); i++) {
+        InternalEvent ievent = batch.get(i);
+        DeserializedEvent dEvent = null;
+
+        try {
+          if (ievent.isEventStringDecoded()) {
+            dEvent = this.deser.deserialize(ievent.getEventString());
+          } else {
+            dEvent = this.deser.deserialize(ievent.getEventBytes());
+          }
+        } catch (DeserializationException e) {
+          logger.warn("failed to deserialize", e);
+          errors++;
+        }
+
+        if (dEvent == null || dEvent.getReadOnlyPayload() == null) {
+          logger.warn("Failed to deserialize: " + ievent.getEventString());
+          if (this.deadLetters != null) {
+            this.deadLetters.reject(DeadLetterQueue.Kind.DESERIALIZER, toString(), ievent);
+          }
+          batch.set(i, null);
+          continue;
+        }
+
+        ievent.setEventObj(dEvent);
+      }
+    } finally {
+      this.getRuntimeStat().stop(batch.size());
+    }
+
+    this.getSuccessCountStat().increment(batch.size() - errors);
+    this.getErrorCountStat().increment(errors);
+    batch.compact();
+
+    return batch;
+  }
+
   public Deserializer getDeserializer() {
     return this.deser;
   }
@@ -66,6 +121,14 @@ public class DeserializerProcessor extends MonitoredProcess {
     this.deser = deserializer;
   }
 
+  /**
+   * @param deadLetters where events which fail to deserialize are spilled. Null to only count
+   *        them.
+   */
+  public void setDeadLetterQueue(DeadLetterQueue deadLetters) {
+    this.deadLetters = deadLetters;
+  }
+
   public String toString() {
     return this.deser.getClass().getSimpleName();
   }
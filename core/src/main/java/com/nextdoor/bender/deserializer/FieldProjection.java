@@ -0,0 +1,31 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer;
+
+import java.util.Collection;
+
+/**
+ * Implemented by deserializers which can leave fields that a pipeline never uses unparsed. Fields
+ * which are not parsed must still be present in the serialized output.
+ *
+ * Fields are JsonPaths with or without the leading "$.".
+ */
+public interface FieldProjection {
+  /**
+   * @param fields fields which must be parsed or null to parse every field.
+   */
+  public void setProjectedFields(Collection<String> fields);
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Supplies the threads used by Bender. Handlers, operations, and the {@link
+ * com.nextdoor.bender.ipc.IpcSenderService} obtain their executors from the provider configured
+ * in the handler config rather than creating threads themselves.
+ *
+ * Two kinds of work are distinguished. Pipeline tasks, such as the reader which feeds worker lanes
+ * or the consumers of a fork, run for the length of an invocation and block on each other through
+ * queues so every one of them must get its own thread. Independent tasks, such as sending a
+ * batch to a transport, can instead share a bounded number of threads.
+ */
+public interface ExecutorProvider {
+  /**
+   * @return executor which runs each task on its own thread without waiting for other tasks to
+   *         finish. Shared by all callers and must not be shut down.
+   */
+  public Executor getTaskExecutor();
+
+  /**
+   * Creates an executor which runs at most maxConcurrency tasks at once. Additional tasks wait
+   * until a running task finishes. The caller owns the executor and shuts it down once done.
+   *
+   * @param name used to name threads.
+   * @param maxConcurrency maximum number of tasks running at once.
+   * @return new executor.
+   */
+  public ExecutorService newBoundedExecutor(String name, int maxConcurrency);
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Holds the {@link ExecutorProvider} used by the current function. This is set from the handler
+ * config when the handler initializes, similar to the event hash function, so that classes which
+ * are created from configuration, like operations, can use it without it being passed down.
+ */
+public class ExecutorProviders {
+  /*
+   * Providers are kept for the life of the JVM so that their shared threads are reused when a
+   * handler is initialized more than once.
+   */
+  private static final Map<ExecutorType, ExecutorProvider> providers =
+      new EnumMap<ExecutorType, ExecutorProvider>(ExecutorType.class);
+
+  private static volatile ExecutorProvider current = get(ExecutorType.PLATFORM);
+
+  /**
+   * @return provider selected by the handler config or a PLATFORM provider if none was selected.
+   */
+  public static ExecutorProvider get() {
+    return current;
+  }
+
+  /**
+   * @param type kind of provider.
+   * @return the single provider of the given type.
+   */
+  public static synchronized ExecutorProvider get(ExecutorType type) {
+    return providers.computeIfAbsent(type, ExecutorType::newProvider);
+  }
+
+  /**
+   * @param type kind of provider returned by {@link #get()} from now on.
+   */
+  public static void set(ExecutorType type) {
+    current = get(type);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Implementations of {@link ExecutorProvider} which can be selected in the handler config.
+ */
+public enum ExecutorType {
+  /**
+   * Platform threads. Pipeline tasks run on a cached pool and bounded executors are fixed thread
+   * pools. This matches how Bender has always used threads.
+   */
+  PLATFORM {
+    @Override
+    public ExecutorProvider newProvider() {
+      return new PlatformExecutorProvider();
+    }
+  },
+
+  /**
+   * Like PLATFORM but bounded executors are work-stealing pools which keep one queue per thread
+   * rather than a single shared queue.
+   */
+  WORK_STEALING {
+    @Override
+    public ExecutorProvider newProvider() {
+      return new WorkStealingExecutorProvider();
+    }
+  },
+
+  /**
+   * Virtual threads which are cheap enough to block on transport calls by the thousand. Requires
+   * running on Java 21 or later, otherwise PLATFORM is used.
+   */
+  VIRTUAL {
+    @Override
+    public ExecutorProvider newProvider() {
+      if (!VirtualExecutorProvider.isSupported()) {
+        Logger.getLogger(ExecutorType.class)
+            .warn("virtual threads require Java 21 or later, using platform threads");
+        return PLATFORM.newProvider();
+      }
+      return new VirtualExecutorProvider();
+    }
+  };
+
+  public abstract ExecutorProvider newProvider();
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs pipeline tasks on a cached pool of platform threads, which reuses idle threads across
+ * invocations, and bounded work on fixed thread pools.
+ */
+public class PlatformExecutorProvider implements ExecutorProvider {
+  private final ExecutorService tasks =
+      Executors.newCachedThreadPool(new NamedThreadFactory("task"));
+
+  @Override
+  public Executor getTaskExecutor() {
+    return this.tasks;
+  }
+
+  @Override
+  public ExecutorService newBoundedExecutor(String name, int maxConcurrency) {
+    return Executors.newFixedThreadPool(maxConcurrency, new NamedThreadFactory(name));
+  }
+}
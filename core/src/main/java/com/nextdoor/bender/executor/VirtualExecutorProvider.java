@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every task on a new virtual thread. Virtual threads only occupy a carrier thread while
+ * running so many thousands of them can be blocked on network calls at once.
+ *
+ * Bender is built for Java 11 so virtual threads are created through reflection and this provider
+ * is only available when running on Java 21 or later.
+ */
+public class VirtualExecutorProvider implements ExecutorProvider {
+  private static final Method newVirtualExecutor = findFactoryMethod();
+
+  private final ExecutorService tasks = newVirtualExecutor();
+
+  private static Method findFactoryMethod() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the JVM supports virtual threads.
+   */
+  public static boolean isSupported() {
+    return newVirtualExecutor != null;
+  }
+
+  private static ExecutorService newVirtualExecutor() {
+    if (newVirtualExecutor == null) {
+      throw new UnsupportedOperationException("virtual threads require Java 21 or later");
+    }
+
+    try {
+      return (ExecutorService) newVirtualExecutor.invoke(null);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("unable to create virtual thread executor", e);
+    }
+  }
+
+  @Override
+  public Executor getTaskExecutor() {
+    return this.tasks;
+  }
+
+  @Override
+  public ExecutorService newBoundedExecutor(String name, int maxConcurrency) {
+    return new BoundedExecutor(newVirtualExecutor(), maxConcurrency);
+  }
+
+  /**
+   * Limits how many tasks run at once. Each task gets its own virtual thread straight away and
+   * waits for a permit on that thread, so waiting tasks cost a parked virtual thread rather than
+   * blocking the caller.
+   */
+  private static class BoundedExecutor extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    private BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+      this.delegate = delegate;
+      this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      this.delegate.execute(() -> {
+        this.permits.acquireUninterruptibly();
+        try {
+          command.run();
+        } finally {
+          this.permits.release();
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      this.delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return this.delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return this.delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return this.delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return this.delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
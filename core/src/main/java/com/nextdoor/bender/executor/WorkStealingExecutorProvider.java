@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs bounded work on a {@link ForkJoinPool} with parallelism of maxConcurrency. Each worker
+ * has its own queue and idle workers steal from busy ones which reduces contention on a single
+ * queue when many small tasks are submitted. Pipeline tasks block on queues for a whole invocation
+ * and are not suited to work stealing so they use the same cached pool as PLATFORM.
+ */
+public class WorkStealingExecutorProvider extends PlatformExecutorProvider {
+  @Override
+  public ExecutorService newBoundedExecutor(String name, int maxConcurrency) {
+    NamedThreadFactory names = new NamedThreadFactory(name);
+
+    return new ForkJoinPool(maxConcurrency, pool -> {
+      ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      t.setName(names.nextName());
+      t.setDaemon(true);
+      return t;
+    }, null, true);
+  }
+}
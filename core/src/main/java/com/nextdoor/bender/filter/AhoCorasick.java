@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton which finds any of a set of literal strings in a single pass over the
+ * input. Matching is done on UTF-8 bytes so byte backed events can be scanned without decoding
+ * them. Strings are encoded as they are scanned. Because UTF-8 is self synchronizing a byte match
+ * is equivalent to a match on the decoded Strings.
+ *
+ * The automaton is compiled into a table of transitions for every state. To keep the table small
+ * bytes which do not appear in any pattern share a single column.
+ */
+public class AhoCorasick {
+  private static final int ROOT = 0;
+  private static final int NO_MATCH = -1;
+
+  /*
+   * Column in the transition table for each byte value. Column 0 is shared by all bytes which do
+   * not occur in any pattern.
+   */
+  private final int[] columns = new int[256];
+  private final int width;
+
+  /*
+   * Next state for state * width + column.
+   */
+  private final int[] transitions;
+
+  /*
+   * Index of a pattern which ends at each state or NO_MATCH.
+   */
+  private final int[] matches;
+
+  /**
+   * @param patterns literal strings to search for.
+   */
+  public AhoCorasick(List<String> patterns) {
+    List<byte[]> encoded = new ArrayList<byte[]>(patterns.size());
+    int width = 1;
+    for (String pattern : patterns) {
+      byte[] bytes = pattern.getBytes(StandardCharsets.UTF_8);
+      encoded.add(bytes);
+
+      for (byte b : bytes) {
+        if (this.columns[b & 0xFF] == 0) {
+          this.columns[b & 0xFF] = width++;
+        }
+      }
+    }
+    this.width = width;
+
+    /*
+     * Build a trie of the patterns. Missing edges are -1.
+     */
+    List<int[]> trie = new ArrayList<int[]>();
+    List<Integer> trieMatches = new ArrayList<Integer>();
+    trie.add(newRow(width));
+    trieMatches.add(NO_MATCH);
+
+    for (int p = 0; p < encoded.size(); p++) {
+      int state = ROOT;
+      for (byte b : encoded.get(p)) {
+        int column = this.columns[b & 0xFF];
+        if (trie.get(state)[column] < 0) {
+          trie.get(state)[column] = trie.size();
+          trie.add(newRow(width));
+          trieMatches.add(NO_MATCH);
+        }
+        state = trie.get(state)[column];
+      }
+
+      if (trieMatches.get(state) == NO_MATCH) {
+        trieMatches.set(state, p);
+      }
+    }
+
+    /*
+     * Turn the trie into a DFA by following failure links breadth first. A state's failure link is
+     * the longest proper suffix of it that is also in the trie. Missing edges are replaced with the
+     * edge from the failure state and states inherit matches from their failure state.
+     */
+    int states = trie.size();
+    this.transitions = new int[states * width];
+    this.matches = new int[states];
+    int[] fail = new int[states];
+    int[] queue = new int[states];
+    int head = 0;
+    int tail = 0;
+
+    for (int s = 0; s < states; s++) {
+      this.matches[s] = trieMatches.get(s);
+    }
+
+    for (int c = 0; c < width; c++) {
+      int next = trie.get(ROOT)[c];
+      if (next < 0) {
+        this.transitions[c] = ROOT;
+      } else {
+        this.transitions[c] = next;
+        fail[next] = ROOT;
+        queue[tail++] = next;
+      }
+    }
+
+    while (head < tail) {
+      int state = queue[head++];
+      if (this.matches[state] == NO_MATCH) {
+        this.matches[state] = this.matches[fail[state]];
+      }
+
+      for (int c = 0; c < width; c++) {
+        int next = trie.get(state)[c];
+        int fallback = this.transitions[fail[state] * width + c];
+
+        if (next < 0) {
+          this.transitions[state * width + c] = fallback;
+        } else {
+          this.transitions[state * width + c] = next;
+          fail[next] = fallback;
+          queue[tail++] = next;
+        }
+      }
+    }
+  }
+
+  private static int[] newRow(int width) {
+    int[] row = new int[width];
+    Arrays.fill(row, -1);
+    return row;
+  }
+
+  private int step(int state, int b) {
+    return this.transitions[state * this.width + this.columns[b & 0xFF]];
+  }
+
+  /**
+   * @param input UTF-8 encoded bytes to search. The position of the buffer is not modified.
+   * @return index of a pattern found in the remaining bytes of input or -1 if none were found.
+   */
+  public int find(ByteBuffer input) {
+    if (this.matches[ROOT] != NO_MATCH) {
+      return this.matches[ROOT];
+    }
+
+    int state = ROOT;
+
+    if (input.hasArray()) {
+      byte[] array = input.array();
+      int end = input.arrayOffset() + input.limit();
+      for (int i = input.arrayOffset() + input.position(); i < end; i++) {
+        state = step(state, array[i]);
+        if (this.matches[state] != NO_MATCH) {
+          return this.matches[state];
+        }
+      }
+    } else {
+      for (int i = input.position(); i < input.limit(); i++) {
+        state = step(state, input.get(i));
+        if (this.matches[state] != NO_MATCH) {
+          return this.matches[state];
+        }
+      }
+    }
+
+    return NO_MATCH;
+  }
+
+  /**
+   * @param input string to search.
+   * @return index of a pattern found in input or -1 if none were found.
+   */
+  public int find(CharSequence input) {
+    if (this.matches[ROOT] != NO_MATCH) {
+      return this.matches[ROOT];
+    }
+
+    int state = ROOT;
+    int length = input.length();
+
+    for (int i = 0; i < length; i++) {
+      char c = input.charAt(i);
+
+      /*
+       * Feed the UTF-8 encoding of each code point through the automaton. Unpaired surrogates are
+       * replaced with '?' as in String#getBytes. Patterns always end on a code point boundary so
+       * matches only need to be checked after the last byte of each code point.
+       */
+      if (c < 0x80) {
+        state = step(state, c);
+      } else if (c < 0x800) {
+        state = step(state, 0xC0 | (c >> 6));
+        state = step(state, 0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)) {
+        state = step(state, 0xE0 | (c >> 12));
+        state = step(state, 0x80 | ((c >> 6) & 0x3F));
+        state = step(state, 0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(input.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, input.charAt(++i));
+        state = step(state, 0xF0 | (cp >> 18));
+        state = step(state, 0x80 | ((cp >> 12) & 0x3F));
+        state = step(state, 0x80 | ((cp >> 6) & 0x3F));
+        state = step(state, 0x80 | (cp & 0x3F));
+      } else {
+        state = step(state, '?');
+      }
+
+      if (this.matches[state] != NO_MATCH) {
+        return this.matches[state];
+      }
+    }
+
+    return NO_MATCH;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.nextdoor.bender.InternalEvent;
+
+/**
+ * Drops raw events which contain any of a list of Strings or match any of a list of regex patterns
+ * before they are deserialized. Both lists are compiled when the source is created so that each
+ * event is scanned once for all Strings, using {@link AhoCorasick}, and once for all patterns,
+ * using a {@link RegexSet}.
+ *
+ * Filters are numbered with the contains Strings first followed by the regex patterns. Instances
+ * keep matcher state and must not be shared between threads.
+ */
+public class RawEventFilter {
+  public enum Type {
+    CONTAINS, REGEX
+  }
+
+  private final List<String> filters;
+  private final int containsCount;
+  private final AhoCorasick contains;
+  private final RegexSet regexes;
+
+  public RawEventFilter(List<String> containsStrings, List<Pattern> regexPatterns) {
+    this.containsCount = containsStrings.size();
+    this.filters = new ArrayList<String>(containsStrings.size() + regexPatterns.size());
+    this.filters.addAll(containsStrings);
+    regexPatterns.forEach(p -> this.filters.add(p.pattern()));
+
+    this.contains = containsStrings.isEmpty() ? null : new AhoCorasick(containsStrings);
+    this.regexes = regexPatterns.isEmpty() ? null : new RegexSet(regexPatterns);
+  }
+
+  /**
+   * Checks a raw event against the filters. The contains Strings are checked against the raw bytes
+   * of events which have not been decoded yet.
+   *
+   * @param ievent event to check.
+   * @return index of a filter which matched or -1 if the event should be kept.
+   */
+  public int match(InternalEvent ievent) {
+    if (this.contains != null) {
+      int found;
+      if (ievent.isEventStringDecoded()) {
+        found = this.contains.find(ievent.getEventString());
+      } else {
+        found = this.contains.find(ievent.getEventBytes());
+      }
+
+      if (found >= 0) {
+        return found;
+      }
+    }
+
+    if (this.regexes != null) {
+      int found = this.regexes.find(ievent.getEventString());
+      if (found >= 0) {
+        return this.containsCount + found;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * @return number of filters.
+   */
+  public int size() {
+    return this.filters.size();
+  }
+
+  public boolean isEmpty() {
+    return this.filters.isEmpty();
+  }
+
+  /**
+   * @param index filter index as returned by {@link #match(InternalEvent)}.
+   * @return contains String or regex pattern of the filter.
+   */
+  public String getFilter(int index) {
+    return this.filters.get(index);
+  }
+
+  public Type getType(int index) {
+    return index < this.containsCount ? Type.CONTAINS : Type.REGEX;
+  }
+
+  /**
+   * @param index filter index as returned by {@link #match(InternalEvent)}.
+   * @return position of the filter in the list of contains Strings or regex patterns it came from.
+   */
+  public int getTypeIndex(int index) {
+    return index < this.containsCount ? index : index - this.containsCount;
+  }
+}
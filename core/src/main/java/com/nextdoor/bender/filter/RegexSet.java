@@ -0,0 +1,290 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.google.re2j.Matcher;
+import com.google.re2j.PatternSyntaxException;
+
+/**
+ * Finds which of a set of regular expressions matches part of an input. Patterns are combined into
+ * a single RE2J alternation, with one capturing group per pattern, so the input is scanned once in
+ * linear time no matter how many patterns there are.
+ *
+ * Only patterns which RE2J matches exactly like {@link java.util.regex.Pattern} are combined, see
+ * {@link #toRe2j(Pattern)}. The rest, such as those with backreferences, lookarounds or {@code $},
+ * are matched one at a time with {@link java.util.regex.Pattern} after the combined pattern.
+ *
+ * Instances keep matcher state and must not be shared between threads.
+ */
+public class RegexSet {
+  private static final Logger logger = Logger.getLogger(RegexSet.class);
+
+  /*
+   * Equivalent of . in java.util.regex, which does not match any line terminator.
+   */
+  private static final String ANY_BUT_LINE_TERMINATOR = "[^\\n\\r\\x{85}\\x{2028}\\x{2029}]";
+
+  /*
+   * Escapes which mean the same in both engines. Others, such as \s, \b and octal escapes, do not.
+   */
+  private static final String SAFE_ESCAPES = "dDwWtnrf";
+
+  private final Matcher combined;
+
+  /*
+   * Pattern index of each capturing group in the combined pattern or -1 for groups that belong to
+   * the patterns themselves.
+   */
+  private final int[] groupPatterns;
+
+  private final List<java.util.regex.Matcher> fallbacks =
+      new ArrayList<java.util.regex.Matcher>(0);
+  private final List<Integer> fallbackPatterns = new ArrayList<Integer>(0);
+
+  /**
+   * @param patterns patterns to search for.
+   */
+  public RegexSet(List<Pattern> patterns) {
+    StringBuilder alternation = new StringBuilder();
+    List<Integer> groups = new ArrayList<Integer>();
+    groups.add(-1);
+
+    for (int p = 0; p < patterns.size(); p++) {
+      Pattern pattern = patterns.get(p);
+      String translated = toRe2j(pattern);
+
+      com.google.re2j.Pattern compiled = null;
+      if (translated != null) {
+        try {
+          compiled = com.google.re2j.Pattern.compile(translated);
+        } catch (PatternSyntaxException e) {
+          /*
+           * Matched individually below
+           */
+        }
+      }
+
+      if (compiled == null) {
+        logger.debug("pattern not supported by RE2J, matching individually: " + pattern);
+        this.fallbacks.add(pattern.matcher(""));
+        this.fallbackPatterns.add(p);
+        continue;
+      }
+
+      if (alternation.length() > 0) {
+        alternation.append('|');
+      }
+      alternation.append('(').append(translated).append(')');
+
+      groups.add(p);
+      for (int g = 0; g < compiled.groupCount(); g++) {
+        groups.add(-1);
+      }
+    }
+
+    Matcher combined = null;
+    if (groups.size() > 1) {
+      try {
+        combined = com.google.re2j.Pattern.compile(alternation.toString()).matcher("");
+      } catch (PatternSyntaxException e) {
+        /*
+         * Patterns which compile on their own can still conflict once combined
+         */
+        logger.warn("unable to combine patterns, matching individually", e);
+        groups.subList(1, groups.size()).clear();
+        this.fallbacks.clear();
+        this.fallbackPatterns.clear();
+        for (int p = 0; p < patterns.size(); p++) {
+          this.fallbacks.add(patterns.get(p).matcher(""));
+          this.fallbackPatterns.add(p);
+        }
+      }
+    }
+    this.combined = combined;
+
+    this.groupPatterns = new int[groups.size()];
+    for (int g = 0; g < groups.size(); g++) {
+      this.groupPatterns[g] = groups.get(g);
+    }
+  }
+
+  /**
+   * Translates a pattern to RE2J syntax if both engines match it the same way. Only literals,
+   * groups, alternation, quantifiers, {@code ^}, simple character classes and the escapes in
+   * {@link #SAFE_ESCAPES} are accepted. {@code .} is rewritten to exclude every line terminator as
+   * {@link java.util.regex.Pattern} does, where RE2J only excludes {@code \n}. {@code $} is not
+   * accepted as in {@link java.util.regex.Pattern} it also matches before a final line terminator.
+   *
+   * @param pattern pattern compiled by {@link java.util.regex.Pattern}.
+   * @return equivalent RE2J pattern or null if it must be matched with
+   *         {@link java.util.regex.Pattern}.
+   */
+  static String toRe2j(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return null;
+    }
+
+    String regex = pattern.pattern();
+    StringBuilder out = new StringBuilder(regex.length());
+    boolean inClass = false;
+    boolean quantified = false;
+
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+
+      if (c == '\\') {
+        boolean punctuation = next < 128 && next > 0 && !Character.isLetterOrDigit(next);
+        if (!punctuation && SAFE_ESCAPES.indexOf(next) < 0) {
+          return null;
+        }
+        out.append(c).append(next);
+        i++;
+        quantified = false;
+        continue;
+      }
+
+      if (inClass) {
+        /*
+         * Nested classes, unions and intersections are only supported by java.util.regex
+         */
+        if (c == '[' || (c == '&' && next == '&')) {
+          return null;
+        }
+        if (c == ']') {
+          inClass = false;
+        }
+        out.append(c);
+        continue;
+      }
+
+      switch (c) {
+        case '[':
+          inClass = true;
+          out.append(c);
+          if (next == '^') {
+            out.append(next);
+            i++;
+            next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+          }
+          if (next == ']') {
+            return null;
+          }
+          quantified = false;
+          break;
+        case '.':
+          out.append(ANY_BUT_LINE_TERMINATOR);
+          quantified = false;
+          break;
+        case '(':
+          /*
+           * Only non-capturing groups. Inline flags, named groups and lookarounds are not accepted.
+           */
+          if (next == '?' && (i + 2 >= regex.length() || regex.charAt(i + 2) != ':')) {
+            return null;
+          }
+          out.append(c);
+          quantified = false;
+          break;
+        case '$':
+          return null;
+        case '*':
+        case '+':
+        case '?':
+        case '}':
+          /*
+           * Possessive quantifiers are only supported by java.util.regex
+           */
+          if (quantified && c == '+') {
+            return null;
+          }
+          out.append(c);
+          quantified = !(quantified && c == '?');
+          break;
+        case '{':
+          while (i < regex.length() && regex.charAt(i) != '}') {
+            out.append(regex.charAt(i++));
+          }
+          i--;
+          quantified = false;
+          break;
+        default:
+          out.append(c);
+          quantified = false;
+      }
+    }
+
+    return out.toString();
+  }
+
+  /**
+   * @param input string to search.
+   * @return index of a pattern which matches part of input or -1 if none match.
+   */
+  public int find(CharSequence input) {
+    if (this.combined != null && this.combined.reset(input).find()) {
+      for (int g = 1; g < this.groupPatterns.length; g++) {
+        if (this.groupPatterns[g] >= 0 && this.combined.start(g) >= 0) {
+          return this.groupPatterns[g];
+        }
+      }
+    }
+
+    for (int i = 0; i < this.fallbacks.size(); i++) {
+      if (this.fallbacks.get(i).reset(input).find()) {
+        return this.fallbackPatterns.get(i);
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * @param input string to match.
+   * @return index of the first pattern, in the order they were given, which matches the whole
+   *         input or -1 if none match.
+   */
+  public int matches(CharSequence input) {
+    int matched = Integer.MAX_VALUE;
+
+    /*
+     * Alternatives are tried in order so the first group that took part in a match is the first
+     * pattern which matches.
+     */
+    if (this.combined != null && this.combined.reset(input).matches()) {
+      for (int g = 1; g < this.groupPatterns.length; g++) {
+        if (this.groupPatterns[g] >= 0 && this.combined.start(g) >= 0) {
+          matched = this.groupPatterns[g];
+          break;
+        }
+      }
+    }
+
+    for (int i = 0; i < this.fallbacks.size() && this.fallbackPatterns.get(i) < matched; i++) {
+      if (this.fallbacks.get(i).reset(input).matches()) {
+        matched = this.fallbackPatterns.get(i);
+        break;
+      }
+    }
+
+    return matched == Integer.MAX_VALUE ? -1 : matched;
+  }
+}
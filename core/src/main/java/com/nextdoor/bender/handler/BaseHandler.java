@@ -20,12 +20,14 @@ import java.io.IOException;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,6 +39,7 @@ import com.amazonaws.services.lambda.model.ListTagsRequest;
 import com.amazonaws.services.lambda.model.ListTagsResult;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.s3.AmazonS3URI;
+import com.nextdoor.bender.EventBatch;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.aws.AWSLambdaClientFactory;
 import com.nextdoor.bender.aws.AmazonS3ClientFactory;
@@ -44,18 +47,23 @@ import com.nextdoor.bender.config.BenderConfig;
 import com.nextdoor.bender.config.ConfigurationException;
 import com.nextdoor.bender.config.HandlerResources;
 import com.nextdoor.bender.config.Source;
-import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.dedup.DuplicateFilter;
 import com.nextdoor.bender.deserializer.DeserializerProcessor;
+import com.nextdoor.bender.executor.ExecutorProviders;
+import com.nextdoor.bender.filter.RawEventFilter;
 import com.nextdoor.bender.ipc.IpcSenderService;
 import com.nextdoor.bender.ipc.TransportException;
 import com.nextdoor.bender.logging.BenderLayout;
 import com.nextdoor.bender.monitoring.Monitor;
 import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.operation.OperationPipeline;
 import com.nextdoor.bender.operation.OperationProcessor;
-import com.nextdoor.bender.serializer.SerializationException;
+import com.nextdoor.bender.queue.QueueController;
+import com.nextdoor.bender.queue.RingBuffer;
+import com.nextdoor.bender.queue.WaitStrategy;
 import com.nextdoor.bender.serializer.SerializerProcessor;
 import com.nextdoor.bender.wrapper.Wrapper;
-import com.oath.cyclops.async.adapters.Queue;
 
 /**
  * Lambda handler which contains most of the logic to process inputs.
@@ -70,7 +78,17 @@ public abstract class BaseHandler<T> implements Handler<T> {
   protected Wrapper wrapper;
   protected SerializerProcessor ser;
   private IpcSenderService ipcService;
-  private int queueSize = 1;
+  private DeadLetterQueue deadLetters = null;
+  private DuplicateFilter duplicates = null;
+  private QueueController queueController = new QueueController(1, false, 1, 0);
+  private WaitStrategy queueWaitStrategy = WaitStrategy.SLEEPING;
+  private int parallelism = 1;
+  private int batchSize = 100;
+  private boolean stopBeforeDeadline = false;
+  private long deadlineHeadroomMs = 0;
+  private double deadlineLatencyFactor = 0;
+  private Executor taskExecutor;
+  private Map<String, List<Lane>> extraLanes = new HashMap<String, List<Lane>>();
   protected List<Source> sources;
   protected BenderConfig config = null;
   protected Monitor monitor;
@@ -80,7 +98,41 @@ public abstract class BaseHandler<T> implements Handler<T> {
   /**
    * Per invocation
    */
-  private Queue<InternalEvent> eventQueue = null;
+  private List<RingBuffer<InternalEvent>> eventQueues = null;
+
+  /**
+   * Resources used by a single worker lane. Lanes do not share deserializers, operations,
+   * wrappers, or serializers with each other.
+   */
+  private static class Lane {
+    private final Source source;
+    private final SerializerProcessor ser;
+    private final Wrapper wrapper;
+
+    public Lane(Source source, SerializerProcessor ser, Wrapper wrapper) {
+      this.source = source;
+      this.ser = ser;
+      this.wrapper = wrapper;
+    }
+  }
+
+  /**
+   * Counters that are kept for the duration of an invocation and updated by all lanes.
+   */
+  private static class InvocationCounters {
+    private final AtomicLong eventCount = new AtomicLong(0);
+    private final AtomicLong oldestArrivalTime = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong oldestOccurrenceTime = new AtomicLong(System.currentTimeMillis());
+    private final AtomicInteger totalEventsBytes = new AtomicInteger(0);
+    private final AtomicInteger totalSerializedBytes = new AtomicInteger(0);
+    private final AtomicBoolean abortEarly = new AtomicBoolean(false);
+    private final AtomicLongArray filterHits;
+    private final AtomicLong eventsRead = new AtomicLong(0);
+
+    private InvocationCounters(int filters) {
+      this.filterHits = new AtomicLongArray(filters);
+    }
+  }
 
 
   /**
@@ -142,6 +194,12 @@ public abstract class BaseHandler<T> implements Handler<T> {
       throw new HandlerException("Error loading configuration: " + e.getMessage(), e);
     }
 
+    /*
+     * Select the executor before creating anything that uses threads.
+     */
+    ExecutorProviders.set(config.getHandlerConfig().getExecutor());
+    taskExecutor = ExecutorProviders.get().getTaskExecutor();
+
     HandlerResources handlerResources;
     try {
       handlerResources = new HandlerResources(config);
@@ -182,8 +240,63 @@ public abstract class BaseHandler<T> implements Handler<T> {
     wrapper = handlerResources.getWrapperFactory().newInstance();
     ser = handlerResources.getSerializerProcessor();
     setIpcService(new IpcSenderService(handlerResources.getTransportFactory()));
+    deadLetters = handlerResources.getDeadLetterQueue();
+    getIpcService().setDeadLetterQueue(deadLetters);
+    duplicates = handlerResources.getDuplicateFilter();
+    getIpcService().setDuplicateFilter(duplicates);
     sources = new ArrayList<Source>(handlerResources.getSources().values());
-    queueSize = config.getHandlerConfig().getQueueSize();
+    queueController = new QueueController(config.getHandlerConfig().getQueueSize(),
+        config.getHandlerConfig().getAdaptiveQueueSize(),
+        config.getHandlerConfig().getMaxQueueSize(),
+        config.getHandlerConfig().getQueueHeapFraction());
+    queueWaitStrategy = config.getHandlerConfig().getQueueWaitStrategy();
+    parallelism = config.getHandlerConfig().getParallelism();
+    batchSize = config.getHandlerConfig().getBatchSize();
+    InternalEvent.setEventHashFunction(config.getHandlerConfig().getEventHash());
+    stopBeforeDeadline = config.getHandlerConfig().getStopBeforeDeadline();
+    deadlineHeadroomMs = config.getHandlerConfig().getDeadlineHeadroomMs();
+    deadlineLatencyFactor = config.getHandlerConfig().getDeadlineLatencyFactor();
+
+    /*
+     * Each additional worker lane gets its own instances of every source as well as its own
+     * wrapper and serializer. Their stats are shared with the first lane's.
+     */
+    if (parallelism > 1) {
+      try {
+        for (String sourceName : handlerResources.getSources().keySet()) {
+          List<Lane> lanes = new ArrayList<Lane>(parallelism - 1);
+          for (int i = 1; i < parallelism; i++) {
+            lanes.add(new Lane(handlerResources.newSourceInstance(sourceName),
+                handlerResources.newSerializerProcessor(),
+                handlerResources.getWrapperFactory().newInstance()));
+          }
+          extraLanes.put(sourceName, lanes);
+        }
+      } catch (ClassNotFoundException e) {
+        throw new HandlerException("Unable to load resource: " + e.getMessage(), e);
+      }
+    }
+
+    for (Source source : sources) {
+      RawEventFilter filter = source.getRawEventFilter();
+      for (int i = 0; i < filter.size(); i++) {
+        logger.info(String.format("source %s filter_type %s filter_index %d: %s",
+            source.getSourceName(), filter.getType(i).name().toLowerCase(),
+            filter.getTypeIndex(i), filter.getFilter(i)));
+      }
+    }
+
+    if (handlerResources.getDeadLetterRejected()) {
+      for (Source source : sources) {
+        source.setDeadLetterQueue(deadLetters);
+      }
+      for (List<Lane> lanes : extraLanes.values()) {
+        for (Lane lane : lanes) {
+          lane.source.setDeadLetterQueue(deadLetters);
+        }
+      }
+    }
+
     initialized = true;
   }
 
@@ -204,6 +317,14 @@ public abstract class BaseHandler<T> implements Handler<T> {
       }
 
       logger.fatal("Function failure occurred", e);
+
+      /*
+       * The rest of the input was never read so the failure can not be ignored
+       */
+      if (e instanceof DeadlineReachedException) {
+        throw new RuntimeException("function failed", e);
+      }
+
       if (this.config != null && this.config.getHandlerConfig() != null) {
         if (this.config.getHandlerConfig().getFailOnException()) {
           throw new RuntimeException("function failed", e);
@@ -220,12 +341,27 @@ public abstract class BaseHandler<T> implements Handler<T> {
         logger.warn("Error closing iterator", e);
       }
 
-      if (this.eventQueue != null) {
-        try {
-          this.eventQueue.closeAndClear();
-        } catch (Queue.ClosedQueueException e) {
+      if (this.eventQueues != null) {
+        for (RingBuffer<InternalEvent> eventQueue : this.eventQueues) {
+          eventQueue.closeAndClear();
         }
       }
+
+      /*
+       * Nothing is left to spill once the dead letter queue was flushed. If the invocation failed
+       * before then the input is retried so what was spilled is no longer needed.
+       */
+      if (this.deadLetters != null) {
+        this.deadLetters.discard();
+      }
+
+      /*
+       * Sent batches which were never published, because the transport factory was not closed,
+       * must not be dropped when the input is retried.
+       */
+      if (this.duplicates != null) {
+        this.duplicates.discard();
+      }
     }
   }
 
@@ -256,16 +392,24 @@ public abstract class BaseHandler<T> implements Handler<T> {
     Stat runtime = new Stat("runtime.ns");
     runtime.start();
 
+    /*
+     * The first lane always uses the handler's own source, wrapper, and serializer. Additional
+     * lanes, if any, were created at init.
+     */
     Source source = this.getSource();
-    DeserializerProcessor deser = source.getDeserProcessor();
-    List<OperationProcessor> operations = source.getOperationProcessors();
-    List<String> containsStrings = source.getContainsStrings();
-    List<Pattern> regexPatterns = source.getRegexPatterns();
-    AtomicInteger totalEventsBytes = new AtomicInteger(0);
-    AtomicInteger totalSerializedBytes = new AtomicInteger(0);
+    List<Lane> lanes = new ArrayList<Lane>(this.parallelism);
+    lanes.add(new Lane(source, this.ser, this.wrapper));
+    if (this.parallelism > 1) {
+      lanes.addAll(this.extraLanes.get(source.getSourceName()));
+    }
+
+    InvocationCounters counters = new InvocationCounters(source.getRawEventFilter().size());
 
     this.getIpcService().setContext(context);
 
+    DeadlineController deadline = new DeadlineController(context, this.deadlineHeadroomMs,
+        this.deadlineLatencyFactor, this.getIpcService()::getLongestSendNanos);
+
     Iterator<InternalEvent> events = this.getInternalEventIterator();
 
     /*
@@ -273,153 +417,284 @@ public abstract class BaseHandler<T> implements Handler<T> {
      */
     this.monitor.invokeTimeNow();
 
-    AtomicLong eventCount = new AtomicLong(0);
-    AtomicLong oldestArrivalTime = new AtomicLong(System.currentTimeMillis());
-    AtomicLong oldestOccurrenceTime = new AtomicLong(System.currentTimeMillis());
-
     /*
-     * eventQueue allows for InternalEvents to be pulled from the Iterator and published to a
-     * stream. A Thread is created that loops through events in the iterator and offers them to the
-     * queue. Note that offering will be blocked if the queue is full (back pressure being applied).
-     * When the iterator reaches the end (hasNext = false) the queue is closed.
+     * Each lane has an eventQueue, a single producer RingBuffer, which allows for InternalEvents to
+     * be pulled from the Iterator and published to a stream. A reader task run on the task executor
+     * loops through events in the iterator and offers them to the queues. Note that offering will
+     * be blocked if a queue is full (back pressure being applied). When the iterator reaches the
+     * end (hasNext = false) the queues are closed. The QueueController sizes the queues from what
+     * the reader offers and the lanes consume.
      */
-    this.eventQueue =
-        new Queue<InternalEvent>(new LinkedBlockingQueue<InternalEvent>(this.queueSize));
+    int laneQueueSize = this.queueController.getQueueCapacity(lanes.size());
+    List<RingBuffer<InternalEvent>> queues =
+        new ArrayList<RingBuffer<InternalEvent>>(lanes.size());
+    for (int i = 0; i < lanes.size(); i++) {
+      queues.add(new RingBuffer<InternalEvent>(laneQueueSize, RingBuffer.Producers.SINGLE,
+          this.queueWaitStrategy));
+    }
+    this.eventQueues = queues;
+
+    QueueController queueController = this.queueController;
+    queueController.attach(queues);
 
     /*
-     * Thread will live for duration of invocation and supply Stream with events.
+     * Reader task will live for duration of invocation and supply lanes with events.
      */
-    new Thread(new Runnable() {
+    this.taskExecutor.execute(new Runnable() {
       @Override
       public void run() {
-        while (events.hasNext()) {
-          try {
-            eventQueue.offer(events.next());
-          } catch (Queue.ClosedQueueException e) {
+        int next = 0;
+        long read = 0;
+
+        /*
+         * Stop reading when the remaining time is only enough to send what was already read.
+         */
+        while (!(stopBeforeDeadline && deadline.isReached()) && events.hasNext()) {
+          InternalEvent ievent = events.next();
+          read++;
+
+          /*
+           * Events with an ordering key always go to the same lane. All others are spread evenly
+           * across lanes.
+           */
+          int lane;
+          String orderingKey = ievent.getOrderingKey();
+          if (orderingKey != null) {
+            lane = Math.floorMod(orderingKey.hashCode(), queues.size());
+          } else {
+            lane = next;
+            next = (next + 1) % queues.size();
+          }
+
+          queueController.record(ievent.getEventSize());
+          if (!queues.get(lane).offer(ievent)) {
             break;
           }
         }
-        try {
-          eventQueue.close();
-        } catch (Queue.ClosedQueueException e) {
+        counters.eventsRead.set(read);
+
+        for (RingBuffer<InternalEvent> queue : queues) {
+          queue.close();
         }
       }
-    }).start();
-
-    Stream<InternalEvent> input = this.eventQueue.jdkStream();
+    });
 
     /*
-     * Filter out raw events
+     * Lanes other than the first run on the task executor while the first lane runs in this
+     * thread.
      */
-    Stream<InternalEvent> filtered = input.filter(
-        /*
-         * Perform regex filter
-         */
-        ievent -> {
-          eventCount.incrementAndGet();
-          String eventStr = ievent.getEventString();
-          totalEventsBytes.addAndGet(eventStr.length());
+    List<Future<?>> futures = new ArrayList<Future<?>>(lanes.size() - 1);
+    for (int i = 1; i < lanes.size(); i++) {
+      Lane lane = lanes.get(i);
+      RingBuffer<InternalEvent> queue = queues.get(i);
+      futures.add(CompletableFuture
+          .runAsync(() -> processLane(queue.stream(), lane, counters), this.taskExecutor));
+    }
 
-          /*
-           * Apply String contains filters before deserialization
-           */
-          for (String containsString : containsStrings) {
-            if (eventStr.contains(containsString)) {
-              return false;
-            }
+    try {
+      processLane(queues.get(0).stream(), lanes.get(0), counters);
+
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          } else if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
           }
+          throw new HandlerException("worker lane failed", (Exception) e.getCause());
+        } catch (InterruptedException e) {
+          throw new HandlerException("thread was interrupted while waiting for worker lanes", e);
+        }
+      }
+    } catch (RuntimeException | Error | HandlerException e) {
+      /*
+       * Stop any lanes which are still running.
+       */
+      abort(counters);
+      throw e;
+    }
 
-          /*
-           * Apply regex patterns before deserialization
-           */
-          for (Pattern regexPattern : regexPatterns) {
-            Matcher m = regexPattern.matcher(eventStr);
+    /*
+     * Wait for transporters to finish and then send anything which was dead lettered
+     */
+    try {
+      this.getIpcService().flush();
 
-            if (m.find()) {
-              return false;
-            }
-          }
+      if (this.deadLetters != null) {
+        this.deadLetters.flush(context);
+      }
+    } catch (TransportException e) {
+      throw new HandlerException("encounted TransportException while shutting down ipcService", e);
+    } catch (InterruptedException e) {
+      throw new HandlerException("thread was interruptedwhile shutting down ipcService", e);
+    } finally {
+      String evtSource = this.getSourceName();
 
-          return true;
+      runtime.stop();
+
+      if (!this.skipWriteStats) {
+        List<Stat> invocationStats = getInvocationStats(source.getRawEventFilter(),
+            counters.filterHits, deadline, queueController);
+        if (this.deadLetters != null) {
+          invocationStats.addAll(this.deadLetters.getStats());
+        }
+        if (this.duplicates != null) {
+          invocationStats.addAll(this.duplicates.getStats());
         }
-    );
 
+        writeStats(counters.eventCount.get(), counters.oldestArrivalTime.get(),
+            counters.oldestOccurrenceTime.get(), evtSource, runtime,
+            counters.totalEventsBytes.get(), counters.totalSerializedBytes.get(),
+            invocationStats);
+      }
+
+      if (logger.isTraceEnabled()) {
+        getGCStats();
+      }
+    }
+
+    if (deadline.wasReached()) {
+      onDeadlineReached(counters.eventsRead.get());
+    }
+  }
+
+  /**
+   * Turns on stop_before_deadline for handler features which only work when reading stops before
+   * the invocation times out, such as those relying on {@link #onDeadlineReached(long)}.
+   *
+   * @param setting name of the setting which requires it, used in the log message.
+   */
+  protected void requireStopBeforeDeadline(String setting) {
+    if (!this.stopBeforeDeadline) {
+      logger.warn(setting + " requires stop_before_deadline, enabling it");
+      this.stopBeforeDeadline = true;
+    }
+  }
+
+  /**
+   * Called after the events that were read have been sent when reading stopped early because the
+   * invocation was close to timing out. By default this fails the invocation so that the input is
+   * retried. Handlers which are able to resume from where they stopped may record their progress
+   * instead.
+   *
+   * @param eventsRead number of events read from the input before stopping.
+   * @throws HandlerException to fail the invocation. A {@link DeadlineReachedException} fails it
+   *         even when fail_on_exception is disabled.
+   */
+  protected void onDeadlineReached(long eventsRead) throws HandlerException {
+    throw new DeadlineReachedException("stopped reading input after " + eventsRead
+        + " events because the function was close to timing out");
+  }
+
+  /**
+   * Runs events through a single lane. This filters, deserializes, performs operations on,
+   * serializes, and finally hands off events to the {@link IpcSenderService}. Events are grouped
+   * into {@link EventBatch}es so that each stage is invoked once per batch rather than once per
+   * event.
+   *
+   * @param input stream of events for the lane.
+   * @param lane resources used to process events.
+   * @param counters invocation wide counters which are shared by all lanes.
+   */
+  private void processLane(Stream<InternalEvent> input, Lane lane, InvocationCounters counters) {
+    DeserializerProcessor deser = lane.source.getDeserProcessor();
+    List<OperationProcessor> operations = lane.source.getOperationProcessors();
+    RawEventFilter filter = lane.source.getRawEventFilter();
 
     /*
-     * Deserialize
+     * Filter out raw events
      */
-    Stream<InternalEvent> deserialized = filtered.map(ievent -> {
-      DeserializedEvent data = deser.deserialize(ievent.getEventString());
+    Stream<EventBatch> filtered = EventBatch.batches(input, this.batchSize).map(batch -> {
+      long eventBytes = 0;
+
+      for (int i = 0; i < batch.size(); i++) {
+        InternalEvent ievent = batch.get(i);
+        eventBytes += ievent.getEventSize();
 
-      if (data == null || data.getPayload() == null) {
-        logger.warn("Failed to deserialize: " + ievent.getEventString());
-        return null;
+        int hit = filter.match(ievent);
+        if (hit >= 0) {
+          counters.filterHits.incrementAndGet(hit);
+          batch.set(i, null);
+        }
       }
 
-      ievent.setEventObj(data);
-      return ievent;
-    }).filter(Objects::nonNull);
+      counters.eventCount.addAndGet(batch.size());
+      counters.totalEventsBytes.addAndGet((int) eventBytes);
+      batch.compact();
+
+      return batch;
+    });
 
     /*
-     * Perform Operations
+     * Deserialize
+     */
+    Stream<EventBatch> deserialized = filtered.map(deser::deserialize);
+
+    /*
+     * Drop events which an earlier invocation already delivered
      */
-    Stream<InternalEvent> operated = deserialized;
-    for (OperationProcessor operation : operations) {
-      operated = operation.perform(operated);
+    if (this.duplicates != null) {
+      deserialized = deserialized.map(this.duplicates::filter);
     }
 
     /*
-     * Serialize
+     * Perform Operations
      */
-    Stream<InternalEvent> serialized = operated.map(ievent -> {
-      try {
-        String raw = this.ser.serialize(this.wrapper.getWrapped(ievent));
-        totalSerializedBytes.addAndGet(raw.length());
-        ievent.setSerialized(raw);
-        return ievent;
-      } catch (SerializationException e) {
-        return null;
-      }
-    }).filter(Objects::nonNull);
+    Stream<EventBatch> operated =
+        OperationPipeline.performBatches(operations, deserialized, this.batchSize);
 
     /*
-     * Transport
+     * Serialize
      */
-    AtomicBoolean abortEarly = new AtomicBoolean(false);
-    serialized.takeWhile(internalEvent -> !abortEarly.get())
-              .forEach(internalEvent -> {
-      updateOldest(oldestArrivalTime, internalEvent.getArrivalTime());
-      updateOldest(oldestOccurrenceTime, internalEvent.getEventTime());
+    Stream<EventBatch> serialized = operated.map(batch -> {
+      lane.ser.serialize(batch, lane.wrapper);
 
-      try {
-        this.getIpcService().add(internalEvent);
-      } catch (TransportException e) {
-        logger.warn("error adding event", e);
-        abortEarly.set(true);
+      long serializedBytes = 0;
+      for (InternalEvent ievent : batch) {
+        serializedBytes += ievent.getSerialized().length();
       }
+      counters.totalSerializedBytes.addAndGet((int) serializedBytes);
+
+      return batch;
     });
 
     /*
-     * Wait for transporters to finish
+     * Transport
      */
-    try {
-      this.getIpcService().flush();
-    } catch (TransportException e) {
-      throw new HandlerException("encounted TransportException while shutting down ipcService", e);
-    } catch (InterruptedException e) {
-      throw new HandlerException("thread was interruptedwhile shutting down ipcService", e);
-    } finally {
-      String evtSource = this.getSourceName();
+    serialized.takeWhile(batch -> !counters.abortEarly.get()).forEach(batch -> {
+      for (InternalEvent internalEvent : batch) {
+        if (counters.abortEarly.get()) {
+          return;
+        }
 
-      runtime.stop();
+        updateOldest(counters.oldestArrivalTime, internalEvent.getArrivalTime());
+        updateOldest(counters.oldestOccurrenceTime, internalEvent.getEventTime());
 
-      if (!this.skipWriteStats) {
-        writeStats(eventCount.get(), oldestArrivalTime.get(), oldestOccurrenceTime.get(), evtSource,
-            runtime, totalEventsBytes.get(), totalSerializedBytes.get());
+        try {
+          this.getIpcService().add(internalEvent);
+        } catch (TransportException e) {
+          logger.warn("error adding event", e);
+          abort(counters);
+        }
       }
+    });
+  }
 
-      if (logger.isTraceEnabled()) {
-        getGCStats();
+  /**
+   * Stops all lanes and the reader. Lanes stop consuming their queues once aborted so the queues
+   * are also cleared. Otherwise the reader could block forever offering to a full queue while the
+   * other lanes wait forever for events from it.
+   *
+   * @param counters counters of the invocation to abort.
+   */
+  private void abort(InvocationCounters counters) {
+    counters.abortEarly.set(true);
+
+    if (this.eventQueues != null) {
+      for (RingBuffer<InternalEvent> eventQueue : this.eventQueues) {
+        eventQueue.closeAndClear();
       }
     }
   }
@@ -431,6 +706,10 @@ public abstract class BaseHandler<T> implements Handler<T> {
     if (this.getIpcService() != null) {
       this.getIpcService().shutdown();
     }
+
+    if (this.deadLetters != null) {
+      this.deadLetters.shutdown();
+    }
   }
 
   private void writeStats(long evtCount,
@@ -439,18 +718,20 @@ public abstract class BaseHandler<T> implements Handler<T> {
                           String source,
                           Stat runtime,
                           int totalEventBytes,
-                          int totalSerializedBytes) {
+                          int totalSerializedBytes,
+                          List<Stat> extraStats) {
     /*
      * Add some stats about this invocation
      */
-    List<Stat> stats = Arrays.asList(
+    List<Stat> stats = new ArrayList<Stat>(Arrays.asList(
             new Stat("event.count", evtCount, Stat.MetricType.count),
             new Stat("spout.lag.ms", (System.currentTimeMillis() - oldestArrivalTime), Stat.MetricType.gauge),
             new Stat("source.lag.ms", (System.currentTimeMillis() - oldestOccurrenceTime), Stat.MetricType.gauge),
             runtime,
             new Stat("event.byte_size", totalEventBytes),
             new Stat("serializer.serialized_bytes", totalSerializedBytes)
-    );
+    ));
+    stats.addAll(extraStats);
 
     stats.forEach(s -> s.addTag("source", source));
     stats.forEach(s -> this.monitor.addInvocationStat(s));
@@ -461,6 +742,41 @@ public abstract class BaseHandler<T> implements Handler<T> {
     this.monitor.writeStats();
   }
 
+  /**
+   * Creates a count of the events dropped by each contains String and regex pattern of the source
+   * as well as stats about how much of the invocation's time budget was used and the event queues.
+   */
+  private static List<Stat> getInvocationStats(RawEventFilter filter, AtomicLongArray filterHits,
+      DeadlineController deadline, QueueController queueController) {
+    List<Stat> stats = new ArrayList<Stat>(filter.size() + 6);
+    stats.addAll(queueController.getStats());
+
+    if (deadline.isEnabled()) {
+      stats.add(new Stat("invocation.budget_used.pct", deadline.getBudgetUsedPercent(),
+          Stat.MetricType.gauge));
+      stats.add(new Stat("deadline.stopped_early", deadline.wasReached() ? 1 : 0,
+          Stat.MetricType.count));
+    }
+
+    /*
+     * Filters are tagged by position rather than by their text, which can be long and contain
+     * characters reporters reject. The text of each position is logged at init.
+     */
+    for (int i = 0; i < filter.size(); i++) {
+      long hits = filterHits.get(i);
+      if (hits == 0) {
+        continue;
+      }
+
+      Stat stat = new Stat("filter.hits", hits, Stat.MetricType.count);
+      stat.addTag("filter_type", filter.getType(i).name().toLowerCase());
+      stat.addTag("filter_index", Integer.toString(filter.getTypeIndex(i)));
+      stats.add(stat);
+    }
+
+    return stats;
+  }
+
   private static long lastGcCount = 0;
   private static long lastGcDuration = 0;
 
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.handler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/**
+ * Tracks how much of the Lambda invocation's time budget remains and decides when the handler
+ * should stop reading new input so that buffered events can still be sent before the function
+ * times out.
+ *
+ * The headroom kept for sending is the larger of a configured minimum and a multiple of the
+ * longest transport call observed recently, but never more than a quarter of the invocation's
+ * budget. When the context does not report a remaining time, as with the CLI and tests, the
+ * deadline is never reached.
+ */
+public class DeadlineController {
+  /*
+   * Upper bound for the headroom as a fraction of the budget. Prevents functions with short
+   * timeouts from stopping before they read anything.
+   */
+  private static final double MAX_HEADROOM_FRACTION = 0.25;
+
+  private final long startNanos;
+  private final long budgetNanos;
+  private final long minHeadroomNanos;
+  private final double latencyFactor;
+  private final LongSupplier transportLatencyNanos;
+  private volatile boolean reached = false;
+
+  /**
+   * @param context context of the current invocation.
+   * @param minHeadroomMs minimum time to keep for sending buffered events.
+   * @param latencyFactor multiple of the observed transport latency to keep for sending.
+   * @param transportLatencyNanos supplies the longest transport call observed recently.
+   */
+  public DeadlineController(Context context, long minHeadroomMs, double latencyFactor,
+      LongSupplier transportLatencyNanos) {
+    this.startNanos = System.nanoTime();
+    this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, context.getRemainingTimeInMillis()));
+    this.minHeadroomNanos = TimeUnit.MILLISECONDS.toNanos(minHeadroomMs);
+    this.latencyFactor = latencyFactor;
+    this.transportLatencyNanos = transportLatencyNanos;
+  }
+
+  /**
+   * @return true if the context reported the time remaining in the invocation.
+   */
+  public boolean isEnabled() {
+    return this.budgetNanos > 0;
+  }
+
+  /**
+   * @return time to keep for sending buffered events.
+   */
+  public long getHeadroomNanos() {
+    long headroom = Math.max(this.minHeadroomNanos,
+        (long) (this.transportLatencyNanos.getAsLong() * this.latencyFactor));
+
+    return Math.min(headroom, (long) (this.budgetNanos * MAX_HEADROOM_FRACTION));
+  }
+
+  /**
+   * Checks whether reading should stop. Once true it remains true.
+   *
+   * @return true if there is only enough time left to send what has already been read.
+   */
+  public boolean isReached() {
+    if (this.reached) {
+      return true;
+    }
+
+    if (!isEnabled()) {
+      return false;
+    }
+
+    if (getElapsedNanos() >= this.budgetNanos - getHeadroomNanos()) {
+      this.reached = true;
+    }
+
+    return this.reached;
+  }
+
+  /**
+   * @return true if {@link #isReached()} has returned true.
+   */
+  public boolean wasReached() {
+    return this.reached;
+  }
+
+  public long getElapsedNanos() {
+    return System.nanoTime() - this.startNanos;
+  }
+
+  public long getBudgetNanos() {
+    return this.budgetNanos;
+  }
+
+  /**
+   * @return percent of the invocation's time budget used so far or 0 if not enabled.
+   */
+  public long getBudgetUsedPercent() {
+    if (!isEnabled()) {
+      return 0;
+    }
+
+    return Math.round(getElapsedNanos() * 100.0 / this.budgetNanos);
+  }
+}
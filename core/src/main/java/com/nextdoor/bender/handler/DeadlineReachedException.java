@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler;
+
+/**
+ * Thrown when reading stopped early because the invocation was close to timing out. Part of the
+ * input was not read so the invocation always fails, regardless of fail_on_exception, in order
+ * for the input to be retried.
+ */
+public class DeadlineReachedException extends HandlerException {
+  private static final long serialVersionUID = 4385062210373961531L;
+
+  public DeadlineReachedException(String msg) {
+    super(msg);
+  }
+}
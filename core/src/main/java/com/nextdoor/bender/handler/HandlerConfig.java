@@ -17,11 +17,15 @@ package com.nextdoor.bender.handler;
 
 import java.util.Collections;
 import java.util.Set;
+import javax.validation.constraints.Min;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import com.nextdoor.bender.config.AbstractConfig;
+import com.nextdoor.bender.executor.ExecutorType;
 import com.nextdoor.bender.monitoring.Tag;
+import com.nextdoor.bender.queue.WaitStrategy;
+import com.nextdoor.bender.utils.EventHash;
 
 public abstract class HandlerConfig extends AbstractConfig<HandlerConfig> {
   @JsonSchemaDescription("If an uncaught exception occurs fail the function")
@@ -49,6 +53,94 @@ public abstract class HandlerConfig extends AbstractConfig<HandlerConfig> {
   @JsonSchemaDefault(value = "500")
   private Integer queueSize = 500;
 
+  @JsonSchemaDescription("Resize the event queue while running instead of always using "
+      + "queue_size. The queue grows to hold about 100ms of what the worker lanes consume, "
+      + "starting from queue_size, but never beyond max_queue_size or what fits in "
+      + "queue_heap_fraction of the free heap given the average event size.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "false")
+  private Boolean adaptiveQueueSize = false;
+
+  @JsonSchemaDescription("Largest event queue size when adaptive_queue_size is enabled.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "10000")
+  @Min(1)
+  private Integer maxQueueSize = 10000;
+
+  @JsonSchemaDescription("Share of the free heap that queued events may use when "
+      + "adaptive_queue_size is enabled.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "0.1")
+  @Min(0)
+  private Double queueHeapFraction = 0.1;
+
+  @JsonSchemaDescription("What the reader and worker threads do while the event queue is full or "
+      + "empty. BUSY_SPIN has the lowest latency but occupies a vCPU while waiting, YIELDING "
+      + "spins briefly before yielding the CPU, and SLEEPING additionally parks the thread with "
+      + "a back off. SLEEPING is recommended unless the function has spare vCPUs.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "SLEEPING")
+  private WaitStrategy queueWaitStrategy = WaitStrategy.SLEEPING;
+
+  @JsonSchemaDescription("Number of worker lanes used to process events. Each lane has its own "
+      + "deserializer, operations, wrapper and serializer instances and is fed from the event "
+      + "queue. Events which carry an ordering key, such as the Kinesis partition key, are always "
+      + "routed to the same lane so their relative order is preserved. Setting this higher than "
+      + "1 is only useful when the function has more than one vCPU available.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "1")
+  @Min(1)
+  private Integer parallelism = 1;
+
+  @JsonSchemaDescription("Number of events grouped together and passed through deserialization, "
+      + "operations and serialization as a single batch. Larger batches reduce per event "
+      + "overhead at the cost of holding more events in memory at once.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "100")
+  @Min(1)
+  private Integer batchSize = 100;
+
+  @JsonSchemaDescription("Stop reading new input when the remaining Lambda invocation time is "
+      + "only enough to send the events already read. The invocation then fails after sending, "
+      + "instead of timing out part way through sending. The invocation fails even when "
+      + "fail_on_exception is disabled because part of the input was not read.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "false")
+  private Boolean stopBeforeDeadline = false;
+
+  @JsonSchemaDescription("Minimum time in milliseconds kept for sending buffered events when "
+      + "stop_before_deadline is enabled. Never more than a quarter of the invocation's time.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "5000")
+  @Min(0)
+  private Long deadlineHeadroomMs = 5000L;
+
+  @JsonSchemaDescription("Multiple of the longest recently observed transport call kept for "
+      + "sending buffered events when stop_before_deadline is enabled. Used when larger than "
+      + "deadline_headroom_ms.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "2.0")
+  @Min(0)
+  private Double deadlineLatencyFactor = 2.0;
+
+  @JsonSchemaDescription("Hash function used to identify events by their original contents, for "
+      + "example in duplicate detection. Hashes are only computed when something reads them. "
+      + "XXHASH64 and MURMUR3_128 are much faster than SHA1 but are not cryptographic. The "
+      + "eventSha1Hash metadata field, the sha1Hash field added by wrappers and the ElasticSearch "
+      + "document id are always SHA1.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "SHA1")
+  private EventHash eventHash = EventHash.SHA1;
+
+  @JsonSchemaDescription("Threads used for worker lanes, fork and conditional operations, and "
+      + "transport calls. PLATFORM uses regular threads. WORK_STEALING sends to transports from a "
+      + "work-stealing pool. VIRTUAL uses virtual threads, which allows raising transport threads "
+      + "far beyond the Lambda thread limit as blocked calls are cheap, and requires a Java 21 or "
+      + "later runtime. Falls back to PLATFORM on older runtimes.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "PLATFORM")
+  private ExecutorType executor = ExecutorType.PLATFORM;
+
   public Boolean getFailOnException() {
     return failOnException;
   }
@@ -65,6 +157,94 @@ public abstract class HandlerConfig extends AbstractConfig<HandlerConfig> {
     this.queueSize = queueSize;
   }
 
+  public Boolean getAdaptiveQueueSize() {
+    return this.adaptiveQueueSize;
+  }
+
+  public void setAdaptiveQueueSize(Boolean adaptiveQueueSize) {
+    this.adaptiveQueueSize = adaptiveQueueSize;
+  }
+
+  public Integer getMaxQueueSize() {
+    return this.maxQueueSize;
+  }
+
+  public void setMaxQueueSize(Integer maxQueueSize) {
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  public Double getQueueHeapFraction() {
+    return this.queueHeapFraction;
+  }
+
+  public void setQueueHeapFraction(Double queueHeapFraction) {
+    this.queueHeapFraction = queueHeapFraction;
+  }
+
+  public WaitStrategy getQueueWaitStrategy() {
+    return this.queueWaitStrategy;
+  }
+
+  public void setQueueWaitStrategy(WaitStrategy queueWaitStrategy) {
+    this.queueWaitStrategy = queueWaitStrategy;
+  }
+
+  public Integer getParallelism() {
+    return this.parallelism;
+  }
+
+  public void setParallelism(Integer parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public Integer getBatchSize() {
+    return this.batchSize;
+  }
+
+  public void setBatchSize(Integer batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public Boolean getStopBeforeDeadline() {
+    return this.stopBeforeDeadline;
+  }
+
+  public void setStopBeforeDeadline(Boolean stopBeforeDeadline) {
+    this.stopBeforeDeadline = stopBeforeDeadline;
+  }
+
+  public Long getDeadlineHeadroomMs() {
+    return this.deadlineHeadroomMs;
+  }
+
+  public void setDeadlineHeadroomMs(Long deadlineHeadroomMs) {
+    this.deadlineHeadroomMs = deadlineHeadroomMs;
+  }
+
+  public Double getDeadlineLatencyFactor() {
+    return this.deadlineLatencyFactor;
+  }
+
+  public void setDeadlineLatencyFactor(Double deadlineLatencyFactor) {
+    this.deadlineLatencyFactor = deadlineLatencyFactor;
+  }
+
+  public EventHash getEventHash() {
+    return this.eventHash;
+  }
+
+  public void setEventHash(EventHash eventHash) {
+    this.eventHash = eventHash;
+  }
+
+  public ExecutorType getExecutor() {
+    return this.executor;
+  }
+
+  public void setExecutor(ExecutorType executor) {
+    this.executor = executor;
+  }
+
   public Boolean getIncludeFunctionTags() {
     return this.includeFunctionTags;
   }
@@ -22,6 +22,10 @@ public class HandlerException extends Exception {
    */
   private static final long serialVersionUID = -6778185358921788377L;
 
+  public HandlerException(String msg) {
+    super(msg);
+  }
+
   public HandlerException(String msg, Exception e) {
     super(msg + ": " + e.getMessage(), e);
   }
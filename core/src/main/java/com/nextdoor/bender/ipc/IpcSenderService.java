@@ -16,18 +16,24 @@
 package com.nextdoor.bender.ipc;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.dedup.DuplicateFilter;
+import com.nextdoor.bender.executor.ExecutorProvider;
+import com.nextdoor.bender.executor.ExecutorProviders;
 import com.nextdoor.bender.monitoring.MonitoredProcess;
 
 /**
@@ -38,8 +44,8 @@ import com.nextdoor.bender.monitoring.MonitoredProcess;
 public class IpcSenderService extends MonitoredProcess {
   private static final Logger logger = Logger.getLogger(IpcSenderService.class);
   /*
-   * This thread pool is only for serializing data and invoking batch send. Typically the batch send
-   * will be asynchronous and launch another thread.
+   * This executor is only for serializing data and invoking batch send. Typically the batch send
+   * will be asynchronous and launch another thread. At most getMaxThreads() sends run at once.
    */
   private final ExecutorService pool;
   private TransportFactory transportFactory;
@@ -48,13 +54,43 @@ public class IpcSenderService extends MonitoredProcess {
   protected AtomicInteger threadCounter = new AtomicInteger(0);
   protected AtomicBoolean hasUnrecoverableException = new AtomicBoolean(false);
 
+  /*
+   * Longest call to a transport during the current and the previous invocation.
+   */
+  private final AtomicLong longestSendNanos = new AtomicLong(0);
+  private volatile long previousLongestSendNanos = 0;
+
   public final Map<LinkedHashMap<String, String>, TransportBuffer> buffers;
 
+  /*
+   * Serialized events in each buffer. Only kept when there is a dead letter queue so that a batch
+   * which fails to send can be spilled regardless of the buffer's internal format.
+   */
+  private final Map<LinkedHashMap<String, String>, List<String>> records;
+  private DeadLetterQueue deadLetters = null;
+
+  /*
+   * Hashes of the events in each buffer. Only kept when there is a duplicate filter so that the
+   * events of each batch which was sent are remembered.
+   */
+  private final Map<LinkedHashMap<String, String>, List<String>> hashes;
+  private DuplicateFilter duplicates = null;
+
   public IpcSenderService(TransportFactory factory) {
+    this(factory, ExecutorProviders.get());
+  }
+
+  /**
+   * @param factory creates transports and buffers.
+   * @param executors provides the threads used to call transports.
+   */
+  public IpcSenderService(TransportFactory factory, ExecutorProvider executors) {
     super(factory.getChildClass());
     this.transportFactory = factory;
-    this.pool = Executors.newFixedThreadPool(factory.getMaxThreads());
+    this.pool = executors.newBoundedExecutor("transport", factory.getMaxThreads());
     this.buffers = new HashMap<LinkedHashMap<String, String>, TransportBuffer>();
+    this.records = new HashMap<LinkedHashMap<String, String>, List<String>>();
+    this.hashes = new HashMap<LinkedHashMap<String, String>, List<String>>();
   }
 
   /**
@@ -99,9 +135,11 @@ public class IpcSenderService extends MonitoredProcess {
        */
       try {
         buffer.add(ievent);
+        record(partitions, ievent);
         return;
       } catch (IllegalStateException e) {
-        send(buffer, partitions);
+        send(buffer, partitions, this.records.remove(partitions),
+            this.hashes.remove(partitions));
       } catch (IOException e) {
         throw new TransportException("Exception occurred while adding to buffer", e);
       }
@@ -119,6 +157,7 @@ public class IpcSenderService extends MonitoredProcess {
        */
       try {
         buffer.add(ievent);
+        record(partitions, ievent);
       } catch (IllegalStateException e) {
         throw new TransportException("Buffer is full despite being newly created", e);
       } catch (IOException e) {
@@ -127,13 +166,36 @@ public class IpcSenderService extends MonitoredProcess {
     }
   }
 
+  private void record(LinkedHashMap<String, String> partitions, InternalEvent ievent) {
+    if (this.deadLetters != null) {
+      add(this.records, partitions, ievent.getSerialized());
+    }
+
+    if (this.duplicates != null) {
+      add(this.hashes, partitions, ievent.getEventHash());
+    }
+  }
+
+  private static void add(Map<LinkedHashMap<String, String>, List<String>> map,
+      LinkedHashMap<String, String> partitions, String value) {
+    List<String> list = map.get(partitions);
+    if (list == null) {
+      list = new ArrayList<String>();
+      map.put(new LinkedHashMap<String, String>(partitions), list);
+    }
+    list.add(value);
+  }
+
   /**
    * Drains buffer and sends batch asynchronously via {@link Transport}.
    *
    * @param buffer the buffer to send.
    * @param partitions the partitions associated with the buffer.
+   * @param records serialized events in the buffer or null if not kept.
+   * @param hashes hashes of the events in the buffer or null if not kept.
    */
-  private void send(TransportBuffer buffer, LinkedHashMap<String, String> partitions) {
+  private void send(TransportBuffer buffer, LinkedHashMap<String, String> partitions,
+      List<String> records, List<String> hashes) {
     if (buffer.isEmpty()) {
       return;
     }
@@ -142,15 +204,29 @@ public class IpcSenderService extends MonitoredProcess {
 
     TransportThread tt = new TransportThread(transportFactory, buffer, partitions,
         this.threadCounter, this.hasUnrecoverableException, getRuntimeStat().fork(),
-        getErrorCountStat(), getSuccessCountStat(), getContext());
+        getErrorCountStat(), getSuccessCountStat(), getContext(), this.deadLetters, records,
+        this.duplicates, hashes);
 
-    tt.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
-      public void uncaughtException(Thread th, Throwable ex) {
-        logger.error(String.format("transport thread %s failed", th.getName()), ex);
+    this.pool.execute(() -> {
+      long start = System.nanoTime();
+      try {
+        tt.run();
+      } catch (RuntimeException e) {
+        logger.error(String.format("transport thread %s failed", Thread.currentThread().getName()),
+            e);
+      } finally {
+        long elapsed = System.nanoTime() - start;
+        this.longestSendNanos.accumulateAndGet(elapsed, Math::max);
       }
     });
+  }
 
-    this.pool.execute(tt);
+  /**
+   * @return duration of the longest call to a transport made during this or the previous
+   *         invocation. Used to estimate how long a flush will take.
+   */
+  public long getLongestSendNanos() {
+    return Math.max(this.longestSendNanos.get(), this.previousLongestSendNanos);
   }
 
   /**
@@ -165,8 +241,11 @@ public class IpcSenderService extends MonitoredProcess {
        * Send what remains in the buffers.
        * If there are errors, we will immediately send an error after this sync block.
        */
-      this.buffers.forEach((partition, buffer) -> send(buffer, partition));
+      this.buffers.forEach((partition, buffer) -> send(buffer, partition,
+          this.records.remove(partition), this.hashes.remove(partition)));
       this.buffers.clear();
+      this.records.clear();
+      this.hashes.clear();
     }
 
     /*
@@ -182,6 +261,14 @@ public class IpcSenderService extends MonitoredProcess {
      */
     transportFactory.close();
 
+    /*
+     * Batches the factory published on close are delivered now. This is done even if other
+     * batches failed so that a retry does not deliver them again.
+     */
+    if (this.duplicates != null) {
+      this.duplicates.commit();
+    }
+
     /*
      * Collect runtime of each thread
      */
@@ -215,6 +302,29 @@ public class IpcSenderService extends MonitoredProcess {
     this.hasUnrecoverableException.set(true);
   }
 
+  public DeadLetterQueue getDeadLetterQueue() {
+    return this.deadLetters;
+  }
+
+  /**
+   * @param deadLetters where batches which fail to send are spilled instead of failing the
+   *        invocation. Null to disable.
+   */
+  public void setDeadLetterQueue(DeadLetterQueue deadLetters) {
+    this.deadLetters = deadLetters;
+  }
+
+  public DuplicateFilter getDuplicateFilter() {
+    return this.duplicates;
+  }
+
+  /**
+   * @param duplicates remembers the events of each batch which was sent. Null to disable.
+   */
+  public void setDuplicateFilter(DuplicateFilter duplicates) {
+    this.duplicates = duplicates;
+  }
+
   public TransportFactory getTransportFactory() {
     return this.transportFactory;
   }
@@ -227,7 +337,14 @@ public class IpcSenderService extends MonitoredProcess {
     return context;
   }
 
+  /**
+   * Sets the context of the current invocation. This also marks the start of a new invocation for
+   * {@link #getLongestSendNanos()}.
+   *
+   * @param context context of the current invocation.
+   */
   public void setContext(Context context) {
     this.context = context;
+    this.previousLongestSendNanos = this.longestSendNanos.getAndSet(0);
   }
 }
@@ -37,4 +37,14 @@ public interface TransportFactory extends ConfigurableFactory {
    * @return number of threads to use.
    */
   int getMaxThreads();
+
+  /**
+   * Whether a batch is delivered as soon as its {@link Transport} call returns. Factories whose
+   * transports only stage batches which are published by {@link #close()} return false.
+   *
+   * @return true if batches are delivered when sent.
+   */
+  default boolean isDeliveredOnSend() {
+    return true;
+  }
 }
@@ -15,14 +15,25 @@
 
 package com.nextdoor.bender.ipc;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.log4j.Logger;
+
 import com.amazonaws.services.lambda.runtime.Context;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.dedup.DuplicateFilter;
 import com.nextdoor.bender.monitoring.Stat;
 
-public class TransportThread extends Thread {
+/**
+ * Sends a single {@link TransportBuffer} using a new {@link Transport}. Despite the name this is a
+ * task which {@link IpcSenderService} runs on an executor rather than a thread of its own.
+ */
+public class TransportThread implements Runnable {
+  private static final Logger logger = Logger.getLogger(TransportThread.class);
   private TransportFactory tf;
   private TransportBuffer buffer;
   private AtomicInteger threadCounter;
@@ -32,11 +43,44 @@ public class TransportThread extends Thread {
   private Stat successStat;
   private Context context;
   private LinkedHashMap<String, String> partitions;
+  private DeadLetterQueue deadLetters;
+  private List<String> records;
+  private DuplicateFilter duplicates;
+  private List<String> hashes;
 
   public TransportThread(TransportFactory tf, TransportBuffer buffer,
       LinkedHashMap<String, String> partitions, AtomicInteger threadCounter,
       AtomicBoolean hasUnrecoverableException, Stat threadStat, Stat errorStat, Stat successStat,
       Context context) {
+    this(tf, buffer, partitions, threadCounter, hasUnrecoverableException, threadStat, errorStat,
+        successStat, context, null, null);
+  }
+
+  /**
+   * @param deadLetters where the records are spilled if sending fails. When null a failure is
+   *        unrecoverable.
+   * @param records serialized events in the buffer.
+   */
+  public TransportThread(TransportFactory tf, TransportBuffer buffer,
+      LinkedHashMap<String, String> partitions, AtomicInteger threadCounter,
+      AtomicBoolean hasUnrecoverableException, Stat threadStat, Stat errorStat, Stat successStat,
+      Context context, DeadLetterQueue deadLetters, List<String> records) {
+    this(tf, buffer, partitions, threadCounter, hasUnrecoverableException, threadStat, errorStat,
+        successStat, context, deadLetters, records, null, null);
+  }
+
+  /**
+   * @param deadLetters where the records are spilled if sending fails. When null a failure is
+   *        unrecoverable.
+   * @param records serialized events in the buffer.
+   * @param duplicates remembers the events in the buffer once it was sent. May be null.
+   * @param hashes hashes of the events in the buffer.
+   */
+  public TransportThread(TransportFactory tf, TransportBuffer buffer,
+      LinkedHashMap<String, String> partitions, AtomicInteger threadCounter,
+      AtomicBoolean hasUnrecoverableException, Stat threadStat, Stat errorStat, Stat successStat,
+      Context context, DeadLetterQueue deadLetters, List<String> records,
+      DuplicateFilter duplicates, List<String> hashes) {
     this.tf = tf;
     this.buffer = buffer;
     this.partitions = partitions;
@@ -46,6 +90,10 @@ public class TransportThread extends Thread {
     this.errorStat = errorStat;
     this.successStat = successStat;
     this.context = context;
+    this.deadLetters = deadLetters;
+    this.records = records;
+    this.duplicates = duplicates;
+    this.hashes = hashes;
   }
 
   @Override
@@ -73,8 +121,8 @@ public class TransportThread extends Thread {
     buffer.close();
 
     /*
-     * Attempt to send the buffer. If a TransportException occurs then signal to the Handler that it
-     * failed and function should be killed.
+     * Attempt to send the buffer. If a TransportException occurs then the batch is dead lettered or,
+     * if that is not possible, signal to the Handler that it failed and function should be killed.
      */
     try {
       if (transport instanceof UnpartitionedTransport) {
@@ -84,8 +132,18 @@ public class TransportThread extends Thread {
       } else {
         throw new TransportException("unknown type of transport");
       }
+
+      /*
+       * Done before the thread counter is decremented so the events are remembered before a
+       * flush which waits for this batch commits
+       */
+      remember();
     } catch (TransportException e) {
       errorStat.increment();
+      if (spill(e)) {
+        return;
+      }
+
       hasUnrecoverableException.set(true);
       throw new RuntimeException(e);
     } finally {
@@ -96,4 +154,36 @@ public class TransportThread extends Thread {
 
     successStat.increment();
   }
+
+  private void remember() {
+    if (duplicates == null || hashes == null) {
+      return;
+    }
+
+    if (tf.isDeliveredOnSend()) {
+      duplicates.remember(hashes);
+    } else {
+      duplicates.rememberOnCommit(hashes);
+    }
+  }
+
+  /**
+   * @return true if the records of the failed batch were dead lettered.
+   */
+  private boolean spill(TransportException cause) {
+    if (deadLetters == null || records == null) {
+      return false;
+    }
+
+    try {
+      deadLetters.addAll(DeadLetterQueue.Kind.TRANSPORT, String.valueOf(cause.getMessage()),
+          records);
+    } catch (IOException e) {
+      logger.error("unable to dead letter failed batch", e);
+      return false;
+    }
+
+    logger.warn("dead lettered " + records.size() + " events after transport failure", cause);
+    return true;
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A {@link Stat} which keeps the distribution of recorded values, typically durations in
+ * nanoseconds, rather than only their sum. Values are recorded into an HdrHistogram
+ * {@link Recorder} which is wait-free and does not allocate so it can be used from any thread on
+ * hot paths.
+ *
+ * Recorded values are only visible after {@link #snapshot()} which {@link Monitor} calls before
+ * passing stats to reporters. The value of the stat is the number of values in the snapshot.
+ */
+public class HistogramStat extends Stat {
+  /*
+   * Durations are tracked from 1us to 1 hour with 2 significant digits. Larger values are clamped.
+   */
+  private static final long LOWEST_DISCERNIBLE_VALUE = TimeUnit.MICROSECONDS.toNanos(1);
+  private static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+  private static final int SIGNIFICANT_DIGITS = 2;
+
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+  private static final String[] PERCENTILE_SUFFIXES = {"p50", "p90", "p99", "p999"};
+
+  private final Recorder recorder =
+      new Recorder(LOWEST_DISCERNIBLE_VALUE, HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+  private Histogram snapshot = null;
+
+  public HistogramStat(String name) {
+    super(name, MetricType.histogram);
+  }
+
+  /**
+   * @param value value to record. Negative values are recorded as 0.
+   */
+  public void record(long value) {
+    this.recorder.recordValue(Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE));
+  }
+
+  /**
+   * @param value value to record. Negative values are recorded as 0.
+   * @param count number of times to record the value.
+   */
+  public void record(long value, long count) {
+    this.recorder.recordValueWithCount(Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE),
+        count);
+  }
+
+  /**
+   * Moves the values recorded since the last snapshot into a new snapshot.
+   */
+  public void snapshot() {
+    this.snapshot = this.recorder.getIntervalHistogram(this.snapshot);
+  }
+
+  /**
+   * @return values recorded before the last call to {@link #snapshot()} or null if no snapshot was
+   *         taken.
+   */
+  public Histogram getSnapshot() {
+    return this.snapshot;
+  }
+
+  @Override
+  public long getValue() {
+    return this.snapshot == null ? 0 : this.snapshot.getTotalCount();
+  }
+
+  /**
+   * Summarizes the snapshot as gauges, for reporters that do not support distributions. Each gauge
+   * is named after this stat with a suffix of p50, p90, p99, p999, or max and has the same tags.
+   *
+   * @return summary stats or an empty list if nothing was recorded.
+   */
+  public List<Stat> toPercentileStats() {
+    List<Stat> stats = new ArrayList<Stat>(PERCENTILES.length + 1);
+    if (getValue() == 0) {
+      return stats;
+    }
+
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      stats.add(summaryStat(PERCENTILE_SUFFIXES[i],
+          this.snapshot.getValueAtPercentile(PERCENTILES[i])));
+    }
+    stats.add(summaryStat("max", this.snapshot.getMaxValue()));
+
+    return stats;
+  }
+
+  private Stat summaryStat(String suffix, long value) {
+    Stat stat = new Stat(getName() + "." + suffix, value, MetricType.gauge);
+    getTags().forEach(t -> stat.addTag(t.getKey(), t.getValue()));
+    return stat;
+  }
+
+  /**
+   * Replaces each {@link HistogramStat} in a list with its percentile stats.
+   *
+   * @param stats stats to expand.
+   * @return new list of stats without histograms.
+   */
+  public static ArrayList<Stat> expand(List<Stat> stats) {
+    ArrayList<Stat> expanded = new ArrayList<Stat>(stats.size());
+
+    for (Stat stat : stats) {
+      if (stat instanceof HistogramStat) {
+        expanded.addAll(((HistogramStat) stat).toPercentileStats());
+      } else {
+        expanded.add(stat);
+      }
+    }
+
+    return expanded;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+
+    if (this.snapshot != null) {
+      this.snapshot.reset();
+    }
+  }
+}
@@ -17,10 +17,13 @@ package com.nextdoor.bender.monitoring;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 import org.apache.log4j.Logger;
 
@@ -28,19 +31,23 @@ import org.apache.log4j.Logger;
  * Writes invocation stats (stats that are generated by lambda calling the function) and function
  * instance stats (stats that are created the first time the function runs) using each
  * {@link Reporter} specified.
+ *
+ * Stats may be registered and updated from any thread. When stats are written each one is
+ * atomically snapshotted and reset so that updates made while reporters run are counted in the
+ * next write instead of being lost.
  */
 public class Monitor {
   private static final Logger logger = Logger.getLogger(Monitor.class);
-  private static ArrayList<Stat> instanceStats = new ArrayList<Stat>();
-  private static ArrayList<Stat> invocationStats = new ArrayList<Stat>();
-  private static ArrayList<Reporter> statsReporters = new ArrayList<Reporter>();
-  private static ArrayList<MonitoredProcess> processes = new ArrayList<MonitoredProcess>();
+  private static List<Stat> instanceStats = new CopyOnWriteArrayList<Stat>();
+  private static Queue<Stat> invocationStats = new ConcurrentLinkedQueue<Stat>();
+  private static List<Reporter> statsReporters = new CopyOnWriteArrayList<Reporter>();
+  private static List<MonitoredProcess> processes = new CopyOnWriteArrayList<MonitoredProcess>();
 
-  protected static Set<Tag> tags = new HashSet<Tag>();
+  protected static Set<Tag> tags = ConcurrentHashMap.newKeySet();
   private static Monitor monitor = new Monitor();
   private long invokeTime = 0;
 
-  public void addReporters(List<Reporter> reporters) {
+  public synchronized void addReporters(List<Reporter> reporters) {
     for (Reporter rep : reporters) {
       if (!statsReporters.contains(rep)) {
         statsReporters.add(rep);
@@ -51,7 +58,7 @@ public class Monitor {
   public void reset() {
     statsReporters.clear();
     instanceStats.clear();
-    instanceStats.clear();
+    invocationStats.clear();
     tags.clear();
   }
 
@@ -131,15 +138,58 @@ public class Monitor {
     this.invokeTime = System.currentTimeMillis();
   }
 
+  /**
+   * Takes a snapshot of every stat and resets the live stats. Histograms are snapshotted in place
+   * and invocation stats, which are created once per invocation, are removed from the monitor.
+   *
+   * @return stats to report.
+   */
+  public ArrayList<Stat> snapshotStats() {
+    ArrayList<Stat> snapshot = new ArrayList<Stat>(instanceStats.size() + invocationStats.size());
+
+    for (Stat stat : instanceStats) {
+      if (stat instanceof HistogramStat) {
+        ((HistogramStat) stat).snapshot();
+        snapshot.add(stat);
+      } else {
+        snapshot.add(stat.snapshotAndReset());
+      }
+    }
+
+    Stat stat;
+    while ((stat = invocationStats.poll()) != null) {
+      snapshot.add(stat);
+    }
+
+    return snapshot;
+  }
+
   public void addProcess(MonitoredProcess proccess) {
     processes.add(proccess);
   }
 
+  /**
+   * Removes a process and the stats it registered.
+   *
+   * @param process process to remove.
+   */
+  public void removeProcess(MonitoredProcess process) {
+    processes.remove(process);
+    instanceStats.remove(process.getRuntimeStat());
+    instanceStats.remove(process.getErrorCountStat());
+    instanceStats.remove(process.getSuccessCountStat());
+    instanceStats.remove(process.getLatencyStat());
+  }
+
   public void writeStats() {
+    /*
+     * Take the snapshot once so that all reporters see the same values.
+     */
+    ArrayList<Stat> snapshot = snapshotStats();
 
     for (Reporter reporter : statsReporters) {
       List<StatFilter> filters = reporter.getStatFilters();
-      ArrayList<Stat> stats = getStats();
+      ArrayList<Stat> stats = new ArrayList<Stat>(snapshot);
 
       for (StatFilter filter : filters) {
         Predicate<Stat> statPredicate = StatFilter.isMatch(filter);
@@ -155,8 +205,6 @@ public class Monitor {
         logger.warn("reporter threw an error while writing stats", e);
       }
     }
-
-    clearStats();
   }
 
   public long getInvokeTime() {
@@ -22,6 +22,7 @@ public class MonitoredProcess {
   private Stat runtimeStat;
   private Stat errorCountStat;
   private Stat successCountStat;
+  private HistogramStat latencyStat;
 
   public MonitoredProcess(Class clazz) {
     String child = clazz.getCanonicalName();
@@ -31,6 +32,9 @@ public class MonitoredProcess {
     errorCountStat.addTag("class", child);
     successCountStat = new Stat("success.count", Stat.MetricType.count);
     successCountStat.addTag("class", child);
+    latencyStat = new HistogramStat("latency.ns");
+    latencyStat.addTag("class", child);
+    runtimeStat.setHistogram(latencyStat);
 
     Monitor monitor = Monitor.getInstance();
 
@@ -38,6 +42,7 @@ public class MonitoredProcess {
     monitor.addInstanceStat(runtimeStat);
     monitor.addInstanceStat(errorCountStat);
     monitor.addInstanceStat(successCountStat);
+    monitor.addInstanceStat(latencyStat);
   }
 
   public Stat getRuntimeStat() {
@@ -64,7 +69,31 @@ public class MonitoredProcess {
     this.successCountStat = s;
   }
 
+  /**
+   * @return distribution of the durations recorded by the runtime stat.
+   */
+  public HistogramStat getLatencyStat() {
+    return latencyStat;
+  }
+
+  /**
+   * Reports this process under the stats of another process doing the same work, for example in
+   * another worker lane, so that each series is reported once. The stats this process registered
+   * with the {@link Monitor} are removed.
+   *
+   * @param other process whose stats are updated by this one.
+   */
+  public void shareStats(MonitoredProcess other) {
+    Monitor.getInstance().removeProcess(this);
+
+    this.runtimeStat = other.runtimeStat.share();
+    this.errorCountStat = other.errorCountStat;
+    this.successCountStat = other.successCountStat;
+    this.latencyStat = other.latencyStat;
+  }
+
   public void clearStats() {
+    latencyStat.clear();
     runtimeStat.clear();
     errorCountStat.clear();
     successCountStat.clear();
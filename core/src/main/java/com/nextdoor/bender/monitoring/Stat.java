@@ -15,41 +15,56 @@
 
 package com.nextdoor.bender.monitoring;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named and tagged metric. The value is kept in a {@link LongAdder} so that it can be updated
+ * from many threads (transport threads, fork and conditional workers, and the main stream) without
+ * losing updates or contending on a single memory location.
+ *
+ * {@link #start()} and {@link #stop()} track a single start time. Threads timing work
+ * concurrently should each use a stat created with {@link #fork()} or {@link #share()}.
+ */
 public class Stat {
-  private long value = 0;
+  private final LongAdder value;
   private String name;
   private MetricType type;
   private long startTime;
+  private HistogramStat histogram;
 
-  private ArrayList<Stat> subStats = new ArrayList<Stat>();
-  private Set<Tag> tags = new HashSet<Tag>();
+  private Queue<Stat> subStats = new ConcurrentLinkedQueue<Stat>();
+  private Set<Tag> tags = ConcurrentHashMap.newKeySet();
 
   public enum MetricType {
-    count, gauge
+    count, gauge, histogram
   }
 
   public Stat(String name, long value, MetricType type) {
+    this.value = new LongAdder();
     this.name = name;
-    this.value = value;
+    this.value.add(value);
     this.type = type;
   }
 
   public Stat(String name, MetricType type) {
+    this.value = new LongAdder();
     this.name = name;
     this.type = type;
   }
 
   public Stat(String name, long value) {
+    this.value = new LongAdder();
     this.name = name;
-    this.value = value;
+    this.value.add(value);
     this.type = MetricType.count;
   }
 
   public Stat(String name) {
+    this.value = new LongAdder();
     this.name = name;
     this.type = MetricType.gauge;
   }
@@ -59,19 +74,81 @@ public class Stat {
   }
 
   public void stop() {
-    value += (System.nanoTime() - this.startTime);
+    long elapsed = System.nanoTime() - this.startTime;
+    this.value.add(elapsed);
+
+    if (this.histogram != null) {
+      this.histogram.record(elapsed);
+    }
+  }
+
+  /**
+   * Stops timing work done on several events at once, such as a batch. The histogram records the
+   * average duration per event once for every event so that it holds per event durations no
+   * matter how the work was grouped.
+   *
+   * @param events number of events the work was done on.
+   */
+  public void stop(int events) {
+    long elapsed = System.nanoTime() - this.startTime;
+    this.value.add(elapsed);
+
+    if (this.histogram != null && events > 0) {
+      this.histogram.record(elapsed / events, events);
+    }
+  }
+
+  /**
+   * Records the duration of one sampled piece of work when only one in every weight pieces is
+   * timed. The running total is scaled up by weight to estimate the time spent on all of them and
+   * the histogram records the duration once for each piece the sample stands for.
+   *
+   * @param elapsed duration in nanoseconds.
+   * @param weight number of pieces of work the sample stands for.
+   */
+  public void recordSample(long elapsed, int weight) {
+    this.value.add(elapsed * weight);
+
+    if (this.histogram != null) {
+      this.histogram.record(elapsed, weight);
+    }
+  }
+
+  /**
+   * Records the duration of each {@link #start()} and {@link #stop()} pair, or the average per
+   * event for {@link #stop(int)}, into a histogram in addition to the running total. Stats created
+   * with {@link #fork()} record into the same histogram.
+   *
+   * @param histogram histogram to record durations into.
+   */
+  public void setHistogram(HistogramStat histogram) {
+    this.histogram = histogram;
+  }
+
+  public HistogramStat getHistogram() {
+    return this.histogram;
   }
 
   public long getValue() {
-    return value;
+    return this.value.sum();
   }
 
+  /**
+   * Replaces the value. Not atomic with respect to concurrent increments which may be lost.
+   *
+   * @param value new value.
+   */
   public void setValue(long value) {
-    this.value = value;
+    this.value.reset();
+    this.value.add(value);
   }
 
   public void increment() {
-    this.value += 1;
+    this.value.increment();
+  }
+
+  public void increment(long delta) {
+    this.value.add(delta);
   }
 
   public String getName() {
@@ -88,16 +165,50 @@ public class Stat {
 
   public void clear() {
     this.startTime = 0;
-    this.value = 0;
+    this.value.reset();
     this.subStats.clear();
   }
 
+  /**
+   * Copies the current value into a new stat with the same name, type and tags and resets this
+   * stat to zero. Increments made while the snapshot is taken are counted in either the snapshot or
+   * the next one but are never lost.
+   *
+   * @return detached copy of this stat.
+   */
+  public Stat snapshotAndReset() {
+    Stat snapshot = new Stat(this.name, this.value.sumThenReset(), this.type);
+    snapshot.tags.addAll(this.tags);
+    this.subStats.clear();
+    return snapshot;
+  }
+
   public Set<Tag> getTags() {
     return tags;
   }
 
-  public synchronized Stat fork() {
+  private Stat(Stat shared) {
+    this.value = shared.value;
+    this.name = shared.name;
+    this.type = shared.type;
+    this.tags = shared.tags;
+    this.histogram = shared.histogram;
+  }
+
+  /**
+   * Creates a stat with its own start time that adds to the same value and histogram as this one.
+   * Unlike {@link #fork()} nothing needs to be joined, so only this stat is registered with the
+   * {@link Monitor} and reported.
+   *
+   * @return stat sharing the value, tags, and histogram of this stat.
+   */
+  public Stat share() {
+    return new Stat(this);
+  }
+
+  public Stat fork() {
     Stat stat = new Stat(this.name, this.type);
+    stat.setHistogram(this.histogram);
     subStats.add(stat);
     return stat;
   }
@@ -107,7 +218,7 @@ public class Stat {
    */
   public void join() {
     for (Stat subStat : subStats) {
-      this.value += subStat.getValue();
+      this.value.add(subStat.getValue());
     }
   }
 }
@@ -15,8 +15,32 @@
 
 package com.nextdoor.bender.operation;
 
+import com.nextdoor.bender.EventBatch;
 import com.nextdoor.bender.InternalEvent;
 
 public interface EventOperation extends BaseOperation {
   InternalEvent perform(InternalEvent ievent);
+
+  /**
+   * Performs the operation on every event in a batch. The default implementation calls
+   * {@link #perform(InternalEvent)} for each event so existing operations work unmodified.
+   * Operations which can amortize work across events may override this.
+   *
+   * Events which fail must be marked with {@link EventBatch#fail(int, Exception)} rather than
+   * throwing so the rest of the batch is not lost.
+   *
+   * @param batch events to operate on.
+   * @return batch containing the results. This may be the input batch modified in place.
+   */
+  default EventBatch performBatch(EventBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      try {
+        batch.set(i, perform(batch.get(i)));
+      } catch (OperationException e) {
+        batch.fail(i, e);
+      }
+    }
+
+    return batch;
+  }
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Implemented by operations which can tell which payload fields they read and write. This allows
+ * {@link OperationPlanner} to reorder and remove operations without changing the output. Operations
+ * which do not implement it are assumed to read and write the whole payload.
+ *
+ * Fields are JsonPaths with or without the leading "$.".
+ */
+public interface FieldAccess {
+  /**
+   * @return fields read or null if any field may be read.
+   */
+  public Collection<String> getFieldsRead();
+
+  /**
+   * @return fields set or deleted or null if any field may be changed.
+   */
+  public Collection<String> getFieldsWritten();
+
+  /**
+   * @return fields which are always absent after the operation. These must also be returned by
+   *         {@link #getFieldsWritten()}.
+   */
+  public default Collection<String> getFieldsRemoved() {
+    return Collections.emptyList();
+  }
+}
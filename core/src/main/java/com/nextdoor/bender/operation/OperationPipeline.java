@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
+
+/**
+ * Chains a list of {@link OperationProcessor}s onto a stream. Consecutive operations which operate
+ * on events in place are fused into a single stream stage rather than each adding their own.
+ *
+ * For streams of individual events runs of {@link EventOperation}s and {@link FilterOperation}s
+ * are fused. Each event goes through the whole run in one call and is dropped as soon as an
+ * operation fails, filters it out or produces an invalid event. Counts are still recorded per
+ * operation but runtime is only measured for one in every {@link #SAMPLE_INTERVAL} events and
+ * scaled up, which avoids reading the clock twice per operation for every event. Each
+ * {@link OperationProcessor} keeps its own sample count across invocations.
+ *
+ * For streams of batches every operation other than a {@link StreamOperation} is fused. Those
+ * already record stats once per batch.
+ */
+public class OperationPipeline {
+  private static final Logger logger = Logger.getLogger(OperationPipeline.class);
+
+  /**
+   * One in this many events is timed by fused stages. Must be a power of two.
+   */
+  public static final int SAMPLE_INTERVAL = 64;
+
+  /**
+   * Adds operations to a stream of events.
+   *
+   * @param processors operations in the order they are performed.
+   * @param input stream of events.
+   * @return new stream with the operations added.
+   */
+  public static Stream<InternalEvent> perform(List<OperationProcessor> processors,
+      Stream<InternalEvent> input) {
+    Stream<InternalEvent> output = input;
+
+    for (List<OperationProcessor> run : getRuns(processors, false)) {
+      if (run.size() == 1 && !isFusible(run.get(0), false)) {
+        output = run.get(0).perform(output);
+      } else {
+        output = output.map(new FusedStage(run)::perform).filter(Objects::nonNull);
+      }
+    }
+
+    return output;
+  }
+
+  /**
+   * Adds operations to a stream of batches.
+   *
+   * @param processors operations in the order they are performed.
+   * @param input stream of batches.
+   * @param batchSize size of batches produced after a {@link StreamOperation}.
+   * @return new stream with the operations added.
+   */
+  public static Stream<EventBatch> performBatches(List<OperationProcessor> processors,
+      Stream<EventBatch> input, int batchSize) {
+    Stream<EventBatch> output = input;
+
+    for (List<OperationProcessor> run : getRuns(processors, true)) {
+      if (run.size() == 1 && !isFusible(run.get(0), true)) {
+        output = run.get(0).performBatches(output, batchSize);
+      } else {
+        output = output.map(batch -> {
+          for (OperationProcessor processor : run) {
+            batch = processor.performBatch(batch);
+          }
+          return batch;
+        });
+      }
+    }
+
+    return output;
+  }
+
+  private static boolean isFusible(OperationProcessor processor, boolean batches) {
+    BaseOperation op = processor.getOperation();
+    if (batches) {
+      return !(op instanceof StreamOperation);
+    }
+
+    return op instanceof EventOperation || op instanceof FilterOperation;
+  }
+
+  /**
+   * Splits processors into runs of fusible operations and single operations which are not.
+   */
+  private static List<List<OperationProcessor>> getRuns(List<OperationProcessor> processors,
+      boolean batches) {
+    List<List<OperationProcessor>> runs = new ArrayList<List<OperationProcessor>>();
+    List<OperationProcessor> run = null;
+
+    for (OperationProcessor processor : processors) {
+      if (!isFusible(processor, batches)) {
+        runs.add(Collections.singletonList(processor));
+        run = null;
+        continue;
+      }
+
+      if (run == null) {
+        run = new ArrayList<OperationProcessor>();
+        runs.add(run);
+      }
+      run.add(processor);
+    }
+
+    return runs;
+  }
+
+  /**
+   * Performs a run of event and filter operations on one event at a time.
+   */
+  private static class FusedStage {
+    private final OperationProcessor[] processors;
+
+    FusedStage(List<OperationProcessor> processors) {
+      this.processors = processors.toArray(new OperationProcessor[processors.size()]);
+    }
+
+    /**
+     * @return the resulting event or null if it was dropped.
+     */
+    InternalEvent perform(InternalEvent ievent) {
+      for (OperationProcessor processor : this.processors) {
+        BaseOperation op = processor.getOperation();
+        boolean sample = processor.nextSample(SAMPLE_INTERVAL);
+        long start = sample ? System.nanoTime() : 0;
+
+        try {
+          if (op instanceof EventOperation) {
+            ievent = ((EventOperation) op).perform(ievent);
+            processor.getSuccessCountStat().increment();
+          } else if (!((FilterOperation) op).test(ievent)) {
+            return null;
+          }
+        } catch (OperationException e) {
+          processor.getErrorCountStat().increment();
+          logger.warn(e);
+          processor.reject(ievent, e);
+          return null;
+        } finally {
+          if (sample) {
+            processor.getRuntimeStat().recordSample(System.nanoTime() - start, SAMPLE_INTERVAL);
+          }
+        }
+
+        /*
+         * Operations do not guard against invalid events so stop before the next one sees it.
+         */
+        if (!processor.isValid(ievent)) {
+          return null;
+        }
+      }
+
+      return ievent;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Rewrites the list of operations of a source so that less work is done per event without changing
+ * which events are output or what they contain. Only operations implementing {@link FieldAccess}
+ * are moved or removed and nothing is moved across a {@link MultiplexOperation} or
+ * {@link StreamOperation}.
+ *
+ * Two rewrites are done:
+ *
+ * Filters are hoisted above earlier operations which do not write any field the filter reads, so
+ * events which are dropped anyway skip those operations. Filters keep their order relative to
+ * each other.
+ *
+ * A delete of a field which an earlier delete already removed, with nothing in between that may
+ * set it again, is removed.
+ */
+public class OperationPlanner {
+  private static final Logger logger = Logger.getLogger(OperationPlanner.class);
+
+  /**
+   * @param sourceName name of the source used when logging the plan.
+   * @param processors operations in configured order.
+   * @return operations in the order they should be performed.
+   */
+  public static List<OperationProcessor> plan(String sourceName,
+      List<OperationProcessor> processors) {
+    List<OperationProcessor> planned = new ArrayList<OperationProcessor>(processors);
+
+    removeRedundantDeletes(planned);
+    hoistFilters(planned);
+
+    if (!planned.equals(processors)) {
+      logger.info("optimized operations of source " + sourceName + " from [" + describe(processors)
+          + "] to [" + describe(planned) + "]");
+    }
+
+    return planned;
+  }
+
+  private static String describe(List<OperationProcessor> processors) {
+    return processors.stream().map(p -> p.getOperation().getClass().getSimpleName())
+        .collect(Collectors.joining(", "));
+  }
+
+  private static void hoistFilters(List<OperationProcessor> planned) {
+    for (int i = 1; i < planned.size(); i++) {
+      BaseOperation op = planned.get(i).getOperation();
+      if (!(op instanceof FilterOperation) || !(op instanceof FieldAccess)) {
+        continue;
+      }
+
+      Collection<String> read = ((FieldAccess) op).getFieldsRead();
+      if (read == null) {
+        continue;
+      }
+
+      int target = i;
+      while (target > 0 && canMoveAbove(read, planned.get(target - 1).getOperation())) {
+        target--;
+      }
+
+      if (target < i) {
+        planned.add(target, planned.remove(i));
+      }
+    }
+  }
+
+  private static boolean canMoveAbove(Collection<String> read, BaseOperation earlier) {
+    if (earlier instanceof FilterOperation || !(earlier instanceof EventOperation)
+        || !(earlier instanceof FieldAccess)) {
+      return false;
+    }
+
+    Collection<String> written = ((FieldAccess) earlier).getFieldsWritten();
+    return written != null && !overlaps(read, written);
+  }
+
+  private static void removeRedundantDeletes(List<OperationProcessor> planned) {
+    /*
+     * Fields known to be absent from the payload at the current position.
+     */
+    List<String> absent = new ArrayList<String>();
+
+    for (int i = 0; i < planned.size(); i++) {
+      BaseOperation op = planned.get(i).getOperation();
+      if (op instanceof FilterOperation && op instanceof FieldAccess) {
+        continue;
+      }
+
+      if (!(op instanceof EventOperation) || !(op instanceof FieldAccess)) {
+        absent.clear();
+        continue;
+      }
+
+      FieldAccess access = (FieldAccess) op;
+      Collection<String> written = access.getFieldsWritten();
+      if (written == null) {
+        absent.clear();
+        continue;
+      }
+
+      Collection<String> removed = normalize(access.getFieldsRemoved());
+      if (isDeleteOnly(access, removed) && allWithin(removed, absent)) {
+        planned.remove(i--);
+        continue;
+      }
+
+      absent.removeIf(field -> overlaps(written, field));
+      absent.addAll(removed);
+    }
+  }
+
+  /**
+   * @return true if the operation does nothing besides removing fields.
+   */
+  private static boolean isDeleteOnly(FieldAccess access, Collection<String> removed) {
+    Collection<String> read = access.getFieldsRead();
+    if (removed.isEmpty() || read == null || !read.isEmpty()) {
+      return false;
+    }
+
+    Collection<String> written = normalize(access.getFieldsWritten());
+    return written.size() == access.getFieldsWritten().size()
+        && removed.size() == access.getFieldsRemoved().size() && allWithin(written, removed);
+  }
+
+  private static boolean allWithin(Collection<String> fields, Collection<String> ancestors) {
+    for (String field : fields) {
+      if (!ancestors.stream().anyMatch(a -> isWithin(field, a))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * @return normalized fields skipping those which may refer to more than one field.
+   */
+  private static List<String> normalize(Collection<String> fields) {
+    return fields.stream().map(OperationPlanner::normalize).filter(f -> f != null)
+        .collect(Collectors.toList());
+  }
+
+  private static boolean overlaps(Collection<String> fields, Collection<String> others) {
+    for (String field : fields) {
+      if (overlaps(others, field)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean overlaps(Collection<String> fields, String other) {
+    String normalizedOther = normalize(other);
+
+    for (String field : fields) {
+      String normalized = normalize(field);
+      if (normalized == null || normalizedOther == null || isWithin(normalized, normalizedOther)
+          || isWithin(normalizedOther, normalized)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return true if field is ancestor or is contained in it.
+   */
+  static boolean isWithin(String field, String ancestor) {
+    if (!field.startsWith(ancestor)) {
+      return false;
+    }
+
+    return field.length() == ancestor.length() || field.charAt(ancestor.length()) == '.'
+        || field.charAt(ancestor.length()) == '[';
+  }
+
+  /**
+   * @return path without the leading "$." or null if the path may refer to more than one field,
+   *         such as paths with wildcards, deep scans or filters.
+   */
+  static String normalize(String path) {
+    if (path == null) {
+      return null;
+    }
+
+    String normalized = path.startsWith("$.") ? path.substring(2) : path;
+    if (normalized.isEmpty() || normalized.startsWith("$") || normalized.startsWith(".")
+        || normalized.contains("..") || normalized.contains("*") || normalized.contains("?")
+        || normalized.contains("'") || normalized.contains("\"") || normalized.contains(",")
+        || normalized.contains(":")) {
+      return null;
+    }
+
+    return normalized;
+  }
+}
@@ -15,16 +15,21 @@
 
 package com.nextdoor.bender.operation;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.log4j.Logger;
 
+import com.nextdoor.bender.EventBatch;
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
 import com.nextdoor.bender.monitoring.MonitoredProcess;
 
 public class OperationProcessor extends MonitoredProcess {
   private static final Logger logger = Logger.getLogger(OperationProcessor.class);
   private BaseOperation op;
+  private DeadLetterQueue deadLetters = null;
+  private int sampleCount = 0;
 
   public OperationProcessor(OperationFactory operationFactory) {
     super(operationFactory.getChildClass());
@@ -53,6 +58,7 @@ public class OperationProcessor extends MonitoredProcess {
         } catch (OperationException e) {
           this.getErrorCountStat().increment();
           logger.warn(e);
+          reject(ievent, e);
           return null;
         } finally {
           this.getRuntimeStat().stop();
@@ -72,6 +78,7 @@ public class OperationProcessor extends MonitoredProcess {
         } catch (OperationException e) {
           this.getErrorCountStat().increment();
           logger.warn(e);
+          reject(ievent, e);
           return Stream.empty();
         } finally {
           this.getRuntimeStat().stop();
@@ -87,6 +94,7 @@ public class OperationProcessor extends MonitoredProcess {
         } catch (OperationException e) {
           this.getErrorCountStat().increment();
           logger.warn(e);
+          reject(ievent, e);
           return false;
         } finally {
           this.getRuntimeStat().stop();
@@ -100,28 +108,190 @@ public class OperationProcessor extends MonitoredProcess {
      * Filter out events if an operation did something that resulted in a null event or payload.
      * This protects future operations from running on invalid data.
      */
-    return output.filter(ievent -> {
-      if (ievent == null) {
-        logger.warn(op.getClass().getName() + " produced a null InternalEvent");
-        return false;
-      }
-      if (ievent.getEventObj() == null) {
-        logger.warn(op.getClass().getName() + " produced a null DeserializedEvent");
-        return false;
+    return output.filter(this::isValid);
+  }
+
+  /**
+   * Sets up the operation to be performed on a stream of batches. Unlike
+   * {@link #perform(Stream)} the operation is invoked once per batch and stats are recorded once
+   * per batch, with the latency histogram recording the average time per event. {@link StreamOperation}s operate on individual events so batches are flattened
+   * before and regrouped after those operations.
+   *
+   * @param input stream of batches.
+   * @param batchSize size of batches produced after a {@link StreamOperation}.
+   * @return new stream with operation added
+   */
+  public Stream<EventBatch> performBatches(Stream<EventBatch> input, int batchSize) {
+    if (this.op instanceof StreamOperation) {
+      return EventBatch.batches(perform(input.flatMap(EventBatch::stream)), batchSize);
+    }
+
+    return input.map(this::performBatch);
+  }
+
+  /**
+   * Performs the operation on a single batch. Events which fail or are invalid after the operation
+   * are removed from the returned batch.
+   *
+   * @param batch events to operate on.
+   * @return batch of events which were successfully operated on.
+   */
+  public EventBatch performBatch(EventBatch batch) {
+    int inputSize = batch.size();
+    int errors = 0;
+    EventBatch output;
+
+    this.getRuntimeStat().start();
+    try {
+      if (this.op instanceof EventOperation) {
+        output = ((EventOperation) this.op).performBatch(batch);
+        errors = output.getFailures().size();
+        for (Exception e : output.getFailures()) {
+          logger.warn(e);
+        }
+        if (this.deadLetters != null) {
+          for (int i = 0; i < output.size(); i++) {
+            if (output.isFailed(i) && output.get(i) != null) {
+              reject(output.get(i), output.getFailure(i));
+            }
+          }
+        }
+      } else if (this.op instanceof MultiplexOperation) {
+        output = new EventBatch(inputSize);
+        for (InternalEvent ievent : batch) {
+          try {
+            output.addAll(((MultiplexOperation) this.op).perform(ievent));
+          } catch (OperationException e) {
+            errors++;
+            logger.warn(e);
+            reject(ievent, e);
+          }
+        }
+      } else if (this.op instanceof FilterOperation) {
+        output = new EventBatch(inputSize);
+        for (InternalEvent ievent : batch) {
+          try {
+            if (((FilterOperation) this.op).test(ievent)) {
+              output.add(ievent);
+            }
+          } catch (OperationException e) {
+            errors++;
+            logger.warn(e);
+            reject(ievent, e);
+          }
+        }
+      } else {
+        throw new OperationException("Invalid type of operation");
       }
-      if (ievent.getEventObj().getPayload() == null) {
-        logger.warn(op.getClass().getName() + " produced a null DeserializedEvent payload");
-        return false;
+    } finally {
+      this.getRuntimeStat().stop(inputSize);
+    }
+
+    if (!(this.op instanceof FilterOperation)) {
+      this.getSuccessCountStat().increment(inputSize - errors);
+    }
+    this.getErrorCountStat().increment(errors);
+
+    /*
+     * Filter out events if an operation did something that resulted in a null event or payload.
+     * This protects future operations from running on invalid data.
+     */
+    for (int i = 0; i < output.size(); i++) {
+      if (!output.isFailed(i) && !isValid(output.get(i))) {
+        output.set(i, null);
       }
+    }
+    output.compact();
 
-      return true;
-    });
+    return output;
+  }
+
+  /**
+   * Spills an event the operation failed on if there is a dead letter queue.
+   *
+   * @param ievent event which failed.
+   * @param e cause of the failure or null if unknown.
+   */
+  void reject(InternalEvent ievent, Exception e) {
+    if (this.deadLetters == null) {
+      return;
+    }
+
+    String reason = this.op.getClass().getSimpleName();
+    if (e != null && e.getMessage() != null) {
+      reason += ": " + e.getMessage();
+    }
+    this.deadLetters.reject(DeadLetterQueue.Kind.OPERATION, reason, ievent);
+  }
+
+  /**
+   * @param ievent event produced by the operation.
+   * @return false if the event, its deserialized object or its payload is null.
+   */
+  boolean isValid(InternalEvent ievent) {
+    if (ievent == null) {
+      logger.warn(op.getClass().getName() + " produced a null InternalEvent");
+      return false;
+    }
+    if (ievent.getEventObj() == null) {
+      logger.warn(op.getClass().getName() + " produced a null DeserializedEvent");
+      return false;
+    }
+    if (ievent.getEventObj().getReadOnlyPayload() == null) {
+      logger.warn(op.getClass().getName() + " produced a null DeserializedEvent payload");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Decides whether the next event performed by a fused stage is timed. The count lives here rather
+   * than in the stage so it carries over between invocations, and the last event of every interval
+   * is timed rather than the first. Branches which only see a few events per invocation are
+   * therefore not timed on their cold first event each time and scaled up by the whole interval.
+   *
+   * @param interval one in this many events is timed. Must be a power of two.
+   * @return true if the next event should be timed.
+   */
+  boolean nextSample(int interval) {
+    return (++this.sampleCount & (interval - 1)) == 0;
   }
 
   public BaseOperation getOperation() {
     return this.op;
   }
 
+  /**
+   * @param deadLetters where events the operation fails on are spilled. Null to only count them.
+   */
+  public void setDeadLetterQueue(DeadLetterQueue deadLetters) {
+    this.deadLetters = deadLetters;
+  }
+
+  /**
+   * Also shares the stats of nested operations, which are paired up by position.
+   */
+  @Override
+  public void shareStats(MonitoredProcess other) {
+    super.shareStats(other);
+
+    if (!(other instanceof OperationProcessor)) {
+      return;
+    }
+
+    BaseOperation otherOp = ((OperationProcessor) other).getOperation();
+    if (!(this.op instanceof NestedOperations) || !(otherOp instanceof NestedOperations)) {
+      return;
+    }
+
+    List<OperationProcessor> nested = ((NestedOperations) this.op).getNestedProcessors();
+    List<OperationProcessor> otherNested = ((NestedOperations) otherOp).getNestedProcessors();
+    for (int i = 0; i < Math.min(nested.size(), otherNested.size()); i++) {
+      nested.get(i).shareStats(otherNested.get(i));
+    }
+  }
+
   public void setOperation(EventOperation operation) {
     this.op = operation;
   }
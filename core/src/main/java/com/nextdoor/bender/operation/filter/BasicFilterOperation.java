@@ -15,11 +15,15 @@
 
 package com.nextdoor.bender.operation.filter;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.FilterOperation;
 import com.nextdoor.bender.operation.OperationException;
 
-public class BasicFilterOperation implements FilterOperation  {
+public class BasicFilterOperation implements FilterOperation, FieldAccess {
   final boolean pass;
 
   public BasicFilterOperation(boolean pass) {
@@ -30,4 +34,14 @@ public class BasicFilterOperation implements FilterOperation  {
   public boolean test(InternalEvent ievent) throws OperationException {
     return this.pass;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.emptyList();
+  }
 }
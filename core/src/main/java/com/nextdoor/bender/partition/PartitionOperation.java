@@ -15,6 +15,9 @@
 
 package com.nextdoor.bender.partition;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -22,9 +25,10 @@ import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
 import com.nextdoor.bender.deserializer.FieldNotFoundException;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationException;
 
-public class PartitionOperation implements EventOperation {
+public class PartitionOperation implements EventOperation, FieldAccess {
   private final List<PartitionSpec> partitionSpecs;
 
   public PartitionOperation(final List<PartitionSpec> partitionSpecs) {
@@ -70,4 +74,21 @@ public class PartitionOperation implements EventOperation {
     ievent.setPartitions(getPartitions(ievent.getEventObj()));
     return ievent;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    List<String> fields = new ArrayList<String>();
+    for (PartitionSpec spec : this.partitionSpecs) {
+      fields.addAll(spec.getSources());
+    }
+    return fields;
+  }
+
+  /**
+   * Only the partitions are set, the payload is not changed.
+   */
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.emptyList();
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects elements offered by one thread and adds them to a {@link RingBuffer} in batches using
+ * {@link RingBuffer#offerAll(List)}. Elements are held back until a batch is full so producers
+ * must call {@link #flush()} once they are done.
+ *
+ * Not thread safe. Every producing thread needs its own instance.
+ *
+ * @param <E> type of element held.
+ */
+public class BatchedProducer<E> {
+  private final RingBuffer<E> buffer;
+  private final List<E> batch;
+  private final int batchSize;
+
+  /**
+   * @param buffer buffer to add elements to.
+   * @param batchSize number of elements added at once.
+   */
+  public BatchedProducer(RingBuffer<E> buffer, int batchSize) {
+    this.buffer = buffer;
+    this.batchSize = Math.max(1, batchSize);
+    this.batch = new ArrayList<E>(this.batchSize);
+  }
+
+  /**
+   * Adds an element to the current batch and adds the batch to the buffer once it is full.
+   *
+   * @param element element to add. Must not be null.
+   * @return false if the buffer was closed.
+   */
+  public boolean offer(E element) {
+    if (element == null) {
+      throw new NullPointerException("RingBuffer does not accept null elements");
+    }
+
+    this.batch.add(element);
+    if (this.batch.size() >= this.batchSize) {
+      return flush();
+    }
+
+    return true;
+  }
+
+  /**
+   * Adds the current batch to the buffer, waiting for space if necessary.
+   *
+   * @return false if the buffer was closed.
+   */
+  public boolean flush() {
+    if (this.batch.isEmpty()) {
+      return true;
+    }
+
+    try {
+      return this.buffer.offerAll(this.batch);
+    } finally {
+      this.batch.clear();
+    }
+  }
+}
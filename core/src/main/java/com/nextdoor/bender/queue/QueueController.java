@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.nextdoor.bender.monitoring.Stat;
+
+/**
+ * Sizes the queues between the handler's reader and its worker lanes and keeps stats about them.
+ *
+ * When adaptive, the combined limit of the queues follows how many events the lanes consume in
+ * {@link #TARGET_BUFFER_MS} so that a burst from the reader does not stall the lanes, but is capped
+ * so that queued events use no more than a fraction of the heap which is currently free. The limit
+ * changes by at most a factor of two per adjustment to avoid oscillating. When not adaptive the
+ * limit stays at the configured queue size and only stats are kept.
+ *
+ * The controller is driven by the single reader thread through {@link #record(int)}
+ * so it needs no thread of its own. Learned throughput and event size are kept across invocations.
+ */
+public class QueueController {
+  /*
+   * Amount of consumer work the queues should hold.
+   */
+  static final long TARGET_BUFFER_MS = 100;
+
+  /*
+   * Minimum time between adjustments and how often the clock is checked.
+   */
+  private static final long ADJUST_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(20);
+  private static final int CHECK_EVERY_EVENTS = 256;
+
+  /*
+   * Smallest combined limit when adaptive unless the configured queue size is smaller.
+   */
+  private static final int MIN_SIZE = 16;
+
+  /*
+   * Rough memory used by an InternalEvent in addition to its raw bytes.
+   */
+  static final long EVENT_OVERHEAD_BYTES = 256;
+
+  /*
+   * Weight of a new sample in the moving averages.
+   */
+  private static final double ALPHA = 0.3;
+
+  private final boolean adaptive;
+  private final int minSize;
+  private final int maxSize;
+  private final double heapFraction;
+
+  private int limit;
+  private double eventsPerNs = 0;
+  private double avgEventBytes = 0;
+
+  private List<RingBuffer<?>> queues = Collections.emptyList();
+  private long lastAdjustNanos;
+  private long lastConsumed;
+  private long bytesSinceAdjust;
+  private int eventsSinceAdjust;
+  private int eventsSinceCheck;
+
+  /*
+   * Per invocation stats.
+   */
+  private long depthSum;
+  private long depthSamples;
+  private int maxDepth;
+
+  /**
+   * @param queueSize fixed queue size or, when adaptive, the size to start from.
+   * @param adaptive whether to resize the queues.
+   * @param maxSize largest combined size when adaptive. Queues are allocated with this capacity.
+   * @param heapFraction share of the free heap queued events may use when adaptive.
+   */
+  public QueueController(int queueSize, boolean adaptive, int maxSize, double heapFraction) {
+    this.adaptive = adaptive;
+    this.maxSize = adaptive ? Math.max(queueSize, maxSize) : queueSize;
+    this.minSize = Math.min(queueSize, MIN_SIZE);
+    this.heapFraction = heapFraction;
+    this.limit = queueSize;
+  }
+
+  /**
+   * @param lanes number of queues.
+   * @return capacity to allocate each queue with.
+   */
+  public int getQueueCapacity(int lanes) {
+    return Math.max(1, this.maxSize / lanes);
+  }
+
+  /**
+   * Starts controlling the queues of a new invocation. Per invocation stats are reset.
+   *
+   * @param queues queues to control.
+   */
+  public void attach(List<? extends RingBuffer<?>> queues) {
+    this.queues = new ArrayList<RingBuffer<?>>(queues);
+    this.lastAdjustNanos = System.nanoTime();
+    this.lastConsumed = consumed();
+    this.bytesSinceAdjust = 0;
+    this.eventsSinceAdjust = 0;
+    this.eventsSinceCheck = 0;
+    this.depthSum = 0;
+    this.depthSamples = 0;
+    this.maxDepth = 0;
+
+    applyLimit();
+  }
+
+  /**
+   * Called by the producer for every event offered to the queues.
+   *
+   * @param eventBytes size of the raw event.
+   */
+  public void record(int eventBytes) {
+    this.bytesSinceAdjust += eventBytes;
+    this.eventsSinceAdjust++;
+
+    if (++this.eventsSinceCheck < CHECK_EVERY_EVENTS) {
+      return;
+    }
+    this.eventsSinceCheck = 0;
+
+    long now = System.nanoTime();
+    if (now - this.lastAdjustNanos >= ADJUST_INTERVAL_NS) {
+      adjust(now, Runtime.getRuntime());
+    }
+  }
+
+  void adjust(long now, Runtime runtime) {
+    long consumed = consumed();
+    long elapsed = now - this.lastAdjustNanos;
+
+    int depth = depth();
+    this.depthSum += depth;
+    this.depthSamples++;
+    this.maxDepth = Math.max(this.maxDepth, depth);
+
+    if (elapsed > 0 && this.eventsSinceAdjust > 0) {
+      this.eventsPerNs = average(this.eventsPerNs, (consumed - this.lastConsumed) / (double) elapsed);
+      this.avgEventBytes =
+          average(this.avgEventBytes, this.bytesSinceAdjust / (double) this.eventsSinceAdjust);
+    }
+
+    this.lastAdjustNanos = now;
+    this.lastConsumed = consumed;
+    this.bytesSinceAdjust = 0;
+    this.eventsSinceAdjust = 0;
+
+    if (!this.adaptive) {
+      return;
+    }
+
+    long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+    long freeHeap = Math.max(0, runtime.maxMemory() - usedHeap);
+
+    this.limit = computeLimit(this.limit, this.eventsPerNs, this.avgEventBytes, freeHeap);
+    applyLimit();
+  }
+
+  /**
+   * @param current current combined limit.
+   * @param eventsPerNs measured consumer throughput.
+   * @param avgEventBytes measured raw event size.
+   * @param freeHeap bytes of heap which are not in use.
+   * @return new combined limit.
+   */
+  int computeLimit(int current, double eventsPerNs, double avgEventBytes, long freeHeap) {
+    double target = eventsPerNs * TimeUnit.MILLISECONDS.toNanos(TARGET_BUFFER_MS);
+    double memoryCap = (freeHeap * this.heapFraction) / (avgEventBytes + EVENT_OVERHEAD_BYTES);
+
+    long next = (long) Math.min(target, memoryCap);
+    next = Math.max(next, current / 2);
+    next = Math.min(next, (long) current * 2);
+
+    /*
+     * Memory takes precedence over gradual change.
+     */
+    next = Math.min(next, (long) memoryCap);
+
+    return (int) Math.max(this.minSize, Math.min(this.maxSize, next));
+  }
+
+  private static double average(double current, double sample) {
+    return current == 0 ? sample : current + ALPHA * (sample - current);
+  }
+
+  private void applyLimit() {
+    if (this.queues.isEmpty()) {
+      return;
+    }
+
+    int perQueue = Math.max(1, this.limit / this.queues.size());
+    for (RingBuffer<?> queue : this.queues) {
+      queue.setLimit(perQueue);
+    }
+  }
+
+  private long consumed() {
+    long consumed = 0;
+    for (RingBuffer<?> queue : this.queues) {
+      consumed += queue.getConsumed();
+    }
+    return consumed;
+  }
+
+  private int depth() {
+    int depth = 0;
+    for (RingBuffer<?> queue : this.queues) {
+      depth += queue.size();
+    }
+    return depth;
+  }
+
+  /**
+   * @return combined limit of the queues.
+   */
+  public int getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * @return stats about the queues of the current invocation.
+   */
+  public List<Stat> getStats() {
+    long blocked = 0;
+    for (RingBuffer<?> queue : this.queues) {
+      blocked += queue.getBlockedNanos();
+    }
+
+    List<Stat> stats = new ArrayList<Stat>(4);
+    stats.add(new Stat("queue.capacity", this.limit, Stat.MetricType.gauge));
+    stats.add(new Stat("queue.depth.avg",
+        this.depthSamples == 0 ? 0 : this.depthSum / this.depthSamples, Stat.MetricType.gauge));
+    stats.add(new Stat("queue.depth.max", this.maxDepth, Stat.MetricType.gauge));
+    stats.add(new Stat("queue.offer_blocked.ns", blocked, Stat.MetricType.count));
+    return stats;
+  }
+}
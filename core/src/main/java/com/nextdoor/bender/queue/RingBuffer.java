@@ -0,0 +1,409 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A bounded, preallocated, lock-free queue used to hand off objects between threads. The buffer
+ * supports a single consumer and either a single producer or multiple producers.
+ *
+ * Producers block (using the {@link WaitStrategy}) while the buffer is full which applies back
+ * pressure. The consumer drains elements in batches and releases the drained slots back to
+ * producers once per batch rather than once per element.
+ *
+ * The number of elements producers may add can be lowered below the allocated capacity with
+ * {@link #setLimit(int)}. This allows a {@link QueueController} to resize the queue while it is in
+ * use without reallocating it.
+ *
+ * A slot holding null is considered empty. Producers claim a sequence number, write their element
+ * into the slot for that sequence, and the consumer waits for the slot to become non-null before
+ * reading it. This allows producers which claimed sequences out of order to publish independently.
+ *
+ * @param <E> type of element held.
+ */
+public class RingBuffer<E> {
+  public enum Producers {
+    SINGLE, MULTI
+  }
+
+  /**
+   * Maximum number of elements the consumer takes from the buffer at once.
+   */
+  private static final int DRAIN_BATCH_SIZE = 64;
+
+  private final AtomicReferenceArray<E> slots;
+  private final int capacity;
+  private final int mask;
+  private final boolean multiProducer;
+  private final WaitStrategy waitStrategy;
+
+  /*
+   * Next sequence to be consumed. Only written by the consumer.
+   */
+  private final AtomicLong head = new AtomicLong(0);
+
+  /*
+   * Next sequence to be claimed by a producer.
+   */
+  private final AtomicLong tail = new AtomicLong(0);
+
+  /*
+   * Last observed value of head. Only used when there is a single producer.
+   */
+  private long cachedHead = 0;
+
+  private volatile boolean closed = false;
+  private volatile boolean cleared = false;
+  private volatile int limit;
+
+  /*
+   * Time producers spent waiting for space.
+   */
+  private final LongAdder blockedNanos = new LongAdder();
+
+  /**
+   * @param capacity minimum number of elements the buffer can hold. Rounded up to the next power
+   *        of two.
+   * @param producers whether more than one thread will offer to the buffer.
+   * @param waitStrategy what to do when the buffer is full or empty.
+   */
+  public RingBuffer(int capacity, Producers producers, WaitStrategy waitStrategy) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+
+    this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.limit = this.capacity;
+    this.slots = new AtomicReferenceArray<E>(this.capacity);
+    this.multiProducer = producers == Producers.MULTI;
+    this.waitStrategy = waitStrategy;
+  }
+
+  public RingBuffer(int capacity, Producers producers) {
+    this(capacity, producers, WaitStrategy.SLEEPING);
+  }
+
+  /**
+   * Adds an element to the buffer waiting for space if the buffer is full.
+   *
+   * @param element element to add. Must not be null.
+   * @return true if the element was added or false if the buffer was closed.
+   */
+  public boolean offer(E element) {
+    if (element == null) {
+      throw new NullPointerException("RingBuffer does not accept null elements");
+    }
+
+    long seq = claim(1);
+    if (seq < 0) {
+      return false;
+    }
+
+    this.slots.lazySet((int) seq & this.mask, element);
+    return true;
+  }
+
+  /**
+   * Adds elements to the buffer in order waiting for space if the buffer is full. Space is claimed
+   * for as many elements at once as the limit allows which is cheaper than offering them one at a
+   * time, especially with multiple producers.
+   *
+   * @param elements elements to add. Must not contain null.
+   * @return true if all elements were added or false if the buffer was closed.
+   */
+  public boolean offerAll(List<? extends E> elements) {
+    int size = elements.size();
+    int offset = 0;
+
+    while (offset < size) {
+      int count = Math.min(size - offset, this.limit);
+      for (int i = offset; i < offset + count; i++) {
+        if (elements.get(i) == null) {
+          throw new NullPointerException("RingBuffer does not accept null elements");
+        }
+      }
+
+      long seq = claim(count);
+      if (seq < 0) {
+        return false;
+      }
+
+      for (int i = 0; i < count; i++) {
+        this.slots.lazySet((int) (seq + i) & this.mask, elements.get(offset + i));
+      }
+      offset += count;
+    }
+
+    return true;
+  }
+
+  /**
+   * Claims consecutive sequences for count elements.
+   *
+   * @return first sequence claimed or -1 if the buffer was closed.
+   */
+  private long claim(int count) {
+    return this.multiProducer ? claimMulti(count) : claimSingle(count);
+  }
+
+  /*
+   * The limit may be lowered below count after the caller read it. Waiting for count elements to
+   * fit under the limit would then never end so count is allowed to exceed it.
+   */
+  private long available(int count) {
+    return Math.max(this.limit, count) - count;
+  }
+
+  private long claimSingle(int count) {
+    long seq = this.tail.get();
+    int attempts = 0;
+    long blockedSince = 0;
+
+    while (seq - this.cachedHead > available(count)) {
+      if (this.closed) {
+        break;
+      }
+
+      this.cachedHead = this.head.get();
+      if (seq - this.cachedHead <= available(count)) {
+        break;
+      }
+
+      if (attempts == 0) {
+        blockedSince = System.nanoTime();
+      }
+      this.waitStrategy.idle(attempts++);
+    }
+
+    if (attempts > 0) {
+      this.blockedNanos.add(System.nanoTime() - blockedSince);
+    }
+
+    if (this.closed) {
+      return -1;
+    }
+
+    this.tail.lazySet(seq + count);
+    return seq;
+  }
+
+  private long claimMulti(int count) {
+    int attempts = 0;
+    long blockedSince = 0;
+
+    try {
+      while (true) {
+        if (this.closed) {
+          return -1;
+        }
+
+        long seq = this.tail.get();
+        if (seq - this.head.get() > available(count)) {
+          if (attempts == 0) {
+            blockedSince = System.nanoTime();
+          }
+          this.waitStrategy.idle(attempts++);
+          continue;
+        }
+
+        if (this.tail.compareAndSet(seq, seq + count)) {
+          return seq;
+        }
+      }
+    } finally {
+      if (attempts > 0) {
+        this.blockedNanos.add(System.nanoTime() - blockedSince);
+      }
+    }
+  }
+
+  /**
+   * Takes up to limit elements which are available without waiting. Must only be called by the
+   * consumer thread.
+   *
+   * @param consumer receives each element in order.
+   * @param limit maximum number of elements to take.
+   * @return number of elements taken.
+   */
+  public int drain(Consumer<? super E> consumer, int limit) {
+    if (this.cleared) {
+      return 0;
+    }
+
+    long start = this.head.get();
+    int taken = 0;
+
+    try {
+      while (taken < limit) {
+        int index = (int) (start + taken) & this.mask;
+        E element = this.slots.get(index);
+
+        if (element == null) {
+          break;
+        }
+
+        this.slots.lazySet(index, null);
+        taken++;
+        consumer.accept(element);
+      }
+    } finally {
+      if (taken > 0) {
+        this.head.lazySet(start + taken);
+      }
+    }
+
+    return taken;
+  }
+
+  /**
+   * Signals that no more elements will be offered. Elements already in the buffer can still be
+   * consumed.
+   */
+  public void close() {
+    this.closed = true;
+  }
+
+  /**
+   * Closes the buffer and discards any remaining elements. Producers waiting for space and
+   * consumers waiting for elements return immediately.
+   */
+  public void closeAndClear() {
+    this.closed = true;
+    this.cleared = true;
+  }
+
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Changes how many elements producers may add before waiting. Elements already in the buffer
+   * are kept when the limit is lowered below the current size; producers wait until the consumer
+   * has taken enough of them.
+   *
+   * @param limit number of elements, clamped between 1 and {@link #getCapacity()}.
+   */
+  public void setLimit(int limit) {
+    this.limit = Math.max(1, Math.min(this.capacity, limit));
+  }
+
+  public int getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * @return total time producers spent waiting for space in the buffer.
+   */
+  public long getBlockedNanos() {
+    return this.blockedNanos.sum();
+  }
+
+  /**
+   * @return number of elements taken by the consumer so far.
+   */
+  public long getConsumed() {
+    return this.head.get();
+  }
+
+  /**
+   * @return approximate number of elements in the buffer.
+   */
+  public int size() {
+    return (int) Math.max(0, Math.min(this.capacity, this.tail.get() - this.head.get()));
+  }
+
+  /**
+   * Creates a Stream which consumes the buffer until it is closed and all elements have been
+   * taken. Elements are taken from the buffer in batches.
+   *
+   * @return stream of elements.
+   */
+  public Stream<E> stream() {
+    return StreamSupport.stream(new DrainingSpliterator(), false);
+  }
+
+  private class DrainingSpliterator extends Spliterators.AbstractSpliterator<E> {
+    private final Object[] batch = new Object[Math.min(DRAIN_BATCH_SIZE, capacity)];
+    private int position = 0;
+    private int count = 0;
+
+    DrainingSpliterator() {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    private void store(E element) {
+      this.batch[this.count++] = element;
+    }
+
+    /**
+     * Refills the local batch waiting for elements if necessary.
+     *
+     * @return false if the buffer is closed and has no more elements.
+     */
+    private boolean fill() {
+      this.position = 0;
+      this.count = 0;
+      int attempts = 0;
+
+      while (true) {
+        if (cleared) {
+          return false;
+        }
+
+        if (drain(this::store, this.batch.length) > 0) {
+          return true;
+        }
+
+        /*
+         * Elements published before the buffer was closed are visible once closed is observed so
+         * check one more time before giving up.
+         */
+        if (closed) {
+          return drain(this::store, this.batch.length) > 0;
+        }
+
+        waitStrategy.idle(attempts++);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super E> action) {
+      if (this.position == this.count && !fill()) {
+        return false;
+      }
+
+      E element = (E) this.batch[this.position];
+      this.batch[this.position++] = null;
+      action.accept(element);
+      return true;
+    }
+  }
+}
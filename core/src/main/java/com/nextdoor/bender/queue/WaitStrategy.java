@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Determines what a producer or consumer of a {@link RingBuffer} does while it is unable to make
+ * progress because the buffer is full or empty.
+ */
+public enum WaitStrategy {
+  /**
+   * Spins on the CPU. Lowest latency but occupies a core while waiting. Only useful when there are
+   * more cores than busy threads.
+   */
+  BUSY_SPIN {
+    @Override
+    public void idle(int attempts) {
+      Thread.onSpinWait();
+    }
+  },
+
+  /**
+   * Spins briefly and then yields the CPU to other threads.
+   */
+  YIELDING {
+    @Override
+    public void idle(int attempts) {
+      if (attempts < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    }
+  },
+
+  /**
+   * Spins, then yields, and finally parks the thread with an increasing back off. Uses the least
+   * CPU while waiting which makes it a good fit for functions with a single vCPU.
+   */
+  SLEEPING {
+    @Override
+    public void idle(int attempts) {
+      if (attempts < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else if (attempts < SPIN_TRIES + YIELD_TRIES) {
+        Thread.yield();
+      } else {
+        int shift = Math.min(attempts - SPIN_TRIES - YIELD_TRIES, MAX_PARK_SHIFT);
+        LockSupport.parkNanos(MIN_PARK_NS << shift);
+      }
+    }
+  };
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 100;
+  private static final long MIN_PARK_NS = 1000;
+  private static final int MAX_PARK_SHIFT = 10;
+
+  /**
+   * Called each time a thread fails to make progress.
+   *
+   * @param attempts number of consecutive failed attempts so far, starting at 0.
+   */
+  public abstract void idle(int attempts);
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.serializer;
+
+import java.lang.reflect.Type;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+/**
+ * A value in an event payload which already is JSON text, such as a number kept as it was parsed.
+ * Serializers write the text rather than serializing the object's fields.
+ */
+public interface JsonText {
+  /**
+   * @return the JSON text of the value.
+   */
+  public String toJson();
+
+  /**
+   * Registers {@link GsonSerializer} for all {@link JsonText} types.
+   *
+   * @param builder builder to register with.
+   * @return the builder.
+   */
+  public static GsonBuilder register(GsonBuilder builder) {
+    return builder.registerTypeHierarchyAdapter(JsonText.class, new GsonSerializer());
+  }
+
+  /**
+   * Gson serializer for {@link JsonText} values. Values are only ever written so no deserializer is
+   * provided.
+   */
+  public static class GsonSerializer implements JsonSerializer<JsonText> {
+    @Override
+    public JsonElement serialize(JsonText src, Type typeOfSrc, JsonSerializationContext context) {
+      /*
+       * Gson writes a Number primitive using its toString()
+       */
+      if (src instanceof Number) {
+        return new JsonPrimitive((Number) src);
+      }
+
+      return JsonParser.parseString(src.toJson());
+    }
+  }
+}
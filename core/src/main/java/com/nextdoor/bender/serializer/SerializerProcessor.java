@@ -15,15 +15,20 @@
 
 package com.nextdoor.bender.serializer;
 
+import org.apache.log4j.Logger;
 
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.monitoring.MonitoredProcess;
 import com.nextdoor.bender.utils.ReflectionUtils;
+import com.nextdoor.bender.wrapper.Wrapper;
 
 /**
  * Wrapper around {@link Serializer} that keeps timing information on how long it takes to serialize
  * events and handles error cases.
  */
 public class SerializerProcessor extends MonitoredProcess {
+  private static final Logger logger = Logger.getLogger(SerializerProcessor.class);
   private Serializer serializer;
 
   public SerializerProcessor(Serializer serializer) {
@@ -52,6 +57,42 @@ public class SerializerProcessor extends MonitoredProcess {
     return serialized;
   }
 
+  /**
+   * Wraps and serializes every event in a batch, setting the serialized form on each event. Runtime
+   * is recorded once for the whole batch and the latency histogram records the average per event.
+   * Events which fail to serialize are removed.
+   *
+   * @param batch events to serialize.
+   * @param wrapper wrapper applied to each event before serialization.
+   * @return the same batch with failed events removed.
+   */
+  public EventBatch serialize(EventBatch batch, Wrapper wrapper) {
+    int errors = 0;
+    this.getRuntimeStat().start();
+
+    try {
+      for (int i = 0; i < batch.size(); i++) {
+        InternalEvent ievent = batch.get(i);
+
+        try {
+          ievent.setSerialized(this.serializer.serialize(wrapper.getWrapped(ievent)));
+        } catch (Exception e) {
+          logger.debug("failed to serialize", e);
+          batch.set(i, null);
+          errors++;
+        }
+      }
+    } finally {
+      this.getRuntimeStat().stop(batch.size());
+    }
+
+    this.getSuccessCountStat().increment(batch.size() - errors);
+    this.getErrorCountStat().increment(errors);
+    batch.compact();
+
+    return batch;
+  }
+
   public Serializer getSerializer() {
     return this.serializer;
   }
@@ -15,16 +15,20 @@
 
 package com.nextdoor.bender.time;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.FieldNotFoundException;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationException;
 import com.nextdoor.bender.time.TimeOperationConfig.TimeFieldType;
 import com.nextdoor.bender.utils.Time;
 
-public class TimeOperation implements EventOperation {
+public class TimeOperation implements EventOperation, FieldAccess {
   private final String timeField;
   private final TimeFieldType timeFieldType;
   private final static DateTimeFormatter iso8601Parser = ISODateTimeFormat.dateTimeParser();
@@ -78,4 +82,17 @@ public class TimeOperation implements EventOperation {
 
     return ievent;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.singletonList(this.timeField);
+  }
+
+  /**
+   * Only the event time is set, the payload is not changed.
+   */
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.emptyList();
+  }
 }
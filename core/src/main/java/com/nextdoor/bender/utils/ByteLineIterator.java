@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits an InputStream into lines without decoding them into Strings. Lines are terminated by
+ * '\n', '\r' or "\r\n" which matches {@link java.io.BufferedReader#readLine()}. The returned
+ * arrays do not include the line terminator.
+ *
+ * Like {@link java.io.BufferedReader#lines()} IO errors are rethrown as
+ * {@link UncheckedIOException}s.
+ *
+ * The position in the stream after the last returned line is tracked so that a caller can later
+ * resume reading from that point, see {@link #getPosition()}.
+ */
+public class ByteLineIterator implements Iterator<byte[]>, Closeable {
+  private static final int BUFFER_SIZE = 65536;
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean eof = false;
+  private boolean skipLineFeed = false;
+
+  /*
+   * Holds the start of a line which spans more than one read from the stream.
+   */
+  private byte[] partial = new byte[0];
+  private int partialLength = 0;
+
+  private byte[] nextLine = null;
+
+  /*
+   * Bytes read from the stream before the current buffer was filled.
+   */
+  private long bufferStart = 0;
+
+  /*
+   * Position after the terminator of nextLine and of the last line returned.
+   */
+  private long nextLineEnd = 0;
+  private boolean nextLineEndsWithCarriageReturn = false;
+  private long lineEnd = 0;
+  private boolean lineEndsWithCarriageReturn = false;
+
+  public ByteLineIterator(InputStream in) {
+    this(in, false);
+  }
+
+  /**
+   * @param in stream to read lines from.
+   * @param afterCarriageReturn true if the stream starts right after a '\r' in which case a
+   *        leading '\n' is skipped. Used when resuming from {@link #getPosition()}.
+   */
+  public ByteLineIterator(InputStream in, boolean afterCarriageReturn) {
+    this.in = in;
+    this.skipLineFeed = afterCarriageReturn;
+    this.lineEndsWithCarriageReturn = afterCarriageReturn;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.nextLine == null) {
+      try {
+        this.nextLine = readLine();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return this.nextLine != null;
+  }
+
+  @Override
+  public byte[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    byte[] line = this.nextLine;
+    this.nextLine = null;
+    this.lineEnd = this.nextLineEnd;
+    this.lineEndsWithCarriageReturn = this.nextLineEndsWithCarriageReturn;
+    return line;
+  }
+
+  /**
+   * @return number of bytes from the start of the stream up to and including the terminator of
+   *         the last line returned by {@link #next()}.
+   */
+  public long getPosition() {
+    return this.lineEnd;
+  }
+
+  /**
+   * @return true if the last line returned was terminated by a '\r'. A following '\n' may not
+   *         have been read yet and must be skipped when resuming from {@link #getPosition()}.
+   */
+  public boolean endsWithCarriageReturn() {
+    return this.lineEndsWithCarriageReturn;
+  }
+
+  private boolean fill() throws IOException {
+    if (this.eof) {
+      return false;
+    }
+
+    int read = this.in.read(this.buffer, 0, this.buffer.length);
+    if (read < 0) {
+      this.eof = true;
+      return false;
+    }
+
+    this.bufferStart += this.limit;
+    this.position = 0;
+    this.limit = read;
+    return true;
+  }
+
+  private byte[] readLine() throws IOException {
+    while (true) {
+      if (this.position >= this.limit && !fill()) {
+        if (this.partialLength == 0) {
+          return null;
+        }
+
+        byte[] line = Arrays.copyOf(this.partial, this.partialLength);
+        this.partialLength = 0;
+        this.nextLineEnd = this.bufferStart + this.limit;
+        this.nextLineEndsWithCarriageReturn = false;
+        return line;
+      }
+
+      if (this.skipLineFeed) {
+        this.skipLineFeed = false;
+        if (this.buffer[this.position] == '\n') {
+          this.position++;
+          continue;
+        }
+      }
+
+      for (int i = this.position; i < this.limit; i++) {
+        byte b = this.buffer[i];
+        if (b != '\n' && b != '\r') {
+          continue;
+        }
+
+        byte[] line = new byte[this.partialLength + (i - this.position)];
+        System.arraycopy(this.partial, 0, line, 0, this.partialLength);
+        System.arraycopy(this.buffer, this.position, line, this.partialLength, i - this.position);
+
+        this.partialLength = 0;
+        this.skipLineFeed = b == '\r';
+        this.position = i + 1;
+        this.nextLineEnd = this.bufferStart + this.position;
+        this.nextLineEndsWithCarriageReturn = this.skipLineFeed;
+        return line;
+      }
+
+      /*
+       * No line terminator in the rest of the buffer so keep what was read and read more.
+       */
+      int remaining = this.limit - this.position;
+      if (this.partialLength + remaining > this.partial.length) {
+        this.partial = Arrays.copyOf(this.partial,
+            Math.max(this.partialLength + remaining, this.partial.length * 2));
+      }
+      System.arraycopy(this.buffer, this.position, this.partial, this.partialLength, remaining);
+      this.partialLength += remaining;
+      this.position = this.limit;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import com.google.common.hash.Hashing;
+
+/**
+ * Hash functions which can be used to identify an event by its original contents. All functions
+ * hash the UTF-8 encoding of the event and return a lowercase hex string.
+ */
+public enum EventHash {
+  /**
+   * 160 bit SHA-1. Slowest but matches the hashes produced by earlier versions of Bender.
+   */
+  SHA1 {
+    @Override
+    public String hash(ByteBuffer bytes) {
+      MessageDigest digest = DigestUtils.getSha1Digest();
+      digest.update(bytes.duplicate());
+      return Hex.encodeHexString(digest.digest());
+    }
+
+    @Override
+    public String hash(String str) {
+      return DigestUtils.sha1Hex(str);
+    }
+  },
+
+  /**
+   * 64 bit xxHash. Not cryptographic but several times faster than SHA-1.
+   */
+  XXHASH64 {
+    @Override
+    public String hash(ByteBuffer bytes) {
+      return toHex(XxHash64.hash(bytes, 0));
+    }
+  },
+
+  /**
+   * 128 bit MurmurHash3 (x64 variant). Not cryptographic but has a lower chance of collisions than
+   * XXHASH64.
+   */
+  MURMUR3_128 {
+    @Override
+    public String hash(ByteBuffer bytes) {
+      return Hashing.murmur3_128().hashBytes(bytes.duplicate()).toString();
+    }
+  };
+
+  /**
+   * @param bytes UTF-8 encoded event. The position of the buffer is not modified.
+   * @return hex encoded hash of the remaining bytes.
+   */
+  public abstract String hash(ByteBuffer bytes);
+
+  /**
+   * @param str event string.
+   * @return hex encoded hash of the UTF-8 encoding of str.
+   */
+  public String hash(String str) {
+    return hash(ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String toHex(long value) {
+    String hex = Long.toHexString(value);
+    if (hex.length() == 16) {
+      return hex;
+    }
+
+    StringBuilder sb = new StringBuilder(16);
+    for (int i = hex.length(); i < 16; i++) {
+      sb.append('0');
+    }
+    return sb.append(hex).toString();
+  }
+}
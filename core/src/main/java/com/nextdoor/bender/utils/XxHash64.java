@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Implementation of the 64 bit variant of the xxHash algorithm. See
+ * https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md for the specification.
+ */
+public final class XxHash64 {
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+  private XxHash64() {}
+
+  /**
+   * @param input bytes to hash. The position of the buffer is not modified.
+   * @param seed hash seed.
+   * @return 64 bit hash of the remaining bytes in input.
+   */
+  public static long hash(ByteBuffer input, long seed) {
+    ByteBuffer buf = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int offset = buf.position();
+    int end = buf.limit();
+    int length = end - offset;
+    long hash;
+
+    if (length >= 32) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+
+      int limit = end - 32;
+      do {
+        v1 = round(v1, buf.getLong(offset));
+        v2 = round(v2, buf.getLong(offset + 8));
+        v3 = round(v3, buf.getLong(offset + 16));
+        v4 = round(v4, buf.getLong(offset + 24));
+        offset += 32;
+      } while (offset <= limit);
+
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+          + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
+
+    hash += length;
+
+    while (offset + 8 <= end) {
+      hash ^= round(0, buf.getLong(offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      offset += 8;
+    }
+
+    if (offset + 4 <= end) {
+      hash ^= (buf.getInt(offset) & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 4;
+    }
+
+    while (offset < end) {
+      hash ^= (buf.get(offset) & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      offset++;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= PRIME64_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME64_3;
+    hash ^= hash >>> 32;
+
+    return hash;
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME64_2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME64_1;
+  }
+
+  private static long mergeRound(long acc, long val) {
+    acc ^= round(0, val);
+    return acc * PRIME64_1 + PRIME64_4;
+  }
+}
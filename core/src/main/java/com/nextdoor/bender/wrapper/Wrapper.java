@@ -15,8 +15,19 @@
 
 package com.nextdoor.bender.wrapper;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import com.nextdoor.bender.InternalEvent;
 
 public interface Wrapper {
   public Object getWrapped(final InternalEvent ievent);
+
+  /**
+   * @return payload fields the wrapper reads apart from embedding the whole payload or null if
+   *         any field may be read. Used to decide which fields deserializers must parse.
+   */
+  public default Collection<String> getFieldsRead() {
+    return Collections.emptyList();
+  }
 }
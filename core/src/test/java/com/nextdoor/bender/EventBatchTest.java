@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class EventBatchTest {
+
+  @Test
+  public void testBatches() {
+    List<EventBatch> batches = EventBatch
+        .batches(IntStream.range(0, 250).mapToObj(i -> new InternalEvent("" + i, null, 1)), 100)
+        .collect(Collectors.toList());
+
+    assertEquals(3, batches.size());
+    assertEquals(100, batches.get(0).size());
+    assertEquals(100, batches.get(1).size());
+    assertEquals(50, batches.get(2).size());
+    assertEquals("100", batches.get(1).get(0).getEventString());
+  }
+
+  @Test
+  public void testCompact() {
+    EventBatch batch = new EventBatch();
+    for (int i = 0; i < 5; i++) {
+      batch.add(new InternalEvent("" + i, null, 1));
+    }
+
+    batch.set(0, null);
+    batch.fail(3, new RuntimeException("expected"));
+    assertTrue(batch.isFailed(3));
+    assertEquals(1, batch.getFailures().size());
+    assertEquals("expected", batch.getFailure(3).getMessage());
+    assertNull(batch.getFailure(2));
+
+    batch.compact();
+
+    assertEquals(3, batch.size());
+    assertEquals("1", batch.get(0).getEventString());
+    assertEquals("2", batch.get(1).getEventString());
+    assertEquals("4", batch.get(2).getEventString());
+    assertEquals(0, batch.getFailures().size());
+  }
+}
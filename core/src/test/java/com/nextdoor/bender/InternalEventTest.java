@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.nextdoor.bender.utils.EventHash;
+
+public class InternalEventTest {
+
+  @After
+  public void after() {
+    InternalEvent.setEventHashFunction(EventHash.SHA1);
+  }
+
+  @Test
+  public void testLazyDecode() {
+    byte[] raw = "xx{\"foo\": \"b\u00e4r\"}yy".getBytes(StandardCharsets.UTF_8);
+    InternalEvent ievent = new InternalEvent(ByteBuffer.wrap(raw, 2, raw.length - 4), null, 1);
+
+    assertFalse(ievent.isEventStringDecoded());
+    assertEquals(raw.length - 4, ievent.getEventSize());
+
+    assertEquals("{\"foo\": \"b\u00e4r\"}", ievent.getEventString());
+    assertTrue(ievent.isEventStringDecoded());
+  }
+
+  @Test
+  public void testHashMatchesStringEvent() {
+    String raw = "{\"foo\": \"b\u00e4r\"}";
+    InternalEvent fromString = new InternalEvent(raw, null, 1);
+    InternalEvent fromBytes =
+        new InternalEvent(ByteBuffer.wrap(raw.getBytes(StandardCharsets.UTF_8)), null, 1);
+
+    assertEquals(fromString.getEventSha1Hash(), fromBytes.getEventSha1Hash());
+  }
+
+  @Test
+  public void testStringEventHasNoBytes() {
+    InternalEvent ievent = new InternalEvent("foo", null, 1);
+
+    assertTrue(ievent.isEventStringDecoded());
+    assertNull(ievent.getEventBytes());
+    assertEquals(3, ievent.getEventSize());
+  }
+
+  @Test
+  public void testCopySharesBytes() {
+    InternalEvent ievent =
+        new InternalEvent(ByteBuffer.wrap("foo".getBytes(StandardCharsets.UTF_8)), null, 1);
+    InternalEvent copy = ievent.copy();
+
+    assertFalse(copy.isEventStringDecoded());
+    assertEquals("foo", copy.getEventString());
+    assertEquals(ievent.getEventSha1Hash(), copy.getEventSha1Hash());
+  }
+
+  @Test
+  public void testHashMetadata() {
+    InternalEvent ievent = new InternalEvent("", null, 1);
+
+    assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709",
+        ievent.getEventMetadata().get(InternalEvent.SHA1_HASH_METADATA_KEY));
+  }
+
+  @Test
+  public void testConfiguredHashFunction() {
+    InternalEvent ievent = new InternalEvent("abc", null, 1);
+    assertEquals(ievent.getEventSha1Hash(), ievent.getEventHash());
+
+    InternalEvent.setEventHashFunction(EventHash.XXHASH64);
+    ievent = new InternalEvent(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)), null, 1);
+
+    assertEquals("44bc2cf5ad770999", ievent.getEventHash());
+    assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", ievent.getEventSha1Hash());
+    assertEquals("44bc2cf5ad770999", ievent.copy().getEventHash());
+  }
+
+  @Test
+  public void testCopyOnWriteMetadata() {
+    InternalEvent ievent = new InternalEvent("foo", null, 1);
+    InternalEvent copy = ievent.copy();
+
+    copy.setEventTime(5);
+
+    assertEquals(5L, copy.getEventMetadata().get("eventEpochMs"));
+    assertNull(ievent.getEventMetadata().get("eventEpochMs"));
+  }
+
+  @Test
+  public void testCopyOnWritePartitions() {
+    InternalEvent ievent = new InternalEvent("foo", null, 1);
+    LinkedHashMap<String, String> partitions = new LinkedHashMap<String, String>();
+    partitions.put("a", "1");
+    ievent.setPartitions(partitions);
+
+    InternalEvent copy = ievent.copy();
+    copy.getPartitions().put("b", "2");
+    ievent.getPartitions().put("c", "3");
+
+    assertEquals("{a=1, b=2}", copy.getPartitions().toString());
+    assertEquals("{a=1, c=3}", ievent.getPartitions().toString());
+  }
+
+  @Test
+  public void testCopyWithoutPartitions() {
+    InternalEvent ievent = new InternalEvent("foo", null, 1);
+
+    assertNull(ievent.copy().getPartitions());
+    assertNull(ievent.getPartitions());
+  }
+}
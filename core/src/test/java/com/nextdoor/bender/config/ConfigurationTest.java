@@ -24,6 +24,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.EnvironmentVariables;
 
+import com.nextdoor.bender.deadletter.DeadLetterConfig;
+
 public class ConfigurationTest {
 
   @Rule
@@ -53,4 +55,14 @@ public class ConfigurationTest {
     assertEquals(sources.size(), 1);
     assertEquals(sources.get(0).getName(), "TestSourceName");
   }
+
+  @Test
+  public void testDeadLetter() throws ConfigurationException, ClassNotFoundException {
+    BenderConfig config = BenderConfig.load("/config/config_dead_letter.yaml");
+
+    DeadLetterConfig deadLetter = config.getDeadLetterConfig();
+    assertEquals("/var/tmp", deadLetter.getSpillDirectory());
+    assertEquals(Boolean.FALSE, deadLetter.getIncludeRejected());
+    assertEquals(Integer.valueOf(2), deadLetter.getTransportConfig().getThreads());
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.operation.BaseOperation;
+import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
+import com.nextdoor.bender.operation.OperationProcessor;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperation;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperationFactory;
+
+public class SourceTest {
+
+  private static class Op implements EventOperation, FieldAccess {
+    private final Collection<String> read;
+    private final Collection<String> written;
+
+    Op(Collection<String> read, Collection<String> written) {
+      this.read = read;
+      this.written = written;
+    }
+
+    @Override
+    public InternalEvent perform(InternalEvent ievent) {
+      return ievent;
+    }
+
+    @Override
+    public Collection<String> getFieldsRead() {
+      return this.read;
+    }
+
+    @Override
+    public Collection<String> getFieldsWritten() {
+      return this.written;
+    }
+  }
+
+  private static List<OperationProcessor> processors(BaseOperation... ops) {
+    OperationProcessor[] processors = new OperationProcessor[ops.length];
+    for (int i = 0; i < ops.length; i++) {
+      processors[i] = new OperationProcessor(new DummyOperationFactory(ops[i]));
+    }
+    return Arrays.asList(processors);
+  }
+
+  @Test
+  public void testReferencedFields() {
+    List<OperationProcessor> processors =
+        processors(new Op(Arrays.asList("$.a", "$.b.c"), Collections.singletonList("$.d")),
+            new Op(Collections.singletonList("$.a"), Collections.emptyList()));
+
+    assertEquals(Arrays.asList("$.w", "$.a", "$.b.c", "$.d"), new ArrayList<String>(
+        Source.getReferencedFields(processors, Collections.singletonList("$.w"))));
+  }
+
+  @Test
+  public void testReferencedFieldsUnknown() {
+    Op op = new Op(Collections.singletonList("$.a"), Collections.emptyList());
+
+    assertNull(Source.getReferencedFields(processors(op, new DummyOperation()),
+        Collections.emptyList()));
+    assertNull(Source.getReferencedFields(processors(new Op(null, Collections.emptyList())),
+        Collections.emptyList()));
+    assertNull(Source.getReferencedFields(processors(op), null));
+  }
+}
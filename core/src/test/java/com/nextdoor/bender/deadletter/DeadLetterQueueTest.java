@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deadletter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.aws.TestContext;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.testutils.DummyTransportHelper.BufferedTransporter;
+import com.nextdoor.bender.testutils.DummyTransportHelper.BufferedTransporterFactory;
+
+public class DeadLetterQueueTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Before
+  public void before() {
+    BufferedTransporter.output.clear();
+  }
+
+  @Test
+  public void testSpillAndFlush() throws IOException, TransportException, InterruptedException {
+    DeadLetterQueue queue =
+        new DeadLetterQueue(folder.getRoot(), new BufferedTransporterFactory());
+
+    queue.addAll(DeadLetterQueue.Kind.TRANSPORT, "timeout", Arrays.asList("a", "b"));
+    queue.reject(DeadLetterQueue.Kind.OPERATION, "bad", new InternalEvent("c", null, 1));
+    assertEquals(1, folder.getRoot().list().length);
+
+    queue.flush(new TestContext());
+
+    List<String> output = BufferedTransporter.output;
+    assertEquals(3, output.size());
+
+    JsonObject first = JsonParser.parseString(output.get(0)).getAsJsonObject();
+    assertEquals("transport", first.get("kind").getAsString());
+    assertEquals("timeout", first.get("reason").getAsString());
+    assertEquals("a", first.get("event").getAsString());
+
+    JsonObject last = JsonParser.parseString(output.get(2)).getAsJsonObject();
+    assertEquals("operation", last.get("kind").getAsString());
+    assertEquals("c", last.get("event").getAsString());
+
+    assertEquals(0, folder.getRoot().list().length);
+  }
+
+  @Test
+  public void testFlushWithoutRecords() throws TransportException, InterruptedException {
+    DeadLetterQueue queue =
+        new DeadLetterQueue(folder.getRoot(), new BufferedTransporterFactory());
+    queue.flush(new TestContext());
+
+    assertTrue(BufferedTransporter.output.isEmpty());
+  }
+
+  @Test
+  public void testDiscard() throws IOException, TransportException, InterruptedException {
+    DeadLetterQueue queue =
+        new DeadLetterQueue(folder.getRoot(), new BufferedTransporterFactory());
+
+    queue.addAll(DeadLetterQueue.Kind.TRANSPORT, "timeout", Arrays.asList("a"));
+    queue.discard();
+    assertEquals(0, folder.getRoot().list().length);
+
+    queue.flush(new TestContext());
+    assertTrue(BufferedTransporter.output.isEmpty());
+  }
+
+  @Test
+  public void testStats() throws IOException {
+    DeadLetterQueue queue =
+        new DeadLetterQueue(folder.getRoot(), new BufferedTransporterFactory());
+
+    queue.addAll(DeadLetterQueue.Kind.TRANSPORT, "timeout", Arrays.asList("a", "b"));
+    queue.reject(DeadLetterQueue.Kind.DESERIALIZER, "bad", new InternalEvent("c", null, 1));
+
+    List<Stat> stats = queue.getStats();
+    assertEquals(2, stats.get(0).getValue());
+    assertEquals(1, stats.get(1).getValue());
+    assertEquals(0, stats.get(2).getValue());
+
+    assertFalse(queue.getStats().stream().anyMatch(s -> s.getValue() != 0));
+    queue.discard();
+  }
+}
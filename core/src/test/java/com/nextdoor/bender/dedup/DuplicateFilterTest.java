@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.dedup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.utils.EventHash;
+
+public class DuplicateFilterTest {
+  private static final long TTL = 1000;
+
+  private final AtomicLong clock = new AtomicLong(0);
+
+  @After
+  public void after() {
+    InternalEvent.setEventHashFunction(EventHash.SHA1);
+  }
+
+  private DuplicateFilter newFilter(long memory) {
+    return new DuplicateFilter(new RotatingBloomFilter(memory, TTL, 0.0001, this.clock::get));
+  }
+
+  private static List<String> hashes(String... events) {
+    List<String> hashes = new ArrayList<String>();
+    for (String event : events) {
+      hashes.add(new InternalEvent(event, null, 1).getEventHash());
+    }
+    return hashes;
+  }
+
+  private static EventBatch batch(String... events) {
+    EventBatch batch = new EventBatch();
+    for (String event : events) {
+      batch.add(new InternalEvent(event, null, 1));
+    }
+    return batch;
+  }
+
+  @Test
+  public void testRememberedEventsDropped() {
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    assertEquals(3, filter.filter(batch("a", "b", "c")).size());
+    filter.remember(hashes("a", "c"));
+
+    EventBatch batch = filter.filter(batch("a", "b", "c", "d"));
+    assertEquals(2, batch.size());
+    assertEquals("b", batch.get(0).getEventString());
+    assertEquals("d", batch.get(1).getEventString());
+  }
+
+  @Test
+  public void testEventsRememberedOnCommit() {
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    filter.rememberOnCommit(hashes("a", "b"));
+    assertEquals(2, filter.filter(batch("a", "b")).size());
+
+    filter.commit();
+    assertEquals(0, filter.filter(batch("a", "b")).size());
+  }
+
+  @Test
+  public void testDiscardedEventsNotDropped() {
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    filter.rememberOnCommit(hashes("a", "b"));
+    filter.discard();
+    filter.commit();
+
+    assertEquals(2, filter.filter(batch("a", "b")).size());
+  }
+
+  @Test
+  public void testShortHash() {
+    InternalEvent.setEventHashFunction(EventHash.XXHASH64);
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    filter.remember(hashes("a", "b"));
+
+    assertEquals(1, filter.filter(batch("a", "c")).size());
+  }
+
+  @Test
+  public void testEventsForgottenAfterTtl() {
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    filter.remember(hashes("a"));
+
+    /*
+     * Remembered for at least the ttl
+     */
+    this.clock.set(TTL - 1);
+    assertEquals(0, filter.filter(batch("a")).size());
+    filter.remember(hashes("b"));
+
+    this.clock.set(TTL);
+    assertEquals(0, filter.filter(batch("a")).size());
+    this.clock.set(2 * TTL - 1);
+    assertEquals(0, filter.filter(batch("b")).size());
+
+    /*
+     * Forgotten once the filter they were added to rotates out
+     */
+    this.clock.set(2 * TTL);
+    assertEquals(2, filter.filter(batch("a", "b")).size());
+    filter.remember(hashes("a", "b"));
+
+    /*
+     * Forgotten when nothing was added for longer than the ttl
+     */
+    this.clock.set(10 * TTL);
+    assertEquals(2, filter.filter(batch("a", "b")).size());
+  }
+
+  @Test
+  public void testMemoryBounded() {
+    RotatingBloomFilter seen = new RotatingBloomFilter(1024, TTL, 0.01, this.clock::get);
+    DuplicateFilter filter = new DuplicateFilter(seen);
+    long capacity = seen.getCapacity();
+    assertTrue(capacity > 0 && capacity < 1024);
+
+    /*
+     * Add far more events than fit. The oldest are forgotten instead of every lookup matching.
+     */
+    List<String> events = new ArrayList<String>();
+    for (int i = 0; i < capacity * 10; i++) {
+      events.add("event " + i);
+    }
+    filter.remember(hashes(events.toArray(new String[0])));
+
+    assertEquals(1, filter.filter(batch("event 0")).size());
+    assertFalse(seen.getFill() >= 1.0);
+  }
+
+  @Test
+  public void testStats() {
+    DuplicateFilter filter = newFilter(1024 * 1024);
+
+    filter.filter(batch("a", "b", "c", "d"));
+    filter.remember(hashes("a", "b", "c", "d"));
+    filter.filter(batch("a", "e", "f", "g"));
+
+    List<Stat> stats = filter.getStats();
+    assertEquals(8, find(stats, "dedup.checked"));
+    assertEquals(1, find(stats, "dedup.duplicates"));
+    assertEquals(12, find(stats, "dedup.hit_rate.pct"));
+
+    stats = filter.getStats();
+    assertEquals(0, find(stats, "dedup.checked"));
+  }
+
+  private static long find(List<Stat> stats, String name) {
+    return stats.stream().filter(s -> s.getName().equals(name)).findFirst().get().getValue();
+  }
+}
@@ -15,6 +15,7 @@
 
 package com.nextdoor.bender.deserializer;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -23,8 +24,11 @@ import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.monitoring.Stat;
-import com.nextdoor.bender.testutils.DummyDeserializerHelper.DummyDeserializer;;
+import com.nextdoor.bender.testutils.DummyDeserializerHelper.DummyDeserializer;
+import com.nextdoor.bender.testutils.DummyDeserializerHelper.DummyStringEvent;
 
 public class DeserializerProcessorTest {
 
@@ -110,4 +114,44 @@ public class DeserializerProcessorTest {
       // expected
     }
   }
+
+  @Test
+  public void testBatchStatsLogging() {
+    DummyDeserializer mockDeser = mock(DummyDeserializer.class);
+    when(mockDeser.deserialize("foo")).thenReturn(new DummyStringEvent("foo"));
+    when(mockDeser.deserialize("bar"))
+        .thenThrow(new DeserializationException(new RuntimeException("expected")));
+    when(mockDeser.deserialize("baz")).thenReturn(new DummyStringEvent("baz"));
+    DeserializerProcessor deser = new DeserializerProcessor(mockDeser);
+
+    /*
+     * Mock the Stat object
+     */
+    Stat runtimeStat = mock(Stat.class);
+    Stat successStat = mock(Stat.class);
+    Stat errorStat = mock(Stat.class);
+
+    deser.setRuntimeStat(runtimeStat);
+    deser.setSuccessCountStat(successStat);
+    deser.setErrorCountStat(errorStat);
+
+    EventBatch batch = new EventBatch();
+    batch.add(new InternalEvent("foo", null, 1));
+    batch.add(new InternalEvent("bar", null, 1));
+    batch.add(new InternalEvent("baz", null, 1));
+
+    EventBatch output = deser.deserialize(batch);
+
+    /*
+     * Verify the timer is used once for the whole batch and the failed event is dropped.
+     */
+    verify(runtimeStat, times(1)).start();
+    verify(runtimeStat, times(1)).stop();
+    verify(successStat, times(1)).increment(2);
+    verify(errorStat, times(1)).increment(1);
+
+    assertEquals(2, output.size());
+    assertEquals("foo", output.get(0).getEventObj().getPayload());
+    assertEquals("baz", output.get(1).getEventObj().getPayload());
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ExecutorProviderTest {
+
+  @After
+  public void after() {
+    ExecutorProviders.set(ExecutorType.PLATFORM);
+  }
+
+  /**
+   * Runs more tasks than the limit and returns the most that were running at once.
+   */
+  private static int maxConcurrent(ExecutorService executor, int tasks)
+      throws InterruptedException {
+    AtomicInteger running = new AtomicInteger(0);
+    AtomicInteger max = new AtomicInteger(0);
+    CountDownLatch done = new CountDownLatch(tasks);
+
+    for (int i = 0; i < tasks; i++) {
+      executor.execute(() -> {
+        max.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+        }
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    executor.shutdown();
+    return max.get();
+  }
+
+  @Test
+  public void testPlatformBounded() throws InterruptedException {
+    ExecutorService executor =
+        ExecutorType.PLATFORM.newProvider().newBoundedExecutor("test", 2);
+    assertEquals(2, maxConcurrent(executor, 10));
+  }
+
+  @Test
+  public void testWorkStealingBounded() throws InterruptedException {
+    ExecutorService executor =
+        ExecutorType.WORK_STEALING.newProvider().newBoundedExecutor("test", 2);
+    assertTrue(maxConcurrent(executor, 10) <= 2);
+  }
+
+  @Test
+  public void testTaskExecutorDoesNotQueue() throws InterruptedException {
+    /*
+     * Pipeline tasks wait on each other so they must all run at once.
+     */
+    int tasks = 16;
+    CountDownLatch started = new CountDownLatch(tasks);
+    CountDownLatch release = new CountDownLatch(1);
+
+    for (int i = 0; i < tasks; i++) {
+      ExecutorProviders.get().getTaskExecutor().execute(() -> {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+        }
+      });
+    }
+
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    release.countDown();
+  }
+
+  @Test
+  public void testThreadsAreDaemons() throws InterruptedException {
+    ExecutorService executor =
+        ExecutorType.PLATFORM.newProvider().newBoundedExecutor("test", 1);
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicInteger daemon = new AtomicInteger(0);
+
+    executor.execute(() -> {
+      if (Thread.currentThread().isDaemon()
+          && Thread.currentThread().getName().startsWith("bender-test-")) {
+        daemon.set(1);
+      }
+      done.countDown();
+    });
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(1, daemon.get());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testVirtual() throws InterruptedException {
+    ExecutorProvider provider = ExecutorType.VIRTUAL.newProvider();
+
+    if (VirtualExecutorProvider.isSupported()) {
+      assertTrue(provider instanceof VirtualExecutorProvider);
+      assertEquals(2, maxConcurrent(provider.newBoundedExecutor("test", 2), 10));
+    } else {
+      assertTrue(provider instanceof PlatformExecutorProvider);
+    }
+  }
+
+  @Test
+  public void testSetSelectsSharedProvider() {
+    ExecutorProviders.set(ExecutorType.WORK_STEALING);
+    assertSame(ExecutorProviders.get(ExecutorType.WORK_STEALING), ExecutorProviders.get());
+  }
+}
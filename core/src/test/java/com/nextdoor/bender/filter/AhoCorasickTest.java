@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class AhoCorasickTest {
+
+  private static ByteBuffer bytes(String str) {
+    return ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testFind() {
+    AhoCorasick ac = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+
+    assertEquals(1, ac.find("ushers"));
+    assertEquals(1, ac.find(bytes("ushers")));
+    assertEquals(2, ac.find("this"));
+    assertEquals(2, ac.find(bytes("this")));
+    assertEquals(-1, ac.find("hi s hx sh"));
+    assertEquals(-1, ac.find(bytes("")));
+  }
+
+  @Test
+  public void testOverlappingFailureLinks() {
+    AhoCorasick ac = new AhoCorasick(Arrays.asList("abcd", "bce"));
+
+    assertEquals(1, ac.find("abce"));
+    assertEquals(0, ac.find(bytes("xabcd")));
+    assertEquals(-1, ac.find("abc"));
+  }
+
+  @Test
+  public void testRespectsBufferPosition() {
+    byte[] raw = "xxfoo barxx".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buf = ByteBuffer.wrap(raw, 2, raw.length - 4);
+
+    assertEquals(0, new AhoCorasick(Arrays.asList("bar")).find(buf));
+    assertEquals(-1, new AhoCorasick(Arrays.asList("barx")).find(buf));
+    assertEquals(-1, new AhoCorasick(Arrays.asList("xx")).find(buf));
+    assertEquals(2, buf.position());
+  }
+
+  @Test
+  public void testDirectBuffer() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(16);
+    direct.put("a bar b".getBytes(StandardCharsets.UTF_8)).flip();
+
+    assertEquals(1, new AhoCorasick(Arrays.asList("foo", "bar")).find(direct));
+  }
+
+  @Test
+  public void testMultiByteCharacters() {
+    AhoCorasick ac = new AhoCorasick(Arrays.asList("b\u00e4r", "\u20ac5", "\ud83d\ude00"));
+
+    assertEquals(0, ac.find("{\"foo\": \"b\u00e4r\"}"));
+    assertEquals(0, ac.find(bytes("{\"foo\": \"b\u00e4r\"}")));
+    assertEquals(1, ac.find("cost \u20ac5"));
+    assertEquals(1, ac.find(bytes("cost \u20ac5")));
+    assertEquals(2, ac.find("smile \ud83d\ude00"));
+    assertEquals(2, ac.find(bytes("smile \ud83d\ude00")));
+    assertEquals(-1, ac.find("bar \u20ac4 \ud83d\ude01"));
+  }
+
+  @Test
+  public void testEmptyPattern() {
+    AhoCorasick ac = new AhoCorasick(Arrays.asList("foo", ""));
+
+    assertEquals(1, ac.find(""));
+    assertEquals(1, ac.find(bytes("bar")));
+  }
+}
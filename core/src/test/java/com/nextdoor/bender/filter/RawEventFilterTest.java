@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.InternalEvent;
+
+public class RawEventFilterTest {
+
+  private static InternalEvent bytesEvent(String str) {
+    return new InternalEvent(ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8)), null, 1);
+  }
+
+  @Test
+  public void testMatch() {
+    RawEventFilter filter = new RawEventFilter(Arrays.asList("oo", "l"),
+        Arrays.asList(Pattern.compile("^b"), Pattern.compile("z$")));
+
+    assertEquals(4, filter.size());
+    assertEquals(0, filter.match(new InternalEvent("foo", null, 1)));
+    assertEquals(1, filter.match(bytesEvent("lab")));
+    assertEquals(2, filter.match(new InternalEvent("bar", null, 1)));
+    assertEquals(3, filter.match(bytesEvent("fez")));
+    assertEquals(-1, filter.match(bytesEvent("cat")));
+
+    assertEquals("l", filter.getFilter(1));
+    assertEquals(RawEventFilter.Type.CONTAINS, filter.getType(1));
+    assertEquals(1, filter.getTypeIndex(1));
+    assertEquals("z$", filter.getFilter(3));
+    assertEquals(RawEventFilter.Type.REGEX, filter.getType(3));
+    assertEquals(1, filter.getTypeIndex(3));
+  }
+
+  @Test
+  public void testContainsDoesNotDecode() {
+    RawEventFilter filter =
+        new RawEventFilter(Arrays.asList("foo"), Collections.<Pattern>emptyList());
+    InternalEvent ievent = bytesEvent("bar");
+
+    assertEquals(-1, filter.match(ievent));
+    assertFalse(ievent.isEventStringDecoded());
+  }
+
+  @Test
+  public void testEmpty() {
+    RawEventFilter filter =
+        new RawEventFilter(Collections.emptyList(), Collections.<Pattern>emptyList());
+
+    assertTrue(filter.isEmpty());
+    assertEquals(-1, filter.match(new InternalEvent("foo", null, 1)));
+  }
+}
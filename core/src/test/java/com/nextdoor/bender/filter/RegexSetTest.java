@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class RegexSetTest {
+
+  @Test
+  public void testFind() {
+    RegexSet set = new RegexSet(Arrays.asList(Pattern.compile("o{2}p"), Pattern.compile("^bar")));
+
+    assertEquals(0, set.find("loop"));
+    assertEquals(1, set.find("bar loop"));
+    assertEquals(-1, set.find("foo bar"));
+  }
+
+  @Test
+  public void testPatternsWithGroups() {
+    RegexSet set = new RegexSet(Arrays.asList(Pattern.compile("(a)(b)c"),
+        Pattern.compile("(?:x)(y)"), Pattern.compile("(?i)zz")));
+
+    assertEquals(0, set.find("__abc__"));
+    assertEquals(1, set.find("__xy__"));
+    assertEquals(2, set.find("__ZZ__"));
+    assertEquals(-1, set.find("__ab xz__"));
+  }
+
+  @Test
+  public void testUnsupportedPatternFallsBack() {
+    RegexSet set =
+        new RegexSet(Arrays.asList(Pattern.compile("(a)\\1"), Pattern.compile("foo(?=bar)")));
+
+    assertEquals(0, set.find("baab"));
+    assertEquals(1, set.find("foobar"));
+    assertEquals(-1, set.find("foobaz ab"));
+  }
+
+  @Test
+  public void testMatchesFirstPatternInOrder() {
+    RegexSet set = new RegexSet(Arrays.asList(Pattern.compile("a"), Pattern.compile("a.*"),
+        Pattern.compile("ab"), Pattern.compile("(a)\\1b")));
+
+    assertEquals(0, set.matches("a"));
+    assertEquals(1, set.matches("ab"));
+    assertEquals(1, set.matches("aab"));
+    assertEquals(-1, set.matches("ba"));
+  }
+
+  @Test
+  public void testMatchesWithFallbackFirst() {
+    RegexSet set =
+        new RegexSet(Arrays.asList(Pattern.compile("(a)\\1"), Pattern.compile("a+")));
+
+    assertEquals(0, set.matches("aa"));
+    assertEquals(1, set.matches("aaa"));
+  }
+
+  @Test
+  public void testDollarMatchesBeforeFinalLineTerminator() {
+    RegexSet set = new RegexSet(Arrays.asList(Pattern.compile("foo$"), Pattern.compile("bar")));
+
+    /*
+     * java.util.regex also matches $ before a final line terminator where RE2J does not
+     */
+    assertNull(RegexSet.toRe2j(Pattern.compile("foo$")));
+    assertEquals(0, set.find("foo\n"));
+    assertEquals(0, set.find("foo\r\n"));
+    assertEquals(-1, set.find("foo\nx"));
+  }
+
+  @Test
+  public void testDotExcludesLineTerminators() {
+    RegexSet set = new RegexSet(Arrays.asList(Pattern.compile("a.b"), Pattern.compile("c.*d")));
+
+    assertEquals(0, set.find("axb"));
+    assertEquals(-1, set.find("a\rb"));
+    assertEquals(-1, set.find("a\u0085b"));
+    assertEquals(-1, set.find("a\u2028b"));
+    assertEquals(-1, set.find("a\u2029b"));
+    assertEquals(-1, set.matches("c\rd"));
+    assertEquals(1, set.matches("c d"));
+  }
+
+  @Test
+  public void testOnlyEquivalentPatternsTranslated() {
+    assertEquals("a[^\\n\\r\\x{85}\\x{2028}\\x{2029}]+\\.b{2,3}?",
+        RegexSet.toRe2j(Pattern.compile("a.+\\.b{2,3}?")));
+    assertEquals("(?:x|[^a-c\\d])", RegexSet.toRe2j(Pattern.compile("(?:x|[^a-c\\d])")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("a\\sb")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("\\bword")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("(?i)abc")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+    assertNull(RegexSet.toRe2j(Pattern.compile("a++")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("[a-z&&[^b]]")));
+    assertNull(RegexSet.toRe2j(Pattern.compile("[[:alpha:]]")));
+  }
+
+  @Test
+  public void testNamedGroupsInSeveralPatterns() {
+    RegexSet set = new RegexSet(
+        Arrays.asList(Pattern.compile("(?<x>a)1"), Pattern.compile("(?<x>b)2")));
+
+    assertEquals(0, set.find("_a1_"));
+    assertEquals(1, set.find("_b2_"));
+    assertEquals(-1, set.find("_a2_"));
+  }
+}
@@ -16,9 +16,17 @@
 package com.nextdoor.bender.handler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.After;
 import org.junit.Before;
@@ -30,6 +38,10 @@ import com.nextdoor.bender.InternalEventIterator;
 import com.nextdoor.bender.LambdaContext;
 import com.nextdoor.bender.aws.TestContext;
 import com.nextdoor.bender.config.Source;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.monitoring.Monitor;
+import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.monitoring.Tag;
 import com.nextdoor.bender.testutils.DummyTransportHelper.BufferedTransporter;
 import com.oath.cyclops.async.adapters.Queue;
 
@@ -38,11 +50,17 @@ public class BaseHandlerQueueTest {
   public static class DummyEvent {
     public String payload;
     public long timestamp;
+    public String orderingKey;
 
     public DummyEvent(String payload, long timestamp) {
       this.payload = payload;
       this.timestamp = timestamp;
     }
+
+    public DummyEvent(String payload, long timestamp, String orderingKey) {
+      this(payload, timestamp);
+      this.orderingKey = orderingKey;
+    }
   }
 
   public static class DummyEventIterator implements InternalEventIterator<InternalEvent> {
@@ -62,7 +80,12 @@ public class BaseHandlerQueueTest {
     @Override
     public InternalEvent next() {
       DummyEvent ev = itr.next();
-      return new InternalEvent(ev.payload, context, ev.timestamp);
+      return new InternalEvent(ev.payload, context, ev.timestamp) {
+        @Override
+        public String getOrderingKey() {
+          return ev.orderingKey;
+        }
+      };
     }
 
     @Override
@@ -227,4 +250,117 @@ public class BaseHandlerQueueTest {
      */
     assertEquals(1000, BufferedTransporter.output.size());
   }
+
+  @Test
+  public void testParallelLanes() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config_parallel.yaml";
+
+    Queue<DummyEvent> q = new Queue<DummyEvent>();
+    Iterator<DummyEvent> dummyEvents = q.stream().iterator();
+
+    for (int i = 0; i < 1000; i++) {
+      q.offer(new DummyEvent("" + i, 0));
+    }
+    q.close();
+
+    TestContext context = new TestContext();
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    handler.handler(dummyEvents, context);
+
+    /*
+     * Verify Events made it all the way through
+     */
+    assertEquals(1000, BufferedTransporter.output.size());
+    assertEquals(1000, new HashSet<String>(BufferedTransporter.output).size());
+  }
+
+  @Test
+  public void testParallelLanesReportStatsOnce() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config_parallel.yaml";
+    Monitor.getInstance().reset();
+
+    Queue<DummyEvent> q = new Queue<DummyEvent>();
+    Iterator<DummyEvent> dummyEvents = q.stream().iterator();
+    q.offer(new DummyEvent("foo", 0));
+    q.close();
+
+    TestContext context = new TestContext();
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    handler.handler(dummyEvents, context);
+
+    /*
+     * Each lane has its own processors but every series must only be registered once
+     */
+    List<Stat> stats = Monitor.getInstance().getStats();
+    Set<String> series = stats.stream().map(s -> s.getName() + s.getTags().stream()
+        .map(Tag::toString).sorted().collect(Collectors.toList())).collect(Collectors.toSet());
+    assertTrue(stats.size() > 0);
+    assertEquals(stats.size(), series.size());
+  }
+
+  @Test
+  public void testParallelLanesPreserveOrderingKey() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config_parallel.yaml";
+
+    Queue<DummyEvent> q = new Queue<DummyEvent>();
+    Iterator<DummyEvent> dummyEvents = q.stream().iterator();
+
+    String[] keys = {"a", "b", "c"};
+    for (int i = 0; i < 999; i++) {
+      String key = keys[i % keys.length];
+      q.offer(new DummyEvent(key + ":" + i, 0, key));
+    }
+    q.close();
+
+    TestContext context = new TestContext();
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    handler.handler(dummyEvents, context);
+
+    assertEquals(999, BufferedTransporter.output.size());
+
+    /*
+     * Events with the same key must arrive in the order they were read
+     */
+    for (String key : keys) {
+      List<Integer> seen = BufferedTransporter.output.stream().filter(s -> s.startsWith(key))
+          .map(s -> Integer.parseInt(s.substring(2))).collect(Collectors.toList());
+
+      List<Integer> sorted = new ArrayList<Integer>(seen);
+      Collections.sort(sorted);
+      assertEquals(333, seen.size());
+      assertEquals(sorted, seen);
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testParallelLanesStopOnTransportFailure() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config_parallel_two.yaml";
+
+    TestContext context = new TestContext();
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    handler.init(context);
+
+    /*
+     * Every add fails. All events share an ordering key so the second lane never gets any and
+     * only stops once the queues are closed.
+     */
+    handler.getIpcService().setHasUnrecoverableException(true);
+
+    Queue<DummyEvent> q = new Queue<DummyEvent>();
+    Iterator<DummyEvent> dummyEvents = q.stream().iterator();
+
+    for (int i = 0; i < 1000; i++) {
+      q.offer(new DummyEvent("" + i, 0, "a"));
+    }
+    q.close();
+
+    try {
+      handler.handler(dummyEvents, context);
+      fail("expected the transport failure to fail the function");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause().getCause() instanceof TransportException);
+    }
+
+    assertEquals(0, BufferedTransporter.output.size());
+  }
 }
@@ -27,6 +27,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -673,10 +674,72 @@ public class BaseHandlerTest {
     handler.handler(events, context);
 
     /*
-     * 2 operations specified in the config file
+     * 2 operations specified in the config file. They are fused into one stage which performs each
+     * of them on the single batch.
      */
-    verify(operationProcessores.get(0), times(1)).perform(any());
-    verify(operationProcessores.get(1), times(1)).perform(any());
+    verify(operationProcessores.get(0), times(1)).performBatch(any());
+    verify(operationProcessores.get(1), times(1)).performBatch(any());
+  }
+
+  @Test
+  public void testStopBeforeDeadline() throws HandlerException {
+    /*
+     * fail_on_exception is disabled but stopping early must still fail the function
+     */
+    BaseHandler.CONFIG_FILE = "/config/handler_config_deadline.json";
+
+    /*
+     * Each event takes longer to read than the entire time budget of the invocation.
+     */
+    List<DummyEvent> events = new AbstractList<DummyEvent>() {
+      @Override
+      public DummyEvent get(int index) {
+        try {
+          Thread.sleep(2);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new DummyEvent("foo" + index, 0);
+      }
+
+      @Override
+      public int size() {
+        return 100;
+      }
+    };
+
+    TestContext context = spy(new TestContext());
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    when(context.getRemainingTimeInMillis()).thenReturn(1);
+
+    try {
+      handler.handler(events, context);
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof DeadlineReachedException);
+      assertTrue(e.getCause().getMessage().startsWith("stopped reading input after"));
+      assertTrue(BufferedTransporter.output.size() < 100);
+      return;
+    }
+
+    throw new AssertionError("handler did not stop before the deadline");
+  }
+
+  @Test
+  public void testDeadlineIgnoredByDefault() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config.json";
+
+    List<DummyEvent> events = new ArrayList<DummyEvent>(100);
+    for (int i = 0; i < 100; i++) {
+      events.add(new DummyEvent("foo" + i, 0));
+    }
+
+    TestContext context = spy(new TestContext());
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+    when(context.getRemainingTimeInMillis()).thenReturn(1);
+
+    handler.handler(events, context);
+
+    assertEquals(100, BufferedTransporter.output.size());
   }
 
   @Test
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+public class DeadlineControllerTest {
+
+  private static Context contextWithRemaining(int remainingMs) {
+    Context context = mock(Context.class);
+    when(context.getRemainingTimeInMillis()).thenReturn(remainingMs);
+    return context;
+  }
+
+  @Test
+  public void testDisabledWithoutRemainingTime() {
+    DeadlineController deadline = new DeadlineController(contextWithRemaining(0), 0, 2.0, () -> 0);
+
+    assertFalse(deadline.isEnabled());
+    assertFalse(deadline.isReached());
+    assertEquals(0, deadline.getBudgetUsedPercent());
+  }
+
+  @Test
+  public void testNotReachedWithPlentyOfTime() {
+    DeadlineController deadline =
+        new DeadlineController(contextWithRemaining(60000), 5000, 2.0, () -> 0);
+
+    assertTrue(deadline.isEnabled());
+    assertFalse(deadline.isReached());
+    assertFalse(deadline.wasReached());
+  }
+
+  @Test
+  public void testHeadroomUsesTransportLatency() {
+    DeadlineController deadline = new DeadlineController(contextWithRemaining(60000), 5000, 2.0,
+        () -> TimeUnit.SECONDS.toNanos(4));
+
+    assertEquals(TimeUnit.SECONDS.toNanos(8), deadline.getHeadroomNanos());
+  }
+
+  @Test
+  public void testHeadroomIsCapped() {
+    DeadlineController deadline =
+        new DeadlineController(contextWithRemaining(10000), 5000, 2.0, () -> 0);
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(2500), deadline.getHeadroomNanos());
+  }
+
+  @Test
+  public void testReached() throws InterruptedException {
+    DeadlineController deadline = new DeadlineController(contextWithRemaining(4), 0, 2.0, () -> 0);
+    Thread.sleep(5);
+
+    assertTrue(deadline.isReached());
+    assertTrue(deadline.wasReached());
+    assertTrue(deadline.getBudgetUsedPercent() >= 100);
+  }
+}
@@ -15,6 +15,7 @@
 
 package com.nextdoor.bender.ipc;
 
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -24,10 +25,13 @@ import java.util.LinkedHashMap;
 import java.util.List;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.config.AbstractConfig;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.dedup.DuplicateFilter;
 import com.nextdoor.bender.monitoring.Stat;
 
 public class IpcSenderServiceTest {
@@ -297,6 +301,99 @@ public class IpcSenderServiceTest {
 
   }
 
+  @Test
+  public void testDeadLetterOnTransportFailure() throws TransportException, InterruptedException,
+      IOException {
+    DummyTransporter mockDummyTransporter = mock(DummyTransporter.class);
+    DummyTransporterFactory tfactory = new DummyTransporterFactory();
+    tfactory.transporter = mockDummyTransporter;
+    doThrow(new TransportException("expected exception in test")).when(mockDummyTransporter)
+        .sendBatch(any(DummyTransportBuffer.class));
+    DeadLetterQueue deadLetters = mock(DeadLetterQueue.class);
+
+    IpcSenderService ipc = new IpcSenderService(tfactory);
+    ipc.setDeadLetterQueue(deadLetters);
+
+    List<String> serialized = new ArrayList<String>();
+    for (int i = 0; i < 7; i++) {
+      InternalEvent ie = new DummyEvent("" + i, 0);
+      ie.setSerialized("" + i);
+      serialized.add("" + i);
+      ipc.add(ie);
+    }
+
+    /*
+     * Failed batches are dead lettered instead of failing the flush.
+     */
+    ipc.flush();
+
+    verify(deadLetters, times(1)).addAll(DeadLetterQueue.Kind.TRANSPORT,
+        "expected exception in test", serialized.subList(0, 5));
+    verify(deadLetters, times(1)).addAll(DeadLetterQueue.Kind.TRANSPORT,
+        "expected exception in test", serialized.subList(5, 7));
+  }
+
+  @Test
+  public void testSentBatchesRememberedOnFailure() throws InterruptedException,
+      TransportException {
+    DummyTransporter mockDummyTransporter = mock(DummyTransporter.class);
+    DummyTransporterFactory tfactory = new DummyTransporterFactory();
+    tfactory.transporter = mockDummyTransporter;
+
+    /*
+     * The first batch is sent and the second fails
+     */
+    doNothing().doThrow(new TransportException("expected exception in test"))
+        .when(mockDummyTransporter).sendBatch(any(DummyTransportBuffer.class));
+    DuplicateFilter duplicates = mock(DuplicateFilter.class);
+
+    IpcSenderService ipc = new IpcSenderService(tfactory);
+    ipc.setDuplicateFilter(duplicates);
+
+    List<String> hashes = new ArrayList<String>();
+    for (int i = 0; i < 7; i++) {
+      InternalEvent ie = new DummyEvent("" + i, 0);
+      hashes.add(ie.getEventHash());
+      ipc.add(ie);
+    }
+
+    try {
+      ipc.flush();
+      fail("expected the failed batch to fail the flush");
+    } catch (TransportException e) {
+    }
+
+    verify(duplicates, times(1)).remember(hashes.subList(0, 5));
+    verify(duplicates, never()).remember(hashes.subList(5, 7));
+    verify(duplicates, never()).rememberOnCommit(any());
+  }
+
+  @Test
+  public void testBatchesRememberedOnCommitWhenPublishedOnClose() throws InterruptedException,
+      TransportException {
+    DummyTransporterFactory tfactory = spy(new DummyTransporterFactory());
+    tfactory.transporter = new DummyTransporter();
+    when(tfactory.isDeliveredOnSend()).thenReturn(false);
+    DuplicateFilter duplicates = mock(DuplicateFilter.class);
+
+    IpcSenderService ipc = new IpcSenderService(tfactory);
+    ipc.setDuplicateFilter(duplicates);
+
+    List<String> hashes = new ArrayList<String>();
+    for (int i = 0; i < 3; i++) {
+      InternalEvent ie = new DummyEvent("" + i, 0);
+      hashes.add(ie.getEventHash());
+      ipc.add(ie);
+    }
+    ipc.flush();
+
+    InOrder inOrder = inOrder(duplicates, tfactory);
+    inOrder.verify(duplicates).rememberOnCommit(hashes);
+    inOrder.verify(tfactory).close();
+    inOrder.verify(duplicates).commit();
+    verify(duplicates, never()).remember(any());
+  }
+
   @Test(expected = TransportException.class)
   public void testThreadExceptionDuringAdd() throws TransportException, InterruptedException {
     DummyTransporter mockDummyTransporter = mock(DummyTransporter.class);
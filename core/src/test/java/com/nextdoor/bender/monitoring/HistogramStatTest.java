@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class HistogramStatTest {
+
+  @Test
+  public void testPercentiles() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    stat.addTag("class", "foo");
+
+    for (int i = 1; i <= 1000; i++) {
+      stat.record(TimeUnit.MICROSECONDS.toNanos(i));
+    }
+
+    assertEquals(0, stat.getValue());
+    stat.snapshot();
+    assertEquals(1000, stat.getValue());
+
+    List<Stat> summary = stat.toPercentileStats();
+    assertEquals(5, summary.size());
+    assertEquals("latency.ns.p50", summary.get(0).getName());
+    assertEquals("latency.ns.max", summary.get(4).getName());
+    assertEquals(stat.getTags(), summary.get(0).getTags());
+    assertEquals(Stat.MetricType.gauge, summary.get(0).getType());
+
+    /*
+     * Values are accurate to 2 significant digits.
+     */
+    assertEquals(500000, summary.get(0).getValue(), 5000);
+    assertEquals(990000, summary.get(2).getValue(), 9900);
+    assertEquals(1000000, summary.get(4).getValue(), 10000);
+  }
+
+  @Test
+  public void testSnapshotIsPerInterval() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    stat.record(1000);
+    stat.record(2000);
+    stat.snapshot();
+    assertEquals(2, stat.getValue());
+
+    stat.record(3000);
+    stat.snapshot();
+    assertEquals(1, stat.getValue());
+
+    stat.clear();
+    assertEquals(0, stat.getValue());
+    assertTrue(stat.toPercentileStats().isEmpty());
+  }
+
+  @Test
+  public void testOutOfRangeValuesAreClamped() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    stat.record(-1);
+    stat.record(TimeUnit.DAYS.toNanos(1));
+    stat.snapshot();
+
+    assertEquals(2, stat.getValue());
+  }
+
+  @Test
+  public void testRuntimeStatRecordsIntoHistogram() {
+    HistogramStat histogram = new HistogramStat("latency.ns");
+    Stat runtime = new Stat("timing.ns");
+    runtime.setHistogram(histogram);
+
+    runtime.start();
+    runtime.stop();
+    Stat forked = runtime.fork();
+    forked.start();
+    forked.stop();
+
+    histogram.snapshot();
+    assertEquals(2, histogram.getValue());
+  }
+
+  @Test
+  public void testExpand() {
+    HistogramStat empty = new HistogramStat("empty");
+    HistogramStat full = new HistogramStat("full");
+    full.record(1000);
+    empty.snapshot();
+    full.snapshot();
+    Stat count = new Stat("count", 1);
+
+    List<Stat> expanded = HistogramStat.expand(Arrays.asList(count, empty, full));
+
+    assertEquals(6, expanded.size());
+    assertEquals("count", expanded.get(0).getName());
+    assertEquals("full.p50", expanded.get(1).getName());
+  }
+
+  @Test
+  public void testBatchRecordedPerEvent() {
+    HistogramStat histogram = new HistogramStat("latency.ns");
+    Stat runtime = new Stat("timing.ns");
+    runtime.setHistogram(histogram);
+
+    runtime.start();
+    runtime.stop(4);
+    runtime.recordSample(TimeUnit.MICROSECONDS.toNanos(10), 8);
+    histogram.snapshot();
+
+    /*
+     * A batch counts once per event and a sample once per event it stands for
+     */
+    assertEquals(12, histogram.getValue());
+  }
+}
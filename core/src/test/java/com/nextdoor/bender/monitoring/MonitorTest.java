@@ -209,4 +209,39 @@ public class MonitorTest {
     assertEquals(false, reporter.buffer.contains("bender.test.bar t0:7 0"));
     assertEquals(true, reporter.buffer.contains("bender.test.bar t1:3 0"));
   }
+
+  @Test
+  public void testInstanceStatsResetAfterWrite() {
+    MonitorFactory mf = new MonitorFactory();
+    Monitor monitor = mf.getInstance();
+
+    DummyReporter reporter = new DummyReporter(new ArrayList<StatFilter>(0));
+    monitor.addReporters(Arrays.asList(reporter));
+
+    Stat instanceStat = new Stat("bender.test.instance", Stat.MetricType.count);
+    monitor.addInstanceStat(instanceStat);
+
+    instanceStat.increment(3);
+    monitor.writeStats();
+    instanceStat.increment(2);
+    monitor.writeStats();
+
+    assertEquals(Arrays.asList("bender.test.instance  3", "bender.test.instance  2"),
+        reporter.buffer);
+  }
+
+  @Test
+  public void testInvocationStatsWrittenOnce() {
+    MonitorFactory mf = new MonitorFactory();
+    Monitor monitor = mf.getInstance();
+
+    DummyReporter reporter = new DummyReporter(new ArrayList<StatFilter>(0));
+    monitor.addReporters(Arrays.asList(reporter));
+
+    monitor.addInvocationStat(new Stat("bender.test.invocation", 1));
+    monitor.writeStats();
+    monitor.writeStats();
+
+    assertEquals(Arrays.asList("bender.test.invocation  1"), reporter.buffer);
+  }
 }
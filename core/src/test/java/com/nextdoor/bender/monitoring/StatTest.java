@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StatTest {
+  @Test
+  public void testConcurrentIncrements() throws InterruptedException {
+    Stat stat = new Stat("foo", Stat.MetricType.count);
+    int threads = 8;
+    int increments = 100_000;
+
+    List<Thread> workers = new ArrayList<Thread>(threads);
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        for (int i = 0; i < increments; i++) {
+          stat.increment();
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertEquals(threads * increments, stat.getValue());
+  }
+
+  @Test
+  public void testShare() {
+    HistogramStat histogram = new HistogramStat("foo");
+    Stat stat = new Stat("foo", Stat.MetricType.gauge);
+    stat.addTag("a", "b");
+    stat.setHistogram(histogram);
+
+    Stat shared = stat.share();
+    stat.start();
+    shared.start();
+    shared.stop();
+    stat.stop();
+    shared.increment(5);
+
+    assertEquals(stat.getTags(), shared.getTags());
+    assertSame(histogram, shared.getHistogram());
+    assertTrue(stat.getValue() > 5);
+    assertEquals(stat.getValue(), shared.getValue());
+
+    histogram.snapshot();
+    assertEquals(2, histogram.getValue());
+  }
+
+  @Test
+  public void testSnapshotAndReset() {
+    Stat stat = new Stat("foo", Stat.MetricType.count);
+    stat.addTag("a", "b");
+    stat.increment(5);
+
+    Stat snapshot = stat.snapshotAndReset();
+
+    assertNotSame(stat, snapshot);
+    assertEquals("foo", snapshot.getName());
+    assertEquals(Stat.MetricType.count, snapshot.getType());
+    assertEquals(stat.getTags(), snapshot.getTags());
+    assertEquals(5, snapshot.getValue());
+    assertEquals(0, stat.getValue());
+
+    stat.increment();
+    assertEquals(5, snapshot.getValue());
+    assertEquals(1, stat.getValue());
+  }
+
+  @Test
+  public void testSnapshotWhileIncrementing() throws InterruptedException {
+    Stat stat = new Stat("foo", Stat.MetricType.count);
+    int increments = 1_000_000;
+
+    Thread worker = new Thread(() -> {
+      for (int i = 0; i < increments; i++) {
+        stat.increment();
+      }
+    });
+    worker.start();
+
+    long total = 0;
+    while (worker.isAlive()) {
+      total += stat.snapshotAndReset().getValue();
+    }
+    worker.join();
+    total += stat.snapshotAndReset().getValue();
+
+    assertEquals(increments, total);
+  }
+
+  @Test
+  public void testForkJoin() {
+    Stat stat = new Stat("foo", Stat.MetricType.gauge);
+    stat.fork().increment(2);
+    stat.fork().increment(3);
+    stat.join();
+
+    assertEquals(5, stat.getValue());
+  }
+}
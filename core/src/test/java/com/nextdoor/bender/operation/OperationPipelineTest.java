@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.EventBatch;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.monitoring.Stat;
+import com.nextdoor.bender.testutils.DummyDeserializerHelper.DummyStringEvent;
+import com.nextdoor.bender.testutils.DummyFilterOperationHelper.DummyFilterOperation;
+import com.nextdoor.bender.testutils.DummyFilterOperationHelper.DummyFilterOperationFactory;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyNullOperation;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperation;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperationFactory;
+
+public class OperationPipelineTest {
+
+  private static List<InternalEvent> events(int count) {
+    List<InternalEvent> events = new ArrayList<InternalEvent>(count);
+    for (int i = 0; i < count; i++) {
+      InternalEvent ievent = new InternalEvent("" + i, null, 1);
+      ievent.setEventObj(new DummyStringEvent("" + i));
+      events.add(ievent);
+    }
+
+    return events;
+  }
+
+  private static OperationProcessor processor(BaseOperation op) {
+    OperationProcessor processor = new OperationProcessor(new DummyOperationFactory(op));
+    processor.setRuntimeStat(mock(Stat.class));
+    processor.setSuccessCountStat(mock(Stat.class));
+    processor.setErrorCountStat(mock(Stat.class));
+    return processor;
+  }
+
+  @Test
+  public void testFusedRunCountsPerOperation() {
+    OperationProcessor first = processor(new DummyOperation());
+    OperationProcessor filter = processor(new DummyFilterOperation());
+    OperationProcessor last = processor(new DummyOperation());
+
+    List<InternalEvent> output = OperationPipeline
+        .perform(Arrays.asList(first, filter, last), events(4).stream())
+        .collect(Collectors.toList());
+
+    /*
+     * The dummy filter passes every other event.
+     */
+    assertEquals(2, output.size());
+    verify(first.getSuccessCountStat(), times(4)).increment();
+    verify(last.getSuccessCountStat(), times(2)).increment();
+    verify(first.getErrorCountStat(), never()).increment();
+  }
+
+  @Test
+  public void testRuntimeIsSampled() {
+    OperationProcessor processor = processor(new DummyOperation());
+
+    long count = OperationPipeline
+        .perform(Arrays.asList(processor), events(OperationPipeline.SAMPLE_INTERVAL * 2).stream())
+        .count();
+
+    assertEquals(OperationPipeline.SAMPLE_INTERVAL * 2, count);
+    verify(processor.getRuntimeStat(), times(2)).recordSample(any(Long.class),
+        any(Integer.class));
+    verify(processor.getRuntimeStat(), never()).start();
+  }
+
+  private static final long SPIN_NS = 200000;
+
+  /**
+   * Takes at least {@link #SPIN_NS} per event.
+   */
+  private static class SpinOperation implements EventOperation {
+    @Override
+    public InternalEvent perform(InternalEvent ievent) {
+      long end = System.nanoTime() + SPIN_NS;
+      while (System.nanoTime() < end) {
+      }
+      return ievent;
+    }
+  }
+
+  @Test
+  public void testRuntimeNotInflatedForFewEvents() {
+    OperationProcessor processor =
+        new OperationProcessor(new DummyOperationFactory(new SpinOperation()));
+
+    long start = System.nanoTime();
+    long count = OperationPipeline.perform(Arrays.asList(processor), events(5).stream()).count();
+    long elapsed = System.nanoTime() - start;
+
+    /*
+     * A branch which only sees a few events must not have its first event scaled up by the whole
+     * sample interval.
+     */
+    assertEquals(5, count);
+    assertTrue(processor.getRuntimeStat().getValue() <= elapsed);
+  }
+
+  @Test
+  public void testRuntimeSampledAcrossInvocations() {
+    OperationProcessor processor =
+        new OperationProcessor(new DummyOperationFactory(new SpinOperation()));
+    int invocations = OperationPipeline.SAMPLE_INTERVAL / 2;
+
+    long elapsed = 0;
+    for (int i = 0; i < invocations; i++) {
+      long start = System.nanoTime();
+      OperationPipeline.perform(Arrays.asList(processor), events(4).stream()).count();
+      elapsed += System.nanoTime() - start;
+    }
+
+    /*
+     * 128 events over many short streams still add up to two samples covering all of them.
+     */
+    long runtime = processor.getRuntimeStat().getValue();
+    assertTrue(runtime >= invocations * 4 * SPIN_NS);
+    assertTrue(runtime <= elapsed * 2);
+  }
+
+  @Test
+  public void testInvalidEventStopsRun() {
+    OperationProcessor nulling = processor(new DummyNullOperation());
+    OperationProcessor after = processor(new DummyOperation());
+
+    long count =
+        OperationPipeline.perform(Arrays.asList(nulling, after), events(3).stream()).count();
+
+    assertEquals(0, count);
+    verify(nulling.getSuccessCountStat(), times(3)).increment();
+    verify(after.getSuccessCountStat(), never()).increment();
+  }
+
+  @Test
+  public void testErrorStopsRun() {
+    DummyOperation failing = spy(new DummyOperation());
+    doThrow(new OperationException("expected")).when(failing).perform(any());
+    OperationProcessor first = processor(failing);
+    OperationProcessor after = processor(new DummyOperation());
+
+    long count = OperationPipeline.perform(Arrays.asList(first, after), events(2).stream()).count();
+
+    assertEquals(0, count);
+    verify(first.getErrorCountStat(), times(2)).increment();
+    verify(after.getSuccessCountStat(), never()).increment();
+  }
+
+  @Test
+  public void testBatchesFused() {
+    OperationProcessor first = processor(new DummyOperation());
+    OperationProcessor filter = new OperationProcessor(new DummyFilterOperationFactory());
+    OperationProcessor last = processor(new DummyOperation());
+
+    EventBatch batch = new EventBatch(4);
+    batch.addAll(events(4));
+
+    List<EventBatch> output = OperationPipeline
+        .performBatches(Arrays.asList(first, filter, last), Stream.of(batch), 10)
+        .collect(Collectors.toList());
+
+    assertEquals(1, output.size());
+    assertEquals(2, output.get(0).size());
+    verify(first.getSuccessCountStat(), times(1)).increment(4);
+    verify(last.getSuccessCountStat(), times(1)).increment(2);
+    assertTrue(filter.getOperation() instanceof DummyFilterOperation);
+  }
+}
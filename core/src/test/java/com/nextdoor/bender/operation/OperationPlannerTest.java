@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperation;
+import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperationFactory;
+
+public class OperationPlannerTest {
+
+  private static class Op implements EventOperation, FieldAccess {
+    private final Collection<String> read;
+    private final Collection<String> written;
+    private final Collection<String> removed;
+
+    Op(Collection<String> read, Collection<String> written, Collection<String> removed) {
+      this.read = read;
+      this.written = written;
+      this.removed = removed;
+    }
+
+    @Override
+    public InternalEvent perform(InternalEvent ievent) {
+      return ievent;
+    }
+
+    @Override
+    public Collection<String> getFieldsRead() {
+      return this.read;
+    }
+
+    @Override
+    public Collection<String> getFieldsWritten() {
+      return this.written;
+    }
+
+    @Override
+    public Collection<String> getFieldsRemoved() {
+      return this.removed;
+    }
+  }
+
+  private static class Filter implements FilterOperation, FieldAccess {
+    private final String read;
+
+    Filter(String read) {
+      this.read = read;
+    }
+
+    @Override
+    public boolean test(InternalEvent ievent) {
+      return true;
+    }
+
+    @Override
+    public Collection<String> getFieldsRead() {
+      return Collections.singletonList(this.read);
+    }
+
+    @Override
+    public Collection<String> getFieldsWritten() {
+      return Collections.emptyList();
+    }
+  }
+
+  private static Op writes(String... fields) {
+    return new Op(Collections.emptyList(), Arrays.asList(fields), Collections.emptyList());
+  }
+
+  private static Op delete(String field) {
+    return new Op(Collections.emptyList(), Collections.singletonList(field),
+        Collections.singletonList(field));
+  }
+
+  private static OperationProcessor processor(BaseOperation op) {
+    return new OperationProcessor(new DummyOperationFactory(op));
+  }
+
+  private static List<OperationProcessor> plan(OperationProcessor... processors) {
+    return OperationPlanner.plan("test", Arrays.asList(processors));
+  }
+
+  @Test
+  public void testHoistFilter() {
+    OperationProcessor a = processor(writes("$.a"));
+    OperationProcessor b = processor(writes("b.c"));
+    OperationProcessor filter = processor(new Filter("$.d"));
+
+    assertEquals(Arrays.asList(filter, a, b), plan(a, b, filter));
+  }
+
+  @Test
+  public void testFilterNotHoistedAboveWriter() {
+    OperationProcessor a = processor(writes("a"));
+    OperationProcessor b = processor(writes("b"));
+    OperationProcessor filter = processor(new Filter("$.b.c"));
+
+    assertEquals(Arrays.asList(b, filter, a), plan(b, a, filter));
+  }
+
+  @Test
+  public void testFilterNotHoistedAboveUnknown() {
+    OperationProcessor unknown = processor(new DummyOperation());
+    OperationProcessor wildcard = processor(writes("a[*]"));
+    OperationProcessor b = processor(writes("b"));
+    OperationProcessor filter = processor(new Filter("c"));
+
+    assertEquals(Arrays.asList(unknown, wildcard, filter, b),
+        plan(unknown, wildcard, b, filter));
+  }
+
+  @Test
+  public void testFiltersKeepOrder() {
+    OperationProcessor a = processor(writes("a"));
+    OperationProcessor first = processor(new Filter("b"));
+    OperationProcessor second = processor(new Filter("c"));
+
+    assertEquals(Arrays.asList(first, second, a), plan(a, first, second));
+  }
+
+  @Test
+  public void testRemoveRedundantDelete() {
+    OperationProcessor first = processor(delete("$.a"));
+    OperationProcessor b = processor(writes("b"));
+    OperationProcessor filter = processor(new Filter("c"));
+    OperationProcessor second = processor(delete("a.b"));
+
+    assertEquals(Arrays.asList(filter, first, b), plan(first, b, filter, second));
+  }
+
+  @Test
+  public void testKeepDeleteAfterWrite() {
+    OperationProcessor first = processor(delete("a.b"));
+    OperationProcessor a = processor(writes("a"));
+    OperationProcessor second = processor(delete("a.b"));
+
+    assertEquals(Arrays.asList(first, a, second), plan(first, a, second));
+  }
+
+  @Test
+  public void testKeepDeleteAfterUnknown() {
+    OperationProcessor first = processor(delete("a"));
+    OperationProcessor unknown = processor(new DummyOperation());
+    OperationProcessor second = processor(delete("a"));
+
+    assertEquals(Arrays.asList(first, unknown, second), plan(first, unknown, second));
+  }
+
+  @Test
+  public void testUnchangedPlan() {
+    OperationProcessor a = processor(writes("a"));
+    OperationProcessor filter = processor(new Filter("a"));
+    List<OperationProcessor> processors = Arrays.asList(a, filter);
+
+    List<OperationProcessor> planned = OperationPlanner.plan("test", processors);
+    assertEquals(processors, planned);
+    assertSame(a, planned.get(0));
+  }
+
+  @Test
+  public void testPaths() {
+    assertEquals("a.b", OperationPlanner.normalize("$.a.b"));
+    assertNull(OperationPlanner.normalize("$..a"));
+    assertNull(OperationPlanner.normalize("$.a[*]"));
+    assertNull(OperationPlanner.normalize("$"));
+    assertTrue(OperationPlanner.isWithin("a.b", "a"));
+    assertTrue(OperationPlanner.isWithin("a[0]", "a"));
+    assertFalse(OperationPlanner.isWithin("ab", "a"));
+  }
+}
@@ -17,6 +17,9 @@ package com.nextdoor.bender.operation;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.endsWith;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -34,7 +37,9 @@ import java.util.stream.Stream;
 import org.junit.Test;
 
 import com.google.gson.JsonSyntaxException;
+import com.nextdoor.bender.EventBatch;
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
 import com.nextdoor.bender.monitoring.Stat;
 import com.nextdoor.bender.testutils.DummyDeserializerHelper;
 import com.nextdoor.bender.testutils.DummyOperationHelper.DummyOperation;
@@ -188,4 +193,119 @@ public class OperationProcessorTest {
      */
     assertEquals(0, output.size());
   }
+
+  @Test
+  public void testBatchStatsLogging() {
+    DummyOperation operation = spy(new DummyOperation());
+    DummyOperationFactory mutatorFactory = new DummyOperationFactory(operation);
+    OperationProcessor processor = new OperationProcessor(mutatorFactory);
+
+    /*
+     * Mock the Stat object
+     */
+    Stat runtimeStat = mock(Stat.class);
+    Stat successStat = mock(Stat.class);
+    Stat errorStat = mock(Stat.class);
+
+    processor.setRuntimeStat(runtimeStat);
+    processor.setSuccessCountStat(successStat);
+    processor.setErrorCountStat(errorStat);
+
+    EventBatch batch = new EventBatch();
+    for (String s : new String[] {"a", "b", "c"}) {
+      InternalEvent ievent = new InternalEvent(s, null, 1);
+      ievent.setEventObj(new DummyDeserializerHelper.DummyStringEvent(s));
+      batch.add(ievent);
+    }
+    doThrow(new OperationException("expected")).when(operation).perform(batch.get(1));
+
+    EventBatch output = processor.performBatch(batch);
+
+    /*
+     * Verify the timer is used once for the whole batch and only the failed event is dropped.
+     */
+    verify(runtimeStat, times(1)).start();
+    verify(runtimeStat, times(1)).stop(3);
+    verify(successStat, times(1)).increment(2);
+    verify(errorStat, times(1)).increment(1);
+
+    assertEquals(2, output.size());
+    assertEquals("a", output.get(0).getEventString());
+    assertEquals("c", output.get(1).getEventString());
+  }
+
+  @Test
+  public void testBatchFailuresRejectedWithTheirReason() {
+    DummyOperation op = new DummyOperation() {
+      @Override
+      public EventBatch performBatch(EventBatch batch) {
+        batch.fail(2, new OperationException("third"));
+        batch.fail(0, new OperationException("first"));
+        return batch;
+      }
+    };
+    OperationProcessor processor = new OperationProcessor(new DummyOperationFactory(op));
+    DeadLetterQueue deadLetters = mock(DeadLetterQueue.class);
+    processor.setDeadLetterQueue(deadLetters);
+
+    EventBatch batch = new EventBatch();
+    for (String s : new String[] {"a", "b", "c"}) {
+      InternalEvent ievent = new InternalEvent(s, null, 1);
+      ievent.setEventObj(new DummyDeserializerHelper.DummyStringEvent(s));
+      batch.add(ievent);
+    }
+    InternalEvent first = batch.get(0);
+    InternalEvent third = batch.get(2);
+
+    EventBatch output = processor.performBatch(batch);
+
+    assertEquals(1, output.size());
+    verify(deadLetters, times(1)).reject(eq(DeadLetterQueue.Kind.OPERATION), endsWith(": first"),
+        same(first));
+    verify(deadLetters, times(1)).reject(eq(DeadLetterQueue.Kind.OPERATION), endsWith(": third"),
+        same(third));
+  }
+
+  @Test
+  public void testBatchNullFiltering() {
+    DummyOperation op = spy(new DummyOperation());
+    InternalEvent nullPayload = new InternalEvent("b", null, 1);
+    nullPayload.setEventObj(new DummyDeserializerHelper.DummyStringEvent(null));
+    when(op.perform(any(InternalEvent.class))).thenReturn(null)
+        .thenReturn(nullPayload).thenCallRealMethod();
+    OperationProcessor processor = new OperationProcessor(new DummyOperationFactory(op));
+
+    EventBatch batch = new EventBatch();
+    for (String s : new String[] {"a", "b", "c"}) {
+      InternalEvent ievent = new InternalEvent(s, null, 1);
+      ievent.setEventObj(new DummyDeserializerHelper.DummyStringEvent(s));
+      batch.add(ievent);
+    }
+
+    EventBatch output = processor.performBatch(batch);
+
+    assertEquals(1, output.size());
+    assertEquals("c", output.get(0).getEventString());
+  }
+
+  @Test
+  public void testPerformBatchesRegroupsStreamOperations() {
+    StreamOperation op = input -> input.filter(ievent -> !ievent.getEventString().equals("b"));
+    OperationProcessor processor = new OperationProcessor(new DummyOperationFactory(op));
+
+    EventBatch batch = new EventBatch();
+    for (String s : new String[] {"a", "b", "c", "d"}) {
+      InternalEvent ievent = new InternalEvent(s, null, 1);
+      ievent.setEventObj(new DummyDeserializerHelper.DummyStringEvent(s));
+      batch.add(ievent);
+    }
+
+    List<EventBatch> output =
+        processor.performBatches(Stream.of(batch), 2).collect(Collectors.toList());
+
+    assertEquals(2, output.size());
+    assertEquals(2, output.get(0).size());
+    assertEquals(1, output.get(1).size());
+    assertEquals("d", output.get(1).get(0).getEventString());
+  }
 }
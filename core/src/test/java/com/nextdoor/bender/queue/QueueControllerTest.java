@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.monitoring.Stat;
+
+public class QueueControllerTest {
+  private static final long GB = 1024L * 1024 * 1024;
+
+  /*
+   * Throughput at which the target is exactly n events.
+   */
+  private static double eventsPerNs(int n) {
+    return n / (double) TimeUnit.MILLISECONDS.toNanos(QueueController.TARGET_BUFFER_MS);
+  }
+
+  @Test
+  public void testGrowsAtMostDouble() {
+    QueueController controller = new QueueController(500, true, 100000, 0.1);
+    assertEquals(1000, controller.computeLimit(500, eventsPerNs(50000), 100, GB));
+  }
+
+  @Test
+  public void testShrinksAtMostHalf() {
+    QueueController controller = new QueueController(500, true, 100000, 0.1);
+    assertEquals(250, controller.computeLimit(500, eventsPerNs(10), 100, GB));
+  }
+
+  @Test
+  public void testFollowsThroughput() {
+    QueueController controller = new QueueController(500, true, 100000, 0.1);
+    assertEquals(700, controller.computeLimit(500, eventsPerNs(700), 100, GB));
+  }
+
+  @Test
+  public void testMemoryCapOverridesGradualChange() {
+    QueueController controller = new QueueController(500, true, 100000, 0.5);
+
+    /*
+     * Half of 100KB of free heap fits 100 events of 256 + 256 bytes.
+     */
+    long freeHeap = 100 * 1024;
+    assertEquals(100, controller.computeLimit(1000, eventsPerNs(5000), 256, freeHeap));
+  }
+
+  @Test
+  public void testClamped() {
+    QueueController controller = new QueueController(500, true, 2000, 0.1);
+    assertEquals(2000, controller.computeLimit(1500, eventsPerNs(50000), 100, GB));
+    assertEquals(16, controller.computeLimit(20, 0, 100, GB));
+  }
+
+  @Test
+  public void testStaticLimit() {
+    QueueController controller = new QueueController(500, false, 100000, 0.1);
+    assertEquals(250, controller.getQueueCapacity(2));
+
+    RingBuffer<Integer> queue = new RingBuffer<Integer>(500, RingBuffer.Producers.SINGLE);
+    controller.attach(Arrays.asList(queue));
+    controller.adjust(System.nanoTime() + TimeUnit.SECONDS.toNanos(1), Runtime.getRuntime());
+
+    assertEquals(500, controller.getLimit());
+    assertEquals(500, queue.getLimit());
+  }
+
+  @Test
+  public void testLimitSplitAcrossQueues() {
+    QueueController controller = new QueueController(500, true, 4000, 0.1);
+    assertEquals(2000, controller.getQueueCapacity(2));
+
+    RingBuffer<Integer> q1 = new RingBuffer<Integer>(2000, RingBuffer.Producers.SINGLE);
+    RingBuffer<Integer> q2 = new RingBuffer<Integer>(2000, RingBuffer.Producers.SINGLE);
+    controller.attach(Arrays.asList(q1, q2));
+
+    assertEquals(250, q1.getLimit());
+    assertEquals(250, q2.getLimit());
+  }
+
+  @Test
+  public void testStats() {
+    QueueController controller = new QueueController(8, false, 8, 0.1);
+    RingBuffer<Integer> queue = new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE);
+    controller.attach(Arrays.asList(queue));
+
+    queue.offer(1);
+    queue.offer(2);
+    controller.adjust(System.nanoTime(), Runtime.getRuntime());
+    queue.offer(3);
+    queue.offer(4);
+    controller.adjust(System.nanoTime(), Runtime.getRuntime());
+
+    List<Stat> stats = controller.getStats();
+    assertEquals("queue.capacity", stats.get(0).getName());
+    assertEquals(8, stats.get(0).getValue());
+    assertEquals("queue.depth.avg", stats.get(1).getName());
+    assertEquals(3, stats.get(1).getValue());
+    assertEquals("queue.depth.max", stats.get(2).getName());
+    assertEquals(4, stats.get(2).getValue());
+    assertEquals("queue.offer_blocked.ns", stats.get(3).getName());
+    assertEquals(0, stats.get(3).getValue());
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class RingBufferTest {
+
+  @Test
+  public void testCapacityRounding() {
+    assertEquals(1, new RingBuffer<Integer>(1, RingBuffer.Producers.SINGLE).getCapacity());
+    assertEquals(4, new RingBuffer<Integer>(3, RingBuffer.Producers.SINGLE).getCapacity());
+    assertEquals(8, new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE).getCapacity());
+    assertEquals(512, new RingBuffer<Integer>(500, RingBuffer.Producers.SINGLE).getCapacity());
+  }
+
+  @Test
+  public void testSingleProducerOrdering() {
+    RingBuffer<Integer> buffer =
+        new RingBuffer<Integer>(4, RingBuffer.Producers.SINGLE, WaitStrategy.YIELDING);
+
+    new Thread(() -> {
+      for (int i = 0; i < 10000; i++) {
+        buffer.offer(i);
+      }
+      buffer.close();
+    }).start();
+
+    List<Integer> actual = buffer.stream().collect(Collectors.toList());
+
+    assertEquals(10000, actual.size());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(i, actual.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testMultiProducer() throws InterruptedException {
+    RingBuffer<Integer> buffer =
+        new RingBuffer<Integer>(8, RingBuffer.Producers.MULTI, WaitStrategy.SLEEPING);
+
+    List<Thread> producers = new ArrayList<Thread>();
+    for (int p = 0; p < 4; p++) {
+      int offset = p * 10000;
+      Thread t = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          buffer.offer(offset + i);
+        }
+      });
+      producers.add(t);
+      t.start();
+    }
+
+    new Thread(() -> {
+      for (Thread t : producers) {
+        try {
+          t.join();
+        } catch (InterruptedException e) {
+        }
+      }
+      buffer.close();
+    }).start();
+
+    Set<Integer> actual = buffer.stream().collect(Collectors.toCollection(HashSet::new));
+    assertEquals(40000, actual.size());
+  }
+
+  @Test
+  public void testBatchedDrain() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE);
+    for (int i = 0; i < 6; i++) {
+      buffer.offer(i);
+    }
+
+    List<Integer> drained = new ArrayList<Integer>();
+    assertEquals(4, buffer.drain(drained::add, 4));
+    assertEquals(2, buffer.size());
+    assertEquals(2, buffer.drain(drained::add, 4));
+    assertEquals(0, buffer.drain(drained::add, 4));
+
+    assertEquals(6, drained.size());
+    assertEquals(5, drained.get(5).intValue());
+  }
+
+  @Test
+  public void testOfferAfterClose() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(2, RingBuffer.Producers.SINGLE);
+    assertTrue(buffer.offer(1));
+    buffer.close();
+    assertFalse(buffer.offer(2));
+
+    /*
+     * Elements added prior to close are still consumed.
+     */
+    assertEquals(1, buffer.stream().count());
+  }
+
+  @Test(timeout = 5000)
+  public void testCloseAndClearReleasesProducer() throws InterruptedException {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(1, RingBuffer.Producers.SINGLE);
+    AtomicBoolean released = new AtomicBoolean(false);
+    buffer.offer(1);
+
+    Thread producer = new Thread(() -> {
+      /*
+       * Blocks until the buffer is closed as it is full.
+       */
+      released.set(!buffer.offer(2));
+    });
+    producer.start();
+
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertTrue(producer.isAlive());
+
+    buffer.closeAndClear();
+    producer.join();
+
+    assertTrue(released.get());
+    assertEquals(0, buffer.stream().count());
+  }
+
+  @Test
+  public void testLimit() throws InterruptedException {
+    RingBuffer<Integer> buffer =
+        new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE, WaitStrategy.SLEEPING);
+    buffer.setLimit(2);
+    buffer.offer(1);
+    buffer.offer(2);
+
+    Thread producer = new Thread(() -> buffer.offer(3));
+    producer.start();
+    producer.join(100);
+    assertTrue(producer.isAlive());
+
+    /*
+     * Raising the limit releases the producer without anything being consumed.
+     */
+    buffer.setLimit(3);
+    producer.join(5000);
+    assertFalse(producer.isAlive());
+    assertEquals(3, buffer.size());
+    assertTrue(buffer.getBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void testLimitClamped() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(8, RingBuffer.Producers.MULTI);
+
+    buffer.setLimit(0);
+    assertEquals(1, buffer.getLimit());
+
+    buffer.setLimit(100);
+    assertEquals(8, buffer.getLimit());
+  }
+
+  @Test
+  public void testConsumedAndNotBlocked() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE);
+    buffer.offer(1);
+    buffer.offer(2);
+    buffer.drain(i -> {}, 1);
+
+    assertEquals(1, buffer.getConsumed());
+    assertEquals(0, buffer.getBlockedNanos());
+  }
+
+  @Test
+  public void testOfferAllLargerThanCapacity() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(4, RingBuffer.Producers.SINGLE);
+    List<Integer> elements = new ArrayList<Integer>();
+    for (int i = 0; i < 10; i++) {
+      elements.add(i);
+    }
+
+    new Thread(() -> {
+      buffer.offerAll(elements);
+      buffer.close();
+    }).start();
+
+    assertEquals(elements, buffer.stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testBatchedMultiProducer() throws InterruptedException {
+    RingBuffer<Integer> buffer =
+        new RingBuffer<Integer>(16, RingBuffer.Producers.MULTI, WaitStrategy.SLEEPING);
+
+    List<Thread> producers = new ArrayList<Thread>();
+    for (int p = 0; p < 4; p++) {
+      int offset = p * 10000;
+      Thread t = new Thread(() -> {
+        BatchedProducer<Integer> producer = new BatchedProducer<Integer>(buffer, 6);
+        for (int i = 0; i < 10000; i++) {
+          producer.offer(offset + i);
+        }
+        producer.flush();
+      });
+      producers.add(t);
+      t.start();
+    }
+
+    new Thread(() -> {
+      for (Thread t : producers) {
+        try {
+          t.join();
+        } catch (InterruptedException e) {
+        }
+      }
+      buffer.close();
+    }).start();
+
+    /*
+     * Each producer's elements stay in order.
+     */
+    int[] last = new int[] {-1, -1, -1, -1};
+    Set<Integer> actual = buffer.stream().peek(i -> {
+      assertTrue(i > last[i / 10000]);
+      last[i / 10000] = i;
+    }).collect(Collectors.toCollection(HashSet::new));
+    assertEquals(40000, actual.size());
+  }
+
+  @Test
+  public void testBatchedProducerHoldsUntilFlush() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(8, RingBuffer.Producers.SINGLE);
+    BatchedProducer<Integer> producer = new BatchedProducer<Integer>(buffer, 3);
+
+    producer.offer(1);
+    producer.offer(2);
+    assertEquals(0, buffer.size());
+
+    producer.offer(3);
+    assertEquals(3, buffer.size());
+
+    producer.offer(4);
+    producer.flush();
+    assertEquals(4, buffer.size());
+  }
+
+  @Test
+  public void testOfferAllAfterClose() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(8, RingBuffer.Producers.MULTI);
+    buffer.close();
+
+    List<Integer> elements = new ArrayList<Integer>();
+    elements.add(1);
+    assertFalse(buffer.offerAll(elements));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class ByteLineIteratorTest {
+
+  private List<String> readLines(String input) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    try (ByteLineIterator it = new ByteLineIterator(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+      while (it.hasNext()) {
+        lines.add(new String(it.next(), StandardCharsets.UTF_8));
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Lines must match those produced by {@link BufferedReader#lines()}.
+   */
+  private void assertMatchesReader(String input) throws IOException {
+    List<String> expected =
+        new BufferedReader(new StringReader(input)).lines().collect(Collectors.toList());
+    assertEquals(expected, readLines(input));
+  }
+
+  @Test
+  public void testLineTerminators() throws IOException {
+    assertMatchesReader("a\nb\r\nc\rd");
+    assertMatchesReader("a\n\nb\n");
+    assertMatchesReader("a\r\n\r\n");
+    assertMatchesReader("\n");
+    assertMatchesReader("");
+  }
+
+  @Test
+  public void testMultibyte() throws IOException {
+    assertMatchesReader("b\u00e4r\nf\u00f6o\n");
+  }
+
+  @Test
+  public void testLinesSpanningReads() throws IOException {
+    String longLine = StringUtils.repeat("abcdefghij", 20000);
+    assertMatchesReader(longLine + "\r\n" + longLine + "\n" + longLine);
+  }
+
+  /**
+   * Reading from {@link ByteLineIterator#getPosition()} after each line must produce the remaining
+   * lines.
+   */
+  private void assertResumes(String input) throws IOException {
+    byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+    List<String> expected = readLines(input);
+
+    ByteLineIterator it = new ByteLineIterator(new ByteArrayInputStream(bytes));
+    for (int read = 1; read <= expected.size(); read++) {
+      it.next();
+
+      List<String> remaining = new ArrayList<String>();
+      ByteLineIterator resumed = new ByteLineIterator(new ByteArrayInputStream(bytes,
+          (int) it.getPosition(), bytes.length), it.endsWithCarriageReturn());
+      while (resumed.hasNext()) {
+        remaining.add(new String(resumed.next(), StandardCharsets.UTF_8));
+      }
+
+      assertEquals(expected.subList(read, expected.size()), remaining);
+    }
+  }
+
+  @Test
+  public void testResumeFromPosition() throws IOException {
+    assertResumes("a\nb\r\nc\rd");
+    assertResumes("a\r\n\r\nb\r");
+    assertResumes("b\u00e4r\nf\u00f6o\n");
+
+    String longLine = StringUtils.repeat("abcdefghij", 20000);
+    assertResumes(longLine + "\r\n" + longLine + "\r" + longLine);
+  }
+}
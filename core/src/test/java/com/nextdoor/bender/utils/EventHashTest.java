@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2017 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class EventHashTest {
+  private static final String FOX = "The quick brown fox jumps over the lazy dog";
+
+  private static ByteBuffer bytes(String str) {
+    return ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testXxHash64KnownValues() {
+    assertEquals(0xef46db3751d8e999L, XxHash64.hash(bytes(""), 0));
+    assertEquals(0x44bc2cf5ad770999L, XxHash64.hash(bytes("abc"), 0));
+    assertEquals(0x0b242d361fda71bcL, XxHash64.hash(bytes(FOX), 0));
+  }
+
+  @Test
+  public void testXxHash64RespectsPosition() {
+    byte[] raw = ("xx" + FOX + "yy").getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buf = ByteBuffer.wrap(raw, 2, raw.length - 4);
+
+    assertEquals(0x0b242d361fda71bcL, XxHash64.hash(buf, 0));
+    assertEquals(2, buf.position());
+  }
+
+  @Test
+  public void testHexEncoding() {
+    assertEquals("2fd4e1c67a2d28fced849ee1bb76e7391b93eb12", EventHash.SHA1.hash(FOX));
+    assertEquals("0b242d361fda71bc", EventHash.XXHASH64.hash(FOX));
+    assertEquals(32, EventHash.MURMUR3_128.hash(FOX).length());
+  }
+
+  @Test
+  public void testStringMatchesBytes() {
+    String str = "{\"foo\": \"b\u00e4r\"}";
+
+    for (EventHash function : EventHash.values()) {
+      assertEquals(function.name(), function.hash(str), function.hash(bytes(str)));
+    }
+  }
+}
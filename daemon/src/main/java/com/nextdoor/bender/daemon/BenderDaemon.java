@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.log4j.Logger;
+
+import com.nextdoor.bender.aws.TestContext;
+import com.nextdoor.bender.handler.BaseHandler;
+import com.nextdoor.bender.handler.HandlerException;
+
+/**
+ * Entry point for running Bender as a long lived process, for instance on EC2 or ECS. The
+ * configuration must use a DaemonHandler handler which lists the inputs to read from. The daemon
+ * runs until every input has finished or it receives SIGTERM/SIGINT, at which point reading stops
+ * and events which were already read are sent before exiting.
+ */
+public class BenderDaemon {
+  private static final Logger logger = Logger.getLogger(BenderDaemon.class);
+  private static final String name = System.getProperty("sun.java.command");
+
+  /*
+   * Global defaults used to create a context similar to that of a Lambda function.
+   */
+  private static final String AWS_REGION = "us-east-1";
+  private static final String AWS_ACCOUNT = "123456789";
+  private static final String FUNCTION_NAME = "bender-daemon";
+
+  public static void main(String[] args) {
+    Option help = Option.builder("H").longOpt("help").desc("Print this message").build();
+    Option configFile = Option.builder("c").longOpt("config").hasArg()
+        .desc("Configuration to load (file://<file>, s3://bucket/key or a resource). Defaults "
+            + "to the BENDER_CONFIG environment variable.")
+        .build();
+
+    Options options = new Options();
+    options.addOption(help);
+    options.addOption(configFile);
+
+    HelpFormatter formatter = new HelpFormatter();
+    formatter.setWidth(100);
+    formatter.setSyntaxPrefix("usage: java -jar");
+
+    CommandLineParser parser = new DefaultParser();
+    CommandLine cmd = null;
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch (ParseException e) {
+      logger.error(e.getMessage());
+      formatter.printHelp(name, options);
+      System.exit(1);
+    }
+
+    if (cmd.hasOption(help.getLongOpt())) {
+      formatter.printHelp(name, options);
+      System.exit(0);
+    }
+
+    if (cmd.hasOption(configFile.getLongOpt())) {
+      BaseHandler.CONFIG_FILE = cmd.getOptionValue(configFile.getLongOpt());
+    } else if (System.getenv("BENDER_CONFIG") == null) {
+      logger.error("Either --config or the BENDER_CONFIG environment variable must be set");
+      formatter.printHelp(name, options);
+      System.exit(1);
+    }
+
+    DaemonHandler handler = new DaemonHandler();
+    CountDownLatch stopped = new CountDownLatch(1);
+
+    /*
+     * On SIGTERM stop reading and wait for events which were already read to be sent.
+     */
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      logger.info("stopping daemon");
+      handler.stop();
+
+      try {
+        stopped.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+
+    try {
+      handler.run(getContext());
+    } catch (HandlerException e) {
+      logger.error("Error running daemon: " + e);
+      stopped.countDown();
+      System.exit(1);
+    } finally {
+      stopped.countDown();
+    }
+  }
+
+  protected static TestContext getContext() {
+    TestContext ctx = new TestContext();
+    ctx.setFunctionName(FUNCTION_NAME);
+    ctx.setInvokedFunctionArn(
+        "arn:aws:lambda:" + AWS_REGION + ":" + AWS_ACCOUNT + ":function:" + FUNCTION_NAME);
+    ctx.setAwsRequestId(System.currentTimeMillis() + "");
+    return ctx;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.InternalEventIterator;
+import com.nextdoor.bender.LambdaContext;
+
+/**
+ * Bounded queue between the daemon's inputs and the pipeline. Inputs add lines from any number of
+ * threads and block while the queue is full. The pipeline consumes the queue as a sequence of
+ * windows, each of which is handed to the handler as the iterator for one run of the pipeline.
+ *
+ * The queue is closed either explicitly on shutdown or once every input has finished. Events added
+ * before the queue was closed are still consumed.
+ */
+public class DaemonEventQueue {
+  private static final long POLL_MS = 100;
+
+  private final BlockingQueue<InternalEvent> queue;
+  private final LambdaContext context;
+  private volatile boolean closed = false;
+  private int runningInputs = 0;
+
+  /*
+   * Event taken from the queue while waiting for a window to start. Only used by the consumer.
+   */
+  private volatile InternalEvent pending = null;
+
+  /**
+   * @param capacity maximum number of events waiting to be consumed.
+   * @param context context attached to every event.
+   */
+  public DaemonEventQueue(int capacity, LambdaContext context) {
+    this.queue = new ArrayBlockingQueue<InternalEvent>(capacity);
+    this.context = context;
+  }
+
+  /**
+   * Adds a line read by an input, waiting while the queue is full.
+   *
+   * @param line raw event without the line terminator.
+   * @return true if the event was added or false if the queue was closed.
+   * @throws InterruptedException if interrupted while waiting for space.
+   */
+  public boolean put(byte[] line) throws InterruptedException {
+    InternalEvent ievent =
+        new InternalEvent(ByteBuffer.wrap(line), this.context, System.currentTimeMillis());
+
+    while (!this.closed) {
+      if (this.queue.offer(ievent, POLL_MS, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Registers an input which will later call {@link #inputFinished()} if it runs out of data.
+   */
+  public synchronized void inputStarted() {
+    this.runningInputs++;
+  }
+
+  /**
+   * Called by an input that has no more data. The queue is closed once no inputs are running.
+   */
+  public synchronized void inputFinished() {
+    if (--this.runningInputs <= 0) {
+      close();
+    }
+  }
+
+  /**
+   * Stops accepting events. Events already in the queue can still be consumed.
+   */
+  public void close() {
+    this.closed = true;
+  }
+
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * @return approximate number of events waiting to be consumed.
+   */
+  public int size() {
+    return this.queue.size() + (this.pending == null ? 0 : 1);
+  }
+
+  /**
+   * Waits until there is at least one event to consume.
+   *
+   * @return false if the queue was closed and all events were consumed.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean awaitEvent() throws InterruptedException {
+    while (this.pending == null) {
+      /*
+       * Read closed before polling so that events added before the queue was closed are not
+       * missed.
+       */
+      boolean wasClosed = this.closed;
+      this.pending = this.queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+
+      if (this.pending == null && wasClosed) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Creates an iterator over the next window of events. The window ends once maxEvents were
+   * returned, maxMs passed since the window was created, or the queue was closed and drained.
+   * Callers should use {@link #awaitEvent()} first so that the window's time starts with its first
+   * event.
+   *
+   * @param maxEvents maximum number of events in the window.
+   * @param maxMs maximum duration of the window.
+   * @return iterator over the window.
+   */
+  public InternalEventIterator<InternalEvent> window(int maxEvents, long maxMs) {
+    return new Window(maxEvents, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMs));
+  }
+
+  private class Window implements InternalEventIterator<InternalEvent> {
+    private final int maxEvents;
+    private final long endNanos;
+    private int returned = 0;
+    private InternalEvent next = null;
+    private boolean ended = false;
+
+    private Window(int maxEvents, long endNanos) {
+      this.maxEvents = maxEvents;
+      this.endNanos = endNanos;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.next != null) {
+        return true;
+      }
+
+      if (this.ended || this.returned >= this.maxEvents) {
+        return false;
+      }
+
+      if (pending != null) {
+        this.next = pending;
+        pending = null;
+        return true;
+      }
+
+      try {
+        while (this.next == null) {
+          long remaining = this.endNanos - System.nanoTime();
+          if (remaining <= 0) {
+            break;
+          }
+
+          boolean wasClosed = closed;
+          this.next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MS)),
+              TimeUnit.NANOSECONDS);
+
+          if (this.next == null && wasClosed) {
+            break;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      if (this.next == null) {
+        this.ended = true;
+        return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public InternalEvent next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      InternalEvent ievent = this.next;
+      this.next = null;
+      this.returned++;
+      return ievent;
+    }
+
+    /**
+     * The queue outlives the window so closing the window does nothing.
+     */
+    @Override
+    public void close() {}
+  }
+}
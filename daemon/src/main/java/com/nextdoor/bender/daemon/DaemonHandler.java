@@ -0,0 +1,343 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.InternalEventIterator;
+import com.nextdoor.bender.LambdaContext;
+import com.nextdoor.bender.config.Source;
+import com.nextdoor.bender.deadletter.DeadLetterQueue;
+import com.nextdoor.bender.executor.ExecutorProviders;
+import com.nextdoor.bender.handler.BaseHandler;
+import com.nextdoor.bender.handler.Handler;
+import com.nextdoor.bender.handler.HandlerException;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.utils.SourceUtils;
+
+/**
+ * Runs the pipeline continuously outside of Lambda. Configuration and handler resources are loaded
+ * once and events from every {@link DaemonInput} are processed in windows. Each window is one run
+ * of the pipeline: transports are flushed and stats are reported when it ends, which bounds how
+ * long an event can wait in a partially filled transport buffer.
+ *
+ * A window which fails is processed again with backoff and, once retries run out, its events are
+ * sent to the dead letter transport. Either way the daemon keeps consuming so that a transient
+ * failure does not lose the events waiting in the queue and in open connections.
+ */
+public class DaemonHandler extends BaseHandler<Void> implements Handler<Void> {
+  private static final Logger logger = Logger.getLogger(DaemonHandler.class);
+  private static final long MAX_RETRY_BACKOFF_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private DaemonHandlerConfig daemonConfig;
+  private DaemonEventQueue queue;
+  private List<DaemonInput> inputs = new ArrayList<DaemonInput>();
+  private InternalEventIterator<InternalEvent> window = null;
+  private Source source = null;
+  private boolean failed = false;
+
+  @Override
+  public void init(Context ctx) throws HandlerException {
+    super.init(ctx);
+
+    if (!(this.config.getHandlerConfig() instanceof DaemonHandlerConfig)) {
+      throw new HandlerException("the daemon requires a handler of type DaemonHandler");
+    }
+    this.daemonConfig = (DaemonHandlerConfig) this.config.getHandlerConfig();
+
+    try {
+      this.source = SourceUtils.getSource(this.daemonConfig.getSourceName(), this.sources);
+    } catch (SourceUtils.SourceNotFoundException e) {
+      throw new HandlerException(e.getMessage(), e);
+    }
+
+    if (this.daemonConfig.getInputs().isEmpty()) {
+      throw new HandlerException("at least one input is required");
+    }
+
+    this.queue =
+        new DaemonEventQueue(this.daemonConfig.getInputQueueSize(), new LambdaContext(ctx));
+
+    for (String uri : this.daemonConfig.getInputs()) {
+      try {
+        this.inputs.add(DaemonInputFactory.newInstance(uri, this.daemonConfig));
+      } catch (IllegalArgumentException e) {
+        throw new HandlerException(e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Processes a single window of events from the inputs. Inputs must already be started.
+   *
+   * @param event not used.
+   * @param context context used by the pipeline.
+   */
+  @Override
+  public void handler(Void event, Context context) throws HandlerException {
+    if (!initialized) {
+      init(context);
+    }
+
+    this.window = this.queue.window(this.daemonConfig.getFlushSize(),
+        this.daemonConfig.getFlushIntervalMs());
+
+    super.process(context);
+  }
+
+  /**
+   * Starts the inputs and processes windows until {@link #stop()} is called or every input has
+   * finished. Blocks until all events which were read have been sent.
+   *
+   * @param context context used by the pipeline.
+   * @throws HandlerException if initialization or an input fails to start.
+   */
+  public void run(Context context) throws HandlerException {
+    if (!initialized) {
+      init(context);
+    }
+
+    try {
+      startInputs();
+
+      while (this.queue.awaitEvent()) {
+        processWindow(context);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new HandlerException("interrupted while waiting for events", e);
+    } finally {
+      closeInputs();
+      shutdown();
+    }
+  }
+
+  /**
+   * Processes the next window, retrying it with backoff if it fails. Events of a window which still
+   * fails after the last retry are spilled to the dead letter queue, or dropped if there is none.
+   */
+  private void processWindow(Context context) throws InterruptedException {
+    RetryableWindow retryable = new RetryableWindow(this.queue
+        .window(this.daemonConfig.getFlushSize(), this.daemonConfig.getFlushIntervalMs()));
+    long backoffMs = this.daemonConfig.getWindowRetryBackoffMs();
+
+    for (int attempt = 0;; attempt++) {
+      this.window = retryable;
+      if (processSafely(context)) {
+        return;
+      }
+
+      if (attempt >= this.daemonConfig.getWindowRetries()) {
+        break;
+      }
+
+      logger.warn(String.format("window of %d events failed, retrying in %d ms",
+          retryable.getRead().size(), backoffMs));
+      Thread.sleep(backoffMs);
+      backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+      retryable.rewind();
+    }
+
+    spill(retryable, context);
+  }
+
+  /**
+   * @return true if the current window was processed without failing.
+   */
+  private boolean processSafely(Context context) {
+    this.failed = false;
+
+    try {
+      super.process(context);
+    } catch (RuntimeException e) {
+      /*
+       * Thrown when fail_on_exception is enabled. Already logged by process.
+       */
+      this.failed = true;
+    }
+
+    return !this.failed;
+  }
+
+  private void spill(RetryableWindow retryable, Context context) {
+    /*
+     * Also drain what the window would still have returned so nothing is left behind.
+     */
+    while (retryable.hasNext()) {
+      retryable.next();
+    }
+
+    List<String> records = new ArrayList<String>(retryable.getRead().size());
+    for (InternalEvent ievent : retryable.getRead()) {
+      records.add(ievent.getEventString());
+    }
+
+    DeadLetterQueue deadLetters = getIpcService().getDeadLetterQueue();
+    if (deadLetters == null) {
+      logger.error(String.format("dropping window of %d events which failed %d retries",
+          records.size(), this.daemonConfig.getWindowRetries()));
+      return;
+    }
+
+    try {
+      deadLetters.addAll(DeadLetterQueue.Kind.TRANSPORT, "window failed after retries", records);
+      deadLetters.flush(context);
+    } catch (IOException | TransportException e) {
+      logger.error(String.format("unable to dead letter window of %d events", records.size()), e);
+      deadLetters.discard();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void startInputs() throws HandlerException {
+    /*
+     * Register every input before any is started so that a quickly finishing input does not
+     * close the queue while others are still starting.
+     */
+    for (int i = 0; i < this.inputs.size(); i++) {
+      this.queue.inputStarted();
+    }
+
+    for (DaemonInput input : this.inputs) {
+      logger.info("starting input " + input.getName());
+      try {
+        input.start(this.queue, ExecutorProviders.get().getTaskExecutor());
+      } catch (IOException e) {
+        throw new HandlerException("unable to start input " + input.getName(), e);
+      }
+    }
+  }
+
+  private void closeInputs() {
+    for (DaemonInput input : this.inputs) {
+      try {
+        input.close();
+      } catch (IOException e) {
+        logger.warn("error closing input " + input.getName(), e);
+      }
+    }
+  }
+
+  /**
+   * Stops reading from the inputs. Events which were already read are still processed by
+   * {@link #run(Context)} before it returns.
+   */
+  public void stop() {
+    closeInputs();
+
+    if (this.queue != null) {
+      this.queue.close();
+    }
+  }
+
+  public List<DaemonInput> getInputs() {
+    return this.inputs;
+  }
+
+  @Override
+  public Source getSource() {
+    return this.source;
+  }
+
+  @Override
+  public String getSourceName() {
+    return this.daemonConfig.getSourceName();
+  }
+
+  @Override
+  public void onException(Exception e) {
+    this.failed = true;
+  }
+
+  @Override
+  public InternalEventIterator<InternalEvent> getInternalEventIterator() {
+    return this.window;
+  }
+
+  /**
+   * Keeps the events a window returned so that it can be processed again. A rewound window returns
+   * fresh copies of the events it already returned, which the failed attempt may have modified,
+   * and then continues with the rest of the window.
+   */
+  static class RetryableWindow implements InternalEventIterator<InternalEvent> {
+    private final InternalEventIterator<InternalEvent> window;
+    private final List<InternalEvent> read = new ArrayList<InternalEvent>();
+    private int position = 0;
+
+    RetryableWindow(InternalEventIterator<InternalEvent> window) {
+      this.window = window;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.position < this.read.size() || this.window.hasNext();
+    }
+
+    @Override
+    public InternalEvent next() {
+      if (this.position < this.read.size()) {
+        return this.read.get(this.position++);
+      }
+
+      if (!this.window.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      InternalEvent ievent = this.window.next();
+      this.read.add(ievent);
+      this.position++;
+      return ievent;
+    }
+
+    /**
+     * Starts returning the events already read from the beginning.
+     */
+    void rewind() {
+      for (int i = 0; i < this.read.size(); i++) {
+        InternalEvent ievent = this.read.get(i);
+        InternalEvent fresh;
+        if (ievent.getEventBytes() != null) {
+          fresh = new InternalEvent(ievent.getEventBytes(), ievent.getCtx(),
+              ievent.getArrivalTime());
+        } else {
+          fresh = new InternalEvent(ievent.getEventString(), ievent.getCtx(),
+              ievent.getArrivalTime());
+        }
+        this.read.set(i, fresh);
+      }
+
+      this.position = 0;
+    }
+
+    List<InternalEvent> getRead() {
+      return this.read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.window.close();
+    }
+  }
+}
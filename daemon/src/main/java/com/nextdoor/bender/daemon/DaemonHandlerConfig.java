@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.util.Collections;
+import java.util.List;
+import javax.validation.constraints.Min;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
+import com.nextdoor.bender.handler.HandlerConfig;
+
+@JsonTypeName("DaemonHandler")
+@JsonSchemaDescription("For use with the standalone daemon (bender-daemon jar) which runs outside "
+    + "of Lambda. Events are read continuously from the configured inputs and sent through the "
+    + "pipeline in windows which end once flush_size events were read or flush_interval_ms "
+    + "passed. Transports are flushed and stats are reported at the end of every window.")
+public class DaemonHandlerConfig extends HandlerConfig {
+
+  @JsonSchemaDescription("Inputs to read newline delimited events from. Supported inputs are "
+      + "\"stdin\", \"file:///path\" which reads a file once or watches a directory for new "
+      + "files (files ending with .gz are decompressed), \"tcp://host:port\" which listens for "
+      + "connections, and \"http://host:port\" which accepts POST requests.")
+  @JsonProperty(required = true)
+  private List<String> inputs = Collections.emptyList();
+
+  @JsonSchemaDescription("Name matched against the source_regex of sources to pick the source "
+      + "used for all events read by the daemon.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "daemon")
+  private String sourceName = "daemon";
+
+  @JsonSchemaDescription("Maximum number of events in a window. Partially filled transport "
+      + "buffers are sent once a window ends.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "10000")
+  @Min(1)
+  private Integer flushSize = 10000;
+
+  @JsonSchemaDescription("Maximum time in milliseconds between the first event of a window being "
+      + "read and the window ending. This bounds how long events wait in partially filled "
+      + "transport buffers.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "5000")
+  @Min(1)
+  private Long flushIntervalMs = 5000L;
+
+  @JsonSchemaDescription("Maximum number of events read by inputs and waiting to be processed. "
+      + "Inputs block while the queue is full.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "10000")
+  @Min(1)
+  private Integer inputQueueSize = 10000;
+
+  @JsonSchemaDescription("Number of times a window which failed, for instance because a transport "
+      + "call failed, is processed again before its events are sent to the dead letter transport, "
+      + "or dropped if there is none. Events of the window which were already sent may be sent "
+      + "again. The daemon keeps reading new windows either way.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "3")
+  @Min(0)
+  private Integer windowRetries = 3;
+
+  @JsonSchemaDescription("Time in milliseconds waited before the first retry of a failed window. "
+      + "Doubles with every further retry, up to one minute.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "1000")
+  @Min(1)
+  private Long windowRetryBackoffMs = 1000L;
+
+  @JsonSchemaDescription("How often in milliseconds watched directories are checked for new "
+      + "files.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "1000")
+  @Min(1)
+  private Long directoryPollIntervalMs = 1000L;
+
+  public List<String> getInputs() {
+    return this.inputs;
+  }
+
+  public void setInputs(List<String> inputs) {
+    this.inputs = inputs;
+  }
+
+  public String getSourceName() {
+    return this.sourceName;
+  }
+
+  public void setSourceName(String sourceName) {
+    this.sourceName = sourceName;
+  }
+
+  public Integer getFlushSize() {
+    return this.flushSize;
+  }
+
+  public void setFlushSize(Integer flushSize) {
+    this.flushSize = flushSize;
+  }
+
+  public Long getFlushIntervalMs() {
+    return this.flushIntervalMs;
+  }
+
+  public void setFlushIntervalMs(Long flushIntervalMs) {
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  public Integer getInputQueueSize() {
+    return this.inputQueueSize;
+  }
+
+  public void setInputQueueSize(Integer inputQueueSize) {
+    this.inputQueueSize = inputQueueSize;
+  }
+
+  public Integer getWindowRetries() {
+    return this.windowRetries;
+  }
+
+  public void setWindowRetries(Integer windowRetries) {
+    this.windowRetries = windowRetries;
+  }
+
+  public Long getWindowRetryBackoffMs() {
+    return this.windowRetryBackoffMs;
+  }
+
+  public void setWindowRetryBackoffMs(Long windowRetryBackoffMs) {
+    this.windowRetryBackoffMs = windowRetryBackoffMs;
+  }
+
+  public Long getDirectoryPollIntervalMs() {
+    return this.directoryPollIntervalMs;
+  }
+
+  public void setDirectoryPollIntervalMs(Long directoryPollIntervalMs) {
+    this.directoryPollIntervalMs = directoryPollIntervalMs;
+  }
+}
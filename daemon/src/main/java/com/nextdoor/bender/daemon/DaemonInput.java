@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+import com.nextdoor.bender.utils.ByteLineIterator;
+
+/**
+ * Source of newline delimited events for the daemon. Inputs read on threads from the executor they
+ * are started with and add each non-empty line to the {@link DaemonEventQueue}.
+ *
+ * Inputs which run out of data, such as stdin or a single file, call
+ * {@link DaemonEventQueue#inputFinished()} when done. Inputs which wait for more data, such as
+ * listeners and watched directories, run until they are closed.
+ */
+public interface DaemonInput extends Closeable {
+  /**
+   * Starts reading. Must not block.
+   *
+   * @param queue queue to add events to.
+   * @param executor runs the threads used by the input.
+   * @throws IOException if the input can not be opened.
+   */
+  public void start(DaemonEventQueue queue, Executor executor) throws IOException;
+
+  /**
+   * @return description of the input used for logging.
+   */
+  public String getName();
+
+  /**
+   * Adds every non-empty line of a stream to the queue.
+   *
+   * @param in stream to read. Not closed by this method.
+   * @param queue queue to add events to.
+   * @return false if reading stopped because the queue was closed.
+   * @throws InterruptedException if interrupted while waiting for space in the queue.
+   */
+  public static boolean readLines(InputStream in, DaemonEventQueue queue)
+      throws InterruptedException {
+    ByteLineIterator lines = new ByteLineIterator(in);
+
+    while (lines.hasNext()) {
+      byte[] line = lines.next();
+      if (line.length == 0) {
+        continue;
+      }
+
+      if (!queue.put(line)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
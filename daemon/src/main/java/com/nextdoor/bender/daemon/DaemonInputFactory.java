@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Creates {@link DaemonInput}s from the URIs listed in {@link DaemonHandlerConfig#getInputs()}.
+ */
+public class DaemonInputFactory {
+  /**
+   * @param uri description of the input such as "stdin", "file:///var/log/app" or
+   *        "tcp://0.0.0.0:5140".
+   * @param config daemon configuration.
+   * @return the input.
+   * @throws IllegalArgumentException if the URI is not valid or its scheme is not supported.
+   */
+  public static DaemonInput newInstance(String uri, DaemonHandlerConfig config) {
+    if ("stdin".equals(uri) || "-".equals(uri)) {
+      return new StreamInput("stdin", System.in);
+    }
+
+    URI parsed;
+    try {
+      parsed = new URI(uri);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("invalid input " + uri, e);
+    }
+
+    if (parsed.getScheme() == null) {
+      throw new IllegalArgumentException("input " + uri + " is missing a scheme");
+    }
+
+    switch (parsed.getScheme()) {
+      case "file":
+        return new FileInput(new File(parsed.getPath()), config.getDirectoryPollIntervalMs());
+      case "tcp":
+        return new TcpInput(address(parsed));
+      case "http":
+        return new HttpInput(address(parsed));
+      default:
+        throw new IllegalArgumentException(
+            "unsupported input " + uri + ". Use stdin, file://, tcp:// or http://");
+    }
+  }
+
+  private static InetSocketAddress address(URI uri) {
+    if (uri.getHost() == null || uri.getPort() < 0) {
+      throw new IllegalArgumentException("input " + uri + " must specify a host and port");
+    }
+
+    return new InetSocketAddress(uri.getHost(), uri.getPort());
+  }
+}
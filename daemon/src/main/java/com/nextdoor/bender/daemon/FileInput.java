@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reads events from a local file or directory. A file is read once after which the input is
+ * finished. A directory is watched and each regular file found in it is read once, in name order.
+ * Files ending with .gz are decompressed.
+ *
+ * Files in a watched directory are expected to be complete when they appear, for instance by
+ * being moved into the directory after they were written.
+ */
+public class FileInput implements DaemonInput {
+  private static final Logger logger = Logger.getLogger(FileInput.class);
+
+  private final File path;
+  private final long pollIntervalMs;
+  private final Set<String> seen = new HashSet<String>();
+  private volatile boolean closed = false;
+
+  /**
+   * @param path file or directory to read.
+   * @param pollIntervalMs how often a directory is listed to find new files.
+   */
+  public FileInput(File path, long pollIntervalMs) {
+    this.path = path;
+    this.pollIntervalMs = pollIntervalMs;
+  }
+
+  @Override
+  public void start(DaemonEventQueue queue, Executor executor) throws IOException {
+    if (!this.path.exists()) {
+      throw new IOException(this.path + " does not exist");
+    }
+
+    if (this.path.isDirectory()) {
+      executor.execute(() -> watch(queue));
+    } else {
+      executor.execute(() -> {
+        try {
+          read(this.path, queue);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          queue.inputFinished();
+        }
+      });
+    }
+  }
+
+  private void watch(DaemonEventQueue queue) {
+    try {
+      while (!this.closed && !queue.isClosed()) {
+        File[] files = this.path.listFiles(File::isFile);
+        if (files != null) {
+          Arrays.sort(files);
+
+          for (File file : files) {
+            if (this.closed || !this.seen.add(file.getName())) {
+              continue;
+            }
+
+            if (!read(file, queue)) {
+              return;
+            }
+          }
+        }
+
+        Thread.sleep(this.pollIntervalMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return false if reading stopped because the queue was closed.
+   */
+  private boolean read(File file, DaemonEventQueue queue) throws InterruptedException {
+    logger.info("reading " + file);
+
+    try (InputStream in = open(file)) {
+      return DaemonInput.readLines(in, queue);
+    } catch (IOException | UncheckedIOException e) {
+      logger.error("error reading " + file, e);
+      return true;
+    }
+  }
+
+  private static InputStream open(File file) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(file));
+    if (file.getName().endsWith(".gz")) {
+      return new GZIPInputStream(in);
+    }
+    return in;
+  }
+
+  @Override
+  public String getName() {
+    return "file://" + this.path.getPath();
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Accepts POST requests on any path and adds each line of the request body as an event. The
+ * response is sent once every line was added to the queue so clients are slowed down while the
+ * queue is full. Responds with 503 once the daemon is shutting down.
+ */
+public class HttpInput implements DaemonInput {
+  private static final Logger logger = Logger.getLogger(HttpInput.class);
+
+  private final InetSocketAddress address;
+  private volatile HttpServer server;
+
+  public HttpInput(InetSocketAddress address) {
+    this.address = address;
+  }
+
+  @Override
+  public void start(DaemonEventQueue queue, Executor executor) throws IOException {
+    this.server = HttpServer.create(this.address, 0);
+    this.server.setExecutor(executor);
+    this.server.createContext("/", exchange -> handle(exchange, queue));
+    this.server.start();
+  }
+
+  private void handle(HttpExchange exchange, DaemonEventQueue queue) throws IOException {
+    try (InputStream body = exchange.getRequestBody()) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+
+      boolean added;
+      try {
+        added = DaemonInput.readLines(body, queue);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        added = false;
+      }
+
+      exchange.sendResponseHeaders(added ? 200 : 503, -1);
+    } catch (UncheckedIOException e) {
+      logger.warn("error reading request from " + exchange.getRemoteAddress(), e);
+      exchange.sendResponseHeaders(400, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * @return port the listener is bound to. Useful when listening on port 0.
+   */
+  public int getPort() {
+    return this.server.getAddress().getPort();
+  }
+
+  @Override
+  public String getName() {
+    return "http://" + this.address.getHostString() + ":" + this.address.getPort();
+  }
+
+  @Override
+  public void close() {
+    if (this.server != null) {
+      this.server.stop(0);
+    }
+  }
+}
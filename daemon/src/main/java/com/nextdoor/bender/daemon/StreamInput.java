@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executor;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Reads events from a stream, such as stdin, until it ends.
+ */
+public class StreamInput implements DaemonInput {
+  private static final Logger logger = Logger.getLogger(StreamInput.class);
+
+  private final String name;
+  private final InputStream in;
+
+  public StreamInput(String name, InputStream in) {
+    this.name = name;
+    this.in = in;
+  }
+
+  @Override
+  public void start(DaemonEventQueue queue, Executor executor) {
+    executor.execute(() -> {
+      try {
+        DaemonInput.readLines(this.in, queue);
+      } catch (UncheckedIOException e) {
+        logger.error("error reading " + this.name, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        queue.inputFinished();
+      }
+    });
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Listens for TCP connections and reads newline delimited events from each connection until the
+ * client closes it.
+ */
+public class TcpInput implements DaemonInput {
+  private static final Logger logger = Logger.getLogger(TcpInput.class);
+
+  private final InetSocketAddress address;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private volatile ServerSocket server;
+  private volatile boolean closed = false;
+
+  public TcpInput(InetSocketAddress address) {
+    this.address = address;
+  }
+
+  @Override
+  public void start(DaemonEventQueue queue, Executor executor) throws IOException {
+    this.server = new ServerSocket();
+    this.server.setReuseAddress(true);
+    this.server.bind(this.address);
+
+    executor.execute(() -> {
+      while (!this.closed) {
+        Socket socket;
+        try {
+          socket = this.server.accept();
+        } catch (IOException e) {
+          if (!this.closed) {
+            logger.error("error accepting connection on " + getName(), e);
+          }
+          return;
+        }
+
+        this.connections.add(socket);
+        executor.execute(() -> read(socket, queue));
+      }
+    });
+  }
+
+  private void read(Socket socket, DaemonEventQueue queue) {
+    try (Socket s = socket) {
+      DaemonInput.readLines(new BufferedInputStream(s.getInputStream()), queue);
+    } catch (UncheckedIOException e) {
+      if (!(e.getCause() instanceof SocketException) || !this.closed) {
+        logger.warn("error reading from " + socket.getRemoteSocketAddress(), e);
+      }
+    } catch (IOException e) {
+      logger.warn("error reading from " + socket.getRemoteSocketAddress(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.connections.remove(socket);
+    }
+  }
+
+  /**
+   * @return true once the listener is accepting connections.
+   */
+  public boolean isListening() {
+    return this.server != null && this.server.isBound();
+  }
+
+  /**
+   * @return port the listener is bound to. Useful when listening on port 0.
+   */
+  public int getPort() {
+    return this.server.getLocalPort();
+  }
+
+  @Override
+  public String getName() {
+    return "tcp://" + this.address.getHostString() + ":" + this.address.getPort();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+
+    if (this.server != null) {
+      this.server.close();
+    }
+
+    for (Socket socket : this.connections) {
+      socket.close();
+    }
+  }
+}
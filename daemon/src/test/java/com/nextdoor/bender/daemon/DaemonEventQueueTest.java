@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.InternalEventIterator;
+
+public class DaemonEventQueueTest {
+
+  private static List<String> drain(InternalEventIterator<InternalEvent> window) {
+    List<String> events = new ArrayList<String>();
+    while (window.hasNext()) {
+      events.add(window.next().getEventString());
+    }
+    return events;
+  }
+
+  @Test
+  public void testWindowEndsAtMaxEvents() throws InterruptedException {
+    DaemonEventQueue queue = new DaemonEventQueue(10, null);
+    for (int i = 0; i < 5; i++) {
+      queue.put(("event " + i).getBytes());
+    }
+
+    assertTrue(queue.awaitEvent());
+    assertEquals(3, drain(queue.window(3, 60000)).size());
+
+    assertTrue(queue.awaitEvent());
+    List<String> second = drain(queue.window(3, 100));
+    assertEquals(2, second.size());
+    assertEquals("event 3", second.get(0));
+  }
+
+  @Test
+  public void testWindowEndsAfterMaxTime() throws InterruptedException {
+    DaemonEventQueue queue = new DaemonEventQueue(10, null);
+    queue.put("event".getBytes());
+
+    long start = System.currentTimeMillis();
+    assertTrue(queue.awaitEvent());
+    assertEquals(1, drain(queue.window(100, 200)).size());
+    long elapsed = System.currentTimeMillis() - start;
+
+    assertTrue(elapsed >= 200);
+    assertTrue(elapsed < 5000);
+  }
+
+  @Test
+  public void testEventsConsumedAfterClose() throws InterruptedException {
+    DaemonEventQueue queue = new DaemonEventQueue(10, null);
+    queue.put("a".getBytes());
+    queue.put("b".getBytes());
+    queue.close();
+
+    assertFalse(queue.put("c".getBytes()));
+    assertTrue(queue.awaitEvent());
+    assertEquals(2, drain(queue.window(100, 60000)).size());
+    assertFalse(queue.awaitEvent());
+  }
+
+  @Test
+  public void testClosedOnceInputsFinish() {
+    DaemonEventQueue queue = new DaemonEventQueue(10, null);
+    queue.inputStarted();
+    queue.inputStarted();
+
+    queue.inputFinished();
+    assertFalse(queue.isClosed());
+
+    queue.inputFinished();
+    assertTrue(queue.isClosed());
+  }
+
+  @Test
+  public void testPutBlocksWhileFull() throws InterruptedException {
+    DaemonEventQueue queue = new DaemonEventQueue(1, null);
+    queue.put("a".getBytes());
+
+    Thread producer = new Thread(() -> {
+      try {
+        queue.put("b".getBytes());
+      } catch (InterruptedException e) {
+      }
+    });
+    producer.start();
+    producer.join(200);
+    assertTrue(producer.isAlive());
+
+    assertTrue(queue.awaitEvent());
+    InternalEventIterator<InternalEvent> window = queue.window(1, 60000);
+    assertEquals("a", window.next().getEventString());
+
+    producer.join(5000);
+    assertFalse(producer.isAlive());
+    assertEquals(1, queue.size());
+  }
+}
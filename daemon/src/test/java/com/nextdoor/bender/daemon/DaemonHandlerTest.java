@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.EnvironmentVariables;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.nextdoor.bender.config.AbstractConfig;
+import com.nextdoor.bender.handler.BaseHandler;
+import com.nextdoor.bender.ipc.TransportBuffer;
+import com.nextdoor.bender.ipc.TransportConfig;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.ipc.TransportFactory;
+import com.nextdoor.bender.ipc.UnpartitionedTransport;
+import com.nextdoor.bender.testutils.DummyTransportHelper.ArrayTransportBuffer;
+import com.nextdoor.bender.testutils.DummyTransportHelper.BufferedTransporter;
+
+public class DaemonHandlerTest {
+  /**
+   * Fails the next {@link #failures} batches and every batch containing {@link #poison}. Other
+   * batches are sent to {@link BufferedTransporter}.
+   */
+  public static class FailingTransporter implements UnpartitionedTransport {
+    public static final AtomicInteger failures = new AtomicInteger(0);
+    public static volatile String poison = null;
+
+    @Override
+    public void sendBatch(TransportBuffer buffer) throws TransportException {
+      List<String> records = ((ArrayTransportBuffer) buffer).getInternalBuffer();
+      if (failures.getAndDecrement() > 0 || records.contains(poison)) {
+        throw new TransportException("expected");
+      }
+
+      synchronized (BufferedTransporter.output) {
+        BufferedTransporter.output.addAll(records);
+      }
+    }
+  }
+
+  public static class FailingTransporterFactory implements TransportFactory {
+    @Override
+    public UnpartitionedTransport newInstance() {
+      return new FailingTransporter();
+    }
+
+    @Override
+    public void setConf(AbstractConfig config) {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public TransportBuffer newTransportBuffer() {
+      return new ArrayTransportBuffer();
+    }
+
+    @Override
+    public int getMaxThreads() {
+      return 1;
+    }
+
+    @Override
+    public Class<FailingTransporter> getChildClass() {
+      return FailingTransporter.class;
+    }
+  }
+
+  @JsonTypeName("DaemonHandlerTest$FailingTransporterConfig")
+  public static class FailingTransporterConfig extends TransportConfig {
+    @Override
+    public Class<FailingTransporterFactory> getFactoryClass() {
+      return FailingTransporterFactory.class;
+    }
+  }
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public final EnvironmentVariables envVars = new EnvironmentVariables();
+
+  @Before
+  public void before() {
+    BufferedTransporter.output.clear();
+
+    /*
+     * The schema generated for this module does not include the test helper configs.
+     */
+    envVars.set("BENDER_SKIP_VALIDATE", "true");
+  }
+
+  @After
+  public void after() {
+    BaseHandler.CONFIG_FILE = null;
+    FailingTransporter.failures.set(0);
+    FailingTransporter.poison = null;
+  }
+
+  private void writeConfig(String input) throws Exception {
+    writeConfig(input, false);
+  }
+
+  private void writeConfig(String input, boolean failing) throws Exception {
+    String config = new String(Files.readAllBytes(
+        new File(getClass().getResource("config_daemon.json").toURI()).toPath()));
+    if (failing) {
+      config = config.replace("DummyTransportHelper$DummyTransporterConfig",
+          "DaemonHandlerTest$FailingTransporterConfig");
+    }
+    File file = this.folder.newFile("config.json");
+    Files.write(file.toPath(), config.replace("INPUT", input).getBytes());
+
+    BaseHandler.CONFIG_FILE = "file://" + file.getAbsolutePath();
+  }
+
+  @Test
+  public void testFileInput() throws Exception {
+    List<String> lines = new ArrayList<String>();
+    for (int i = 0; i < 250; i++) {
+      lines.add("event " + i);
+    }
+    File data = this.folder.newFile("events.log");
+    Files.write(data.toPath(), lines);
+    writeConfig("file://" + data.getAbsolutePath());
+
+    DaemonHandler handler = new DaemonHandler();
+    handler.run(BenderDaemon.getContext());
+
+    assertEquals(250, BufferedTransporter.output.size());
+  }
+
+  @Test(timeout = 30000)
+  public void testStop() throws Exception {
+    writeConfig("tcp://127.0.0.1:0");
+
+    DaemonHandler handler = new DaemonHandler();
+    handler.init(BenderDaemon.getContext());
+    Thread daemon = new Thread(() -> {
+      try {
+        handler.run(BenderDaemon.getContext());
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    daemon.start();
+
+    TcpInput input = (TcpInput) handler.getInputs().get(0);
+    while (!input.isListening()) {
+      Thread.sleep(10);
+    }
+
+    try (Socket socket = new Socket("127.0.0.1", input.getPort())) {
+      socket.getOutputStream().write("a\nb\nc\n".getBytes());
+    }
+
+    /*
+     * Events are sent once the window ends without waiting for the daemon to stop.
+     */
+    while (BufferedTransporter.output.size() < 3) {
+      Thread.sleep(10);
+    }
+
+    handler.stop();
+    daemon.join();
+    assertEquals(3, BufferedTransporter.output.size());
+  }
+
+  private File writeEvents(int count) throws Exception {
+    List<String> lines = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      lines.add("event " + i);
+    }
+    File data = this.folder.newFile("events.log");
+    Files.write(data.toPath(), lines);
+    return data;
+  }
+
+  @Test
+  public void testFailedWindowRetried() throws Exception {
+    File data = writeEvents(50);
+    writeConfig("file://" + data.getAbsolutePath(), true);
+    FailingTransporter.failures.set(5);
+
+    DaemonHandler handler = new DaemonHandler();
+    handler.run(BenderDaemon.getContext());
+
+    /*
+     * Events sent before the window failed are sent again by the retry.
+     */
+    assertEquals(50, new HashSet<String>(BufferedTransporter.output).size());
+  }
+
+  @Test
+  public void testKeepsConsumingAfterWindowGivesUp() throws Exception {
+    File data = writeEvents(250);
+    writeConfig("file://" + data.getAbsolutePath(), true);
+
+    /*
+     * The first window fails on every attempt and is given up on. No dead letter queue is
+     * configured so it is dropped but the windows after it are still sent.
+     */
+    FailingTransporter.poison = "event 0";
+
+    DaemonHandler handler = new DaemonHandler();
+    handler.run(BenderDaemon.getContext());
+
+    HashSet<String> output = new HashSet<String>(BufferedTransporter.output);
+    assertFalse(output.contains("event 0"));
+    for (int i = 100; i < 250; i++) {
+      assertTrue(output.contains("event " + i));
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.InternalEventIterator;
+
+public class DaemonInputTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ExecutorService executor;
+  private DaemonEventQueue queue;
+
+  @Before
+  public void before() {
+    this.executor = Executors.newCachedThreadPool();
+    this.queue = new DaemonEventQueue(100, null);
+  }
+
+  @After
+  public void after() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Waits for count events to be read.
+   */
+  private List<String> read(int count) throws InterruptedException {
+    List<String> events = new ArrayList<String>();
+    while (events.size() < count && this.queue.awaitEvent()) {
+      InternalEventIterator<InternalEvent> window = this.queue.window(count - events.size(), 100);
+      while (window.hasNext()) {
+        events.add(window.next().getEventString());
+      }
+    }
+    return events;
+  }
+
+  @Test
+  public void testStreamInput() throws Exception {
+    DaemonInput input =
+        new StreamInput("test", new ByteArrayInputStream("a\nb\r\n\nc".getBytes()));
+    this.queue.inputStarted();
+    input.start(this.queue, this.executor);
+
+    assertEquals(Arrays.asList("a", "b", "c"), read(10));
+  }
+
+  @Test
+  public void testFileInput() throws Exception {
+    File file = this.folder.newFile("events.log");
+    Files.write(file.toPath(), "a\nb\n".getBytes());
+
+    DaemonInput input = new FileInput(file, 10);
+    this.queue.inputStarted();
+    input.start(this.queue, this.executor);
+
+    assertEquals(Arrays.asList("a", "b"), read(10));
+    assertTrue(this.queue.isClosed());
+  }
+
+  @Test
+  public void testDirectoryInput() throws Exception {
+    File dir = this.folder.newFolder("logs");
+    Files.write(new File(dir, "1.log").toPath(), "a\nb\n".getBytes());
+
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(dir, "2.gz")))) {
+      out.write("c\n".getBytes());
+    }
+
+    DaemonInput input = new FileInput(dir, 10);
+    this.queue.inputStarted();
+    input.start(this.queue, this.executor);
+    assertEquals(Arrays.asList("a", "b", "c"), read(3));
+
+    /*
+     * Files added later are read and files already read are not read again.
+     */
+    Files.write(new File(dir, "3.log").toPath(), "d\n".getBytes());
+    assertEquals(Collections.singletonList("d"), read(1));
+
+    input.close();
+  }
+
+  @Test
+  public void testTcpInput() throws Exception {
+    TcpInput input = (TcpInput) DaemonInputFactory.newInstance("tcp://127.0.0.1:0",
+        new DaemonHandlerConfig());
+    input.start(this.queue, this.executor);
+
+    try (Socket socket = new Socket("127.0.0.1", input.getPort())) {
+      socket.getOutputStream().write("a\nb\n".getBytes());
+    }
+
+    assertEquals(Arrays.asList("a", "b"), read(2));
+    input.close();
+  }
+
+  @Test
+  public void testHttpInput() throws Exception {
+    HttpInput input = (HttpInput) DaemonInputFactory.newInstance("http://127.0.0.1:0",
+        new DaemonHandlerConfig());
+    input.start(this.queue, this.executor);
+
+    HttpURLConnection conn = (HttpURLConnection) new URL(
+        "http://127.0.0.1:" + input.getPort() + "/events").openConnection();
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    conn.getOutputStream().write("a\nb\n".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(200, conn.getResponseCode());
+    assertEquals(Arrays.asList("a", "b"), read(2));
+    input.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedInput() {
+    DaemonInputFactory.newInstance("kafka://localhost:9092", new DaemonHandlerConfig());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingFile() throws IOException {
+    new FileInput(new File(this.folder.getRoot(), "missing"), 10).start(this.queue,
+        this.executor);
+  }
+}
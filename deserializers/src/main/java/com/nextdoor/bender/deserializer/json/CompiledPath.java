@@ -0,0 +1,303 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+
+/**
+ * A JsonPath made only of member names and array indexes, such as "$.a.b[0]['c.d']", compiled
+ * into direct lookups on Gson JsonObjects and JsonArrays or on Maps and Lists. This avoids the
+ * overhead of the generic Jayway evaluator for the simple paths most configurations use.
+ *
+ * Results match Jayway with {@link com.jayway.jsonpath.Option#SUPPRESS_EXCEPTIONS} and
+ * {@link com.jayway.jsonpath.Option#DEFAULT_PATH_LEAF_TO_NULL}. Changes which Jayway would either
+ * ignore or reject, such as setting a member of a missing object, are not attempted so that the
+ * caller can hand them to Jayway instead.
+ */
+final class CompiledPath {
+  /**
+   * Placeholder for paths which can not be compiled so that callers can cache the result of
+   * {@link #compile(String)} either way. Must not be evaluated.
+   */
+  static final CompiledPath UNSUPPORTED = new CompiledPath(null);
+
+  /*
+   * Member names as Strings and array indexes as Integers.
+   */
+  private final Object[] segments;
+
+  private CompiledPath(Object[] segments) {
+    this.segments = segments;
+  }
+
+  /**
+   * @param path JsonPath with or without the leading "$.".
+   * @return compiled path or null if the path uses anything other than member names and
+   *         non-negative array indexes.
+   */
+  static CompiledPath compile(String path) {
+    List<Object> segments = new ArrayList<Object>(4);
+    int i = 0;
+
+    if (path.startsWith("$")) {
+      i = 1;
+    } else if (!path.isEmpty() && path.charAt(0) != '.' && path.charAt(0) != '[') {
+      path = "." + path;
+    }
+
+    while (i < path.length()) {
+      char c = path.charAt(i);
+
+      if (c == '.') {
+        int end = i + 1;
+        while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+          end++;
+        }
+
+        String name = path.substring(i + 1, end);
+        if (!isPlainName(name)) {
+          return null;
+        }
+
+        segments.add(name);
+        i = end;
+      } else if (c == '[' && i + 1 < path.length()
+          && (path.charAt(i + 1) == '\'' || path.charAt(i + 1) == '"')) {
+        char quote = path.charAt(i + 1);
+        int close = path.indexOf(quote, i + 2);
+        if (close < 0 || close + 1 >= path.length() || path.charAt(close + 1) != ']') {
+          return null;
+        }
+
+        String name = path.substring(i + 2, close);
+        if (name.indexOf('\\') >= 0) {
+          return null;
+        }
+
+        segments.add(name);
+        i = close + 2;
+      } else if (c == '[') {
+        int close = path.indexOf(']', i + 1);
+        if (close < 0) {
+          return null;
+        }
+
+        String index = path.substring(i + 1, close);
+        if (index.isEmpty() || index.length() > 9) {
+          return null;
+        }
+        for (int j = 0; j < index.length(); j++) {
+          if (index.charAt(j) < '0' || index.charAt(j) > '9') {
+            return null;
+          }
+        }
+
+        segments.add(Integer.valueOf(index));
+        i = close + 1;
+      } else {
+        return null;
+      }
+    }
+
+    /*
+     * The root itself can not be replaced or removed
+     */
+    if (segments.isEmpty()) {
+      return null;
+    }
+
+    return new CompiledPath(segments.toArray());
+  }
+
+  /**
+   * Rejects wildcards, functions such as "length()", deep scans and anything else which is not a
+   * plain member name.
+   */
+  private static boolean isPlainName(String name) {
+    if (name.isEmpty()) {
+      return false;
+    }
+
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isWhitespace(c) || "*()?@,:'\"\\]".indexOf(c) >= 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * @param root JsonObject or Map.
+   * @param provider JsonProvider matching the type of root.
+   * @return value at the path. A member missing from an existing Gson object is returned as
+   *         JsonNull, as Jayway does, and anything else which is missing as null.
+   */
+  Object read(Object root, JsonProvider provider) {
+    Object value = find(root);
+
+    /*
+     * Jayway hands back Gson numbers, objects and arrays after unwrapping and wrapping them again
+     * which normalizes numbers and copies objects without their null members. Do the same so
+     * that results do not depend on whether a path was compiled. Strings and booleans are
+     * unchanged by this.
+     */
+    if (value instanceof JsonElement && !(value instanceof JsonNull)
+        && !(value instanceof JsonPrimitive && !((JsonPrimitive) value).isNumber())) {
+      Object wrapper = provider.createArray();
+      provider.setArrayIndex(wrapper, 0, provider.unwrap(value));
+      return ((JsonArray) wrapper).get(0);
+    }
+
+    return value;
+  }
+
+  private Object find(Object root) {
+    Object node = root;
+    int last = this.segments.length - 1;
+
+    for (int i = 0; i <= last; i++) {
+      Object segment = this.segments[i];
+
+      if (segment instanceof String) {
+        if (node instanceof JsonObject) {
+          JsonElement child = ((JsonObject) node).get((String) segment);
+          if (child == null) {
+            return i == last ? JsonNull.INSTANCE : null;
+          }
+          node = child;
+        } else if (node instanceof Map) {
+          node = ((Map<?, ?>) node).get(segment);
+          if (node == null) {
+            return null;
+          }
+        } else {
+          return null;
+        }
+      } else {
+        int index = (Integer) segment;
+        if (node instanceof JsonArray && index < ((JsonArray) node).size()) {
+          node = ((JsonArray) node).get(index);
+        } else if (node instanceof List && index < ((List<?>) node).size()) {
+          node = ((List<?>) node).get(index);
+        } else {
+          return null;
+        }
+      }
+    }
+
+    return node;
+  }
+
+  /**
+   * Sets the value at the path if the object or array it is in exists.
+   *
+   * @param root JsonObject or Map.
+   * @param value new value which the provider converts as needed.
+   * @param provider JsonProvider matching the type of root.
+   * @return false if nothing was changed because the parent of the value does not exist or the
+   *         index is out of bounds.
+   */
+  boolean set(Object root, Object value, JsonProvider provider) {
+    Object parent = parent(root);
+    Object segment = this.segments[this.segments.length - 1];
+
+    if (segment instanceof String && isObject(parent)) {
+      provider.setProperty(parent, segment, value);
+      return true;
+    } else if (segment instanceof Integer && (Integer) segment < length(parent)) {
+      provider.setArrayIndex(parent, (Integer) segment, value);
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Removes the value at the path if it exists.
+   *
+   * @param root JsonObject or Map.
+   * @param provider JsonProvider matching the type of root.
+   * @return false if nothing was changed because the parent of the value does not exist or the
+   *         index is out of bounds.
+   */
+  boolean delete(Object root, JsonProvider provider) {
+    Object parent = parent(root);
+    Object segment = this.segments[this.segments.length - 1];
+
+    if ((segment instanceof String && isObject(parent))
+        || (segment instanceof Integer && (Integer) segment < length(parent))) {
+      provider.removeProperty(parent, segment);
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * @return object or array the last segment refers to a member of or null if it does not exist.
+   */
+  private Object parent(Object root) {
+    Object node = root;
+
+    for (int i = 0; i < this.segments.length - 1; i++) {
+      Object segment = this.segments[i];
+
+      if (segment instanceof String) {
+        if (node instanceof JsonObject) {
+          node = ((JsonObject) node).get((String) segment);
+        } else if (node instanceof Map) {
+          node = ((Map<?, ?>) node).get(segment);
+        } else {
+          return null;
+        }
+      } else if ((Integer) segment < length(node)) {
+        node = node instanceof JsonArray ? ((JsonArray) node).get((Integer) segment)
+            : ((List<?>) node).get((Integer) segment);
+      } else {
+        return null;
+      }
+    }
+
+    return node;
+  }
+
+  private static boolean isObject(Object node) {
+    return node instanceof JsonObject || node instanceof Map;
+  }
+
+  /**
+   * @return number of elements if node is an array or -1.
+   */
+  private static int length(Object node) {
+    if (node instanceof JsonArray) {
+      return ((JsonArray) node).size();
+    } else if (node instanceof List) {
+      return ((List<?>) node).size();
+    }
+    return -1;
+  }
+}
@@ -15,6 +15,11 @@
 
 package com.nextdoor.bender.deserializer.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.google.gson.JsonElement;
@@ -49,8 +54,6 @@ public class GenericJsonDeserializer extends Deserializer {
 
   @Override
   public DeserializedEvent deserialize(String raw) {
-    GenericJsonEvent devent = new GenericJsonEvent(null);
-
     JsonElement elm;
     try {
       elm = parser.parse(raw);
@@ -58,6 +61,35 @@ public class GenericJsonDeserializer extends Deserializer {
       throw new DeserializationException(e);
     }
 
+    return toEvent(elm);
+  }
+
+  /**
+   * Parses the JSON directly from the event bytes without first decoding them into a String.
+   */
+  @Override
+  public DeserializedEvent deserialize(ByteBuffer raw) {
+    if (!raw.hasArray()) {
+      return super.deserialize(raw);
+    }
+
+    Reader reader = new InputStreamReader(
+        new ByteArrayInputStream(raw.array(), raw.arrayOffset() + raw.position(), raw.remaining()),
+        StandardCharsets.UTF_8);
+
+    JsonElement elm;
+    try {
+      elm = parser.parse(reader);
+    } catch (JsonParseException e) {
+      throw new DeserializationException(e);
+    }
+
+    return toEvent(elm);
+  }
+
+  private DeserializedEvent toEvent(JsonElement elm) {
+    GenericJsonEvent devent = new GenericJsonEvent(null);
+
     if (!elm.isJsonObject()) {
       throw new DeserializationException("event is not a json object");
     }
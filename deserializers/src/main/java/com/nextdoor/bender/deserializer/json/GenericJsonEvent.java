@@ -15,6 +15,11 @@
 
 package com.nextdoor.bender.deserializer.json;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
@@ -25,16 +30,42 @@ import com.nextdoor.bender.deserializer.FieldNotFoundException;
 
 /**
  * Basic wrapper around an arbitrary JSON object.
+ *
+ * Copies made with {@link #copy()} share the payload with the original rather than deep copying it.
+ * Shared nodes are never modified. Before modifying a field an event copies the root object and
+ * the top level member the field is in, so copies which modify different members only duplicate
+ * those members. {@link #getPayload()} hands out the whole object for modification and therefore
+ * copies every member which is still shared.
  */
 public class GenericJsonEvent implements DeserializedEvent {
   private JsonObject payload;
 
+  /*
+   * True when the payload may be referenced by copies of this event.
+   */
+  private boolean shared = false;
+
+  /*
+   * Top level members of a shared payload which this event has copied and may modify. Null until
+   * the root object is copied.
+   */
+  private Set<String> ownedMembers = null;
+
   public GenericJsonEvent(JsonObject payload) {
     this.payload = payload;
   }
 
   @Override
   public Object getPayload() {
+    unshare();
+    return payload;
+  }
+
+  /**
+   * The returned object may be shared with copies of this event and must not be modified.
+   */
+  @Override
+  public Object getReadOnlyPayload() {
     return payload;
   }
 
@@ -45,10 +76,26 @@ public class GenericJsonEvent implements DeserializedEvent {
    */
   protected void setPayload(JsonObject payload) {
     this.payload = payload;
+    this.shared = false;
+    this.ownedMembers = null;
   }
 
   @Override
   public Object getField(String field) throws FieldNotFoundException {
+    Object obj = read(field);
+
+    /*
+     * Callers may modify objects and arrays they are given so shared ones are copied.
+     */
+    if (this.shared && obj instanceof JsonElement && !(obj instanceof JsonPrimitive)
+        && !isOwned(field)) {
+      return ((JsonElement) obj).deepCopy();
+    }
+
+    return obj;
+  }
+
+  private Object read(String field) throws FieldNotFoundException {
     if (this.payload == null) {
       throw new FieldNotFoundException(field + " is not in payload because payload is null");
     }
@@ -77,7 +124,7 @@ public class GenericJsonEvent implements DeserializedEvent {
 
   @Override
   public void setPayload(Object object) {
-    this.payload = (JsonObject) object;
+    setPayload((JsonObject) object);
   }
 
   @Override
@@ -90,12 +137,13 @@ public class GenericJsonEvent implements DeserializedEvent {
       fieldName = "$." + fieldName;
     }
 
+    unshare(fieldName);
     JsonPathProvider.setField(this.payload, value, fieldName);
   }
 
   @Override
   public String getFieldAsString(String fieldName) throws FieldNotFoundException {
-    Object obj = getField(fieldName);
+    Object obj = read(fieldName);
 
     if (obj == null) {
       return null;
@@ -118,7 +166,8 @@ public class GenericJsonEvent implements DeserializedEvent {
       throw new FieldNotFoundException(fieldName + " is not in payload because payload is null");
     }
 
-    Object o = getField(fieldName);
+    unshare(fieldName);
+    Object o = read(fieldName);
     JsonPathProvider.delete(this.payload, fieldName);
     return o;
   }
@@ -129,15 +178,118 @@ public class GenericJsonEvent implements DeserializedEvent {
       return;
     }
 
+    unshare(fieldName);
     JsonPathProvider.delete(this.payload, fieldName);
   }
 
+  /**
+   * Returns a copy which shares the payload with this event. Both events copy the parts of the
+   * payload they modify afterwards.
+   */
   @Override
   public GenericJsonEvent copy() {
+    GenericJsonEvent copy = new GenericJsonEvent(this.payload);
+
     if (this.payload != null) {
-      return new GenericJsonEvent(this.payload.deepCopy());
+      /*
+       * Members this event already copied become shared with the new copy.
+       */
+      this.shared = true;
+      this.ownedMembers = null;
+      copy.shared = true;
+    }
+
+    return copy;
+  }
+
+  /**
+   * Makes every member of the payload safe to modify.
+   */
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    }
+
+    if (this.ownedMembers == null) {
+      this.payload = this.payload.deepCopy();
     } else {
-      return new GenericJsonEvent(null);
+      for (String member : new ArrayList<String>(this.payload.keySet())) {
+        if (!this.ownedMembers.contains(member)) {
+          this.payload.add(member, this.payload.get(member).deepCopy());
+        }
+      }
     }
+
+    this.shared = false;
+    this.ownedMembers = null;
+  }
+
+  /**
+   * Makes the part of the payload a path refers to safe to modify. Only the root object and the
+   * top level member the path is in are copied. Paths which can refer to more than one top level
+   * member copy the whole payload.
+   *
+   * @param path JsonPath about to be modified.
+   */
+  private void unshare(String path) {
+    if (!this.shared) {
+      return;
+    }
+
+    String member = getTopLevelMember(path);
+    if (member == null) {
+      unshare();
+      return;
+    }
+
+    if (this.ownedMembers == null) {
+      JsonObject root = new JsonObject();
+      for (Map.Entry<String, JsonElement> entry : this.payload.entrySet()) {
+        root.add(entry.getKey(), entry.getValue());
+      }
+
+      this.payload = root;
+      this.ownedMembers = new HashSet<String>();
+    }
+
+    if (this.ownedMembers.add(member)) {
+      JsonElement value = this.payload.get(member);
+      if (value != null) {
+        this.payload.add(member, value.deepCopy());
+      }
+    }
+  }
+
+  private boolean isOwned(String path) {
+    if (this.ownedMembers == null) {
+      return false;
+    }
+
+    String member = getTopLevelMember(path);
+    return member != null && this.ownedMembers.contains(member);
+  }
+
+  /**
+   * @param path JsonPath with or without the leading "$.".
+   * @return name of the top level member a simple path such as "$.a.b[0]" is in or null if the
+   *         path uses other syntax.
+   */
+  static String getTopLevelMember(String path) {
+    int start = path.startsWith("$.") ? 2 : 0;
+    int end = start;
+
+    while (end < path.length()) {
+      char c = path.charAt(end);
+      if (c == '.' || c == '[') {
+        break;
+      }
+
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+        return null;
+      }
+      end++;
+    }
+
+    return end == start ? null : path.substring(start, end);
   }
 }
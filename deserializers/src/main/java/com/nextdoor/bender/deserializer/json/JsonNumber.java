@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.math.BigDecimal;
+
+import com.nextdoor.bender.serializer.JsonText;
+
+/**
+ * A JSON number which keeps the text it was parsed from. Values such as "1.50" or "1e3" are
+ * written out exactly as they were read, the same as Gson's own tree does, rather than being
+ * reformatted or losing precision by going through a double. Gson instances serializing payloads
+ * need {@link JsonText#register(com.google.gson.GsonBuilder)}.
+ */
+public final class JsonNumber extends Number implements JsonText {
+  private static final long serialVersionUID = -2836582120412632468L;
+
+  private final String text;
+
+  JsonNumber(String text) {
+    this.text = text;
+  }
+
+  @Override
+  public int intValue() {
+    try {
+      return Integer.parseInt(this.text);
+    } catch (NumberFormatException e) {
+      return (int) longValue();
+    }
+  }
+
+  @Override
+  public long longValue() {
+    try {
+      return Long.parseLong(this.text);
+    } catch (NumberFormatException e) {
+      return new BigDecimal(this.text).longValue();
+    }
+  }
+
+  @Override
+  public float floatValue() {
+    return Float.parseFloat(this.text);
+  }
+
+  @Override
+  public double doubleValue() {
+    return Double.parseDouble(this.text);
+  }
+
+  /**
+   * @return the JSON text of the number.
+   */
+  @Override
+  public String toString() {
+    return this.text;
+  }
+
+  @Override
+  public String toJson() {
+    return this.text;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof JsonNumber && this.text.equals(((JsonNumber) obj).text);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.text.hashCode();
+  }
+}
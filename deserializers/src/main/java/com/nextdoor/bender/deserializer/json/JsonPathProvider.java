@@ -24,8 +24,10 @@ import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.Predicate;
 import com.jayway.jsonpath.spi.json.GsonJsonProvider;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import com.jayway.jsonpath.spi.mapper.GsonMappingProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
 
 /**
@@ -60,7 +62,15 @@ public class JsonPathProvider {
     });
   }
 
-  private static final Configuration CONFIG = Configuration.defaultConfiguration();
+  static final Configuration CONFIG = Configuration.defaultConfiguration();
+
+  /**
+   * Configuration for documents made of plain Maps, Lists and boxed primitives such as those
+   * produced by {@link StreamingJsonDeserializer}. Uses the same options as the Gson defaults.
+   */
+  public static final Configuration MAP_CONFIG = Configuration.builder()
+      .jsonProvider(new JacksonJsonProvider()).mappingProvider(new JacksonMappingProvider())
+      .options(CONFIG.getOptions()).build();
 
   /*
    * As an optimization cache the compiled JsonPaths. This cache isn't expected to grow every large
@@ -81,18 +91,74 @@ public class JsonPathProvider {
     return path;
   }
 
+  /*
+   * Most paths in configurations are plain member names and indexes. Those are evaluated directly
+   * which is much cheaper than going through JsonPath. Paths using filters, wildcards, deep scans
+   * or functions still use JsonPath.
+   */
+  private static final ConcurrentHashMap<String, CompiledPath> COMPILED_CACHE =
+      new ConcurrentHashMap<String, CompiledPath>();
+
+  /**
+   * @return compiled path or null if the path must be evaluated by JsonPath.
+   */
+  private static CompiledPath getCompiledPath(String pathStr) {
+    CompiledPath path;
+
+    if ((path = COMPILED_CACHE.get(pathStr)) == null) {
+      path = CompiledPath.compile(pathStr);
+      COMPILED_CACHE.put(pathStr, path == null ? CompiledPath.UNSUPPORTED : path);
+    }
+
+    return path == CompiledPath.UNSUPPORTED ? null : path;
+  }
+
   public static void setField(Object jsonObject, Object newVal, String pathStr) {
-    JsonPath path = getPath(pathStr);
-    path.set(jsonObject, newVal, CONFIG);
+    setField(jsonObject, newVal, pathStr, CONFIG);
   }
 
   public static <T> T read(Object jsonObject, String pathStr, Predicate... filters) {
+    if (filters.length == 0) {
+      return read(jsonObject, pathStr, CONFIG);
+    }
+
     JsonPath path = getPath(pathStr);
     return path.read(jsonObject);
   }
 
   public static void delete(Object json, String pathStr) {
+    delete(json, pathStr, CONFIG);
+  }
+
+  public static void setField(Object jsonObject, Object newVal, String pathStr,
+      Configuration config) {
+    CompiledPath compiled = getCompiledPath(pathStr);
+    if (compiled != null && compiled.set(jsonObject, newVal, config.jsonProvider())) {
+      return;
+    }
+
+    JsonPath path = getPath(pathStr);
+    path.set(jsonObject, newVal, config);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> T read(Object jsonObject, String pathStr, Configuration config) {
+    CompiledPath compiled = getCompiledPath(pathStr);
+    if (compiled != null) {
+      return (T) compiled.read(jsonObject, config.jsonProvider());
+    }
+
+    JsonPath path = getPath(pathStr);
+    return path.read(jsonObject, config);
+  }
+
+  public static void delete(Object json, String pathStr, Configuration config) {
+    CompiledPath compiled = getCompiledPath(pathStr);
+    if (compiled != null && compiled.delete(json, config.jsonProvider())) {
+      return;
+    }
+
     JsonPath path = getPath(pathStr);
-    path.delete(json, CONFIG);
+    path.delete(json, config);
   }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The leading object members a JsonPath refers to. For example "$.a['b'].c" is made of the members
+ * a, b and c while "$.a.b[0].c" starts with the members a and b and then uses other syntax.
+ */
+final class MemberPath {
+  /*
+   * Names of the leading member segments of the path.
+   */
+  final List<String> members;
+
+  /*
+   * True if the path only consists of member segments.
+   */
+  final boolean complete;
+
+  private MemberPath(List<String> members, boolean complete) {
+    this.members = members;
+    this.complete = complete;
+  }
+
+  /**
+   * @param path JsonPath with or without the leading "$.".
+   * @return members the path starts with.
+   */
+  static MemberPath parse(String path) {
+    List<String> members = new ArrayList<String>(4);
+    int i = 0;
+
+    if (path.startsWith("$")) {
+      i = 1;
+    } else if (!path.isEmpty() && path.charAt(0) != '.' && path.charAt(0) != '[') {
+      path = "." + path;
+    }
+
+    while (i < path.length()) {
+      char c = path.charAt(i);
+      int end;
+      String name;
+
+      if (c == '.') {
+        end = i + 1;
+        while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+          end++;
+        }
+        name = path.substring(i + 1, end);
+
+        /*
+         * Deep scans ("..") and wildcards may refer to any member
+         */
+        if (name.isEmpty() || name.equals("*")) {
+          return new MemberPath(members, false);
+        }
+      } else if (path.startsWith("['", i)) {
+        int close = path.indexOf("']", i + 2);
+        if (close < 0) {
+          return new MemberPath(members, false);
+        }
+        name = path.substring(i + 2, close);
+        end = close + 2;
+
+        /*
+         * Bracket notation can list several members or contain escapes
+         */
+        if (name.indexOf('\'') >= 0 || name.indexOf('\\') >= 0) {
+          return new MemberPath(members, false);
+        }
+      } else {
+        return new MemberPath(members, false);
+      }
+
+      members.add(name);
+      i = end;
+    }
+
+    return new MemberPath(members, true);
+  }
+}
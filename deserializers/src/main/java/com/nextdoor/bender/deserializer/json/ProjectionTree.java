@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Object members which must be parsed. Members which are not in the tree are kept as
+ * {@link RawJson}. A node marked as full is parsed along with everything it contains.
+ */
+final class ProjectionTree {
+  private final Map<String, ProjectionTree> children = new HashMap<String, ProjectionTree>();
+  private boolean full = false;
+
+  /**
+   * Marks the value at the end of a chain of members to be fully parsed. Paths which continue with
+   * other syntax, such as an array index, may use anything below their last member so only their
+   * leading members are added.
+   *
+   * @param members members leading to the value.
+   * @return false if the members are empty in which case nothing can be skipped.
+   */
+  boolean add(List<String> members) {
+    if (members.isEmpty()) {
+      return false;
+    }
+
+    getOrAdd(members).full = true;
+    return true;
+  }
+
+  /**
+   * @param members members leading to a value.
+   * @return node for the value, adding nodes for the members which are not in the tree yet.
+   */
+  ProjectionTree getOrAdd(List<String> members) {
+    ProjectionTree node = this;
+    for (String member : members) {
+      node = node.children.computeIfAbsent(member, k -> new ProjectionTree());
+    }
+    return node;
+  }
+
+  /**
+   * @return node for a member or null if the member does not need to be parsed.
+   */
+  ProjectionTree get(String member) {
+    return this.children.get(member);
+  }
+
+  boolean isFull() {
+    return this.full;
+  }
+}
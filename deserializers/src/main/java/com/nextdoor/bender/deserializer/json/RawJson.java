@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.nextdoor.bender.serializer.JsonText;
+
+/**
+ * A JSON value which was not parsed. It refers to the bytes of the original event and is written
+ * out verbatim by the JSON serializer. Gson instances serializing payloads need
+ * {@link JsonText#register(com.google.gson.GsonBuilder)}, which writes the same value but not its
+ * original whitespace.
+ */
+public final class RawJson implements JsonText {
+  private final byte[] bytes;
+  private final int offset;
+  private final int length;
+
+  RawJson(byte[] bytes, int offset, int length) {
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * @return the value parsed into Maps, Lists and boxed primitives.
+   * @throws IOException if the value is not valid JSON.
+   */
+  Object parse() throws IOException {
+    try (JsonParser parser =
+        StreamingJsonDeserializer.FACTORY.createParser(this.bytes, this.offset, this.length)) {
+      return StreamingJsonDeserializer.parse(parser);
+    }
+  }
+
+  /**
+   * @return the JSON text of the value.
+   */
+  @Override
+  public String toString() {
+    return new String(this.bytes, this.offset, this.length, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toJson() {
+    return toString();
+  }
+}
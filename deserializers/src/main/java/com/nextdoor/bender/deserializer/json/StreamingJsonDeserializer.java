@@ -0,0 +1,363 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jayway.jsonpath.InvalidPathException;
+import com.nextdoor.bender.deserializer.DeserializationException;
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.Deserializer;
+import com.nextdoor.bender.deserializer.FieldProjection;
+import com.nextdoor.bender.deserializer.json.GenericJsonDeserializerConfig.FieldConfig;
+
+/**
+ * Deserializes JSON objects with a streaming Jackson {@link JsonParser} into plain Maps, Lists,
+ * Strings, {@link JsonNumber}s and Booleans rather than a Gson tree. Numbers keep their original
+ * text so that they are written out unchanged. The event bytes are parsed directly without first
+ * being decoded into a String. Nested JSON strings and root node overrides are handled the same
+ * way as {@link GenericJsonDeserializer}.
+ *
+ * When projected fields are set only those are parsed. Other members are skipped by the parser and
+ * kept as {@link RawJson} referring to the event bytes which are written out verbatim when
+ * serialized. Events parse skipped members the first time a path into them is used.
+ */
+public class StreamingJsonDeserializer extends Deserializer implements FieldProjection {
+  /*
+   * JsonFactory is thread safe and expensive to create.
+   */
+  static final JsonFactory FACTORY = new JsonFactory();
+
+  private final List<FieldConfig> nestedFieldConfigs;
+  private final String rootNodeOverridePath;
+
+  /*
+   * Members to parse or null to parse everything.
+   */
+  private ProjectionTree projection = null;
+
+  public StreamingJsonDeserializer(List<FieldConfig> nestedFieldConfigs) {
+    this(nestedFieldConfigs, null);
+  }
+
+  public StreamingJsonDeserializer(List<FieldConfig> nestedFieldConfigs,
+      String rootNodeOverridePath) {
+    this.nestedFieldConfigs = nestedFieldConfigs;
+    this.rootNodeOverridePath = rootNodeOverridePath;
+  }
+
+  @Override
+  public void setProjectedFields(Collection<String> fields) {
+    this.projection = null;
+    if (fields == null) {
+      return;
+    }
+
+    /*
+     * Fields are relative to the root node override
+     */
+    List<String> root = new ArrayList<String>();
+    if (this.rootNodeOverridePath != null) {
+      MemberPath rootPath = MemberPath.parse(this.rootNodeOverridePath);
+      if (!rootPath.complete) {
+        return;
+      }
+      root.addAll(rootPath.members);
+    }
+
+    ProjectionTree tree = new ProjectionTree();
+    for (FieldConfig fconfig : this.nestedFieldConfigs) {
+      tree.add(Collections.singletonList(fconfig.getField()));
+    }
+
+    for (String field : fields) {
+      List<String> members = new ArrayList<String>(root);
+      members.addAll(MemberPath.parse(field).members);
+      if (!tree.add(members)) {
+        return;
+      }
+    }
+
+    /*
+     * The path to the root node must be parsed even if no field in it is used
+     */
+    tree.getOrAdd(root);
+
+    this.projection = tree;
+  }
+
+  @Override
+  public DeserializedEvent deserialize(String raw) {
+    if (this.projection != null) {
+      byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+      return deserialize(bytes, 0, bytes.length);
+    }
+
+    try (JsonParser parser = FACTORY.createParser(raw)) {
+      return toEvent(parse(parser));
+    } catch (IOException e) {
+      throw new DeserializationException(e);
+    }
+  }
+
+  @Override
+  public DeserializedEvent deserialize(ByteBuffer raw) {
+    if (!raw.hasArray()) {
+      return super.deserialize(raw);
+    }
+
+    return deserialize(raw.array(), raw.arrayOffset() + raw.position(), raw.remaining());
+  }
+
+  private DeserializedEvent deserialize(byte[] bytes, int offset, int length) {
+    try (JsonParser parser = FACTORY.createParser(bytes, offset, length)) {
+      if (this.projection == null) {
+        return toEvent(parse(parser));
+      }
+
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        throw new DeserializationException("empty input");
+      }
+
+      /*
+       * Offsets reported by the parser may not account for where the input starts in the array
+       * so they are adjusted by where the first token actually is.
+       */
+      int start = offset;
+      while (start < offset + length && isWhitespace(bytes[start])) {
+        start++;
+      }
+      long delta = start - parser.getTokenLocation().getByteOffset();
+
+      Object value = readProjected(parser, token, this.projection, bytes, delta, offset + length);
+      if (parser.nextToken() != null) {
+        throw new DeserializationException("unexpected data after json value");
+      }
+
+      return toEvent(value);
+    } catch (IOException e) {
+      throw new DeserializationException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private DeserializedEvent toEvent(Object parsed) {
+    if (!(parsed instanceof Map)) {
+      throw new DeserializationException("event is not a json object");
+    }
+
+    Map<String, Object> obj = (Map<String, Object>) parsed;
+
+    /*
+     * Convert fields which are nested json strings into json objects
+     */
+    for (FieldConfig fconfig : this.nestedFieldConfigs) {
+      Object msg = obj.get(fconfig.getField());
+      if (!(msg instanceof String)) {
+        continue;
+      }
+
+      String messageStr = (String) msg;
+      int braceIndex = messageStr.indexOf('{');
+      if (braceIndex == -1) {
+        continue;
+      }
+
+      /*
+       * Only JSON objects are supported for nested payloads. No primitives or arrays.
+       */
+      Object nested;
+      try (JsonParser parser = FACTORY.createParser(messageStr.substring(braceIndex))) {
+        nested = parse(parser);
+      } catch (IOException | DeserializationException e) {
+        continue;
+      }
+
+      if (!(nested instanceof Map)) {
+        continue;
+      }
+
+      obj.put(fconfig.getField(), nested);
+
+      /*
+       * If the string contained data before the JSON store it in a new field
+       */
+      if (fconfig.getPrefixField() != null) {
+        obj.put(fconfig.getPrefixField(), messageStr.substring(0, braceIndex));
+      }
+    }
+
+    if (this.rootNodeOverridePath != null) {
+      Object o;
+      try {
+        o = JsonPathProvider.read(obj, this.rootNodeOverridePath, JsonPathProvider.MAP_CONFIG);
+      } catch (InvalidPathException e) {
+        throw new DeserializationException(e);
+      }
+
+      if (!(o instanceof Map)) {
+        throw new DeserializationException(rootNodeOverridePath + " path not found in object");
+      }
+      obj = (Map<String, Object>) o;
+    }
+
+    return new StreamingJsonEvent(obj, this.projection != null);
+  }
+
+  /**
+   * Reads a single JSON value and verifies nothing but whitespace follows it.
+   */
+  static Object parse(JsonParser parser) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == null) {
+      throw new DeserializationException("empty input");
+    }
+
+    Object value = readValue(parser, token);
+
+    if (parser.nextToken() != null) {
+      throw new DeserializationException("unexpected data after json value");
+    }
+
+    return value;
+  }
+
+  private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.getCurrentName();
+          map.put(name, readValue(parser, parser.nextToken()));
+        }
+        return map;
+      case START_ARRAY:
+        List<Object> list = new ArrayList<Object>();
+        JsonToken next;
+        while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+          list.add(readValue(parser, next));
+        }
+        return list;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return new JsonNumber(parser.getText());
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new DeserializationException("unexpected token " + token);
+    }
+  }
+
+  /**
+   * Reads a value parsing only the members in the projection.
+   *
+   * @param limit end of the input in the array.
+   */
+  private static Object readProjected(JsonParser parser, JsonToken token, ProjectionTree node,
+      byte[] bytes, long delta, int limit) throws IOException {
+    if (node.isFull() || token != JsonToken.START_OBJECT) {
+      return readValue(parser, token);
+    }
+
+    Map<String, Object> map = new LinkedHashMap<String, Object>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken valueToken = parser.nextToken();
+      ProjectionTree child = node.get(name);
+
+      if (child != null) {
+        map.put(name, readProjected(parser, valueToken, child, bytes, delta, limit));
+        continue;
+      }
+
+      int start = (int) (parser.getTokenLocation().getByteOffset() + delta);
+      int end;
+      switch (valueToken) {
+        case START_OBJECT:
+        case START_ARRAY:
+          parser.skipChildren();
+          end = (int) (parser.getCurrentLocation().getByteOffset() + delta);
+          map.put(name, new RawJson(bytes, start, end - start));
+          break;
+        case VALUE_STRING:
+          /*
+           * The parser skips the contents of the string without decoding it when the next token
+           * is read.
+           */
+          map.put(name, new RawJson(bytes, start, stringEnd(bytes, start, limit) - start));
+          break;
+        case VALUE_NULL:
+          /*
+           * Kept as null so serializers which omit null members still do
+           */
+          map.put(name, null);
+          break;
+        default:
+          /*
+           * Numbers and booleans are read completely by the time their token is returned
+           */
+          end = (int) (parser.getCurrentLocation().getByteOffset() + delta);
+          map.put(name, new RawJson(bytes, start, end - start));
+      }
+    }
+
+    return map;
+  }
+
+  /**
+   * @return position after the closing quote of the string starting at start.
+   */
+  private static int stringEnd(byte[] bytes, int start, int limit) {
+    int i = start + 1;
+    while (i < limit) {
+      byte b = bytes[i];
+      if (b == '"') {
+        return i + 1;
+      }
+      i += b == '\\' ? 2 : 1;
+    }
+
+    throw new DeserializationException("unterminated string");
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  /**
+   * The JsonFactory is shared so there is nothing to initialize.
+   */
+  @Override
+  public void init() {}
+}
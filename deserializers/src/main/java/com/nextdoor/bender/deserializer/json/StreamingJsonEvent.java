@@ -0,0 +1,369 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.jayway.jsonpath.InvalidPathException;
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.FieldNotFoundException;
+import com.nextdoor.bender.serializer.JsonText;
+
+/**
+ * Event whose payload is a tree of plain Maps, Lists and boxed primitives as produced by
+ * {@link StreamingJsonDeserializer}. Fields are accessed with the same JsonPath syntax as
+ * {@link GenericJsonEvent} and copies share the payload until either side modifies it.
+ *
+ * The payload may contain {@link RawJson} values for members the deserializer skipped. These are
+ * parsed the first time a path into them is used or the payload is retrieved for modification.
+ * {@link #getReadOnlyPayload()} returns them as is so they can be serialized verbatim.
+ */
+public class StreamingJsonEvent implements DeserializedEvent {
+  /*
+   * Matches the output of Gson's JsonElement.toString() used by GenericJsonEvent.
+   */
+  private static final Gson GSON =
+      JsonText.register(new GsonBuilder()).disableHtmlEscaping().serializeNulls().create();
+
+  private Map<String, Object> payload;
+
+  /*
+   * True when the payload may be referenced by copies of this event.
+   */
+  private boolean shared = false;
+
+  /*
+   * Top level members of a shared payload which this event has copied and may modify. Null until
+   * the root object is copied.
+   */
+  private Set<String> ownedMembers = null;
+
+  /*
+   * True when the payload may contain RawJson values.
+   */
+  private boolean unparsed;
+
+  public StreamingJsonEvent(Map<String, Object> payload) {
+    this(payload, false);
+  }
+
+  /**
+   * @param payload payload object.
+   * @param unparsed true if the payload may contain {@link RawJson} values.
+   */
+  public StreamingJsonEvent(Map<String, Object> payload, boolean unparsed) {
+    this.payload = payload;
+    this.unparsed = unparsed;
+  }
+
+  @Override
+  public Object getPayload() {
+    unshare();
+    if (this.unparsed && this.payload != null) {
+      parseAll(this.payload);
+      this.unparsed = false;
+    }
+    return this.payload;
+  }
+
+  /**
+   * The returned object may be shared with copies of this event and must not be modified.
+   */
+  @Override
+  public Object getReadOnlyPayload() {
+    return this.payload;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void setPayload(Object object) {
+    this.payload = (Map<String, Object>) object;
+    this.shared = false;
+    this.ownedMembers = null;
+  }
+
+  @Override
+  public Object getField(String field) throws FieldNotFoundException {
+    Object obj = read(field);
+
+    /*
+     * Callers may modify objects and arrays they are given so shared ones are copied.
+     */
+    if (this.shared && (obj instanceof Map || obj instanceof List) && !isOwned(field)) {
+      return deepCopy(obj);
+    }
+
+    return obj;
+  }
+
+  private Object read(String field) throws FieldNotFoundException {
+    if (this.payload == null) {
+      throw new FieldNotFoundException(field + " is not in payload because payload is null");
+    }
+
+    if (this.unparsed) {
+      unshare(field);
+      parse(field);
+    }
+
+    Object obj;
+    try {
+      obj = JsonPathProvider.read(this.payload, field, JsonPathProvider.MAP_CONFIG);
+    } catch (InvalidPathException e) {
+      throw new FieldNotFoundException("Field cannot be found because " + field
+          + " is an invalid path");
+    }
+
+    if (obj == null) {
+      throw new FieldNotFoundException(field + " is not in payload.");
+    }
+
+    return obj;
+  }
+
+  @Override
+  public void setField(String fieldName, Object value) throws FieldNotFoundException {
+    if (this.payload == null) {
+      throw new FieldNotFoundException("payload is null");
+    }
+
+    if (!fieldName.startsWith("$.")) {
+      fieldName = "$." + fieldName;
+    }
+
+    unshare(fieldName);
+    if (this.unparsed) {
+      parse(fieldName);
+    }
+    JsonPathProvider.setField(this.payload, value, fieldName, JsonPathProvider.MAP_CONFIG);
+  }
+
+  @Override
+  public String getFieldAsString(String fieldName) throws FieldNotFoundException {
+    Object obj = read(fieldName);
+
+    if (obj instanceof String) {
+      return (String) obj;
+    } else if (obj instanceof Map || obj instanceof List) {
+      return GSON.toJson(obj);
+    }
+
+    return obj.toString();
+  }
+
+  @Override
+  public Object removeField(String fieldName) throws FieldNotFoundException {
+    if (this.payload == null) {
+      throw new FieldNotFoundException(fieldName + " is not in payload because payload is null");
+    }
+
+    unshare(fieldName);
+    Object o = read(fieldName);
+    JsonPathProvider.delete(this.payload, fieldName, JsonPathProvider.MAP_CONFIG);
+    return o;
+  }
+
+  @Override
+  public void deleteField(String fieldName) {
+    if (this.payload == null) {
+      return;
+    }
+
+    unshare(fieldName);
+    if (this.unparsed) {
+      parse(fieldName);
+    }
+    JsonPathProvider.delete(this.payload, fieldName, JsonPathProvider.MAP_CONFIG);
+  }
+
+  /**
+   * Returns a copy which shares the payload with this event. Both events copy the parts of the
+   * payload they modify afterwards.
+   */
+  @Override
+  public StreamingJsonEvent copy() {
+    StreamingJsonEvent copy = new StreamingJsonEvent(this.payload, this.unparsed);
+
+    if (this.payload != null) {
+      this.shared = true;
+      this.ownedMembers = null;
+      copy.shared = true;
+    }
+
+    return copy;
+  }
+
+  /**
+   * Makes every member of the payload safe to modify.
+   */
+  @SuppressWarnings("unchecked")
+  private void unshare() {
+    if (!this.shared) {
+      return;
+    }
+
+    if (this.ownedMembers == null) {
+      this.payload = (Map<String, Object>) deepCopy(this.payload);
+    } else {
+      for (Map.Entry<String, Object> entry : this.payload.entrySet()) {
+        if (!this.ownedMembers.contains(entry.getKey())) {
+          entry.setValue(deepCopy(entry.getValue()));
+        }
+      }
+    }
+
+    this.shared = false;
+    this.ownedMembers = null;
+  }
+
+  /**
+   * Makes the part of the payload a path refers to safe to modify. Only the root object and the
+   * top level member the path is in are copied. Paths which can refer to more than one top level
+   * member copy the whole payload.
+   *
+   * @param path JsonPath about to be modified.
+   */
+  private void unshare(String path) {
+    if (!this.shared) {
+      return;
+    }
+
+    String member = GenericJsonEvent.getTopLevelMember(path);
+    if (member == null) {
+      unshare();
+      return;
+    }
+
+    if (this.ownedMembers == null) {
+      this.payload = new LinkedHashMap<String, Object>(this.payload);
+      this.ownedMembers = new HashSet<String>();
+    }
+
+    if (this.ownedMembers.add(member) && this.payload.containsKey(member)) {
+      this.payload.put(member, deepCopy(this.payload.get(member)));
+    }
+  }
+
+  private boolean isOwned(String path) {
+    if (this.ownedMembers == null) {
+      return false;
+    }
+
+    String member = GenericJsonEvent.getTopLevelMember(path);
+    return member != null && this.ownedMembers.contains(member);
+  }
+
+  /**
+   * Parses the skipped members a path may use. These are the members the path starts with and
+   * everything in the value those lead to.
+   *
+   * @param path JsonPath about to be used.
+   */
+  @SuppressWarnings("unchecked")
+  private void parse(String path) {
+    Object node = this.payload;
+
+    for (String member : MemberPath.parse(path).members) {
+      if (!(node instanceof Map)) {
+        return;
+      }
+
+      Map<String, Object> map = (Map<String, Object>) node;
+      node = map.get(member);
+      if (node instanceof RawJson) {
+        node = parse((RawJson) node);
+        map.put(member, node);
+      }
+    }
+
+    parseAll(node);
+  }
+
+  /**
+   * @param node node of a payload.
+   * @return the node with every {@link RawJson} in it parsed. Maps and Lists are changed in place.
+   */
+  @SuppressWarnings("unchecked")
+  private static Object parseAll(Object node) {
+    if (node instanceof RawJson) {
+      return parse((RawJson) node);
+    } else if (node instanceof Map) {
+      for (Map.Entry<String, Object> entry : ((Map<String, Object>) node).entrySet()) {
+        Object value = entry.getValue();
+        if (value instanceof RawJson || value instanceof Map || value instanceof List) {
+          entry.setValue(parseAll(value));
+        }
+      }
+    } else if (node instanceof List) {
+      ListIterator<Object> it = ((List<Object>) node).listIterator();
+      while (it.hasNext()) {
+        Object value = it.next();
+        if (value instanceof RawJson || value instanceof Map || value instanceof List) {
+          it.set(parseAll(value));
+        }
+      }
+    }
+
+    return node;
+  }
+
+  private static Object parse(RawJson raw) {
+    try {
+      return raw.parse();
+    } catch (IOException e) {
+      /*
+       * The deserializer already checked the value is valid JSON when skipping it
+       */
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @param value node of a payload.
+   * @return copy of Maps and Lists in the node. Other values, including {@link RawJson}, are
+   *         immutable and not copied.
+   */
+  @SuppressWarnings("unchecked")
+  static Object deepCopy(Object value) {
+    if (value instanceof Map) {
+      Map<String, Object> map = (Map<String, Object>) value;
+      Map<String, Object> copy = new LinkedHashMap<String, Object>(map.size() * 4 / 3 + 1);
+      for (Map.Entry<String, Object> entry : map.entrySet()) {
+        copy.put(entry.getKey(), deepCopy(entry.getValue()));
+      }
+      return copy;
+    } else if (value instanceof List) {
+      List<Object> list = (List<Object>) value;
+      List<Object> copy = new ArrayList<Object>(list.size());
+      for (Object o : list) {
+        copy.add(deepCopy(o));
+      }
+      return copy;
+    }
+
+    return value;
+  }
+}
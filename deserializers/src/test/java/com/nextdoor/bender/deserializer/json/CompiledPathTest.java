@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Checks that compiled paths give the same results as JsonPath for both Gson and Map documents.
+ */
+public class CompiledPathTest {
+  private static final String DOC = "{\"a\":{\"b\":\"c\",\"n\":1,\"d\":1.5,\"z\":null,\"l\":[1,{\"x\":2}]},"
+      + "\"a.b\":\"dotted\",\"s\":\"str\",\"arr\":[[1,2],{\"k\":\"v\"}]}";
+
+  private static final List<String> PATHS = Arrays.asList("$.a", "$.a.b", "a.b", "$['a.b']",
+      "$[\"a.b\"]", "$.a['b']", "$.a.z", "$.a.n", "$.a.d", "$.a.missing", "$.missing", "$.missing.x", "$.s.x",
+      "$.a.l[0]", "$.a.l[1].x", "$.a.l[1].missing", "$.a.l[5]", "$.a.l[5].x", "$.arr[0][1]",
+      "$.arr[1].k", "$.arr.k", "$.a[0]", "$.s[0]");
+
+  private static final Configuration GSON_CONFIG = JsonPathProvider.CONFIG;
+
+  private static JsonObject gsonDoc() {
+    return JsonParser.parseString(DOC).getAsJsonObject();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> mapDoc() throws Exception {
+    return new ObjectMapper().readValue(DOC, Map.class);
+  }
+
+  @Test
+  public void testCompile() {
+    for (String path : PATHS) {
+      assertNotNull(path, CompiledPath.compile(path));
+    }
+
+    for (String path : Arrays.asList("$", "", "$..a", "$.*", "$.a[*]", "$.a[-1]", "$.a[0,1]",
+        "$.a[0:1]", "$.a[?(@.b)]", "$.a.length()", "$['a", "$['a'", "$.a.", "$.a[]", "$.a b",
+        "$['a\\'b']", "$['a','b']")) {
+      assertNull(path, CompiledPath.compile(path));
+    }
+  }
+
+  @Test
+  public void testReadGson() {
+    JsonObject doc = gsonDoc();
+
+    for (String path : PATHS) {
+      Object expected = JsonPath.compile(path).read(doc, GSON_CONFIG);
+      assertEquals(path, expected,
+          CompiledPath.compile(path).read(doc, GSON_CONFIG.jsonProvider()));
+    }
+  }
+
+  @Test
+  public void testReadGsonNumber() {
+    JsonObject doc = new JsonObject();
+    doc.addProperty("f", 1.001f);
+    doc.addProperty("i", 10L);
+
+    for (String path : Arrays.asList("$.f", "$.i")) {
+      Object expected = JsonPath.compile(path).read(doc, GSON_CONFIG);
+      assertEquals(path, expected,
+          CompiledPath.compile(path).read(doc, GSON_CONFIG.jsonProvider()));
+    }
+  }
+
+  @Test
+  public void testReadMap() throws Exception {
+    Map<String, Object> doc = mapDoc();
+
+    for (String path : PATHS) {
+      Object expected = JsonPath.compile(path).read(doc, JsonPathProvider.MAP_CONFIG);
+      assertEquals(path, expected,
+          CompiledPath.compile(path).read(doc, JsonPathProvider.MAP_CONFIG.jsonProvider()));
+    }
+  }
+
+  @Test
+  public void testSetGson() {
+    for (String path : PATHS) {
+      JsonObject expected = gsonDoc();
+      JsonObject actual = gsonDoc();
+      Object value = Collections.singletonMap("new", "value");
+
+      try {
+        JsonPath.compile(path).set(expected, value, GSON_CONFIG);
+      } catch (RuntimeException e) {
+        /*
+         * The compiled path must leave these to JsonPath
+         */
+        assertFalse(path, CompiledPath.compile(path).set(actual, value,
+            GSON_CONFIG.jsonProvider()));
+        continue;
+      }
+
+      JsonPathProvider.setField(actual, value, path);
+      assertEquals(path, expected, actual);
+    }
+  }
+
+  @Test
+  public void testSetMap() throws Exception {
+    for (String path : PATHS) {
+      Map<String, Object> expected = mapDoc();
+      Map<String, Object> actual = mapDoc();
+
+      try {
+        JsonPath.compile(path).set(expected, "value", JsonPathProvider.MAP_CONFIG);
+      } catch (RuntimeException e) {
+        assertFalse(path, CompiledPath.compile(path).set(actual, "value",
+            JsonPathProvider.MAP_CONFIG.jsonProvider()));
+        continue;
+      }
+
+      JsonPathProvider.setField(actual, "value", path, JsonPathProvider.MAP_CONFIG);
+      assertEquals(path, expected, actual);
+    }
+  }
+
+  @Test
+  public void testDeleteGson() {
+    for (String path : PATHS) {
+      JsonObject expected = gsonDoc();
+      JsonObject actual = gsonDoc();
+
+      try {
+        JsonPath.compile(path).delete(expected, GSON_CONFIG);
+      } catch (RuntimeException e) {
+        assertFalse(path, CompiledPath.compile(path).delete(actual, GSON_CONFIG.jsonProvider()));
+        continue;
+      }
+
+      JsonPathProvider.delete(actual, path);
+      assertEquals(path, expected, actual);
+    }
+  }
+
+  @Test
+  public void testDeleteMap() throws Exception {
+    for (String path : PATHS) {
+      Map<String, Object> expected = mapDoc();
+      Map<String, Object> actual = mapDoc();
+
+      try {
+        JsonPath.compile(path).delete(expected, JsonPathProvider.MAP_CONFIG);
+      } catch (RuntimeException e) {
+        assertFalse(path, CompiledPath.compile(path).delete(actual,
+            JsonPathProvider.MAP_CONFIG.jsonProvider()));
+        continue;
+      }
+
+      JsonPathProvider.delete(actual, path, JsonPathProvider.MAP_CONFIG);
+      assertEquals(path, expected, actual);
+    }
+  }
+
+  @Test
+  public void testSetArrayIndex() {
+    JsonObject doc = gsonDoc();
+    assertTrue(CompiledPath.compile("$.arr[0][1]").set(doc, 5, GSON_CONFIG.jsonProvider()));
+    assertEquals("[[1,5],{\"k\":\"v\"}]", doc.get("arr").toString());
+  }
+}
@@ -22,6 +22,8 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -149,6 +151,33 @@ public class GenericJsonDeserializerTest {
     getEvent("malformed.json");
   }
 
+  private DeserializedEvent getEventFromBytes(String filename) throws IOException {
+    String input = TestUtils.getResourceString(this.getClass(), filename);
+    GenericJsonDeserializerConfig.FieldConfig fconfig =
+        new GenericJsonDeserializerConfig.FieldConfig();
+    fconfig.setField("MESSAGE");
+    GenericJsonDeserializer deser = new GenericJsonDeserializer(Arrays.asList(fconfig));
+    deser.init();
+
+    /*
+     * Parse from the middle of a larger buffer to verify offsets are honored
+     */
+    byte[] raw = ("xx" + input + "yy").getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buf = ByteBuffer.wrap(raw, 2, raw.length - 4);
+    return deser.deserialize(buf);
+  }
+
+  @Test
+  public void testBytesMatchString() throws IOException {
+    assertEquals(getEvent("nested.json").getPayload(),
+        getEventFromBytes("nested.json").getPayload());
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testMalformedJsonBytes() throws IOException {
+    getEventFromBytes("malformed.json");
+  }
+
   @Test
   public void testNestedOffsetJson() throws UnsupportedEncodingException, IOException {
     DeserializedEvent devent = getEvent("nested_offset.json");
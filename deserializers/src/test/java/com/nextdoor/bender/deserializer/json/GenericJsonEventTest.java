@@ -16,6 +16,8 @@
 package com.nextdoor.bender.deserializer.json;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.util.ArrayList;
@@ -216,4 +218,111 @@ public class GenericJsonEventTest {
       assertEquals(expectedErrorMessage, e.getMessage());
     }
   }
+
+  private GenericJsonEvent getNestedEvent() {
+    JsonParser parser = new JsonParser();
+    JsonObject obj =
+        parser.parse("{\"a\": {\"b\": 1}, \"c\": {\"d\": [1, 2]}}").getAsJsonObject();
+
+    return new GenericJsonEvent(obj);
+  }
+
+  @Test
+  public void testCopySharesPayload() {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy = event.copy();
+
+    assertSame(event.getReadOnlyPayload(), copy.getReadOnlyPayload());
+  }
+
+  @Test
+  public void testCopyOnSetField() throws FieldNotFoundException {
+    GenericJsonEvent event = getNestedEvent();
+    JsonObject original = (JsonObject) event.getReadOnlyPayload();
+    GenericJsonEvent copy = event.copy();
+
+    copy.setField("$.a.b", 2);
+
+    assertEquals("{\"a\":{\"b\":1},\"c\":{\"d\":[1,2]}}", event.getReadOnlyPayload().toString());
+    assertEquals("{\"a\":{\"b\":2},\"c\":{\"d\":[1,2]}}", copy.getReadOnlyPayload().toString());
+
+    /*
+     * Only the modified member is copied.
+     */
+    JsonObject copied = (JsonObject) copy.getReadOnlyPayload();
+    assertSame(original.get("c"), copied.get("c"));
+    assertTrue(original.get("a") != copied.get("a"));
+  }
+
+  @Test
+  public void testCopiesModifyDisjointMembers() throws FieldNotFoundException {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy1 = event.copy();
+    GenericJsonEvent copy2 = event.copy();
+
+    copy1.setField("a.b", 2);
+    copy2.deleteField("$.c.d");
+    copy2.setField("a.e", "x");
+
+    assertEquals("{\"a\":{\"b\":1},\"c\":{\"d\":[1,2]}}", event.getReadOnlyPayload().toString());
+    assertEquals("{\"a\":{\"b\":2},\"c\":{\"d\":[1,2]}}", copy1.getReadOnlyPayload().toString());
+    assertEquals("{\"a\":{\"b\":1,\"e\":\"x\"},\"c\":{}}",
+        copy2.getReadOnlyPayload().toString());
+  }
+
+  @Test
+  public void testOriginalCopiesOnWrite() throws FieldNotFoundException {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy = event.copy();
+
+    assertEquals(1, ((JsonElement) event.removeField("$.a.b")).getAsInt());
+
+    assertEquals("{\"a\":{},\"c\":{\"d\":[1,2]}}", event.getReadOnlyPayload().toString());
+    assertEquals("{\"a\":{\"b\":1},\"c\":{\"d\":[1,2]}}", copy.getReadOnlyPayload().toString());
+  }
+
+  @Test
+  public void testGetPayloadUnshares() {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy = event.copy();
+
+    ((JsonObject) copy.getPayload()).getAsJsonObject("c").remove("d");
+
+    assertEquals("{\"a\":{\"b\":1},\"c\":{\"d\":[1,2]}}", event.getReadOnlyPayload().toString());
+    assertEquals("{\"a\":{\"b\":1},\"c\":{}}", copy.getReadOnlyPayload().toString());
+  }
+
+  @Test
+  public void testGetFieldOfSharedPayload() throws FieldNotFoundException {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy = event.copy();
+
+    ((JsonObject) copy.getField("$.a")).addProperty("e", 1);
+
+    assertEquals("{\"b\":1}", event.getFieldAsString("$.a"));
+  }
+
+  @Test
+  public void testCopyOfModifiedCopy() throws FieldNotFoundException {
+    GenericJsonEvent event = getNestedEvent();
+    GenericJsonEvent copy = event.copy();
+    copy.setField("$.a.b", 2);
+
+    GenericJsonEvent copyOfCopy = copy.copy();
+    copy.setField("$.a.b", 3);
+
+    assertEquals("{\"b\":2}", copyOfCopy.getFieldAsString("$.a"));
+    assertEquals("{\"b\":3}", copy.getFieldAsString("$.a"));
+    assertEquals("{\"b\":1}", event.getFieldAsString("$.a"));
+  }
+
+  @Test
+  public void testTopLevelMember() {
+    assertEquals("a", GenericJsonEvent.getTopLevelMember("$.a.b"));
+    assertEquals("a", GenericJsonEvent.getTopLevelMember("a[0]"));
+    assertEquals("a_b-c", GenericJsonEvent.getTopLevelMember("$.a_b-c"));
+    assertNull(GenericJsonEvent.getTopLevelMember("$..a"));
+    assertNull(GenericJsonEvent.getTopLevelMember("$['a']"));
+    assertNull(GenericJsonEvent.getTopLevelMember("$.*"));
+  }
 }
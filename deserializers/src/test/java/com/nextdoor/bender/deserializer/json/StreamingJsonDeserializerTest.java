@@ -0,0 +1,293 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.deserializer.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.nextdoor.bender.deserializer.DeserializationException;
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.FieldNotFoundException;
+import com.nextdoor.bender.serializer.JsonText;
+import com.nextdoor.bender.testutils.TestUtils;
+
+public class StreamingJsonDeserializerTest {
+  private static final Gson GSON = JsonText.register(new GsonBuilder()).create();
+
+
+  private DeserializedEvent getEvent(String filename) throws IOException {
+    return getEvent(filename, null);
+  }
+
+  private DeserializedEvent getEvent(String filename, String path) throws IOException {
+    String input = TestUtils.getResourceString(GenericJsonDeserializerTest.class, filename);
+    GenericJsonDeserializerConfig.FieldConfig fconfig =
+        new GenericJsonDeserializerConfig.FieldConfig();
+    fconfig.setField("MESSAGE");
+    fconfig.setPrefixField("MESSAGE_PREFIX");
+    StreamingJsonDeserializer deser = new StreamingJsonDeserializer(Arrays.asList(fconfig), path);
+    deser.init();
+    return deser.deserialize(input);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getPayload(DeserializedEvent devent) {
+    return (Map<String, Object>) devent.getPayload();
+  }
+
+  @Test
+  public void testBasicJson() throws IOException {
+    Map<String, Object> obj = getPayload(getEvent("basic.json"));
+
+    assertEquals("foo", obj.get("a_string"));
+    assertEquals(Boolean.TRUE, obj.get("a_bool"));
+    assertEquals(new JsonNumber("1"), obj.get("a_number"));
+    assertEquals(Collections.singletonMap("foo", "bar"), obj.get("an_obj"));
+  }
+
+  @Test
+  public void testSameTreeAsGenericJson() throws IOException {
+    String input = "{\"a\": [1, 2.5, \"x\", null, {\"b\": false}], \"c\": {\"d\": \"<e>\"}, "
+        + "\"big\": 123456789012345678901234567890}";
+
+    StreamingJsonDeserializer streaming = new StreamingJsonDeserializer(Collections.emptyList());
+    streaming.init();
+    DeserializedEvent devent =
+        streaming.deserialize(ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(JsonParser.parseString(input),
+        JsonParser.parseString(GSON.toJson(devent.getPayload())));
+  }
+
+  @Test
+  public void testNestedPrefix() throws IOException {
+    Map<String, Object> obj = getPayload(getEvent("nested_prefix.json"));
+
+    assertTrue(obj.get("MESSAGE") instanceof Map);
+    assertEquals("this is a prefix ", obj.get("MESSAGE_PREFIX"));
+  }
+
+  @Test
+  public void testInvalidNestedJson() throws IOException {
+    Map<String, Object> obj = getPayload(getEvent("nested_invalid.json"));
+
+    assertEquals("{\"a_string: \"foo\"}}", obj.get("MESSAGE"));
+    assertEquals(new JsonNumber("123"), obj.get("a_num"));
+    assertFalse(obj.containsKey("MESSAGE_PREFIX"));
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testInvalidJson() throws IOException {
+    getEvent("invalid.json");
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testMalformedJson() throws IOException {
+    getEvent("malformed.json");
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testTrailingData() throws IOException {
+    StreamingJsonDeserializer deser = new StreamingJsonDeserializer(Collections.emptyList());
+    deser.init();
+    deser.deserialize("{\"a\": 1} {\"b\": 2}");
+  }
+
+  @Test
+  public void testRootNodeChange() throws IOException {
+    Map<String, Object> obj = getPayload(getEvent("nested.json", "$.MESSAGE"));
+
+    assertEquals("foo", obj.get("a_string"));
+    assertEquals(Collections.singletonMap("a_num", new JsonNumber("123")), obj.get("an_obj"));
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testRootNodeChangeException() throws IOException {
+    getEvent("nested.json", "$.bogus");
+  }
+
+  @Test
+  public void testFields() throws IOException, FieldNotFoundException {
+    DeserializedEvent devent = getEvent("nested.json");
+
+    assertEquals("foo", devent.getField("$.MESSAGE.a_string"));
+    assertEquals("123", devent.getFieldAsString("MESSAGE.an_obj.a_num"));
+    assertEquals("{\"a_num\":123}", devent.getFieldAsString("$.MESSAGE.an_obj"));
+
+    devent.setField("MESSAGE.an_obj.a_num", 456);
+    devent.setField("$.added", Collections.singletonMap("k", "v"));
+    assertEquals("456", devent.getFieldAsString("$.MESSAGE.an_obj.a_num"));
+    assertEquals("v", devent.getField("$.added.k"));
+
+    assertEquals("foo", devent.removeField("$.MESSAGE.a_string"));
+    devent.deleteField("$.added");
+    assertEquals("{\"MESSAGE\":{\"an_obj\":{\"a_num\":456}},\"MESSAGE_PREFIX\":\"\"}",
+        GSON.toJson(devent.getPayload()));
+  }
+
+  @Test(expected = FieldNotFoundException.class)
+  public void testGetMissingField() throws IOException, FieldNotFoundException {
+    getEvent("basic.json").getField("$.bogus.field");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCopyIsIndependent() throws IOException, FieldNotFoundException {
+    DeserializedEvent devent = getEvent("nested.json");
+    DeserializedEvent copy = devent.copy();
+
+    copy.setField("$.MESSAGE.a_string", "bar");
+    devent.setField("$.MESSAGE.an_obj.a_num", 1);
+
+    assertEquals("foo", devent.getField("$.MESSAGE.a_string"));
+    assertEquals("bar", copy.getField("$.MESSAGE.a_string"));
+    assertEquals("1", devent.getFieldAsString("$.MESSAGE.an_obj.a_num"));
+    assertEquals("123", copy.getFieldAsString("$.MESSAGE.an_obj.a_num"));
+
+    /*
+     * Objects read from a shared payload are copies which callers may modify
+     */
+    copy = devent.copy();
+    ((Map<String, Object>) copy.getField("$.MESSAGE")).clear();
+    assertEquals("foo", devent.getField("$.MESSAGE.a_string"));
+  }
+
+  @Test
+  public void testNumbersKeepTheirText() {
+    String input = "{\"a\": 1.50, \"b\": 1e3, \"c\": 0.12345678901234567890123, \"d\": -0, "
+        + "\"e\": 123456789012345678901234567890, \"f\": [1.0, 2E-5], \"g\": {\"h\": 7}, "
+        + "\"i\": true, \"j\": null}";
+
+    GenericJsonDeserializer generic = new GenericJsonDeserializer(Collections.emptyList());
+    generic.init();
+    StreamingJsonDeserializer streaming = new StreamingJsonDeserializer(Collections.emptyList());
+    streaming.init();
+
+    StreamingJsonDeserializer projected = getProjected("$.g.h");
+
+    String expected = GSON.toJson(generic.deserialize(input).getPayload());
+    String actual = GSON.toJson(streaming.deserialize(input).getPayload());
+    String spliced = GSON.toJson(projected.deserialize(input).getReadOnlyPayload());
+
+    assertEquals("{\"a\":1.50,\"b\":1e3,\"c\":0.12345678901234567890123,\"d\":-0,"
+        + "\"e\":123456789012345678901234567890,\"f\":[1.0,2E-5],\"g\":{\"h\":7},"
+        + "\"i\":true}", expected);
+    assertEquals(expected, actual);
+    assertEquals(expected, spliced.replace(", ", ","));
+  }
+
+  private static final String WIDE = "{\"a\": \"x\", "
+      + "\"skipped\": {\"inner\": [1, {\"s\": \"\\\"<q>\\\"\"}]}, "
+      + "\"text\": \"caf\u00e9 \\u003c \\\\\", \"n\": 1.5, "
+      + "\"obj\": {\"x\": \"y\", \"z\": [true, null]}}";
+
+  private StreamingJsonDeserializer getProjected(String... fields) {
+    StreamingJsonDeserializer deser = new StreamingJsonDeserializer(Collections.emptyList());
+    deser.init();
+    deser.setProjectedFields(Arrays.asList(fields));
+    return deser;
+  }
+
+  @Test
+  public void testProjectionKeepsSkippedFieldsVerbatim() {
+    /*
+     * Deserialize from the middle of a larger array
+     */
+    byte[] wide = WIDE.getBytes(StandardCharsets.UTF_8);
+    byte[] bytes = new byte[wide.length + 10];
+    System.arraycopy(wide, 0, bytes, 5, wide.length);
+    ByteBuffer raw = ByteBuffer.wrap(bytes, 5, wide.length).slice();
+
+    DeserializedEvent devent = getProjected("$.a", "obj.x").deserialize(raw);
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> obj = (Map<String, Object>) devent.getReadOnlyPayload();
+    assertEquals("x", obj.get("a"));
+    assertTrue(obj.get("skipped") instanceof RawJson);
+    assertEquals("\"caf\u00e9 \\u003c \\\\\"", obj.get("text").toString());
+    assertTrue(obj.get("n") instanceof RawJson);
+    assertEquals("1.5", obj.get("n").toString());
+    assertEquals("y", ((Map<?, ?>) obj.get("obj")).get("x"));
+    assertEquals("[true, null]", ((Map<?, ?>) obj.get("obj")).get("z").toString());
+
+    /*
+     * Skipped fields are written out as they were
+     */
+    String json = GSON.toJson(obj);
+    assertTrue(json.contains("\"text\":\"caf\u00e9 \\u003c \\\\\""));
+    assertEquals(JsonParser.parseString(WIDE), JsonParser.parseString(json));
+  }
+
+  @Test
+  public void testProjectionParsesSkippedFieldsOnUse() throws FieldNotFoundException {
+    DeserializedEvent devent = getProjected("$.a").deserialize(WIDE);
+
+    assertEquals("\"<q>\"", devent.getField("$.skipped.inner[1].s"));
+    assertEquals("caf\u00e9 < \\", devent.getField("$.text"));
+    assertEquals(new JsonNumber("1.5"), devent.getField("$.n"));
+
+    devent.setField("$.obj.x", "changed");
+    assertEquals("changed", devent.getField("$.obj.x"));
+
+    devent = getProjected("$.a").deserialize(WIDE);
+    DeserializedEvent copy = devent.copy();
+    copy.deleteField("$.skipped.inner");
+    assertEquals(Collections.emptyMap(), copy.getField("$.skipped"));
+    assertEquals(2, ((List<?>) devent.getField("$.skipped.inner")).size());
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> payload = (Map<String, Object>) devent.getPayload();
+    for (Object value : payload.values()) {
+      assertFalse(value instanceof RawJson);
+    }
+  }
+
+  @Test
+  public void testProjectionWithRootNodeOverride() throws IOException, FieldNotFoundException {
+    String input = "{\"outer\": {\"root\": {\"a\": 1, \"b\": {\"c\": 2}}}, \"d\": [3]}";
+    StreamingJsonDeserializer deser =
+        new StreamingJsonDeserializer(Collections.emptyList(), "$.outer.root");
+    deser.init();
+    deser.setProjectedFields(Collections.singletonList("$.a"));
+
+    DeserializedEvent devent = deser.deserialize(input);
+    @SuppressWarnings("unchecked")
+    Map<String, Object> obj = (Map<String, Object>) devent.getReadOnlyPayload();
+    assertEquals(new JsonNumber("1"), obj.get("a"));
+    assertTrue(obj.get("b") instanceof RawJson);
+    assertEquals("2", devent.getFieldAsString("$.b.c"));
+  }
+
+  @Test(expected = DeserializationException.class)
+  public void testProjectionMalformedJson() throws IOException {
+    String input = TestUtils.getResourceString(GenericJsonDeserializerTest.class, "malformed.json");
+    getProjected("$.a").deserialize(input);
+  }
+}
@@ -48,6 +48,14 @@ public class DynamodbInternalEvent extends InternalEvent {
     return record;
   }
 
+  /**
+   * Changes to the same item are kept in order.
+   */
+  @Override
+  public String getOrderingKey() {
+    return this.stringKeys;
+  }
+
   @Override
   public LinkedHashMap<String, String> getPartitions() {
     LinkedHashMap<String, String> partitions = super.getPartitions();
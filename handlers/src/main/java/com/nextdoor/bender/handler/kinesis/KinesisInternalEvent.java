@@ -27,7 +27,7 @@ public class KinesisInternalEvent extends InternalEvent {
   private String shardId;
 
   public KinesisInternalEvent(KinesisEventRecord record, LambdaContext context, String shardId) {
-    super(new String(record.getKinesis().getData().array()), context,
+    super(record.getKinesis().getData(), context,
         record.getKinesis().getApproximateArrivalTimestamp().getTime());
 
     super.addMetadata("eventSource", record.getEventSource());
@@ -49,6 +49,18 @@ public class KinesisInternalEvent extends InternalEvent {
     return record;
   }
 
+  /**
+   * Records with the same Kinesis partition key are kept in order.
+   */
+  @Override
+  public String getOrderingKey() {
+    if (this.record == null) {
+      return null;
+    }
+
+    return this.record.getKinesis().getPartitionKey();
+  }
+
   @Override
   public LinkedHashMap<String, String> getPartitions() {
     LinkedHashMap<String, String> partitions = super.getPartitions();
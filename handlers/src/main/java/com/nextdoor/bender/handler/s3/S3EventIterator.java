@@ -15,20 +15,23 @@
 
 package com.nextdoor.bender.handler.s3;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketTimeoutException;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
 import com.amazonaws.services.s3.AmazonS3Client;
@@ -47,6 +50,9 @@ import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.InternalEventIterator;
 import com.nextdoor.bender.LambdaContext;
 import com.nextdoor.bender.aws.AmazonS3ClientFactory;
+import com.nextdoor.bender.handler.s3.checkpoint.S3Checkpoint;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStore;
+import com.nextdoor.bender.utils.ByteLineIterator;
 
 /**
  * Creates a contiguous iterator backed by files in S3. Each file is opened and streamed to an
@@ -55,6 +61,11 @@ import com.nextdoor.bender.aws.AmazonS3ClientFactory;
  *
  * It is important for the user to always call the close() method as otherwise connection leaking
  * may occur.
+ *
+ * When given a {@link S3CheckpointStore} files which a previous invocation fully sent are skipped
+ * and a partially sent file is resumed after the last line sent. Plain files are resumed with a
+ * ranged GET. Compressed files can not be read from the middle so they are decompressed from the
+ * start and the bytes which were already sent are skipped.
  */
 public class S3EventIterator implements InternalEventIterator<InternalEvent> {
   private static final long NOTIFICATION_DELAY_GRACE_PERIOD = 300000; // 5 mins
@@ -64,16 +75,43 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
   private final LambdaContext context;
   private long arrivalTime;
   private int currentIndex = 0;
-  private Iterator<String> lineIterator;
-  private BufferedReader reader;
+  private ByteLineIterator lineIterator;
+  private InputStream reader;
   private S3Entity currentS3Entity;
   private RetryConfig config;
 
+  /*
+   * Checkpoints found when the iterator was created. The map is keyed by index into records.
+   */
+  private final S3CheckpointStore checkpoints;
+  private final List<S3Checkpoint> loaded = new ArrayList<S3Checkpoint>(0);
+  private final Map<Integer, S3Checkpoint> resumeFrom = new HashMap<Integer, S3Checkpoint>(0);
+
+  /*
+   * Where the current file was resumed from and how many lines were read from it since.
+   */
+  private long baseOffset = 0;
+  private long baseLines = 0;
+  private long linesRead = 0;
+
   public S3EventIterator(LambdaContext context, List<S3EventNotificationRecord> records,
       AmazonS3ClientFactory s3ClientFactory) {
-    this.records = records;
+    this(context, records, s3ClientFactory, null);
+  }
+
+  /**
+   * @param context function context.
+   * @param records S3 objects to read.
+   * @param s3ClientFactory creates the client used to read objects.
+   * @param checkpoints where progress is loaded from and saved to. May be null to always read
+   *        objects from the start.
+   */
+  public S3EventIterator(LambdaContext context, List<S3EventNotificationRecord> records,
+      AmazonS3ClientFactory s3ClientFactory, S3CheckpointStore checkpoints) {
     this.context = context;
     this.client = s3ClientFactory.newInstance();
+    this.checkpoints = checkpoints;
+    this.records = checkpoints == null ? records : loadCheckpoints(records);
 
     this.config = new RetryConfigBuilder()
         .retryOnSpecificExceptions(SocketTimeoutException.class, UncheckedIOException.class)
@@ -83,10 +121,34 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
 
   @Override
   public boolean hasNext() {
-    if (this.currentIndex < this.records.size()) {
-      return true;
+    /*
+     * A file may have no lines left, for instance when it was resumed from a checkpoint at its
+     * end, so keep opening files until one has a line.
+     */
+    while (this.currentIndex < this.records.size()) {
+      if (this.lineIterator != null && lineIteratorHasNext()) {
+        return true;
+      }
+      updateCursor();
+    }
+
+    if (this.lineIterator == null) {
+      return false;
     }
 
+    boolean hasNext = lineIteratorHasNext();
+
+    /*
+     * If there are no lines then the reader from which the lines came from should be closed.
+     */
+    if (!hasNext) {
+      closeCurrentReader();
+    }
+
+    return hasNext;
+  }
+
+  private boolean lineIteratorHasNext() {
     /*
      * Wrap has next row in retry logic. This is because there is intermittent socket timeouts when
      * reading from S3 that cause the function to hang/fail.
@@ -95,25 +157,14 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
       return this.lineIterator.hasNext();
     };
 
-    boolean hasNext;
-
     try {
       CallResults<Object> results = new CallExecutor(this.config).execute(callable);
-      hasNext = (boolean) results.getResult();
+      return (boolean) results.getResult();
     } catch (RetriesExhaustedException ree) {
       throw new RuntimeException(ree.getCallResults().getLastExceptionThatCausedRetry());
     } catch (UnexpectedException ue) {
       throw ue;
     }
-
-    /*
-     * If there are no lines then the reader from which the lines came from should be closed.
-     */
-    if (!hasNext) {
-      closeCurrentReader();
-    }
-
-    return hasNext;
   }
 
   @Override
@@ -124,24 +175,25 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
      * Wrap reading next row in retry logic. This is because there is intermittent socket timeouts
      * when reading from S3 that cause the function to hang/fail.
      */
-    Callable<String> callable = () -> {
+    Callable<byte[]> callable = () -> {
       return this.lineIterator.next();
     };
 
-    String nextRow;
+    byte[] nextRow;
     try {
       CallResults<Object> results = new CallExecutor(this.config).execute(callable);
-      nextRow = (String) results.getResult();
+      nextRow = (byte[]) results.getResult();
     } catch (RetriesExhaustedException ree) {
       throw new RuntimeException(ree.getCallResults().getLastExceptionThatCausedRetry());
     } catch (UnexpectedException ue) {
       throw ue;
     }
+    this.linesRead++;
 
     /*
-     * Construct the internal event
+     * Construct the internal event. The line is only decoded into a String if needed.
      */
-    return new S3InternalEvent(nextRow, this.context, this.arrivalTime,
+    return new S3InternalEvent(ByteBuffer.wrap(nextRow), this.context, this.arrivalTime,
         currentS3Entity.getObject().getKey(), currentS3Entity.getBucket().getName(),
         currentS3Entity.getObject().getVersionId());
   }
@@ -151,6 +203,128 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
     closeCurrentReader();
   }
 
+  /**
+   * Records how far each file was read. Files before the current one were fully read and the
+   * current file was read up to the end of the last line returned by {@link #next()}. This must
+   * only be called once every event returned has been sent.
+   *
+   * @throws IOException unable to write to the checkpoint store.
+   */
+  public void saveCheckpoints() throws IOException {
+    if (this.checkpoints == null) {
+      return;
+    }
+
+    for (int i = 0; i < this.currentIndex; i++) {
+      S3EventNotificationRecord record = this.records.get(i);
+      String bucket = record.getS3().getBucket().getName();
+      String key = getKey(record);
+      String version = getVersion(record);
+
+      S3Checkpoint checkpoint;
+      if (i < this.currentIndex - 1) {
+        checkpoint = new S3Checkpoint(bucket, key, version, 0, false, 0, true);
+      } else {
+        checkpoint = new S3Checkpoint(bucket, key, version,
+            this.baseOffset + this.lineIterator.getPosition(),
+            this.lineIterator.endsWithCarriageReturn(), this.baseLines + this.linesRead, false);
+      }
+
+      logger.info("saving checkpoint " + checkpoint);
+      this.checkpoints.put(checkpoint);
+    }
+  }
+
+  /**
+   * Removes the checkpoints found when the iterator was created. Called once all files were
+   * successfully sent.
+   *
+   * @throws IOException unable to write to the checkpoint store.
+   */
+  public void clearCheckpoints() throws IOException {
+    if (this.checkpoints == null) {
+      return;
+    }
+
+    for (S3Checkpoint checkpoint : this.loaded) {
+      this.checkpoints.remove(checkpoint.getBucket(), checkpoint.getKey(),
+          checkpoint.getVersion());
+    }
+    this.loaded.clear();
+  }
+
+  /**
+   * Looks up the checkpoint of each file.
+   *
+   * @return records which still need to be read.
+   */
+  private List<S3EventNotificationRecord> loadCheckpoints(
+      List<S3EventNotificationRecord> records) {
+    List<S3EventNotificationRecord> toRead =
+        new ArrayList<S3EventNotificationRecord>(records.size());
+
+    for (S3EventNotificationRecord record : records) {
+      String bucket = record.getS3().getBucket().getName();
+      String key = getKey(record);
+
+      /*
+       * Failing to read a checkpoint only means the file is sent again so do not fail because of
+       * it.
+       */
+      S3Checkpoint checkpoint;
+      try {
+        checkpoint = this.checkpoints.get(bucket, key, getVersion(record));
+      } catch (IOException e) {
+        logger.warn("unable to read checkpoint of s3://" + bucket + "/" + key, e);
+        checkpoint = null;
+      }
+
+      if (checkpoint == null) {
+        toRead.add(record);
+        continue;
+      }
+      this.loaded.add(checkpoint);
+
+      /*
+       * A plain file read up to its size was fully sent. Ranged GETs starting at the end of the
+       * object fail so it must be skipped.
+       */
+      Long size = record.getS3().getObject().getSizeAsLong();
+      boolean complete = checkpoint.isComplete() || (!key.endsWith(".gz") && size != null
+          && size > 0 && checkpoint.getOffset() >= size);
+
+      if (complete) {
+        logger.info("skipping " + checkpoint.getId() + " which was already sent");
+      } else {
+        this.resumeFrom.put(toRead.size(), checkpoint);
+        toRead.add(record);
+      }
+    }
+
+    return toRead;
+  }
+
+  /**
+   * The S3 Object key is URL encoded and must be decoded before it can be used by the
+   * AmazonS3Client
+   */
+  private static String getKey(S3EventNotificationRecord record) {
+    try {
+      return URLDecoder.decode(record.getS3().getObject().getKey(), "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Identifies the contents of the object so that a checkpoint is not applied to an object which
+   * was overwritten. Unversioned buckets fall back to the ETag.
+   */
+  private static String getVersion(S3EventNotificationRecord record) {
+    String version = record.getS3().getObject().getVersionId();
+    return version != null ? version : record.getS3().getObject().geteTag();
+  }
+
   private void updateCursor() {
     if (this.currentIndex == 0
         || (this.currentIndex < this.records.size() && !this.lineIterator.hasNext())) {
@@ -169,16 +343,12 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
       this.arrivalTime = event.getEventTime().toDate().getTime();
       this.currentS3Entity = event.getS3();
 
-      /*
-       * The S3 Object key is URL encoded and must be decoded before it can be used by the
-       * AmazonS3Client
-       */
-      String key;
-      try {
-        key = URLDecoder.decode(this.currentS3Entity.getObject().getKey(), "UTF-8");
-      } catch (UnsupportedEncodingException e) {
-        throw new RuntimeException(e);
-      }
+      String key = getKey(event);
+
+      S3Checkpoint checkpoint = this.resumeFrom.get(this.currentIndex);
+      this.baseOffset = checkpoint == null ? 0 : checkpoint.getOffset();
+      this.baseLines = checkpoint == null ? 0 : checkpoint.getLines();
+      this.linesRead = 0;
 
       /*
        * Stream object back from S3 into a reader
@@ -186,6 +356,12 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
       String bucketName = this.currentS3Entity.getBucket().getName();
       logger.debug("opening s3://" + bucketName + "/" + key);
       GetObjectRequest req = new GetObjectRequest(bucketName, key);
+      if (checkpoint != null) {
+        logger.info("resuming " + checkpoint);
+        if (!key.endsWith(".gz")) {
+          req.setRange(this.baseOffset);
+        }
+      }
       S3Object obj = client.getObject(req);
       logger.trace("s3 get request id: " + client.getCachedResponseMetadata(req).getRequestId()
           + " host: " + client.getCachedResponseMetadata(req).getHostId() + " cloudfrontid: "
@@ -211,19 +387,23 @@ public class S3EventIterator implements InternalEventIterator<InternalEvent> {
         GZIPInputStream gzip;
         try {
           gzip = new GZIPInputStream(obj.getObjectContent());
+          if (this.baseOffset > 0) {
+            IOUtils.skipFully(gzip, this.baseOffset);
+          }
         } catch (IOException e) {
           throw new RuntimeException(e);
         }
-        reader = new BufferedReader(new InputStreamReader(gzip));
+        reader = gzip;
       } else {
-        reader = new BufferedReader(new InputStreamReader(obj.getObjectContent()));
+        reader = obj.getObjectContent();
       }
 
       /*
-       * Note the BufferedReader is lazy and so is the iterator. The object is directly streamed
-       * from S3, fed into an input stream and consumed line by line by the iterator.
+       * Note the iterator is lazy. The object is directly streamed from S3, fed into an input
+       * stream and consumed line by line by the iterator. Lines are kept as raw bytes.
        */
-      this.lineIterator = reader.lines().iterator();
+      this.lineIterator = new ByteLineIterator(reader,
+          checkpoint != null && checkpoint.isAfterCarriageReturn());
 
       currentIndex++;
     }
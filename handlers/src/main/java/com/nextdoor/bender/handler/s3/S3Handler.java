@@ -33,6 +33,8 @@ import com.nextdoor.bender.config.Source;
 import com.nextdoor.bender.handler.BaseHandler;
 import com.nextdoor.bender.handler.Handler;
 import com.nextdoor.bender.handler.HandlerException;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStore;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStoreFactory;
 import com.nextdoor.bender.utils.SourceUtils;
 import com.nextdoor.bender.utils.SourceUtils.SourceNotFoundException;
 
@@ -40,7 +42,9 @@ public class S3Handler extends BaseHandler<S3EventNotification>
     implements Handler<S3EventNotification> {
   private static final Logger logger = Logger.getLogger(S3Handler.class);
   private static final Gson gson = new Gson();
-  private InternalEventIterator<InternalEvent> recordIterator;
+  private S3EventIterator recordIterator;
+  private S3CheckpointStore checkpoints = null;
+  private boolean failed = false;
   private Source source;
   private boolean logTrigger = false;
   protected AmazonS3ClientFactory s3ClientFactory = new AmazonS3ClientFactory();
@@ -50,6 +54,12 @@ public class S3Handler extends BaseHandler<S3EventNotification>
       init(context);
       S3HandlerConfig handlerConfig = (S3HandlerConfig) this.config.getHandlerConfig();
       this.logTrigger = handlerConfig.getLogS3Trigger();
+
+      if (handlerConfig.getCheckpoint() != null) {
+        this.checkpoints =
+            new S3CheckpointStoreFactory().newInstance(handlerConfig.getCheckpoint());
+        requireStopBeforeDeadline("checkpoint");
+      }
     }
 
     if (this.logTrigger) {
@@ -77,10 +87,22 @@ public class S3Handler extends BaseHandler<S3EventNotification>
       return;
     }
 
-    this.recordIterator =
-        new S3EventIterator(new LambdaContext(context), toProcess, s3ClientFactory);
+    this.recordIterator = new S3EventIterator(new LambdaContext(context), toProcess,
+        s3ClientFactory, this.checkpoints);
 
+    this.failed = false;
     super.process(context);
+
+    /*
+     * Everything was sent so progress recorded by earlier attempts is no longer needed
+     */
+    if (!this.failed) {
+      try {
+        this.recordIterator.clearCheckpoints();
+      } catch (IOException e) {
+        logger.warn("unable to clear checkpoints", e);
+      }
+    }
   }
 
   @Override
@@ -95,6 +117,8 @@ public class S3Handler extends BaseHandler<S3EventNotification>
 
   @Override
   public void onException(Exception e) {
+    this.failed = true;
+
     /*
      * Always close the iterator to prevent connection leaking
      */
@@ -107,6 +131,23 @@ public class S3Handler extends BaseHandler<S3EventNotification>
     }
   }
 
+  /**
+   * Records how far each file was read so that the retry resumes from there. The invocation is
+   * still failed so that it is retried.
+   */
+  @Override
+  protected void onDeadlineReached(long eventsRead) throws HandlerException {
+    if (this.recordIterator != null) {
+      try {
+        this.recordIterator.saveCheckpoints();
+      } catch (IOException e) {
+        logger.warn("unable to save checkpoints", e);
+      }
+    }
+
+    super.onDeadlineReached(eventsRead);
+  }
+
   @Override
   public InternalEventIterator<InternalEvent> getInternalEventIterator() {
     return this.recordIterator;
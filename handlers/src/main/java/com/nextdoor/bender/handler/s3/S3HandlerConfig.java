@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import com.nextdoor.bender.handler.HandlerConfig;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointConfig;
 
 @JsonTypeName("S3Handler")
 @JsonSchemaDescription("For use with S3 Object creation Lambda triggers. You will also need to set "
@@ -38,6 +39,12 @@ public class S3HandlerConfig extends HandlerConfig {
   @JsonSchemaDefault(value = "false")
   private Boolean logS3Trigger = false;
 
+  @JsonSchemaDescription("Resume reading objects where a previous invocation stopped when it is "
+      + "retried after running out of time. Checkpoints are only saved when reading stops before "
+      + "the deadline, so setting this also enables stop_before_deadline. Disabled when not set.")
+  @JsonProperty(required = false)
+  private S3CheckpointConfig checkpoint = null;
+
   public String getSnsNotificationArn() {
     return snsNotificationArn;
   }
@@ -53,4 +60,12 @@ public class S3HandlerConfig extends HandlerConfig {
   public void setLogS3Trigger(Boolean logS3Trigger) {
     this.logS3Trigger = logS3Trigger;
   }
+
+  public S3CheckpointConfig getCheckpoint() {
+    return this.checkpoint;
+  }
+
+  public void setCheckpoint(S3CheckpointConfig checkpoint) {
+    this.checkpoint = checkpoint;
+  }
 }
@@ -15,6 +15,7 @@
 
 package com.nextdoor.bender.handler.s3;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedHashMap;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -45,6 +46,18 @@ public class S3InternalEvent extends InternalEvent {
     super.addMetadata("s3KeyVersion", s3KeyVersion);
   }
 
+  public S3InternalEvent(ByteBuffer eventBytes, LambdaContext context, long arrivalTime,
+      String s3Key, String s3Bucket, String s3KeyVersion) {
+    super(eventBytes, context, arrivalTime);
+    this.s3Key = s3Key;
+    this.s3Bucket = s3Bucket;
+    this.s3KeyVersion = s3KeyVersion;
+
+    super.addMetadata("s3Key", s3Key);
+    super.addMetadata("s3Bucket", s3Bucket);
+    super.addMetadata("s3KeyVersion", s3KeyVersion);
+  }
+
   @Override
   public LinkedHashMap<String, String> getPartitions() {
     LinkedHashMap<String, String> partitions = super.getPartitions();
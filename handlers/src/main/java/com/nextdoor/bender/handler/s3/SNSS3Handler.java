@@ -38,13 +38,17 @@ import com.nextdoor.bender.config.Source;
 import com.nextdoor.bender.handler.BaseHandler;
 import com.nextdoor.bender.handler.Handler;
 import com.nextdoor.bender.handler.HandlerException;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStore;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStoreFactory;
 import com.nextdoor.bender.utils.SourceUtils;
 import com.nextdoor.bender.utils.SourceUtils.SourceNotFoundException;
 
 public class SNSS3Handler extends BaseHandler<SNSEvent> implements Handler<SNSEvent> {
   private static final Logger logger = Logger.getLogger(SNSS3Handler.class);
   private static final Gson gson = new Gson();
-  private InternalEventIterator<InternalEvent> recordIterator;
+  private S3EventIterator recordIterator;
+  private S3CheckpointStore checkpoints = null;
+  private boolean failed = false;
   private List<String> inputFiles;
   private Source source;
   private boolean logTrigger = false;
@@ -57,6 +61,12 @@ public class SNSS3Handler extends BaseHandler<SNSEvent> implements Handler<SNSEv
       init(context);
       SNSS3HandlerConfig handlerConfig = (SNSS3HandlerConfig) this.config.getHandlerConfig();
       this.logTrigger = handlerConfig.getLogSnsTrigger();
+
+      if (handlerConfig.getCheckpoint() != null) {
+        this.checkpoints =
+            new S3CheckpointStoreFactory().newInstance(handlerConfig.getCheckpoint());
+        requireStopBeforeDeadline("checkpoint");
+      }
     }
 
     this.source = this.sources.get(0);
@@ -98,10 +108,22 @@ public class SNSS3Handler extends BaseHandler<SNSEvent> implements Handler<SNSEv
         return m.getS3().getObject().getKey();
       }).collect(Collectors.toList()));
 
-      this.recordIterator =
-          new S3EventIterator(new LambdaContext(context), toProcess, s3ClientFactory);
+      this.recordIterator = new S3EventIterator(new LambdaContext(context), toProcess,
+          s3ClientFactory, this.checkpoints);
 
+      this.failed = false;
       super.process(context);
+
+      /*
+       * Everything was sent so progress recorded by earlier attempts is no longer needed
+       */
+      if (!this.failed) {
+        try {
+          this.recordIterator.clearCheckpoints();
+        } catch (IOException e) {
+          logger.warn("unable to clear checkpoints", e);
+        }
+      }
     }
   }
 
@@ -117,6 +139,8 @@ public class SNSS3Handler extends BaseHandler<SNSEvent> implements Handler<SNSEv
 
   @Override
   public void onException(Exception e) {
+    this.failed = true;
+
     /*
      * Always close the iterator to prevent connection leaking
      */
@@ -144,6 +168,23 @@ public class SNSS3Handler extends BaseHandler<SNSEvent> implements Handler<SNSEv
     }
   }
 
+  /**
+   * Records how far each file was read so that the retry resumes from there. The invocation is
+   * still failed so that it is retried.
+   */
+  @Override
+  protected void onDeadlineReached(long eventsRead) throws HandlerException {
+    if (this.recordIterator != null) {
+      try {
+        this.recordIterator.saveCheckpoints();
+      } catch (IOException e) {
+        logger.warn("unable to save checkpoints", e);
+      }
+    }
+
+    super.onDeadlineReached(eventsRead);
+  }
+
   @Override
   public InternalEventIterator<InternalEvent> getInternalEventIterator() {
     return this.recordIterator;
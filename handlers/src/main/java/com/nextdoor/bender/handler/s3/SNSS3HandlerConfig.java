@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
 import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
 import com.nextdoor.bender.handler.HandlerConfig;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointConfig;
 
 @JsonTypeName("SNSS3Handler")
 @JsonSchemaDescription("Similar to the S3Handler but reads SNS notifications which contain S3 "
@@ -42,6 +43,12 @@ public class SNSS3HandlerConfig extends HandlerConfig {
   @JsonSchemaDefault(value = "false")
   private Boolean logSnsTrigger = false;
 
+  @JsonSchemaDescription("Resume reading objects where a previous invocation stopped when it is "
+      + "retried after running out of time. Checkpoints are only saved when reading stops before "
+      + "the deadline, so setting this also enables stop_before_deadline. Disabled when not set.")
+  @JsonProperty(required = false)
+  private S3CheckpointConfig checkpoint = null;
+
   public String getSnsNotificationArn() {
     return snsNotificationArn;
   }
@@ -57,4 +64,12 @@ public class SNSS3HandlerConfig extends HandlerConfig {
   public void setLogSnsTrigger(Boolean logSnsTrigger) {
     this.logSnsTrigger = logSnsTrigger;
   }
+
+  public S3CheckpointConfig getCheckpoint() {
+    return this.checkpoint;
+  }
+
+  public void setCheckpoint(S3CheckpointConfig checkpoint) {
+    this.checkpoint = checkpoint;
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+
+/**
+ * Keeps checkpoints in a DynamoDB table with a string hash key named "id". Items have an
+ * "expires" attribute, in epoch seconds, which can be used as the table's TTL attribute so that
+ * checkpoints of objects which were never retried are eventually removed.
+ */
+public class DynamoDBS3CheckpointStore implements S3CheckpointStore {
+  private final AmazonDynamoDB client;
+  private final String table;
+  private final long ttlSeconds;
+
+  public DynamoDBS3CheckpointStore(AmazonDynamoDB client, String table, long ttlSeconds) {
+    this.client = client;
+    this.table = table;
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  private static Map<String, AttributeValue> getKey(String id) {
+    Map<String, AttributeValue> key = new HashMap<String, AttributeValue>(1);
+    key.put("id", new AttributeValue(id));
+    return key;
+  }
+
+  @Override
+  public S3Checkpoint get(String bucket, String key, String version) throws IOException {
+    Map<String, AttributeValue> item;
+    try {
+      item = this.client.getItem(new GetItemRequest(this.table,
+          getKey(S3Checkpoint.getId(bucket, key, version))).withConsistentRead(true)).getItem();
+    } catch (AmazonClientException e) {
+      throw new IOException("unable to read checkpoint", e);
+    }
+
+    if (item == null) {
+      return null;
+    }
+
+    return new S3Checkpoint(bucket, key, version, Long.parseLong(item.get("offset").getN()),
+        item.get("after_carriage_return").getBOOL(), Long.parseLong(item.get("lines").getN()),
+        item.get("complete").getBOOL());
+  }
+
+  @Override
+  public void put(S3Checkpoint checkpoint) throws IOException {
+    Map<String, AttributeValue> item = getKey(checkpoint.getId());
+    item.put("offset", new AttributeValue().withN(Long.toString(checkpoint.getOffset())));
+    item.put("after_carriage_return",
+        new AttributeValue().withBOOL(checkpoint.isAfterCarriageReturn()));
+    item.put("lines", new AttributeValue().withN(Long.toString(checkpoint.getLines())));
+    item.put("complete", new AttributeValue().withBOOL(checkpoint.isComplete()));
+    item.put("expires", new AttributeValue()
+        .withN(Long.toString(System.currentTimeMillis() / 1000 + this.ttlSeconds)));
+
+    try {
+      this.client.putItem(new PutItemRequest(this.table, item));
+    } catch (AmazonClientException e) {
+      throw new IOException("unable to write checkpoint", e);
+    }
+  }
+
+  @Override
+  public void remove(String bucket, String key, String version) throws IOException {
+    try {
+      this.client.deleteItem(
+          new DeleteItemRequest(this.table, getKey(S3Checkpoint.getId(bucket, key, version))));
+    } catch (AmazonClientException e) {
+      throw new IOException("unable to delete checkpoint", e);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import com.google.gson.Gson;
+
+/**
+ * Keeps checkpoints as JSON files in a local directory. Lambda only keeps /tmp for as long as the
+ * container lives so this is mostly useful when running locally or as a stand-in for
+ * {@link DynamoDBS3CheckpointStore} in tests.
+ */
+public class FileS3CheckpointStore implements S3CheckpointStore {
+  private static final Gson gson = new Gson();
+  private final File directory;
+
+  public FileS3CheckpointStore(File directory) {
+    this.directory = directory;
+  }
+
+  private File getFile(String id) {
+    return new File(this.directory, DigestUtils.sha1Hex(id) + ".json");
+  }
+
+  @Override
+  public S3Checkpoint get(String bucket, String key, String version) throws IOException {
+    String id = S3Checkpoint.getId(bucket, key, version);
+    File file = getFile(id);
+    if (!file.exists()) {
+      return null;
+    }
+
+    S3Checkpoint checkpoint =
+        gson.fromJson(FileUtils.readFileToString(file, StandardCharsets.UTF_8), S3Checkpoint.class);
+
+    /*
+     * Guard against hash collisions.
+     */
+    return id.equals(checkpoint.getId()) ? checkpoint : null;
+  }
+
+  @Override
+  public void put(S3Checkpoint checkpoint) throws IOException {
+    FileUtils.forceMkdir(this.directory);
+
+    /*
+     * Write to a temporary file first so a partially written checkpoint is never read.
+     */
+    File file = getFile(checkpoint.getId());
+    File tmp = new File(this.directory, file.getName() + ".tmp");
+    FileUtils.writeStringToFile(tmp, gson.toJson(checkpoint), StandardCharsets.UTF_8);
+    if (!tmp.renameTo(file)) {
+      throw new IOException("unable to write " + file);
+    }
+  }
+
+  @Override
+  public void remove(String bucket, String key, String version) throws IOException {
+    File file = getFile(S3Checkpoint.getId(bucket, key, version));
+    if (file.exists() && !file.delete()) {
+      throw new IOException("unable to delete " + file);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+/**
+ * Progress through a single S3 object. Everything before the offset was read and sent by an
+ * earlier invocation. The object is identified by its version so that a checkpoint is not applied
+ * to an object which was overwritten since.
+ */
+public class S3Checkpoint {
+  private String bucket;
+  private String key;
+  private String version;
+  private long offset;
+  private boolean afterCarriageReturn;
+  private long lines;
+  private boolean complete;
+
+  public S3Checkpoint() {}
+
+  /**
+   * @param bucket name of the bucket.
+   * @param key key of the object.
+   * @param version version id or, for unversioned buckets, ETag of the object. May be null.
+   * @param offset position in the object's (decompressed) content reading resumes from.
+   * @param afterCarriageReturn true if the last line sent ended with a '\r'.
+   * @param lines number of lines sent.
+   * @param complete true if the whole object was sent.
+   */
+  public S3Checkpoint(String bucket, String key, String version, long offset,
+      boolean afterCarriageReturn, long lines, boolean complete) {
+    this.bucket = bucket;
+    this.key = key;
+    this.version = version;
+    this.offset = offset;
+    this.afterCarriageReturn = afterCarriageReturn;
+    this.lines = lines;
+    this.complete = complete;
+  }
+
+  /**
+   * @return identifier of the object the checkpoint belongs to.
+   */
+  public String getId() {
+    return getId(this.bucket, this.key, this.version);
+  }
+
+  public static String getId(String bucket, String key, String version) {
+    return "s3://" + bucket + "/" + key + (version == null ? "" : "#" + version);
+  }
+
+  public String getBucket() {
+    return this.bucket;
+  }
+
+  public String getKey() {
+    return this.key;
+  }
+
+  public String getVersion() {
+    return this.version;
+  }
+
+  public long getOffset() {
+    return this.offset;
+  }
+
+  public boolean isAfterCarriageReturn() {
+    return this.afterCarriageReturn;
+  }
+
+  public long getLines() {
+    return this.lines;
+  }
+
+  public boolean isComplete() {
+    return this.complete;
+  }
+
+  @Override
+  public String toString() {
+    return getId() + (this.complete ? " complete" : " at " + this.offset + " (" + this.lines
+        + " lines)");
+  }
+}
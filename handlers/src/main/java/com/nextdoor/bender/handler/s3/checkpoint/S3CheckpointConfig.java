@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+import javax.validation.constraints.Min;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDefault;
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaDescription;
+
+@JsonSchemaDescription("Records how far each S3 object was read when a function stops early "
+    + "because it is close to timing out. When the function is retried objects which were fully "
+    + "sent are skipped and reading resumes after the last line sent instead of from the start "
+    + "of the object.")
+public class S3CheckpointConfig {
+  public enum Store {
+    FILE, DYNAMODB
+  }
+
+  @JsonSchemaDescription("Where checkpoints are kept. FILE keeps them in a local directory which "
+      + "only lasts as long as the Lambda container does. DYNAMODB keeps them in a table with a "
+      + "string hash key named \"id\" and requires IAM permissions dynamodb:GetItem, "
+      + "dynamodb:PutItem and dynamodb:DeleteItem.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "FILE")
+  private Store store = Store.FILE;
+
+  @JsonSchemaDescription("Directory checkpoints are written to when using the FILE store.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "/tmp/bender-checkpoints")
+  private String directory = "/tmp/bender-checkpoints";
+
+  @JsonSchemaDescription("DynamoDB table checkpoints are written to when using the DYNAMODB "
+      + "store.")
+  @JsonProperty(required = false)
+  private String table = null;
+
+  @JsonSchemaDescription("Value of the \"expires\" attribute of DynamoDB items in seconds from "
+      + "when the checkpoint was written. Enable TTL on the table using this attribute to remove "
+      + "checkpoints of objects which were never retried.")
+  @JsonProperty(required = false)
+  @JsonSchemaDefault(value = "86400")
+  @Min(1)
+  private Long ttlSeconds = 86400L;
+
+  public Store getStore() {
+    return this.store;
+  }
+
+  public void setStore(Store store) {
+    this.store = store;
+  }
+
+  public String getDirectory() {
+    return this.directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public String getTable() {
+    return this.table;
+  }
+
+  public void setTable(String table) {
+    this.table = table;
+  }
+
+  public Long getTtlSeconds() {
+    return this.ttlSeconds;
+  }
+
+  public void setTtlSeconds(Long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+import java.io.IOException;
+
+/**
+ * Stores {@link S3Checkpoint}s between invocations so that a retried invocation resumes where the
+ * previous one stopped instead of sending the whole object again.
+ */
+public interface S3CheckpointStore {
+  /**
+   * @return checkpoint of the object or null if there is none.
+   * @throws IOException unable to read from the store.
+   */
+  public S3Checkpoint get(String bucket, String key, String version) throws IOException;
+
+  /**
+   * Adds or replaces the checkpoint of an object.
+   *
+   * @throws IOException unable to write to the store.
+   */
+  public void put(S3Checkpoint checkpoint) throws IOException;
+
+  /**
+   * Removes the checkpoint of an object once it no longer needs to be resumed.
+   *
+   * @throws IOException unable to write to the store.
+   */
+  public void remove(String bucket, String key, String version) throws IOException;
+}
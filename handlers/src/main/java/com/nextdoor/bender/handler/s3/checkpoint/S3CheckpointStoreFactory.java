@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3.checkpoint;
+
+import java.io.File;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.nextdoor.bender.config.ConfigurationException;
+
+/**
+ * Creates the {@link S3CheckpointStore} described by a {@link S3CheckpointConfig}.
+ */
+public class S3CheckpointStoreFactory {
+  public S3CheckpointStore newInstance(S3CheckpointConfig config) {
+    switch (config.getStore()) {
+      case FILE:
+        return new FileS3CheckpointStore(new File(config.getDirectory()));
+      case DYNAMODB:
+        if (config.getTable() == null) {
+          throw new ConfigurationException("table is required when using the DYNAMODB store");
+        }
+        return new DynamoDBS3CheckpointStore(AmazonDynamoDBClientBuilder.defaultClient(),
+            config.getTable(), config.getTtlSeconds());
+      default:
+        throw new ConfigurationException("unknown checkpoint store " + config.getStore());
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.handler.s3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.event.S3EventNotification.S3BucketEntity;
+import com.amazonaws.services.s3.event.S3EventNotification.S3Entity;
+import com.amazonaws.services.s3.event.S3EventNotification.S3EventNotificationRecord;
+import com.amazonaws.services.s3.event.S3EventNotification.S3ObjectEntity;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.nextdoor.bender.LambdaContext;
+import com.nextdoor.bender.aws.S3MockClientFactory;
+import com.nextdoor.bender.aws.TestContext;
+import com.nextdoor.bender.handler.s3.checkpoint.FileS3CheckpointStore;
+import com.nextdoor.bender.handler.s3.checkpoint.S3Checkpoint;
+import com.nextdoor.bender.handler.s3.checkpoint.S3CheckpointStore;
+
+public class S3EventIteratorTest {
+  private static final String S3_BUCKET = "testbucket";
+  private static final LambdaContext context = new LambdaContext(new TestContext());
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private S3MockClientFactory clientFactory;
+  private AmazonS3Client client;
+  private S3CheckpointStore store;
+
+  @Before
+  public void setup() throws Exception {
+    this.clientFactory = new S3MockClientFactory();
+    this.client = this.clientFactory.newInstance();
+    this.store = new FileS3CheckpointStore(this.folder.newFolder());
+  }
+
+  @After
+  public void teardown() {
+    this.clientFactory.shutdown();
+  }
+
+  private S3EventNotificationRecord put(String key, byte[] data) {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(data.length);
+    this.client.putObject(S3_BUCKET, key, new ByteArrayInputStream(data), metadata);
+
+    S3ObjectEntity objEntity = new S3ObjectEntity(key, (long) data.length, "etag", null);
+    S3BucketEntity bucketEntity = new S3BucketEntity(S3_BUCKET, null, null);
+    S3Entity entity = new S3Entity(null, bucketEntity, objEntity, null);
+
+    return new S3EventNotificationRecord(null, null, null, "1970-01-01T00:00:00.000Z", null, null,
+        null, entity, null);
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  private static List<String> read(S3EventIterator iter, int limit) {
+    List<String> lines = new ArrayList<String>();
+    while (lines.size() < limit && iter.hasNext()) {
+      lines.add(iter.next().getEventString());
+    }
+    return lines;
+  }
+
+  /**
+   * Reads limit lines, saves checkpoints, and then reads everything that is left with a new
+   * iterator.
+   */
+  private List<String> readResumed(List<S3EventNotificationRecord> records, int limit)
+      throws IOException {
+    S3EventIterator first = new S3EventIterator(context, records, this.clientFactory, this.store);
+    List<String> lines = read(first, limit);
+    first.saveCheckpoints();
+    first.close();
+
+    S3EventIterator second = new S3EventIterator(context, records, this.clientFactory, this.store);
+    lines.addAll(read(second, Integer.MAX_VALUE));
+    second.clearCheckpoints();
+    second.close();
+
+    return lines;
+  }
+
+  @Test
+  public void testResumePlain() throws IOException {
+    S3EventNotificationRecord record =
+        put("resume.log", "a\r\nbb\rccc\n\ndddd".getBytes(StandardCharsets.UTF_8));
+
+    for (int limit = 0; limit <= 5; limit++) {
+      assertEquals("limit " + limit, Arrays.asList("a", "bb", "ccc", "", "dddd"),
+          readResumed(Arrays.asList(record), limit));
+    }
+  }
+
+  @Test
+  public void testResumeGzip() throws IOException {
+    S3EventNotificationRecord record =
+        put("resume.log.gz", gzip("a\r\nbb\rccc\n".getBytes(StandardCharsets.UTF_8)));
+
+    for (int limit = 0; limit <= 3; limit++) {
+      assertEquals("limit " + limit, Arrays.asList("a", "bb", "ccc"),
+          readResumed(Arrays.asList(record), limit));
+    }
+  }
+
+  @Test
+  public void testSkipsSentFiles() throws IOException {
+    S3EventNotificationRecord first = put("first.log", "a\nb\n".getBytes(StandardCharsets.UTF_8));
+    S3EventNotificationRecord second = put("second.log", "c\nd\n".getBytes(StandardCharsets.UTF_8));
+    List<S3EventNotificationRecord> records = Arrays.asList(first, second);
+
+    S3EventIterator iter = new S3EventIterator(context, records, this.clientFactory, this.store);
+    assertEquals(Arrays.asList("a", "b", "c"), read(iter, 3));
+    iter.saveCheckpoints();
+    iter.close();
+
+    S3Checkpoint checkpoint = this.store.get(S3_BUCKET, "first.log", "etag");
+    assertTrue(checkpoint.isComplete());
+    checkpoint = this.store.get(S3_BUCKET, "second.log", "etag");
+    assertFalse(checkpoint.isComplete());
+    assertEquals(2, checkpoint.getOffset());
+    assertEquals(1, checkpoint.getLines());
+
+    iter = new S3EventIterator(context, records, this.clientFactory, this.store);
+    assertEquals(Arrays.asList("d"), read(iter, Integer.MAX_VALUE));
+    iter.clearCheckpoints();
+    iter.close();
+
+    assertNull(this.store.get(S3_BUCKET, "first.log", "etag"));
+    assertNull(this.store.get(S3_BUCKET, "second.log", "etag"));
+  }
+
+  @Test
+  public void testCheckpointOfOtherVersionIgnored() throws IOException {
+    S3EventNotificationRecord record =
+        put("version.log", "a\nb\n".getBytes(StandardCharsets.UTF_8));
+    this.store.put(new S3Checkpoint(S3_BUCKET, "version.log", "old", 2, false, 1, false));
+
+    S3EventIterator iter =
+        new S3EventIterator(context, Arrays.asList(record), this.clientFactory, this.store);
+    assertEquals(Arrays.asList("a", "b"), read(iter, Integer.MAX_VALUE));
+    iter.close();
+  }
+}
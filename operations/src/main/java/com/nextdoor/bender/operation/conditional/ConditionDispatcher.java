@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation.conditional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.deserializer.DeserializedEvent;
+import com.nextdoor.bender.deserializer.FieldNotFoundException;
+import com.nextdoor.bender.filter.RegexSet;
+import com.nextdoor.bender.operation.FilterOperation;
+import com.nextdoor.bender.operation.filter.RegexFilterOperation;
+
+/**
+ * Picks the first of a list of conditions which an event matches. Consecutive
+ * {@link RegexFilterOperation} conditions which include matching events and read the same path are
+ * compiled into a single step. That step reads the field once, looks up conditions whose regex is
+ * a literal (or an alternation of literals) in a hash table, and matches the remaining regexes
+ * with a single {@link RegexSet}. Any other conditions are tested one at a time in order.
+ *
+ * Instances are thread safe.
+ */
+public class ConditionDispatcher {
+  private final List<Step> steps = new ArrayList<Step>();
+
+  /**
+   * A group of consecutive conditions.
+   */
+  private interface Step {
+    /**
+     * @return index of the first matching condition or -1 if none in this step match.
+     */
+    int select(InternalEvent ievent);
+  }
+
+  private static class SingleCondition implements Step {
+    private final int index;
+    private final FilterOperation filter;
+
+    SingleCondition(int index, FilterOperation filter) {
+      this.index = index;
+      this.filter = filter;
+    }
+
+    @Override
+    public int select(InternalEvent ievent) {
+      return this.filter.test(ievent) ? this.index : -1;
+    }
+  }
+
+  private static class FieldDispatch implements Step {
+    private final String path;
+    private final Map<String, Integer> literals = new HashMap<String, Integer>();
+    private final List<Pattern> patterns = new ArrayList<Pattern>();
+    private final List<Integer> patternIndexes = new ArrayList<Integer>();
+
+    /*
+     * RegexSet keeps matcher state so each thread needs its own.
+     */
+    private final ThreadLocal<RegexSet> regexSet =
+        ThreadLocal.withInitial(() -> new RegexSet(this.patterns));
+
+    FieldDispatch(String path) {
+      this.path = path;
+    }
+
+    void add(int index, Pattern pattern) {
+      List<String> values = getLiterals(pattern);
+      if (values == null) {
+        this.patterns.add(pattern);
+        this.patternIndexes.add(index);
+        return;
+      }
+
+      for (String value : values) {
+        this.literals.putIfAbsent(value, index);
+      }
+    }
+
+    @Override
+    public int select(InternalEvent ievent) {
+      DeserializedEvent devent = ievent.getEventObj();
+      if (devent == null) {
+        return -1;
+      }
+
+      String value;
+      try {
+        value = devent.getFieldAsString(this.path);
+      } catch (FieldNotFoundException e) {
+        return -1;
+      }
+
+      Integer literal = this.literals.get(value);
+      int selected = literal == null ? -1 : literal;
+
+      /*
+       * A regex condition before the matching literal condition takes precedence.
+       */
+      if (!this.patterns.isEmpty()
+          && (selected < 0 || this.patternIndexes.get(0) < selected)) {
+        int matched = this.regexSet.get().matches(value);
+        if (matched >= 0 && (selected < 0 || this.patternIndexes.get(matched) < selected)) {
+          selected = this.patternIndexes.get(matched);
+        }
+      }
+
+      return selected;
+    }
+  }
+
+  /**
+   * @param conditions conditions in the order they are evaluated.
+   */
+  public ConditionDispatcher(List<FilterOperation> conditions) {
+    for (int i = 0; i < conditions.size(); i++) {
+      String path = getDispatchPath(conditions.get(i));
+
+      /*
+       * Only group conditions when there is more than one on the same path.
+       */
+      if (path == null || i + 1 >= conditions.size()
+          || !path.equals(getDispatchPath(conditions.get(i + 1)))) {
+        this.steps.add(new SingleCondition(i, conditions.get(i)));
+        continue;
+      }
+
+      FieldDispatch dispatch = new FieldDispatch(path);
+      while (i < conditions.size() && path.equals(getDispatchPath(conditions.get(i)))) {
+        dispatch.add(i, ((RegexFilterOperation) conditions.get(i)).getPattern());
+        i++;
+      }
+      i--;
+
+      this.steps.add(dispatch);
+    }
+  }
+
+  /**
+   * @param ievent event to test.
+   * @return index of the first condition the event matches or -1 if it matches none.
+   */
+  public int select(InternalEvent ievent) {
+    for (Step step : this.steps) {
+      int index = step.select(ievent);
+      if (index >= 0) {
+        return index;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * @return number of groups conditions were compiled into.
+   */
+  int getStepCount() {
+    return this.steps.size();
+  }
+
+  private static String getDispatchPath(FilterOperation filter) {
+    if (!(filter instanceof RegexFilterOperation)) {
+      return null;
+    }
+
+    RegexFilterOperation regexFilter = (RegexFilterOperation) filter;
+    if (!Boolean.FALSE.equals(regexFilter.getExclude()) || regexFilter.getPattern().flags() != 0) {
+      return null;
+    }
+
+    return regexFilter.getPath();
+  }
+
+  /**
+   * Finds the strings a regex matches when it only matches a fixed set of them, such as "foo",
+   * "^foo$", "foo|bar" or "(foo|bar\\.baz)".
+   *
+   * @param pattern pattern to examine.
+   * @return strings the pattern matches in full or null if the pattern is not that simple.
+   */
+  static List<String> getLiterals(Pattern pattern) {
+    String regex = pattern.pattern();
+
+    /*
+     * The whole value must match so anchors at the ends change nothing.
+     */
+    int start = regex.startsWith("^") ? 1 : 0;
+    int end = regex.length();
+    if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+      end--;
+    }
+
+    if (end - start >= 2 && regex.charAt(start) == '(' && regex.charAt(end - 1) == ')'
+        && !isEscaped(regex, end - 1)) {
+      start += regex.startsWith("?:", start + 1) ? 3 : 1;
+      end--;
+    }
+
+    List<String> literals = new ArrayList<String>();
+    StringBuilder literal = new StringBuilder();
+
+    for (int i = start; i < end; i++) {
+      char c = regex.charAt(i);
+
+      if (c == '\\') {
+        if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          return null;
+        }
+        literal.append(regex.charAt(++i));
+      } else if (c == '|') {
+        literals.add(literal.toString());
+        literal.setLength(0);
+      } else if ("^$.?*+()[]{}".indexOf(c) >= 0) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+    literals.add(literal.toString());
+
+    return literals;
+  }
+
+  private static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+
+    return backslashes % 2 == 1;
+  }
+}
@@ -17,39 +17,77 @@ package com.nextdoor.bender.operation.conditional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.executor.ExecutorProviders;
 import com.nextdoor.bender.operation.FilterOperation;
+import com.nextdoor.bender.operation.NestedOperations;
+import com.nextdoor.bender.operation.OperationPipeline;
 import com.nextdoor.bender.operation.OperationProcessor;
 import com.nextdoor.bender.operation.StreamOperation;
+import com.nextdoor.bender.operation.fork.ForkOperation;
 import com.nextdoor.bender.operation.fork.ForkOperation.StreamToQueue;
-import com.oath.cyclops.async.adapters.Queue;
+import com.nextdoor.bender.queue.BatchedProducer;
+import com.nextdoor.bender.queue.RingBuffer;
 
-public class ConditionalOperation implements StreamOperation {
-  private List<Pair<FilterOperation, Queue<InternalEvent>>> filtersAndQueues;
+public class ConditionalOperation implements StreamOperation, NestedOperations {
+  private List<Pair<FilterOperation, RingBuffer<InternalEvent>>> filtersAndQueues;
   private final List<Pair<FilterOperation, List<OperationProcessor>>> conditionsAndProcs;
-  private final ExecutorService es;
+  private final ConditionDispatcher dispatcher;
+  private final Executor executor;
   private final boolean filterNonMatch;
+  private final int queueSize;
+  private final int batchSize;
 
   public ConditionalOperation(
       List<Pair<FilterOperation, List<OperationProcessor>>> conditionsAndProcs,
       boolean filterNonMatch) {
+    this(conditionsAndProcs, filterNonMatch, ForkOperation.DEFAULT_QUEUE_SIZE,
+        ForkOperation.DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param conditionsAndProcs conditions and the operations performed on matching events.
+   * @param filterNonMatch whether to drop events which match no condition.
+   * @param queueSize number of events each condition's queue holds.
+   * @param batchSize number of events handed to a queue at once.
+   */
+  public ConditionalOperation(
+      List<Pair<FilterOperation, List<OperationProcessor>>> conditionsAndProcs,
+      boolean filterNonMatch, int queueSize, int batchSize) {
     this.conditionsAndProcs = conditionsAndProcs;
-    this.es = Executors.newFixedThreadPool(conditionsAndProcs.size());
+    this.executor = ExecutorProviders.get().getTaskExecutor();
     this.filterNonMatch = filterNonMatch;
+    this.queueSize = queueSize;
+    this.batchSize = batchSize;
+
+    List<FilterOperation> conditions = new ArrayList<FilterOperation>(conditionsAndProcs.size());
+    for (Pair<FilterOperation, List<OperationProcessor>> conditionAndProcs : conditionsAndProcs) {
+      conditions.add(conditionAndProcs.getLeft());
+    }
+    this.dispatcher = new ConditionDispatcher(conditions);
+  }
+
+  @Override
+  public List<OperationProcessor> getNestedProcessors() {
+    List<OperationProcessor> processors = new ArrayList<OperationProcessor>();
+    for (Pair<FilterOperation, List<OperationProcessor>> filterAndProcs : conditionsAndProcs) {
+      processors.addAll(filterAndProcs.getRight());
+    }
+    return processors;
   }
 
   /*-
    * This operation takes in an input Stream of events and checks the event against
    * each condition in an if elseif manner. The first matching condition is send the 
    * event. If no conditions match and filter non-match is specified true then the
-   * event is filtered out. If false the event is sent to the output queue. 
+   * event is filtered out. If false the event is sent to the output queue. Events are
+   * handed to and taken from queues in batches. Conditions are evaluated by a
+   * ConditionDispatcher which selects between regex conditions on the same field at once.
    * 
    *           +--------------+
    *           | Input Stream |
@@ -116,90 +154,85 @@ public class ConditionalOperation implements StreamOperation {
     /*
      * From a list of operation configurations in each condition construct queues and streams.
      */
-    this.filtersAndQueues =
-        new ArrayList<Pair<FilterOperation, Queue<InternalEvent>>>(this.conditionsAndProcs.size());
+    this.filtersAndQueues = new ArrayList<Pair<FilterOperation, RingBuffer<InternalEvent>>>(
+        this.conditionsAndProcs.size());
     for (Pair<FilterOperation, List<OperationProcessor>> filterAndProcs : this.conditionsAndProcs) {
 
       FilterOperation filter = filterAndProcs.getLeft();
       List<OperationProcessor> procs = filterAndProcs.getRight();
 
       /*
-       * Construct a Queue for each conditional. This is the input to each Condition.
+       * Construct a Queue for each conditional. This is the input to each Condition. Only the
+       * input consumer thread writes to it.
        */
-      Queue<InternalEvent> queue =
-          new Queue<InternalEvent>(new LinkedBlockingQueue<InternalEvent>(procs.size()));
+      RingBuffer<InternalEvent> queue =
+          new RingBuffer<InternalEvent>(this.queueSize, RingBuffer.Producers.SINGLE);
 
       this.filtersAndQueues
-          .add(new ImmutablePair<FilterOperation, Queue<InternalEvent>>(filter, queue));
-
-      /*
-       * Connect the condition's input Queue with operations. Each operation returns a stream with its
-       * operation concatenated on.
-       */
-      Stream<InternalEvent> conditionInput = queue.jdkStream();
-      for (OperationProcessor proc : procs) {
-        conditionInput = proc.perform(conditionInput);
-      }
+          .add(new ImmutablePair<FilterOperation, RingBuffer<InternalEvent>>(filter, queue));
 
       /*
-       * Last input is the output.
+       * Connect the condition's input Queue with operations. The resulting stream is the output.
        */
-      outputStreams.add(conditionInput);
+      outputStreams.add(OperationPipeline.perform(procs, queue.stream()));
     }
 
     /*
      * Condition Consumer Threads
      * 
      * Combine each condition's output stream and write to the output Queue. When all data is consumed
-     * the last condition closes the output Queue.
+     * the last condition closes the output Queue. Condition consumer threads as well as the input
+     * consumer thread, for events that match no condition, write to it.
      */
-    Queue<InternalEvent> outputQueue = new Queue<InternalEvent>(
-        new LinkedBlockingQueue<InternalEvent>(this.conditionsAndProcs.size()));
+    RingBuffer<InternalEvent> outputQueue = new RingBuffer<InternalEvent>(
+        this.queueSize * (this.conditionsAndProcs.size() + 1), RingBuffer.Producers.MULTI);
     AtomicInteger lock = new AtomicInteger(outputStreams.size());
 
     outputStreams.forEach(stream -> {
-      this.es.execute(new StreamToQueue(stream, outputQueue, lock));
+      this.executor.execute(new StreamToQueue(stream, outputQueue, lock, this.batchSize));
     });
 
     /*
      * Consume input Stream in a thread and publish to each condition's Queue.
      */
-    new Thread(new Runnable() {
+    this.executor.execute(new Runnable() {
       @Override
       public void run() {
-        input.forEach(ievent -> {
-          boolean matches = false;
-
-          for (Pair<FilterOperation, Queue<InternalEvent>> filterAndQueue : filtersAndQueues) {
-            FilterOperation filter = filterAndQueue.getLeft();
-
-            /*
-             * If event passes the filter offer event to queue.
-             */
-            if (filter.test(ievent)) {
-              filterAndQueue.getRight().offer(ievent);
-              matches = true;
-              break;
-            }
-          }
+        List<BatchedProducer<InternalEvent>> producers =
+            new ArrayList<BatchedProducer<InternalEvent>>(filtersAndQueues.size());
+        for (Pair<FilterOperation, RingBuffer<InternalEvent>> filterAndQueue : filtersAndQueues) {
+          producers.add(new BatchedProducer<InternalEvent>(filterAndQueue.getRight(), batchSize));
+        }
+        BatchedProducer<InternalEvent> nonMatching =
+            new BatchedProducer<InternalEvent>(outputQueue, batchSize);
 
+        input.forEach(ievent -> {
           /*
-           * Send to output queue if no case matches
+           * Offer the event to the queue of the first condition it passes.
            */
-          if (!matches && !filterNonMatch) {
-            outputQueue.offer(ievent);
+          int matched = dispatcher.select(ievent);
+          if (matched >= 0) {
+            producers.get(matched).offer(ievent);
+          } else if (!filterNonMatch) {
+            /*
+             * Send to output queue if no case matches
+             */
+            nonMatching.offer(ievent);
           }
         });
 
+        producers.forEach(BatchedProducer::flush);
+        nonMatching.flush();
+
         /*
          * Close queues when source queue is consumed.
          */
-        for (Pair<FilterOperation, Queue<InternalEvent>> filterAndQueue : filtersAndQueues) {
+        for (Pair<FilterOperation, RingBuffer<InternalEvent>> filterAndQueue : filtersAndQueues) {
           filterAndQueue.getRight().close();
         }
       }
-    }).start();
+    });
 
-    return outputQueue.jdkStream();
+    return outputQueue.stream();
   }
 }
@@ -15,6 +15,7 @@
 
 package com.nextdoor.bender.operation.decode;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.codec.DecoderException;
@@ -22,12 +23,13 @@ import org.apache.commons.codec.net.URLCodec;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.FieldNotFoundException;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationException;
 
 /**
  * URL Decodes specified fields.
  */
-public class URLDecodeOperation implements EventOperation {
+public class URLDecodeOperation implements EventOperation, FieldAccess {
   public static final URLCodec codec = new URLCodec();
   private final List<String> fieldNames;
   private final int times;
@@ -40,7 +42,7 @@ public class URLDecodeOperation implements EventOperation {
   @Override
   public InternalEvent perform(InternalEvent ievent) {
     if (ievent == null || ievent.getEventObj() == null
-        || ievent.getEventObj().getPayload() == null) {
+        || ievent.getEventObj().getReadOnlyPayload() == null) {
       return ievent;
     }
 
@@ -82,4 +84,14 @@ public class URLDecodeOperation implements EventOperation {
 
     return ievent;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return this.fieldNames;
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return this.fieldNames;
+  }
 }
@@ -1,11 +1,15 @@
 package com.nextdoor.bender.operation.delete;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationException;
 
-public class DeleteFieldOperation implements EventOperation {
+public class DeleteFieldOperation implements EventOperation, FieldAccess {
     private final String keyField;
 
     public DeleteFieldOperation(String keyField) {
@@ -30,4 +34,19 @@ public class DeleteFieldOperation implements EventOperation {
         DeserializedEvent deserializedEvent = internalEvent.getEventObj();
         deserializedEvent.deleteField(keyField);
     }
+
+    @Override
+    public Collection<String> getFieldsRead() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> getFieldsWritten() {
+        return Collections.singletonList(keyField);
+    }
+
+    @Override
+    public Collection<String> getFieldsRemoved() {
+        return Collections.singletonList(keyField);
+    }
 }
@@ -15,11 +15,14 @@
 
 package com.nextdoor.bender.operation.filter;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.regex.Pattern;
 
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
 import com.nextdoor.bender.deserializer.FieldNotFoundException;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.FilterOperation;
 
 /**
@@ -33,7 +36,7 @@ import com.nextdoor.bender.operation.FilterOperation;
  * If exclude is true, events with matching values are filtered out.
  * If exclude is false, events without matching values are filtered out.
  */
-public class RegexFilterOperation implements FilterOperation {
+public class RegexFilterOperation implements FilterOperation, FieldAccess {
   private final Pattern pattern;
   private final String path;
   private final Boolean exclude;
@@ -69,4 +72,26 @@ public class RegexFilterOperation implements FilterOperation {
      */
     return this.exclude != found;
   }
+
+  public Pattern getPattern() {
+    return this.pattern;
+  }
+
+  public String getPath() {
+    return this.path;
+  }
+
+  public Boolean getExclude() {
+    return this.exclude;
+  }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.singletonList(this.path);
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.emptyList();
+  }
 }
@@ -17,43 +17,87 @@ package com.nextdoor.bender.operation.fork;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.executor.ExecutorProviders;
+import com.nextdoor.bender.operation.NestedOperations;
+import com.nextdoor.bender.operation.OperationPipeline;
 import com.nextdoor.bender.operation.OperationProcessor;
 import com.nextdoor.bender.operation.StreamOperation;
-import com.oath.cyclops.async.adapters.Queue;
+import com.nextdoor.bender.queue.BatchedProducer;
+import com.nextdoor.bender.queue.RingBuffer;
 
-public class ForkOperation implements StreamOperation {
-  private List<Queue<InternalEvent>> queues;
+public class ForkOperation implements StreamOperation, NestedOperations {
+  /**
+   * Number of events each fork's queue holds. Output queues hold this many events per fork.
+   */
+  public static final int DEFAULT_QUEUE_SIZE = 256;
+
+  /**
+   * Number of events a thread collects before handing them to a queue at once.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 32;
+
+  private List<RingBuffer<InternalEvent>> queues;
   private final List<List<OperationProcessor>> opProcsInForks;
-  private final ExecutorService es;
+  private final Executor executor;
+  private final int queueSize;
+  private final int batchSize;
 
   public ForkOperation(List<List<OperationProcessor>> opProcsInForks) {
+    this(opProcsInForks, DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param opProcsInForks operations in each fork.
+   * @param queueSize number of events each fork's queue holds.
+   * @param batchSize number of events handed to a queue at once.
+   */
+  public ForkOperation(List<List<OperationProcessor>> opProcsInForks, int queueSize,
+      int batchSize) {
     this.opProcsInForks = opProcsInForks;
-    this.es = Executors.newFixedThreadPool(opProcsInForks.size());
+    this.executor = ExecutorProviders.get().getTaskExecutor();
+    this.queueSize = queueSize;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public List<OperationProcessor> getNestedProcessors() {
+    List<OperationProcessor> processors = new ArrayList<OperationProcessor>();
+    for (List<OperationProcessor> opProcsInFork : this.opProcsInForks) {
+      processors.addAll(opProcsInFork);
+    }
+    return processors;
   }
 
   public static class StreamToQueue implements Runnable {
     private final Stream<InternalEvent> input;
-    private final Queue<InternalEvent> output;
+    private final RingBuffer<InternalEvent> output;
+    private final int batchSize;
     public final AtomicInteger countdown;
 
-    public StreamToQueue(Stream<InternalEvent> input, Queue<InternalEvent> output,
+    public StreamToQueue(Stream<InternalEvent> input, RingBuffer<InternalEvent> output,
         AtomicInteger countdown) {
+      this(input, output, countdown, DEFAULT_BATCH_SIZE);
+    }
+
+    public StreamToQueue(Stream<InternalEvent> input, RingBuffer<InternalEvent> output,
+        AtomicInteger countdown, int batchSize) {
       this.input = input;
       this.output = output;
       this.countdown = countdown;
+      this.batchSize = batchSize;
     }
 
     @Override
     public void run() {
-      this.input.forEach(ievent -> {
-        this.output.offer(ievent);
-      });
+      BatchedProducer<InternalEvent> producer =
+          new BatchedProducer<InternalEvent>(this.output, this.batchSize);
+
+      this.input.forEach(producer::offer);
+      producer.flush();
 
       this.input.close();
 
@@ -70,7 +114,9 @@ public class ForkOperation implements StreamOperation {
    * This operation takes in an input Stream, copies each event from that Stream, and
    * writes each copy to a fork. Each fork has a consumer thread that pulls events
    * through the fork's Stream and outputs to a Queue. Finally a single thread consumes
-   * the output Queue and writes to the output Stream. Visually this is what happens:
+   * the output Queue and writes to the output Stream. Threads hand events to Queues in
+   * batches and take them from Queues in batches which avoids waking the thread on the
+   * other side for every event. Visually this is what happens:
    * 
    *                       +--------------+
    *                       | Input Stream |
@@ -132,67 +178,68 @@ public class ForkOperation implements StreamOperation {
     /*
      * From a list of operation configurations in each fork construct queues and streams.
      */
-    this.queues = new ArrayList<Queue<InternalEvent>>(opProcsInForks.size());
+    this.queues = new ArrayList<RingBuffer<InternalEvent>>(opProcsInForks.size());
     for (List<OperationProcessor> opProcsInFork : opProcsInForks) {
       /*
-       * Construct a Queue for each fork. This is the input to each Fork.
+       * Construct a Queue for each fork. This is the input to each Fork. Only the input consumer
+       * thread writes to it.
        */
-      Queue<InternalEvent> queue =
-          new Queue<InternalEvent>(new LinkedBlockingQueue<InternalEvent>(opProcsInFork.size()));
+      RingBuffer<InternalEvent> queue =
+          new RingBuffer<InternalEvent>(this.queueSize, RingBuffer.Producers.SINGLE);
       this.queues.add(queue);
 
       /*
-       * Connect the fork's input Queue with operations. Each operation returns a stream with its
-       * operation concatenated on.
-       */
-      Stream<InternalEvent> forkInput = queue.jdkStream();
-      for (OperationProcessor opProcInFork : opProcsInFork) {
-        forkInput = opProcInFork.perform(forkInput);
-      }
-
-      /*
-       * Last input is the output.
+       * Connect the fork's input Queue with operations. The resulting stream is the output.
        */
-      forkOutputStreams.add(forkInput);
+      forkOutputStreams.add(OperationPipeline.perform(opProcsInFork, queue.stream()));
     }
 
     /*
      * Fork Consumer Threads
      * 
      * Combine each fork's output stream and write to the output Queue. When all data is consumed
-     * the last fork closes the output Queue.
+     * the last fork closes the output Queue. Every fork consumer thread writes to it.
      */
-    Queue<InternalEvent> outputQueue =
-        new Queue<InternalEvent>(new LinkedBlockingQueue<InternalEvent>(this.queues.size()));
+    RingBuffer<InternalEvent> outputQueue = new RingBuffer<InternalEvent>(
+        this.queueSize * this.queues.size(), RingBuffer.Producers.MULTI);
     AtomicInteger lock = new AtomicInteger(forkOutputStreams.size());
 
     forkOutputStreams.forEach(stream -> {
-      this.es.execute(new StreamToQueue(stream, outputQueue, lock));
+      this.executor.execute(new StreamToQueue(stream, outputQueue, lock, this.batchSize));
     });
 
     /*
      * Consume input Stream in a thread and publish to each fork's Queue.
      */
-    new Thread(new Runnable() {
+    this.executor.execute(new Runnable() {
       @Override
       public void run() {
+        List<BatchedProducer<InternalEvent>> producers =
+            new ArrayList<BatchedProducer<InternalEvent>>(queues.size());
+        for (RingBuffer<InternalEvent> queue : queues) {
+          producers.add(new BatchedProducer<InternalEvent>(queue, batchSize));
+        }
+
         input.forEach(ievent -> {
-          queues.forEach(queue -> {
+          producers.forEach(producer -> {
             /*
              * The original event is NOT sent to each fork. Rather a copy of the event is sent to
              * each fork. This ensures that there is no contention between the operations performed
              * on each event. Caveat is that when the forks join there will be two events produced.
+             * Copies share the payload and only duplicate the parts a fork modifies.
              */
-            queue.offer(ievent.copy());
+            producer.offer(ievent.copy());
           });
         });
 
-        for (Queue<InternalEvent> queue : queues) {
+        producers.forEach(BatchedProducer::flush);
+
+        for (RingBuffer<InternalEvent> queue : queues) {
           queue.close();
         }
       }
-    }).start();
+    });
 
-    return outputQueue.jdkStream();
+    return outputQueue.stream();
   }
 }
@@ -15,6 +15,7 @@
 
 package com.nextdoor.bender.operation.substitution;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -53,4 +54,20 @@ public abstract class Substitution {
 
     return new ImmutablePair<String, Object>(foundSourceFieldName, sourceValue);
   }
+
+  /**
+   * @return fields read or null if unknown.
+   * @see com.nextdoor.bender.operation.FieldAccess#getFieldsRead()
+   */
+  public Collection<String> getFieldsRead() {
+    return null;
+  }
+
+  /**
+   * @return fields set or removed or null if unknown.
+   * @see com.nextdoor.bender.operation.FieldAccess#getFieldsWritten()
+   */
+  public Collection<String> getFieldsWritten() {
+    return null;
+  }
 }
@@ -15,12 +15,15 @@
 
 package com.nextdoor.bender.operation.substitution;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 
-public class SubstitutionOperation implements EventOperation {
+public class SubstitutionOperation implements EventOperation, FieldAccess {
   private final List<Substitution> substitutions;
 
   public SubstitutionOperation(List<Substitution> substitutions) {
@@ -30,7 +33,7 @@ public class SubstitutionOperation implements EventOperation {
   @Override
   public InternalEvent perform(InternalEvent ievent) {
     DeserializedEvent devent = ievent.getEventObj();
-    if (devent == null || devent.getPayload() == null) {
+    if (devent == null || devent.getReadOnlyPayload() == null) {
       return ievent;
     }
 
@@ -40,4 +43,28 @@ public class SubstitutionOperation implements EventOperation {
 
     return ievent;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    List<String> fields = new ArrayList<String>();
+    for (Substitution sub : this.substitutions) {
+      if (sub.getFieldsRead() == null) {
+        return null;
+      }
+      fields.addAll(sub.getFieldsRead());
+    }
+    return fields;
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    List<String> fields = new ArrayList<String>();
+    for (Substitution sub : this.substitutions) {
+      if (sub.getFieldsWritten() == null) {
+        return null;
+      }
+      fields.addAll(sub.getFieldsWritten());
+    }
+    return fields;
+  }
 }
@@ -15,6 +15,8 @@
 
 package com.nextdoor.bender.operation.substitution.context;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import com.nextdoor.bender.InternalEvent;
@@ -75,4 +77,14 @@ public class ContextSubstitution extends Substitution {
 
     return contexts;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.singletonList(this.key);
+  }
 }
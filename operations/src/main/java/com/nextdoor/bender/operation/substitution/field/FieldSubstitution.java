@@ -15,6 +15,8 @@
 
 package com.nextdoor.bender.operation.substitution.field;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -95,4 +97,19 @@ public class FieldSubstitution extends Substitution {
       devent.deleteField(kv.getKey());
     }
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return this.srcFields;
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    List<String> written = new ArrayList<String>();
+    written.add(this.key);
+    if (this.removeSrcField) {
+      written.addAll(this.srcFields);
+    }
+    return written;
+  }
 }
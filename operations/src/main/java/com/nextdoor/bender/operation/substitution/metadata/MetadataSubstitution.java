@@ -15,6 +15,8 @@
 
 package com.nextdoor.bender.operation.substitution.metadata;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -71,4 +73,14 @@ public class MetadataSubstitution extends Substitution {
 
     return metadata;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.singletonList(this.key);
+  }
 }
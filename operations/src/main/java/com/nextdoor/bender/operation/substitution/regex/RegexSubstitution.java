@@ -15,6 +15,8 @@
 
 package com.nextdoor.bender.operation.substitution.regex;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -185,4 +187,21 @@ public class RegexSubstitution extends Substitution {
 
     return new ImmutablePair<String, Map<String, Object>>(foundSourceField, matchedGroups);
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return this.srcFields;
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    List<String> written = new ArrayList<String>();
+    for (RegexSubField field : this.fields) {
+      written.add(field.getKey());
+    }
+    if (this.removeSrcField) {
+      written.addAll(this.srcFields);
+    }
+    return written;
+  }
 }
@@ -15,6 +15,8 @@
 
 package com.nextdoor.bender.operation.substitution.ztatic;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.DeserializedEvent;
@@ -49,4 +51,14 @@ public class StaticSubstitution extends Substitution {
       }
     }
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.singletonList(this.key);
+  }
 }
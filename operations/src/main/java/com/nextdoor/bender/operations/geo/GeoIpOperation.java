@@ -18,6 +18,8 @@ package com.nextdoor.bender.operations.geo;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import com.maxmind.geoip2.DatabaseReader;
@@ -26,10 +28,11 @@ import com.maxmind.geoip2.model.CityResponse;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.deserializer.FieldNotFoundException;
 import com.nextdoor.bender.operation.EventOperation;
+import com.nextdoor.bender.operation.FieldAccess;
 import com.nextdoor.bender.operation.OperationException;
 import com.nextdoor.bender.operations.geo.GeoIpOperationConfig.GeoProperty;
 
-public class GeoIpOperation implements EventOperation {
+public class GeoIpOperation implements EventOperation, FieldAccess {
   private final String pathToIpAddress;
   private final String destFieldName;
   private final DatabaseReader databaseReader;
@@ -200,4 +203,14 @@ public class GeoIpOperation implements EventOperation {
 
     return ievent;
   }
+
+  @Override
+  public Collection<String> getFieldsRead() {
+    return Collections.singletonList(this.pathToIpAddress);
+  }
+
+  @Override
+  public Collection<String> getFieldsWritten() {
+    return Collections.singletonList(this.destFieldName);
+  }
 }
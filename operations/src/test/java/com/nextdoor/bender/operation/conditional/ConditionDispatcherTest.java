@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+
+package com.nextdoor.bender.operation.conditional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.nextdoor.bender.InternalEvent;
+import com.nextdoor.bender.operation.FilterOperation;
+import com.nextdoor.bender.operation.filter.BasicFilterOperation;
+import com.nextdoor.bender.operation.filter.RegexFilterOperation;
+import com.nextdoor.bender.testutils.DummyDeserializerHelper.DummpyMapEvent;
+
+public class ConditionDispatcherTest {
+
+  private static InternalEvent event(String type) {
+    DummpyMapEvent devent = new DummpyMapEvent();
+    if (type != null) {
+      devent.setField("type", type);
+    }
+    devent.setField("other", "x");
+
+    InternalEvent ievent = new InternalEvent("", null, 1);
+    ievent.setEventObj(devent);
+    return ievent;
+  }
+
+  private static RegexFilterOperation regex(String path, String regex) {
+    return new RegexFilterOperation(Pattern.compile(regex), path, false);
+  }
+
+  /*
+   * Selects like ConditionalOperation used to, testing each condition in order.
+   */
+  private static int sequential(List<FilterOperation> conditions, InternalEvent ievent) {
+    for (int i = 0; i < conditions.size(); i++) {
+      if (conditions.get(i).test(ievent)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  @Test
+  public void testLiteralDispatch() {
+    List<FilterOperation> conditions = Arrays.asList(regex("type", "access"),
+        regex("type", "^error$"), regex("type", "(?:audit|security)"), regex("type", "a\\.b"));
+    ConditionDispatcher dispatcher = new ConditionDispatcher(conditions);
+
+    assertEquals(1, dispatcher.getStepCount());
+    assertEquals(0, dispatcher.select(event("access")));
+    assertEquals(1, dispatcher.select(event("error")));
+    assertEquals(2, dispatcher.select(event("security")));
+    assertEquals(3, dispatcher.select(event("a.b")));
+    assertEquals(-1, dispatcher.select(event("axb")));
+    assertEquals(-1, dispatcher.select(event(null)));
+  }
+
+  @Test
+  public void testRegexBeforeLiteralTakesPrecedence() {
+    List<FilterOperation> conditions = Arrays.asList(regex("type", "err.*"),
+        regex("type", "error"), regex("type", "warn"), regex("type", "w[a-z]+"));
+    ConditionDispatcher dispatcher = new ConditionDispatcher(conditions);
+
+    for (String type : Arrays.asList("error", "errno", "warn", "wait", "info")) {
+      assertEquals(type, sequential(conditions, event(type)), dispatcher.select(event(type)));
+    }
+  }
+
+  @Test
+  public void testMixedConditionsKeepOrder() {
+    List<FilterOperation> conditions = Arrays.asList(regex("type", "a"), regex("type", "b"),
+        regex("other", "x"), regex("type", "c"), regex("type", "d"),
+        new RegexFilterOperation(Pattern.compile("e"), "type", true), regex("type", "f"),
+        new BasicFilterOperation(false));
+    ConditionDispatcher dispatcher = new ConditionDispatcher(conditions);
+
+    /*
+     * [a, b], other, [c, d], exclude, f, basic
+     */
+    assertEquals(6, dispatcher.getStepCount());
+    for (String type : Arrays.asList("a", "b", "c", "d", "e", "f", "g")) {
+      assertEquals(type, sequential(conditions, event(type)), dispatcher.select(event(type)));
+    }
+  }
+
+  @Test
+  public void testCaseInsensitiveNotDispatched() {
+    List<FilterOperation> conditions = Arrays.asList(
+        new RegexFilterOperation(Pattern.compile("a", Pattern.CASE_INSENSITIVE), "type", false),
+        regex("type", "b"));
+    ConditionDispatcher dispatcher = new ConditionDispatcher(conditions);
+
+    assertEquals(2, dispatcher.getStepCount());
+    assertEquals(0, dispatcher.select(event("A")));
+  }
+
+  @Test
+  public void testGetLiterals() {
+    assertEquals(Arrays.asList("foo"), ConditionDispatcher.getLiterals(Pattern.compile("foo")));
+    assertEquals(Arrays.asList("foo", "bar"),
+        ConditionDispatcher.getLiterals(Pattern.compile("^(foo|bar)$")));
+    assertEquals(Arrays.asList("a$"), ConditionDispatcher.getLiterals(Pattern.compile("a\\$")));
+    assertNull(ConditionDispatcher.getLiterals(Pattern.compile("(a)|(b)")));
+    assertNull(ConditionDispatcher.getLiterals(Pattern.compile("a\\d")));
+    assertNull(ConditionDispatcher.getLiterals(Pattern.compile("(?i)a")));
+    assertNull(ConditionDispatcher.getLiterals(Pattern.compile("a+")));
+  }
+}
@@ -17,6 +17,7 @@ package com.nextdoor.bender.operation.fork;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -26,6 +27,14 @@ import org.junit.Before;
 import org.junit.Test;
 import com.nextdoor.bender.handler.BaseHandlerQueueTest.DummyHandler;
 import com.nextdoor.bender.monitoring.Monitor;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.nextdoor.bender.config.AbstractConfig;
+import com.nextdoor.bender.ipc.TransportBuffer;
+import com.nextdoor.bender.ipc.TransportConfig;
+import com.nextdoor.bender.ipc.TransportException;
+import com.nextdoor.bender.ipc.TransportFactory;
+import com.nextdoor.bender.ipc.UnpartitionedTransport;
+import com.nextdoor.bender.testutils.DummyTransportHelper.ArrayTransportBuffer;
 import com.nextdoor.bender.testutils.DummyTransportHelper.BufferedTransporter;
 import com.oath.cyclops.async.adapters.Queue;
 import com.nextdoor.bender.aws.TestContext;
@@ -36,6 +45,59 @@ import com.nextdoor.bender.handler.BaseHandlerQueueTest.DummyEvent;
 
 public class ForkOperationFactoryTest {
 
+  /**
+   * Fails batches containing events of the second fork while {@link #fail} is set.
+   */
+  public static class FailingTransporter implements UnpartitionedTransport {
+    public static volatile boolean fail = false;
+
+    @Override
+    public void sendBatch(TransportBuffer buffer) throws TransportException {
+      List<String> records = ((ArrayTransportBuffer) buffer).getInternalBuffer();
+      if (fail && records.stream().anyMatch(r -> r.endsWith("-+"))) {
+        throw new TransportException("expected");
+      }
+
+      BufferedTransporter.output.addAll(records);
+    }
+  }
+
+  public static class FailingTransporterFactory implements TransportFactory {
+    @Override
+    public UnpartitionedTransport newInstance() {
+      return new FailingTransporter();
+    }
+
+    @Override
+    public void setConf(AbstractConfig config) {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public TransportBuffer newTransportBuffer() {
+      return new ArrayTransportBuffer();
+    }
+
+    @Override
+    public int getMaxThreads() {
+      return 1;
+    }
+
+    @Override
+    public Class<FailingTransporter> getChildClass() {
+      return FailingTransporter.class;
+    }
+  }
+
+  @JsonTypeName("ForkOperationFactoryTest$FailingTransporterConfig")
+  public static class FailingTransporterConfig extends TransportConfig {
+    @Override
+    public Class<FailingTransporterFactory> getFactoryClass() {
+      return FailingTransporterFactory.class;
+    }
+  }
+
   private DummyHandler handler;
 
   @Before
@@ -46,6 +108,7 @@ public class ForkOperationFactoryTest {
 
   @After
   public void after() {
+    FailingTransporter.fail = false;
     BufferedTransporter.output.clear();
     Monitor.getInstance().clearStats();
   }
@@ -181,4 +244,32 @@ public class ForkOperationFactoryTest {
     assertEquals(2000, BufferedTransporter.output.size());
     assertTrue(expected.containsAll(BufferedTransporter.output));
   }
+
+  @Test
+  public void testRetryAfterOneForkFailsWithDedup() throws HandlerException {
+    BaseHandler.CONFIG_FILE = "/config/handler_config_fork_dedup.yaml";
+
+    TestContext context = new TestContext();
+    context.setInvokedFunctionArn("arn:aws:lambda:us-east-1:123:function:test:tag");
+
+    /*
+     * Batches of the first fork are sent while those of the second fail, which fails the
+     * invocation
+     */
+    FailingTransporter.fail = true;
+    try {
+      handler.handler(getEvents(2), context);
+      fail("expected the invocation to fail");
+    } catch (RuntimeException e) {
+    }
+
+    /*
+     * The retry must deliver the second fork's events rather than dropping the inputs as duplicates
+     */
+    FailingTransporter.fail = false;
+    BufferedTransporter.output.clear();
+    handler.handler(getEvents(2), context);
+
+    assertTrue(BufferedTransporter.output.containsAll(Arrays.asList("0-+", "1-+")));
+  }
 }
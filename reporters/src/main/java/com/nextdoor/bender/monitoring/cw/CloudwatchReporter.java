@@ -21,12 +21,15 @@ import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
 import org.apache.commons.collections4.ListUtils;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
 import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.nextdoor.bender.monitoring.HistogramStat;
 import com.nextdoor.bender.monitoring.Reporter;
 import com.nextdoor.bender.monitoring.Stat;
 import com.nextdoor.bender.monitoring.StatFilter;
@@ -38,6 +41,11 @@ import static com.nextdoor.bender.monitoring.ReporterUtils.tagsToDimensions;
  * Writes metrics to Amazon Cloudwatch.
  */
 public class CloudwatchReporter implements Reporter {
+  /*
+   * Maximum number of distinct values CW accepts in a single metric datum.
+   */
+  private static final int MAX_VALUES_PER_DATUM = 150;
+
   private final AmazonCloudWatch client;
   private final String namespace;
   private final List<StatFilter> statFilters;
@@ -67,6 +75,11 @@ public class CloudwatchReporter implements Reporter {
       Collection<Dimension> metricDims = tagsToDimensions(stat.getTags());
       metricDims.addAll(parentDims);
 
+      if (stat instanceof HistogramStat) {
+        metrics.addAll(toDistribution((HistogramStat) stat, dt, metricDims));
+        continue;
+      }
+
       MetricDatum metric = new MetricDatum();
       metric.setMetricName(stat.getName());
       // TODO: add units to Stat object SYSTEMS-870
@@ -91,6 +104,45 @@ public class CloudwatchReporter implements Reporter {
     }
   }
 
+  /**
+   * Converts a histogram into CW values and counts so that CW can compute percentiles across
+   * invocations. Histograms with more distinct values than a datum allows are split over several
+   * datums.
+   */
+  static List<MetricDatum> toDistribution(HistogramStat stat, Date dt,
+      Collection<Dimension> dims) {
+    List<MetricDatum> metrics = new ArrayList<MetricDatum>();
+    Histogram histogram = stat.getSnapshot();
+
+    if (stat.getValue() == 0) {
+      return metrics;
+    }
+
+    List<Double> values = new ArrayList<Double>();
+    List<Double> counts = new ArrayList<Double>();
+
+    for (HistogramIterationValue v : histogram.recordedValues()) {
+      values.add((double) histogram.highestEquivalentValue(v.getValueIteratedTo()));
+      counts.add((double) v.getCountAtValueIteratedTo());
+    }
+
+    for (int i = 0; i < values.size(); i += MAX_VALUES_PER_DATUM) {
+      int end = Math.min(i + MAX_VALUES_PER_DATUM, values.size());
+
+      MetricDatum metric = new MetricDatum();
+      metric.setMetricName(stat.getName());
+      metric.setUnit(StandardUnit.None);
+      metric.setTimestamp(dt);
+      metric.setDimensions(dims);
+      metric.setValues(new ArrayList<Double>(values.subList(i, end)));
+      metric.setCounts(new ArrayList<Double>(counts.subList(i, end)));
+
+      metrics.add(metric);
+    }
+
+    return metrics;
+  }
+
   @Override
   public List<StatFilter> getStatFilters() {
     return this.statFilters;
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.nextdoor.bender.monitoring.HistogramStat;
 import com.nextdoor.bender.monitoring.Reporter;
 import com.nextdoor.bender.monitoring.Stat;
 import com.nextdoor.bender.monitoring.StatFilter;
@@ -48,7 +49,10 @@ public class DataDogReporter implements Reporter {
      */
     long ts = invokeTimeMs / 1000;
 
-    for (Stat stat : stats) {
+    /*
+     * Histograms are written as gauges of their percentiles.
+     */
+    for (Stat stat : HistogramStat.expand(stats)) {
       allTags.addAll(tags);
       allTags.addAll(stat.getTags());
 
@@ -18,6 +18,7 @@ package com.nextdoor.bender.monitoring.embedded.metrics;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.google.gson.Gson;
+import com.nextdoor.bender.monitoring.HistogramStat;
 import com.nextdoor.bender.monitoring.Reporter;
 import com.nextdoor.bender.monitoring.Stat;
 import com.nextdoor.bender.monitoring.StatFilter;
@@ -94,10 +95,11 @@ public class CloudWatchEmbeddedMetricsReporter implements Reporter {
         dimensions.forEach(embeddedMetricsObject::put);
 
         /* Each stat is essentially a metric so iterate through each stat (metric).
-           We can be confident there are now duplicate stats since handler guarantees that
+           We can be confident there are now duplicate stats since handler guarantees that.
+           Histograms are written as their percentiles.
          */
         List<CloudWatchMetricObject> cwMetricObjects = new ArrayList<>();
-        stats.forEach(s -> {
+        HistogramStat.expand(stats).forEach(s -> {
             /* each CloudWatchMetric object will have the overall dimensions at the operation level */
             List<String> allDimensions = new ArrayList<>(dimensions.keySet());
             List<Dimension> statDimensions = tagsToDimensions(s.getTags());
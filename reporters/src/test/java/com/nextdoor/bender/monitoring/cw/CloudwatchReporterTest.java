@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ * Copyright 2018 Nextdoor.com, Inc
+ *
+ */
+package com.nextdoor.bender.monitoring.cw;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.nextdoor.bender.monitoring.HistogramStat;
+
+public class CloudwatchReporterTest {
+
+  @Test
+  public void testDistribution() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    stat.record(1000);
+    stat.record(1000);
+    stat.record(5000);
+    stat.snapshot();
+
+    List<MetricDatum> metrics = CloudwatchReporter.toDistribution(stat, new Date(),
+        Collections.<Dimension>emptyList());
+
+    assertEquals(1, metrics.size());
+    assertEquals("latency.ns", metrics.get(0).getMetricName());
+    assertEquals(2, metrics.get(0).getValues().size());
+    assertEquals(2.0, metrics.get(0).getCounts().get(0), 0);
+    assertEquals(1.0, metrics.get(0).getCounts().get(1), 0);
+  }
+
+  @Test
+  public void testDistributionIsSplit() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    for (int i = 1; i <= 200; i++) {
+      stat.record(i * 1000000L);
+    }
+    stat.snapshot();
+
+    List<MetricDatum> metrics = CloudwatchReporter.toDistribution(stat, new Date(),
+        Collections.<Dimension>emptyList());
+
+    assertEquals(2, metrics.size());
+    assertEquals(150, metrics.get(0).getValues().size());
+
+    double total = 0;
+    for (MetricDatum metric : metrics) {
+      for (Double count : metric.getCounts()) {
+        total += count;
+      }
+    }
+    assertEquals(200.0, total, 0);
+  }
+
+  @Test
+  public void testEmptyDistribution() {
+    HistogramStat stat = new HistogramStat("latency.ns");
+    stat.snapshot();
+
+    assertEquals(0, CloudwatchReporter.toDistribution(stat, new Date(),
+        Collections.<Dimension>emptyList()).size());
+  }
+}
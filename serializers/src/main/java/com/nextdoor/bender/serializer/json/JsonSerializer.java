@@ -15,28 +15,81 @@
 
 package com.nextdoor.bender.serializer.json;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.nextdoor.bender.serializer.JsonText;
 import com.nextdoor.bender.serializer.SerializationException;
 import com.nextdoor.bender.serializer.Serializer;
 
 /**
- * Uses GSON to serialize Objects to Strings.
+ * Uses GSON to serialize Objects to Strings. Maps and Lists, such as payloads produced by the
+ * StreamingJson deserializer, are written directly without looking up a Gson TypeAdapter for every
+ * value. The output is the same as Gson's.
  */
 public class JsonSerializer implements Serializer {
   private Gson gson;
 
   public JsonSerializer(FieldNamingPolicy policy) {
-    GsonBuilder gsonBuilder = new GsonBuilder();
+    GsonBuilder gsonBuilder = JsonText.register(new GsonBuilder());
     this.gson = gsonBuilder.setFieldNamingPolicy(policy).create();
   }
 
   public String serialize(Object object) throws SerializationException {
     try {
+      if (object instanceof Map || object instanceof List) {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = gson.newJsonWriter(out);
+        write(writer, object);
+        writer.flush();
+        return out.toString();
+      }
+
       return gson.toJson(object);
     } catch (Exception e) {
       throw new SerializationException(e);
     }
   }
+
+  private void write(JsonWriter writer, Object value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+    } else if (value instanceof String) {
+      writer.value((String) value);
+    } else if (value instanceof Map) {
+      writer.beginObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        writer.name(String.valueOf(entry.getKey()));
+        write(writer, entry.getValue());
+      }
+      writer.endObject();
+    } else if (value instanceof List) {
+      writer.beginArray();
+      for (Object o : (List<?>) value) {
+        write(writer, o);
+      }
+      writer.endArray();
+    } else if (value instanceof Boolean) {
+      writer.value((Boolean) value);
+    } else if (value instanceof Number) {
+      /*
+       * Written using the number's own text which keeps numbers that were never converted to a
+       * double unchanged
+       */
+      writer.value((Number) value);
+    } else if (value instanceof JsonText) {
+      /*
+       * Values the deserializer never parsed are written out as they were read
+       */
+      writer.jsonValue(((JsonText) value).toJson());
+    } else {
+      gson.toJson(value, value.getClass(), writer);
+    }
+  }
 }
@@ -52,6 +52,14 @@ public class S3TransportFactory implements TransportFactory {
         this.config.getUseCompression(), this.pendingMultiPartUploads);
   }
 
+  /**
+   * Parts are only published once {@link #close()} completes the multipart uploads.
+   */
+  @Override
+  public boolean isDeliveredOnSend() {
+    return false;
+  }
+
   @Override
   public void close() {
     Exception e = null;
@@ -26,6 +26,7 @@ import org.junit.Test;
 import com.amazonaws.services.lambda.runtime.events.KinesisEvent;
 import com.nextdoor.bender.InternalEvent;
 import com.nextdoor.bender.testutils.TestUtils;
+import com.nextdoor.bender.utils.EventHash;
 
 public class ElasticSearchTansportSerializerTest {
 
@@ -80,6 +81,27 @@ public class ElasticSearchTansportSerializerTest {
     assertEquals(expected, actual);
   }
 
+  @Test
+  public void testHashIdIsSha1() throws UnsupportedEncodingException, IOException {
+    ElasticSearchTransportSerializer serializer =
+        new ElasticSearchTransportSerializer(true, "event", "log", false, "_routing");
+    InternalEvent.setEventHashFunction(EventHash.XXHASH64);
+    try {
+      InternalEvent record = new DummyEvent("foo", 0);
+      record.setSerialized("foo");
+
+      String actual = new String(serializer.serialize(record));
+      String expected = TestUtils.getResourceString(this.getClass(), "basic_hash_output.txt");
+
+      /*
+       * Document ids must not change with the event_hash setting
+       */
+      assertEquals(expected, actual);
+    } finally {
+      InternalEvent.setEventHashFunction(EventHash.SHA1);
+    }
+  }
+
   @Test
   public void testSerializeDateIndexName() throws UnsupportedEncodingException, IOException {
     ElasticSearchTransportSerializer serializer =
@@ -36,7 +36,7 @@ public class BasicWrapper implements Wrapper {
     this.timestamp = internal.getEventTime();
 
     if (internal.getEventObj() != null) {
-      this.payload = internal.getEventObj().getPayload();
+      this.payload = internal.getEventObj().getReadOnlyPayload();
     } else {
       this.payload = null;
     }
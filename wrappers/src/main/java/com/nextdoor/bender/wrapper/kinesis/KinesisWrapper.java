@@ -56,7 +56,7 @@ public class KinesisWrapper implements Wrapper {
     this.processingDelay = processingTime - timestamp;
 
     if (internal.getEventObj() != null) {
-      this.payload = internal.getEventObj().getPayload();
+      this.payload = internal.getEventObj().getReadOnlyPayload();
     } else {
       this.payload = null;
     }
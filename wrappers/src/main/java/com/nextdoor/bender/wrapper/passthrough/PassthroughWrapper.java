@@ -28,10 +28,10 @@ public class PassthroughWrapper implements Wrapper {
 
   private PassthroughWrapper(final InternalEvent internal) {
     if (internal == null || internal.getEventObj() == null
-        || internal.getEventObj().getPayload() == null) {
+        || internal.getEventObj().getReadOnlyPayload() == null) {
       wrapped = null;
     } else {
-      wrapped = internal.getEventObj().getPayload();
+      wrapped = internal.getEventObj().getReadOnlyPayload();
     }
   }
 
@@ -51,7 +51,7 @@ public class S3Wrapper implements Wrapper {
     this.sha1Hash = internal.getEventSha1Hash();
 
     if (internal.getEventObj() != null) {
-      this.payload = internal.getEventObj().getPayload();
+      this.payload = internal.getEventObj().getReadOnlyPayload();
     } else {
       this.payload = null;
     }